@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.io.IOException;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.processor.io.FileChannelCallback;
+
+/**
+ * An optional capability of a {@link ContentRepository} that stores content in
+ * files that can be accessed directly. Callers should check whether a
+ * repository implements this interface and fall back to
+ * {@link ContentRepository#read(ContentClaim)} if it does not.
+ */
+public interface FileChannelContentRepository extends ContentRepository {
+
+    /**
+     * Provides direct access to the region of the file that holds a subset of
+     * the content of the given claim, starting at offset and spanning length
+     * bytes. This allows callers to move content to another channel without
+     * copying it into the JVM heap. If this repository does not store the
+     * content of the claim in a file that can be accessed directly, the
+     * callback is not invoked and callers should use
+     * {@link ContentRepository#read(ContentClaim)} instead.
+     *
+     * @param claim to read from
+     * @param offset the offset into the claim at which the region begins
+     * @param length the number of bytes in the region
+     * @param callback the callback to invoke with the region
+     * @return <code>true</code> if the callback was invoked,
+     * <code>false</code> if the content cannot be accessed as a file region
+     * @throws IOException if unable to read or if thrown by the callback
+     */
+    boolean read(ContentClaim claim, long offset, long length, FileChannelCallback callback) throws IOException;
+}
@@ -44,6 +44,10 @@ public class ProcessGroupStatus implements Cloneable {
     private long bytesSent;
     private int flowFilesTransferred;
     private long bytesTransferred;
+    private int dedicatedThreadCount;
+    private int dedicatedPoolActiveThreadCount;
+    private int dedicatedPoolQueuedTaskCount;
+    private int dedicatedPoolUtilization;
 
     private Collection<ConnectionStatus> connectionStatus = new ArrayList<>();
     private Collection<ProcessorStatus> processorStatus = new ArrayList<>();
@@ -244,6 +248,54 @@ public class ProcessGroupStatus implements Cloneable {
         this.bytesTransferred = bytesTransferred;
     }
 
+    /**
+     * @return the size of the thread pool dedicated to this group, or 0 if the
+     *         group's components run on the shared pool
+     */
+    public int getDedicatedThreadCount() {
+        return dedicatedThreadCount;
+    }
+
+    public void setDedicatedThreadCount(int dedicatedThreadCount) {
+        this.dedicatedThreadCount = dedicatedThreadCount;
+    }
+
+    /**
+     * @return the number of threads of the dedicated pool that are currently
+     *         running a task
+     */
+    public int getDedicatedPoolActiveThreadCount() {
+        return dedicatedPoolActiveThreadCount;
+    }
+
+    public void setDedicatedPoolActiveThreadCount(int dedicatedPoolActiveThreadCount) {
+        this.dedicatedPoolActiveThreadCount = dedicatedPoolActiveThreadCount;
+    }
+
+    /**
+     * @return the number of tasks that are due to run but are waiting for a
+     *         thread of the dedicated pool
+     */
+    public int getDedicatedPoolQueuedTaskCount() {
+        return dedicatedPoolQueuedTaskCount;
+    }
+
+    public void setDedicatedPoolQueuedTaskCount(int dedicatedPoolQueuedTaskCount) {
+        this.dedicatedPoolQueuedTaskCount = dedicatedPoolQueuedTaskCount;
+    }
+
+    /**
+     * @return the percentage of the dedicated pool's thread time spent running
+     *         tasks over the most recent sampling window
+     */
+    public int getDedicatedPoolUtilization() {
+        return dedicatedPoolUtilization;
+    }
+
+    public void setDedicatedPoolUtilization(int dedicatedPoolUtilization) {
+        this.dedicatedPoolUtilization = dedicatedPoolUtilization;
+    }
+
     @Override
     public ProcessGroupStatus clone() {
 
@@ -267,6 +319,10 @@ public class ProcessGroupStatus implements Cloneable {
         clonedObj.bytesSent = bytesSent;
         clonedObj.flowFilesTransferred = flowFilesTransferred;
         clonedObj.bytesTransferred = bytesTransferred;
+        clonedObj.dedicatedThreadCount = dedicatedThreadCount;
+        clonedObj.dedicatedPoolActiveThreadCount = dedicatedPoolActiveThreadCount;
+        clonedObj.dedicatedPoolQueuedTaskCount = dedicatedPoolQueuedTaskCount;
+        clonedObj.dedicatedPoolUtilization = dedicatedPoolUtilization;
 
         if (connectionStatus != null) {
             final Collection<ConnectionStatus> statusList = new ArrayList<>();
@@ -348,6 +404,16 @@ public class ProcessGroupStatus implements Cloneable {
         builder.append(flowFilesSent);
         builder.append(", bytesSent=");
         builder.append(bytesSent);
+        if (dedicatedThreadCount > 0) {
+            builder.append(", dedicatedThreadCount=");
+            builder.append(dedicatedThreadCount);
+            builder.append(", dedicatedPoolActiveThreadCount=");
+            builder.append(dedicatedPoolActiveThreadCount);
+            builder.append(", dedicatedPoolQueuedTaskCount=");
+            builder.append(dedicatedPoolQueuedTaskCount);
+            builder.append(", dedicatedPoolUtilization=");
+            builder.append(dedicatedPoolUtilization);
+        }
         builder.append(",\n\tconnectionStatus=");
 
         for (final ConnectionStatus status : connectionStatus) {
@@ -411,6 +477,11 @@ public class ProcessGroupStatus implements Cloneable {
         target.setBytesReceived(target.getBytesReceived() + toMerge.getBytesReceived());
         target.setFlowFilesSent(target.getFlowFilesSent() + toMerge.getFlowFilesSent());
         target.setBytesSent(target.getBytesSent() + toMerge.getBytesSent());
+        target.setDedicatedThreadCount(target.getDedicatedThreadCount() + toMerge.getDedicatedThreadCount());
+        target.setDedicatedPoolActiveThreadCount(target.getDedicatedPoolActiveThreadCount() + toMerge.getDedicatedPoolActiveThreadCount());
+        target.setDedicatedPoolQueuedTaskCount(target.getDedicatedPoolQueuedTaskCount() + toMerge.getDedicatedPoolQueuedTaskCount());
+        // report the busiest node, as an average would hide a saturated pool
+        target.setDedicatedPoolUtilization(Math.max(target.getDedicatedPoolUtilization(), toMerge.getDedicatedPoolUtilization()));
 
         // connection status
         // sort by id
@@ -42,6 +42,7 @@ public class ProcessorStatus implements Cloneable {
     private long bytesReceived;
     private int flowFilesSent;
     private long bytesSent;
+    private long runDurationNanos;
 
     public String getId() {
         return id;
@@ -211,6 +212,19 @@ public class ProcessorStatus implements Cloneable {
         this.bytesSent = bytesSent;
     }
 
+    /**
+     * @param timeUnit the unit in which to return the duration
+     * @return the Run Duration that is currently used for the processor's batches, which the framework may have
+     *         adapted from the configured Run Duration
+     */
+    public long getRunDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(runDurationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void setRunDuration(final long duration, final TimeUnit timeUnit) {
+        this.runDurationNanos = timeUnit.toNanos(duration);
+    }
+
     @Override
     public ProcessorStatus clone() {
         final ProcessorStatus clonedObj = new ProcessorStatus();
@@ -221,6 +235,7 @@ public class ProcessorStatus implements Cloneable {
         clonedObj.bytesReceived = bytesReceived;
         clonedObj.flowFilesSent = flowFilesSent;
         clonedObj.bytesSent = bytesSent;
+        clonedObj.runDurationNanos = runDurationNanos;
         clonedObj.groupId = groupId;
         clonedObj.id = id;
         clonedObj.inputBytes = inputBytes;
@@ -268,6 +283,8 @@ public class ProcessorStatus implements Cloneable {
         builder.append(processingNanos);
         builder.append(", activeThreadCount=");
         builder.append(activeThreadCount);
+        builder.append(", runDurationNanos=");
+        builder.append(runDurationNanos);
         builder.append("]");
         return builder.toString();
     }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor;
+
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.exception.FlowFileAccessException;
+import org.apache.nifi.processor.exception.FlowFileHandlingException;
+import org.apache.nifi.processor.exception.MissingFlowFileException;
+import org.apache.nifi.processor.io.FileChannelCallback;
+import org.apache.nifi.processor.io.InputStreamCallback;
+
+/**
+ * An optional capability of a {@link ProcessSession} that is able to provide
+ * the content of a FlowFile as a region of a file. Callers should check
+ * whether a session implements this interface and fall back to
+ * {@link ProcessSession#read(FlowFile, InputStreamCallback)} if it does not.
+ */
+public interface FileChannelProcessSession extends ProcessSession {
+
+    /**
+     * Executes the given callback against the region of the file that holds
+     * the contents corresponding to the given FlowFile, if the content is
+     * stored in a file that can be accessed directly. This allows the content
+     * to be transferred to another channel, such as a socket, by means of
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * without being copied into the JVM heap. If the content cannot be accessed
+     * in this way, the callback is not invoked and
+     * {@link ProcessSession#read(FlowFile, InputStreamCallback)} should be used
+     * instead.
+     *
+     * <i>Note</i>: The FileChannel provided to the given FileChannelCallback
+     * will not be accessible once this method has completed its execution.
+     *
+     * @param source flowfile to retrieve content of
+     * @param reader that will be called with the region of the flowfile content
+     * @return <code>true</code> if the callback was invoked, <code>false</code>
+     * if the content of the FlowFile cannot be accessed as a file region
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session and for
+     * the given FlowFile(s)
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     * transferred or removed or doesn't belong to this session. Automatic
+     * rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     * found. The FlowFile should no longer be reference, will be internally
+     * destroyed, and the session is automatically rolled back and what is left
+     * of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing
+     * FlowFile content
+     */
+    boolean read(FlowFile source, FileChannelCallback reader) throws FlowFileAccessException;
+}
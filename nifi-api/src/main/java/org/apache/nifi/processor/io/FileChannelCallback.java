@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides direct access to the region of a file that holds some content, so that the content can be
+ * moved to another channel by means of {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * without first being copied into the JVM heap.
+ */
+public interface FileChannelCallback {
+
+    /**
+     * Provides a read-only channel to the file that holds the content. The
+     * channel is automatically opened and closed and must not be closed by
+     * the callback. The channel is not positioned at the start of the content;
+     * callers should use the absolute read and transfer methods with the given
+     * position.
+     *
+     * @param channel the channel that holds the content
+     * @param position the position within the channel at which the content begins
+     * @param length the number of bytes of content
+     * @throws IOException if issues reading from the underlying channel
+     */
+    void process(FileChannel channel, long position, long length) throws IOException;
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.IOException;
+
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryCursor;
+import org.apache.nifi.provenance.search.QueryPage;
+
+/**
+ * A {@link ProvenanceEventRepository} that is able to return the results of a
+ * query one page at a time. Implementing this interface is optional; callers
+ * must check whether the configured repository implements it before paging.
+ */
+public interface PageableProvenanceEventRepository extends ProvenanceEventRepository {
+
+    /**
+     * Returns a single page of the Provenance Events that match the given
+     * query, ordered by Event ID. Unlike {@link #submitQuery(Query)}, no
+     * results are retained by the repository between calls, so a client may
+     * walk through any number of matching events, one page at a time, by
+     * passing the cursor of each page to obtain the next. The maximum number
+     * of results of the query is ignored.
+     *
+     * <p>
+     * Events that are registered while a client is paging may or may not be
+     * returned, and a page may contain fewer events than requested even if
+     * there are more pages.
+     * </p>
+     *
+     * @param query the query that events must match
+     * @param cursor the position within the results at which the page begins,
+     * as obtained from {@link QueryCursor#first(org.apache.nifi.provenance.search.EventIdOrder)}
+     * or from the previous page
+     * @param pageSize the maximum number of events to return
+     * @return the page of matching events
+     * @throws IOException if unable to read from the repository
+     */
+    QueryPage getEventPage(Query query, QueryCursor cursor, int pageSize) throws IOException;
+}
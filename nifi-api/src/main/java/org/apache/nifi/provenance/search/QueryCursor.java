@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.search;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * The position of a client within the results of a paged query, as passed to
+ * {@link org.apache.nifi.provenance.PageableProvenanceEventRepository#getEventPage(Query, QueryCursor, int)}.
+ * A cursor holds no results and no state within the repository, so a client
+ * may walk any number of events while the repository holds only a single page
+ * in memory. The same Query must be given with each page.
+ * </p>
+ *
+ * <p>
+ * A cursor may be converted to and from a String token, so that it can be
+ * handed to remote clients.
+ * </p>
+ */
+public final class QueryCursor {
+
+    private final EventIdOrder order;
+    private final long nextEventId;
+
+    public QueryCursor(final EventIdOrder order, final long nextEventId) {
+        this.order = Objects.requireNonNull(order);
+        this.nextEventId = nextEventId;
+    }
+
+    /**
+     * @param order the order in which to return events
+     * @return a cursor that is positioned before the first event in the given order
+     */
+    public static QueryCursor first(final EventIdOrder order) {
+        return new QueryCursor(order, order == EventIdOrder.ASCENDING ? 0L : Long.MAX_VALUE);
+    }
+
+    /**
+     * @param token a token obtained from {@link #toToken()}
+     * @return the cursor that the token represents
+     * @throws IllegalArgumentException if the token is not valid
+     */
+    public static QueryCursor fromToken(final String token) {
+        if (token == null || token.length() < 2) {
+            throw new IllegalArgumentException("Invalid Query Cursor token: " + token);
+        }
+
+        final EventIdOrder order;
+        switch (token.charAt(0)) {
+            case 'A':
+                order = EventIdOrder.ASCENDING;
+                break;
+            case 'D':
+                order = EventIdOrder.DESCENDING;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid Query Cursor token: " + token);
+        }
+
+        try {
+            return new QueryCursor(order, Long.parseLong(token.substring(1), 16));
+        } catch (final NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid Query Cursor token: " + token);
+        }
+    }
+
+    /**
+     * @return the order in which events are returned
+     */
+    public EventIdOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * @return the ID of the first event that may be returned in the next
+     * page; events with IDs beyond this one, in the cursor's order, are
+     * returned
+     */
+    public long getNextEventId() {
+        return nextEventId;
+    }
+
+    /**
+     * @param eventId the ID of an event
+     * @return <code>true</code> if the event has not yet been passed by this cursor
+     */
+    public boolean isAtOrBefore(final long eventId) {
+        return order == EventIdOrder.ASCENDING ? eventId >= nextEventId : eventId <= nextEventId;
+    }
+
+    /**
+     * @return an opaque token that represents this cursor
+     */
+    public String toToken() {
+        return (order == EventIdOrder.ASCENDING ? "A" : "D") + Long.toHexString(nextEventId);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof QueryCursor)) {
+            return false;
+        }
+
+        final QueryCursor other = (QueryCursor) obj;
+        return order == other.order && nextEventId == other.nextEventId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * order.hashCode() + (int) (nextEventId ^ (nextEventId >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCursor[order=" + order + ", nextEventId=" + nextEventId + "]";
+    }
+}
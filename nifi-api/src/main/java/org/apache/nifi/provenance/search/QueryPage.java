@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.search;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+
+/**
+ * A single page of the Provenance Events that match a query, as returned by
+ * {@link org.apache.nifi.provenance.PageableProvenanceEventRepository#getEventPage(Query, QueryCursor, int)}
+ */
+public final class QueryPage {
+
+    private final List<ProvenanceEventRecord> events;
+    private final QueryCursor nextCursor;
+
+    public QueryPage(final List<ProvenanceEventRecord> events, final QueryCursor nextCursor) {
+        this.events = Collections.unmodifiableList(events);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the events of this page, in the order of the cursor that was used to obtain it
+     */
+    public List<ProvenanceEventRecord> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return the cursor to use to obtain the next page, or <code>null</code>
+     * if there are no more matching events
+     */
+    public QueryCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return <code>true</code> if there may be more matching events beyond this page
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
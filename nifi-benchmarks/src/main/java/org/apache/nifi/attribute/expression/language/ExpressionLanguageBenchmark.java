@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of evaluating a {@link PreparedQuery} whose Evaluators are built once when the query is prepared
+ * against one whose Evaluators are built for each evaluation, across a cross-section of the function library. Run it
+ * with the {@link org.apache.nifi.benchmarks.BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionLanguageBenchmark {
+
+    @Param({"true", "false"})
+    public boolean compiled;
+
+    @Param({
+        "${filename}",
+        "${filename:toUpper():trim()}",
+        "${filename:substringBefore('.'):substring(0, 3)}",
+        "${filename:matches('.*\\.txt')}",
+        "${filename:replaceAll('(\\w+)\\.txt', '$1.csv')}",
+        "${fileSize:toNumber():gt(1024):and(${filename:endsWith('.txt')})}",
+        "${filename:equals('report.txt'):or(${mime.type:contains('json')})}",
+        "${entryDate:toNumber():toDate():format('yyyy-MM-dd')}",
+        "${path}/${filename:substringAfterLast('/')}.${fileSize:plus(1)}",
+        "${anyAttribute('filename', 'path'):contains('report')}"
+    })
+    public String expression;
+
+    private PreparedQuery query;
+    private Map<String, String> attributes;
+
+    @Setup
+    public void setup() {
+        query = Query.prepare(expression, compiled);
+
+        attributes = new HashMap<>();
+        attributes.put("filename", "report.txt");
+        attributes.put("path", "/data/incoming");
+        attributes.put("fileSize", "4096");
+        attributes.put("entryDate", String.valueOf(System.currentTimeMillis()));
+        attributes.put("mime.type", "application/json");
+    }
+
+    @Benchmark
+    public String evaluate() {
+        return query.evaluateExpressions(attributes);
+    }
+}
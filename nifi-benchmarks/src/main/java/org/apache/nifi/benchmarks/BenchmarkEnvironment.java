@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.util.file.FileUtils;
+
+/**
+ * Prepares the NiFi properties that the framework components read when they are created. Each
+ * benchmark runs in a JVM of its own, so each benchmark is given its own directory, beneath which
+ * all of its repositories are created, and the directory is removed when the JVM exits.
+ */
+public final class BenchmarkEnvironment {
+
+    private static Path directory;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Initializes the NiFi properties with default values
+     *
+     * @return the directory beneath which the repositories are created
+     * @throws IOException if unable to create the directory or write the properties file
+     */
+    public static Path initialize() throws IOException {
+        return initialize(Collections.<String, String> emptyMap());
+    }
+
+    /**
+     * Initializes the NiFi properties with default values, overridden by the given values. The properties
+     * can be initialized only once per JVM; subsequent calls return the same directory and ignore the
+     * given overrides.
+     *
+     * @param overrides the properties to set in addition to, or in place of, the default properties
+     * @return the directory beneath which the repositories are created
+     * @throws IOException if unable to create the directory or write the properties file
+     */
+    public static synchronized Path initialize(final Map<String, String> overrides) throws IOException {
+        if (directory != null) {
+            return directory;
+        }
+
+        final Path benchmarkDirectory = Files.createTempDirectory("nifi-benchmarks");
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FileUtils.deleteFile(benchmarkDirectory.toFile(), true);
+                } catch (final IOException ioe) {
+                    System.err.println("Failed to delete benchmark directory " + benchmarkDirectory + " due to " + ioe);
+                }
+            }
+        }));
+
+        final Properties properties = new Properties();
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_DIRECTORY, resolve(benchmarkDirectory, "flowfile_repository"));
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_PARTITIONS, "16");
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL, "2 mins");
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, "false");
+        properties.setProperty(NiFiProperties.QUEUE_SWAP_THRESHOLD, "20000");
+        properties.setProperty(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", resolve(benchmarkDirectory, "content_repository"));
+        properties.setProperty(NiFiProperties.MAX_APPENDABLE_CLAIM_SIZE, "10 MB");
+        properties.setProperty(NiFiProperties.MAX_FLOWFILES_PER_CLAIM, "100");
+        properties.setProperty(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false");
+        properties.setProperty(NiFiProperties.PROVENANCE_REPO_DIRECTORY_PREFIX + "default", resolve(benchmarkDirectory, "provenance_repository"));
+        properties.putAll(overrides);
+
+        final File propertiesFile = benchmarkDirectory.resolve("nifi.properties").toFile();
+        try (final OutputStream out = new FileOutputStream(propertiesFile)) {
+            properties.store(out, "Generated for benchmarking");
+        }
+
+        System.setProperty(NiFiProperties.PROPERTIES_FILE_PATH, propertiesFile.getAbsolutePath());
+        directory = benchmarkDirectory;
+        return directory;
+    }
+
+    private static String resolve(final Path parent, final String child) {
+        return parent.resolve(child).toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.benchmarks.BenchmarkEnvironment;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.scheduling.SchedulingStrategy;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the {@link StandardFlowFileQueue} and the {@link ShardedFlowFileQueue} when many
+ * threads concurrently put FlowFiles onto and poll FlowFiles from a single queue, both in the default order and
+ * with a prioritizer. Run it with the {@link org.apache.nifi.benchmarks.BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class FlowFileQueueBenchmark {
+
+    @Param({"standard", "sharded"})
+    public String queueType;
+
+    @Param({"8"})
+    public int shardCount;
+
+    @Param({"none", "newestFirst"})
+    public String prioritizer;
+
+    private FlowFileQueue queue;
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize();
+
+        // the mocks do not record their invocations, so that they do not accumulate garbage while being benchmarked
+        final Connectable connectable = Mockito.mock(Connectable.class, Mockito.withSettings().stubOnly());
+        Mockito.when(connectable.getSchedulingStrategy()).thenReturn(SchedulingStrategy.TIMER_DRIVEN);
+
+        final Connection connection = Mockito.mock(Connection.class, Mockito.withSettings().stubOnly());
+        Mockito.when(connection.getSource()).thenReturn(connectable);
+        Mockito.when(connection.getDestination()).thenReturn(connectable);
+
+        final ProcessScheduler scheduler = Mockito.mock(ProcessScheduler.class, Mockito.withSettings().stubOnly());
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class, Mockito.withSettings().stubOnly());
+        final ProvenanceEventRepository provRepo = Mockito.mock(ProvenanceEventRepository.class, Mockito.withSettings().stubOnly());
+        final ResourceClaimManager claimManager = Mockito.mock(ResourceClaimManager.class, Mockito.withSettings().stubOnly());
+        final FlowFileSwapManager swapManager = new InMemorySwapManager();
+
+        if ("sharded".equals(queueType)) {
+            queue = new ShardedFlowFileQueue("benchmark", connection, flowFileRepo, provRepo, claimManager, scheduler, swapManager, null, 20000, shardCount);
+        } else {
+            queue = new StandardFlowFileQueue("benchmark", connection, flowFileRepo, provRepo, claimManager, scheduler, swapManager, null, 20000);
+        }
+
+        if ("newestFirst".equals(prioritizer)) {
+            queue.setPriorities(Collections.<FlowFilePrioritizer> singletonList(new NewestFlowFileFirstPrioritizer()));
+        }
+
+        // apply back pressure so that producers cannot outrun consumers indefinitely
+        queue.setBackPressureObjectThreshold(10000L);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(8)
+    public boolean put() {
+        if (queue.isFull()) {
+            return false;
+        }
+
+        queue.put(new StandardFlowFileRecord.Builder().id(idGenerator.getAndIncrement()).entryDate(System.currentTimeMillis()).size(1024L).build());
+        return true;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(8)
+    public FlowFileRecord pollAndAcknowledge() {
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        final FlowFileRecord flowFile = queue.poll(expired);
+        if (flowFile != null) {
+            queue.acknowledge(flowFile);
+        }
+        return flowFile;
+    }
+
+    private static class NewestFlowFileFirstPrioritizer implements FlowFilePrioritizer {
+        @Override
+        public int compare(final FlowFile o1, final FlowFile o2) {
+            return Long.compare(o2.getEntryDate(), o1.getEntryDate());
+        }
+    }
+
+    private static class InMemorySwapManager implements FlowFileSwapManager {
+        private final ConcurrentMap<String, List<FlowFileRecord>> swappedOut = new ConcurrentHashMap<>();
+
+        @Override
+        public void initialize(final SwapManagerInitializationContext initializationContext) {
+        }
+
+        @Override
+        public String swapOut(final List<FlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue) throws IOException {
+            final String location = UUID.randomUUID().toString();
+            swappedOut.put(location, new ArrayList<>(flowFiles));
+            return location;
+        }
+
+        @Override
+        public List<FlowFileRecord> peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            return new ArrayList<>(swappedOut.get(swapLocation));
+        }
+
+        @Override
+        public List<FlowFileRecord> swapIn(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            return swappedOut.remove(swapLocation);
+        }
+
+        @Override
+        public List<String> recoverSwapLocations(final FlowFileQueue flowFileQueue) throws IOException {
+            return new ArrayList<>(swappedOut.keySet());
+        }
+
+        @Override
+        public QueueSize getSwapSize(final String swapLocation) throws IOException {
+            final List<FlowFileRecord> flowFiles = swappedOut.get(swapLocation);
+            long bytes = 0L;
+            for (final FlowFileRecord flowFile : flowFiles) {
+                bytes += flowFile.getSize();
+            }
+            return new QueueSize(flowFiles.size(), bytes);
+        }
+
+        @Override
+        public Long getMaxRecordId(final String swapLocation) throws IOException {
+            Long maxId = null;
+            for (final FlowFileRecord flowFile : swappedOut.get(swapLocation)) {
+                if (maxId == null || flowFile.getId() > maxId) {
+                    maxId = flowFile.getId();
+                }
+            }
+            return maxId;
+        }
+
+        @Override
+        public void purge() {
+            swappedOut.clear();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.benchmarks.BenchmarkEnvironment;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.util.NiFiProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate at which the {@link FileSystemRepository} writes and reads small Content Claims, many of which
+ * share a single file on disk. Run it with the {@link org.apache.nifi.benchmarks.BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileSystemRepositoryBenchmark {
+
+    @Param({"128", "4096"})
+    public int contentSize;
+
+    @Param({"false", "true"})
+    public boolean memoryMapped;
+
+    private FileSystemRepository repository;
+    private ContentClaim readClaim;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize(Collections.singletonMap(NiFiProperties.CONTENT_REPOSITORY_MEMORY_MAPPED, String.valueOf(memoryMapped)));
+
+        content = new byte[contentSize];
+        new Random().nextBytes(content);
+
+        repository = new FileSystemRepository();
+        repository.initialize(new StandardResourceClaimManager());
+
+        readClaim = repository.create(false);
+        try (final OutputStream out = repository.write(readClaim)) {
+            out.write(content);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        repository.shutdown();
+    }
+
+    @Benchmark
+    public ContentClaim write() throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+
+        // release the claim so that the repository can clean up the content, as it would once the FlowFile is dropped
+        repository.decrementClaimantCount(claim);
+        return claim;
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        final byte[] buffer = new byte[8192];
+        long total = 0L;
+        try (final InputStream in = repository.read(readClaim)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                total += len;
+            }
+        }
+        return total;
+    }
+}
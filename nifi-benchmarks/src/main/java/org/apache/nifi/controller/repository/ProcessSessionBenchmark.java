@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.benchmarks.BenchmarkEnvironment;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.StandardFlowFileQueue;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.io.OutputStreamCallback;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a {@link StandardProcessSession} that pulls a FlowFile from its incoming queue, modifies it,
+ * and then either commits the session, transferring the FlowFile back to the same queue, or rolls it back. The
+ * repositories are the in-memory implementations, so that the session itself, rather than disk I/O, is measured. Run
+ * it with the {@link org.apache.nifi.benchmarks.BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcessSessionBenchmark {
+
+    private static final Relationship SUCCESS = new Relationship.Builder().name("success").build();
+    private static final byte[] CONTENT = new byte[256];
+
+    @Param({"false", "true"})
+    public boolean writeContent;
+
+    @Param({"1", "100"})
+    public int flowFilesPerSession;
+
+    private ProcessContext context;
+    private VolatileContentRepository contentRepo;
+    private VolatileProvenanceRepository provenanceRepo;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize();
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        final FlowFileRepository flowFileRepo = new VolatileFlowFileRepository();
+        flowFileRepo.initialize(claimManager);
+        contentRepo = new VolatileContentRepository();
+        contentRepo.initialize(claimManager);
+        provenanceRepo = new VolatileProvenanceRepository();
+        provenanceRepo.initialize(null);
+
+        // the mocks do not record their invocations, so that they do not accumulate garbage while being benchmarked
+        final Connection connection = Mockito.mock(Connection.class, Mockito.withSettings().stubOnly());
+        final ProcessScheduler scheduler = Mockito.mock(ProcessScheduler.class, Mockito.withSettings().stubOnly());
+        final FlowFileSwapManager swapManager = Mockito.mock(FlowFileSwapManager.class, Mockito.withSettings().stubOnly());
+        final FlowFileQueue queue = new StandardFlowFileQueue("benchmark", connection, flowFileRepo, provenanceRepo, null, scheduler, swapManager, null, 20000);
+        Mockito.when(connection.getFlowFileQueue()).thenReturn(queue);
+        Mockito.when(connection.getIdentifier()).thenReturn("benchmark-connection");
+
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                queue.put((FlowFileRecord) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(connection).enqueue(Mockito.any(FlowFileRecord.class));
+
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                queue.putAll((Collection<FlowFileRecord>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(connection).enqueue(Mockito.<Collection<FlowFileRecord>> any());
+
+        final ProcessGroup group = Mockito.mock(ProcessGroup.class, Mockito.withSettings().stubOnly());
+        Mockito.when(group.getIdentifier()).thenReturn("benchmark-group");
+
+        final Connectable connectable = Mockito.mock(Connectable.class, Mockito.withSettings().stubOnly());
+        Mockito.when(connection.getSource()).thenReturn(connectable);
+        Mockito.when(connection.getDestination()).thenReturn(connectable);
+        Mockito.when(connectable.hasIncomingConnection()).thenReturn(true);
+        Mockito.when(connectable.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+        Mockito.when(connectable.getConnections(Mockito.any(Relationship.class))).thenReturn(Collections.singleton(connection));
+        Mockito.when(connectable.getConnections()).thenReturn(Collections.singleton(connection));
+        Mockito.when(connectable.getProcessGroup()).thenReturn(group);
+        Mockito.when(connectable.getIdentifier()).thenReturn("benchmark-connectable");
+        Mockito.when(connectable.getConnectableType()).thenReturn(ConnectableType.INPUT_PORT);
+
+        context = new ProcessContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, new RingBufferEventRepository(5),
+            new StandardCounterRepository(), provenanceRepo);
+
+        // seed the queue; the FlowFiles are transferred back to it by each session
+        final StandardProcessSession session = new StandardProcessSession(context);
+        for (int i = 0; i < 1000; i++) {
+            FlowFile flowFile = session.create();
+            flowFile = session.putAttribute(flowFile, "seed", String.valueOf(i));
+            session.transfer(flowFile, SUCCESS);
+        }
+        session.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        contentRepo.shutdown();
+        provenanceRepo.close();
+    }
+
+    private StandardProcessSession modify() {
+        final StandardProcessSession session = new StandardProcessSession(context);
+        for (int i = 0; i < flowFilesPerSession; i++) {
+            FlowFile flowFile = session.get();
+            flowFile = session.putAttribute(flowFile, "iteration", String.valueOf(i));
+            if (writeContent) {
+                flowFile = session.write(flowFile, new OutputStreamCallback() {
+                    @Override
+                    public void process(final OutputStream out) throws IOException {
+                        out.write(CONTENT);
+                    }
+                });
+            }
+            session.transfer(flowFile, SUCCESS);
+        }
+        return session;
+    }
+
+    @Benchmark
+    public void commit() {
+        modify().commit();
+    }
+
+    @Benchmark
+    public void rollback() {
+        modify().rollback();
+    }
+}
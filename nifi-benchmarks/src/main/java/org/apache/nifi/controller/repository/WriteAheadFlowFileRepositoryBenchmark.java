@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.benchmarks.BenchmarkEnvironment;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.util.NiFiProperties;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate at which the {@link WriteAheadFlowFileRepository} persists updates. Each operation creates a
+ * batch of FlowFiles in one update and deletes them in a second update, so that the size of the repository remains
+ * constant. Run with more than one thread (<code>-t</code>) to measure contention between sessions that commit
+ * concurrently. Run it with the {@link org.apache.nifi.benchmarks.BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteAheadFlowFileRepositoryBenchmark {
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean alwaysSync;
+
+    private WriteAheadFlowFileRepository repository;
+    private FlowFileQueue queue;
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize(Collections.singletonMap(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, String.valueOf(alwaysSync)));
+
+        queue = Mockito.mock(FlowFileQueue.class, Mockito.withSettings().stubOnly());
+        Mockito.when(queue.getIdentifier()).thenReturn("benchmark-queue");
+
+        repository = new WriteAheadFlowFileRepository();
+        repository.initialize(new StandardResourceClaimManager());
+        repository.loadFlowFiles(new QueueProvider() {
+            @Override
+            public Collection<FlowFileQueue> getAllQueues() {
+                return Collections.singletonList(queue);
+            }
+        }, 0L);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public void createAndDelete() throws IOException {
+        final List<RepositoryRecord> creates = new ArrayList<>(batchSize);
+        final List<RepositoryRecord> deletes = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+                .id(idGenerator.getAndIncrement())
+                .entryDate(System.currentTimeMillis())
+                .addAttribute("filename", "file-" + i + ".txt")
+                .addAttribute("path", "/data/incoming")
+                .addAttribute("mime.type", "text/plain")
+                .size(1024L)
+                .build();
+
+            final StandardRepositoryRecord create = new StandardRepositoryRecord(null);
+            create.setWorking(flowFile);
+            create.setDestination(queue);
+            creates.add(create);
+
+            final StandardRepositoryRecord delete = new StandardRepositoryRecord(queue, flowFile);
+            delete.markForDelete();
+            deletes.add(delete);
+        }
+
+        repository.updateRepository(creates);
+        repository.updateRepository(deletes);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.provenance.serialization.EventFileFormat;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.RecordReaders;
+import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.serialization.RecordWriters;
+import org.apache.nifi.util.file.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the number of Provenance Events per second that the {@link StandardRecordWriter} and {@link ColumnarRecordWriter}
+ * write to, and the {@link StandardRecordReader} and {@link ColumnarRecordReader} read from, a journal, with and without
+ * compression. Run it with the
+ * {@link org.apache.nifi.benchmarks.BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProvenanceRecordBenchmark {
+
+    private static final int EVENTS_PER_JOURNAL = 1000;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    @Param({"STANDARD", "COLUMNAR"})
+    public EventFileFormat format;
+
+    private File directory;
+    private File readJournal;
+    private RecordWriter writer;
+    private ProvenanceEventRecord event;
+    private long eventId = 0L;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("provenance-benchmark").toFile();
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "report.txt");
+        attributes.put("path", "/data/incoming");
+        attributes.put("uuid", UUID.randomUUID().toString());
+        attributes.put("mime.type", "text/plain");
+
+        event = new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setEventType(ProvenanceEventType.RECEIVE)
+            .setTransitUri("nifi://benchmark")
+            .setComponentId("1234")
+            .setComponentType("Benchmark Processor")
+            .setFlowFileUUID(attributes.get("uuid"))
+            .setAttributes(attributes, attributes)
+            .setCurrentContentClaim("container", "section", "identifier", 0L, 1024L)
+            .setLineageIdentifiers(Collections.singleton(attributes.get("uuid")))
+            .setLineageStartDate(System.currentTimeMillis())
+            .build();
+
+        readJournal = createJournalFile("read");
+        try (final RecordWriter readWriter = RecordWriters.newRecordWriter(readJournal, compressed, true, format)) {
+            readWriter.writeHeader(0L);
+            for (int i = 0; i < EVENTS_PER_JOURNAL; i++) {
+                readWriter.writeRecord(event, i);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        FileUtils.deleteFile(directory, true);
+    }
+
+    @Setup(Level.Iteration)
+    public void createWriter() throws IOException {
+        writer = RecordWriters.newRecordWriter(createJournalFile("write-" + UUID.randomUUID()), compressed, true, format);
+        writer.writeHeader(eventId);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeWriter() throws IOException {
+        writer.close();
+        FileUtils.deleteFile(writer.getFile(), false);
+    }
+
+    private File createJournalFile(final String name) {
+        return new File(directory, name + (compressed ? ".prov.gz" : ".prov"));
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        return writer.writeRecord(event, eventId++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_JOURNAL)
+    public int read() throws IOException {
+        int count = 0;
+        try (final RecordReader reader = RecordReaders.newRecordReader(readJournal, null, 65536)) {
+            while (reader.nextRecord() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
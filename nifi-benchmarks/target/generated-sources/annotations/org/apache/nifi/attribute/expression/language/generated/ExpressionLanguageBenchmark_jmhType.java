@@ -0,0 +1,4 @@
+package org.apache.nifi.attribute.expression.language.generated;
+public class ExpressionLanguageBenchmark_jmhType extends ExpressionLanguageBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.nifi.controller.generated;
+public class FlowFileQueueBenchmark_jmhType extends FlowFileQueueBenchmark_jmhType_B3 {
+}
+
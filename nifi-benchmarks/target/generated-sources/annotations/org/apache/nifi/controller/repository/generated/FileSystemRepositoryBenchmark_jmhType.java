@@ -0,0 +1,4 @@
+package org.apache.nifi.controller.repository.generated;
+public class FileSystemRepositoryBenchmark_jmhType extends FileSystemRepositoryBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.nifi.controller.repository.generated;
+public class ProcessSessionBenchmark_jmhType extends ProcessSessionBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.nifi.controller.repository.generated;
+public class WriteAheadFlowFileRepositoryBenchmark_jmhType extends WriteAheadFlowFileRepositoryBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.nifi.provenance.generated;
+public class ProvenanceRecordBenchmark_jmhType extends ProvenanceRecordBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language;
+
+import java.util.Map;
+
+import org.antlr.runtime.tree.Tree;
+import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.expression.AttributeValueDecorator;
+
+/**
+ * <p>
+ * A single Expression of a {@link PreparedQuery} whose tree of {@link Evaluator}s is built once, when the query is
+ * prepared, rather than each time that the query is evaluated. This avoids not only re-building the Evaluators but also
+ * re-compiling the literal regular expressions and the like that the Evaluators prepare when they are constructed.
+ * </p>
+ *
+ * <p>
+ * The Evaluators that iterate over multiple attributes or reduce multiple values to a single value hold state between
+ * invocations and therefore cannot be shared. If an Expression makes use of any such function, a new tree of Evaluators
+ * is built for each evaluation, as is done by an interpreted query.
+ * </p>
+ */
+class CompiledExpression {
+
+    private final String expression;
+    private final Tree tree;
+    private final Evaluator<?> sharedEvaluator;
+
+    private CompiledExpression(final String expression, final Tree tree, final Evaluator<?> sharedEvaluator) {
+        this.expression = expression;
+        this.tree = tree;
+        this.sharedEvaluator = sharedEvaluator;
+    }
+
+    /**
+     * @param expression the text of the Expression
+     * @param tree the syntax tree of the Expression
+     * @param compile whether or not to build the Evaluators once and share them between evaluations, if the Expression allows
+     * @return a CompiledExpression for the given tree
+     */
+    static CompiledExpression fromTree(final String expression, final Tree tree, final boolean compile) {
+        final Evaluator<?> sharedEvaluator = compile && Query.isStateless(tree) ? Query.fromTree(tree, expression).getEvaluator() : null;
+        return new CompiledExpression(expression, tree, sharedEvaluator);
+    }
+
+    /**
+     * @return <code>true</code> if the same Evaluators are used for every evaluation of this Expression
+     */
+    boolean isShared() {
+        return sharedEvaluator != null;
+    }
+
+    String evaluate(final Map<String, String> attributes, final AttributeValueDecorator decorator) {
+        final Evaluator<?> evaluator = sharedEvaluator == null ? Query.fromTree(tree, expression).getEvaluator() : sharedEvaluator;
+        final Object evaluated = evaluator.evaluate(attributes).getValue();
+        if (evaluated == null) {
+            return null;
+        }
+
+        final String value = evaluated.toString();
+        final String escaped = value.indexOf("$$") < 0 ? value : value.replace("$$", "$");
+        return decorator == null ? escaped : decorator.decorate(escaped);
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression[" + expression + "]";
+    }
+}
@@ -356,17 +356,6 @@ public class Query {
         return -1;
     }
 
-    static String evaluateExpression(final Tree tree, final String queryText, final Map<String, String> expressionMap, final AttributeValueDecorator decorator) throws ProcessException {
-        final Object evaluated = Query.fromTree(tree, queryText).evaluate(expressionMap).getValue();
-        if (evaluated == null) {
-            return null;
-        }
-
-        final String value = evaluated.toString();
-        final String escaped = value.replace("$$", "$");
-        return decorator == null ? escaped : decorator.decorate(escaped);
-    }
-
     static String evaluateExpressions(final String rawValue, Map<String, String> expressionMap) throws ProcessException {
         return evaluateExpressions(rawValue, expressionMap, null);
     }
@@ -578,6 +567,20 @@ public class Query {
     }
 
     public static PreparedQuery prepare(final String query) throws AttributeExpressionLanguageParsingException {
+        return prepare(query, true);
+    }
+
+    /**
+     * Prepares the given query for evaluation
+     *
+     * @param query the query to prepare
+     * @param compile if <code>true</code>, the Evaluators of each Expression whose Evaluators do not hold state
+     *            are built once and shared by all evaluations of the query; otherwise, the Evaluators are built
+     *            each time that the query is evaluated
+     * @return the prepared query
+     * @throws AttributeExpressionLanguageParsingException if the query is not valid
+     */
+    static PreparedQuery prepare(final String query, final boolean compile) throws AttributeExpressionLanguageParsingException {
         if (query == null) {
             return new EmptyPreparedQuery(null);
         }
@@ -590,7 +593,7 @@ public class Query {
 
         try {
             final List<String> substrings = new ArrayList<>();
-            final Map<String, Tree> trees = new HashMap<>();
+            final Map<String, CompiledExpression> expressions = new HashMap<>();
 
             int lastIndex = 0;
             for (final Range range : ranges) {
@@ -601,7 +604,7 @@ public class Query {
 
                 final String treeText = query.substring(range.getStart(), range.getEnd() + 1).replace("$$", "$");
                 substrings.add(treeText);
-                trees.put(treeText, Query.compileTree(treeText));
+                expressions.put(treeText, CompiledExpression.fromTree(treeText, Query.compileTree(treeText), compile));
                 lastIndex = range.getEnd() + 1;
             }
 
@@ -611,7 +614,7 @@ public class Query {
                 substrings.add(treeText);
             }
 
-            return new StandardPreparedQuery(substrings, trees);
+            return StandardPreparedQuery.fromCompiledExpressions(substrings, expressions);
         } catch (final AttributeExpressionLanguageParsingException e) {
             return new InvalidPreparedQuery(query, e.getMessage());
         }
@@ -710,6 +713,47 @@ public class Query {
         return this.tree;
     }
 
+    Evaluator<?> getEvaluator() {
+        return this.evaluator;
+    }
+
+    /**
+     * Determines whether or not the Evaluators that are built from the given tree hold state between
+     * evaluations. The Evaluators of a stateless tree may be evaluated any number of times and by
+     * any number of threads concurrently.
+     *
+     * @param tree the tree to inspect
+     * @return <code>true</code> if none of the Evaluators built from the tree hold state
+     */
+    static boolean isStateless(final Tree tree) {
+        switch (tree.getType()) {
+            case MULTI_ATTRIBUTE_REFERENCE:
+            case COUNT:
+            case JOIN:
+                return false;
+        }
+
+        if (tree.getChildCount() == 0) {
+            // literals may embed Expressions of their own
+            final String text = tree.getText();
+            if (text != null && text.contains("${")) {
+                for (final Range range : extractExpressionRanges(text)) {
+                    if (!isStateless(compileTree(text.substring(range.getStart(), range.getEnd() + 1)))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if (!isStateless(tree.getChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Query [" + query + "]";
@@ -16,7 +16,6 @@
  */
 package org.apache.nifi.attribute.expression.language;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,12 +28,49 @@ import org.antlr.runtime.tree.Tree;
 
 public class StandardPreparedQuery implements PreparedQuery {
 
-    private final List<String> queryStrings;
-    private final Map<String, Tree> trees;
+    // the query is flattened into a sequence of segments, each of which is either
+    // literal text or an Expression; exactly one of the two is non-null for each index
+    private final String[] literals;
+    private final CompiledExpression[] expressions;
 
+    /**
+     * Creates a prepared query from the given segments of the query, building the Evaluators of each Expression once
+     * if that Expression allows its Evaluators to be shared between evaluations
+     *
+     * @param queryStrings the literal text and Expression text of the query, in order
+     * @param trees the syntax tree of each Expression, keyed by the Expression's text
+     */
     public StandardPreparedQuery(final List<String> queryStrings, final Map<String, Tree> trees) {
-        this.queryStrings = new ArrayList<>(queryStrings);
-        this.trees = new HashMap<>(trees);
+        this(queryStrings, compile(trees));
+    }
+
+    // takes a HashMap so that its erasure differs from that of the public constructor
+    private StandardPreparedQuery(final List<String> queryStrings, final HashMap<String, CompiledExpression> expressions) {
+        final int numSegments = queryStrings.size();
+        this.literals = new String[numSegments];
+        this.expressions = new CompiledExpression[numSegments];
+
+        for (int i = 0; i < numSegments; i++) {
+            final String val = queryStrings.get(i);
+            final CompiledExpression expression = expressions.get(val);
+            if (expression == null) {
+                this.literals[i] = val;
+            } else {
+                this.expressions[i] = expression;
+            }
+        }
+    }
+
+    static StandardPreparedQuery fromCompiledExpressions(final List<String> queryStrings, final Map<String, CompiledExpression> expressions) {
+        return new StandardPreparedQuery(queryStrings, new HashMap<>(expressions));
+    }
+
+    private static HashMap<String, CompiledExpression> compile(final Map<String, Tree> trees) {
+        final HashMap<String, CompiledExpression> expressions = new HashMap<>(trees.size());
+        for (final Map.Entry<String, Tree> entry : trees.entrySet()) {
+            expressions.put(entry.getKey(), CompiledExpression.fromTree(entry.getKey(), entry.getValue(), true));
+        }
+        return expressions;
     }
 
     @Override
@@ -44,13 +80,19 @@ public class StandardPreparedQuery implements PreparedQuery {
 
     @Override
     public String evaluateExpressions(final Map<String, String> attributes, final AttributeValueDecorator decorator) throws ProcessException {
+        // avoid copying the result of a query that consists of a single Expression
+        if (literals.length == 1 && expressions[0] != null) {
+            final String evaluated = expressions[0].evaluate(attributes, decorator);
+            return evaluated == null ? "" : evaluated;
+        }
+
         final StringBuilder sb = new StringBuilder();
-        for (final String val : queryStrings) {
-            final Tree tree = trees.get(val);
-            if (tree == null) {
-                sb.append(val);
+        for (int i = 0; i < literals.length; i++) {
+            final CompiledExpression expression = expressions[i];
+            if (expression == null) {
+                sb.append(literals[i]);
             } else {
-                final String evaluated = Query.evaluateExpression(tree, val, attributes, decorator);
+                final String evaluated = expression.evaluate(attributes, decorator);
                 if (evaluated != null) {
                     sb.append(evaluated);
                 }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language.evaluation;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * A size-bounded, thread-safe cache of compiled regular expressions that is shared by all of the Expression Language
+ * functions that accept a regular expression. When the regular expression is given by an attribute rather than a literal,
+ * it cannot be compiled when the Expression is compiled; flows generally use only a handful of such regular expressions,
+ * though, so caching them avoids compiling the same regular expression for each FlowFile.
+ * </p>
+ *
+ * <p>
+ * When the cache is full, an arbitrary entry is evicted to make room for the new one. This keeps lookups lock-free at the
+ * expense of not evicting the least recently used entry, which is of little consequence as long as the number of
+ * distinct regular expressions in use is smaller than the capacity of the cache.
+ * </p>
+ */
+public class PatternCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final PatternCache INSTANCE = new PatternCache(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final ConcurrentMap<String, Pattern> patterns = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+    private final AtomicLong evictionCount = new AtomicLong(0L);
+
+    public PatternCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Max Size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cache that is shared by all Expression Language functions
+     */
+    public static PatternCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled form of the given regular expression, compiling it only if it is not already cached
+     *
+     * @param regex the regular expression
+     * @return the compiled regular expression
+     * @throws java.util.regex.PatternSyntaxException if the regular expression is not valid
+     */
+    public Pattern compile(final String regex) {
+        final Pattern cached = patterns.get(regex);
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            return cached;
+        }
+
+        missCount.incrementAndGet();
+        final Pattern pattern = Pattern.compile(regex);
+
+        while (patterns.size() >= maxSize) {
+            final Iterator<String> itr = patterns.keySet().iterator();
+            if (!itr.hasNext()) {
+                break;
+            }
+
+            itr.next();
+            itr.remove();
+            evictionCount.incrementAndGet();
+        }
+
+        patterns.put(regex, pattern);
+        return pattern;
+    }
+
+    /**
+     * @return the number of lookups that found the regular expression already compiled
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that had to compile the regular expression
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of compiled regular expressions that were evicted to keep the cache within its bounds
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return the number of compiled regular expressions that are currently cached
+     */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * @return the maximum number of compiled regular expressions that are cached
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.regex.Pattern;
 import org.apache.nifi.attribute.expression.language.evaluation.BooleanEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.BooleanQueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.PatternCache;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
 
@@ -37,9 +38,9 @@ public class FindEvaluator extends BooleanEvaluator {
         this.search = search;
 
         // if the search string is a literal, we don't need to evaluate it each time; we can just
-        // pre-compile it. Otherwise, it must be compiled every time.
+        // pre-compile it. Otherwise, it must be looked up in the Pattern Cache every time.
         if (search instanceof StringLiteralEvaluator) {
-            this.compiledPattern = Pattern.compile(search.evaluate(null).getValue());
+            this.compiledPattern = PatternCache.getInstance().compile(search.evaluate(null).getValue());
         } else {
             this.compiledPattern = null;
         }
@@ -53,7 +54,7 @@ public class FindEvaluator extends BooleanEvaluator {
         }
         final Pattern pattern;
         if (compiledPattern == null) {
-            pattern = Pattern.compile(search.evaluate(attributes).getValue());
+            pattern = PatternCache.getInstance().compile(search.evaluate(attributes).getValue());
         } else {
             pattern = compiledPattern;
         }
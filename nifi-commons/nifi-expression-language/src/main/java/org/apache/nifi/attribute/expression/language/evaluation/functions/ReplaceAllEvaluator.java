@@ -19,6 +19,7 @@ package org.apache.nifi.attribute.expression.language.evaluation.functions;
 import java.util.Map;
 
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.PatternCache;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.StringEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.StringQueryResult;
@@ -44,7 +45,7 @@ public class ReplaceAllEvaluator extends StringEvaluator {
         final String searchValue = search.evaluate(attributes).getValue();
         final String replacementValue = replacement.evaluate(attributes).getValue();
 
-        return new StringQueryResult(subjectValue.replaceAll(searchValue, replacementValue));
+        return new StringQueryResult(PatternCache.getInstance().compile(searchValue).matcher(subjectValue).replaceAll(replacementValue));
     }
 
     @Override
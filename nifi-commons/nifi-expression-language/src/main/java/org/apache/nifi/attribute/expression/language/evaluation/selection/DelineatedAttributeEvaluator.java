@@ -19,6 +19,7 @@ package org.apache.nifi.attribute.expression.language.evaluation.selection;
 import java.util.Map;
 
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.PatternCache;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.StringQueryResult;
 
@@ -52,7 +53,13 @@ public class DelineatedAttributeEvaluator extends MultiAttributeEvaluator {
                 return new StringQueryResult(null);
             }
 
-            delineatedValues = subjectValue.getValue().split(delimiterValue.getValue());
+            // String.split avoids regular expressions altogether for most single-character delimiters
+            final String delimiter = delimiterValue.getValue();
+            if (delimiter.length() == 1) {
+                delineatedValues = subjectValue.getValue().split(delimiter);
+            } else {
+                delineatedValues = PatternCache.getInstance().compile(delimiter).split(subjectValue.getValue());
+            }
         }
 
         if (evaluationCount > delineatedValues.length) {
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.PatternCache;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.StringQueryResult;
 
@@ -35,7 +36,7 @@ public class MultiMatchAttributeEvaluator extends MultiAttributeEvaluator {
     public MultiMatchAttributeEvaluator(final List<String> attributeRegexes, final int evaluationType) {
         this.attributePatterns = new ArrayList<>();
         for (final String regex : attributeRegexes) {
-            attributePatterns.add(Pattern.compile(regex));
+            attributePatterns.add(PatternCache.getInstance().compile(regex));
         }
 
         this.evaluationType = evaluationType;
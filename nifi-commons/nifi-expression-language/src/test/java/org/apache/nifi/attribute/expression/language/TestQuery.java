@@ -31,6 +31,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import org.apache.nifi.attribute.expression.language.Query.Range;
+import org.apache.nifi.attribute.expression.language.evaluation.PatternCache;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.exception.AttributeExpressionLanguageException;
 import org.apache.nifi.attribute.expression.language.exception.AttributeExpressionLanguageParsingException;
@@ -44,6 +45,24 @@ import org.mockito.Mockito;
 
 public class TestQuery {
 
+    @Test
+    public void testRegexFromAttributeUsesPatternCache() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("regex", "[a-z]+-\\d+");
+        attributes.put("value", "abc-123");
+
+        final PatternCache cache = PatternCache.getInstance();
+        final PreparedQuery query = Query.prepare("${value:matches(${regex})}");
+        assertEquals("true", query.evaluateExpressions(attributes, null));
+
+        final long hits = cache.getHitCount();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("true", query.evaluateExpressions(attributes, null));
+            assertEquals("XYZ-123", Query.prepare("${value:replaceAll(${regex}, 'XYZ-123')}").evaluateExpressions(attributes, null));
+        }
+        assertEquals(hits + 20, cache.getHitCount());
+    }
+
     @Test
     public void testCompilation() {
         assertInvalid("${attr:uuid()}");
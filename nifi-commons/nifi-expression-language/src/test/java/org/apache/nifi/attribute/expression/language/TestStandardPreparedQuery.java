@@ -17,11 +17,20 @@
 package org.apache.nifi.attribute.expression.language;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import org.antlr.runtime.tree.Tree;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -84,6 +93,103 @@ public class TestStandardPreparedQuery {
 
     }
 
+    @Test
+    public void testConstructFromTrees() {
+        final List<String> queryStrings = new ArrayList<>();
+        queryStrings.add("Hello, ");
+        queryStrings.add("${audience:toUpper()}");
+        queryStrings.add("!");
+
+        final Map<String, Tree> trees = new HashMap<>();
+        trees.put("${audience:toUpper()}", Query.compileTree("${audience:toUpper()}"));
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("audience", "World");
+        assertEquals("Hello, WORLD!", new StandardPreparedQuery(queryStrings, trees).evaluateExpressions(attributes, null));
+    }
+
+    @Test
+    public void testStatelessExpressionsShareEvaluators() {
+        assertTrue(isStateless("${xx}"));
+        assertTrue(isStateless("${xx:toUpper():substring(0, 2):equals('AB')}"));
+        assertTrue(isStateless("${xx:matches('a.*'):and(${yy:isEmpty():not()})}"));
+        assertTrue(isStateless("${literal('${xx}'):length()}"));
+
+        assertFalse(isStateless("${anyAttribute('xx', 'yy'):equals('a')}"));
+        assertFalse(isStateless("${allMatchingAttributes('x.*'):isEmpty()}"));
+        assertFalse(isStateless("${anyDelineatedValue(${xx}, ','):equals('a')}"));
+        assertFalse(isStateless("${allAttributes('xx', 'yy'):join(',')}"));
+        assertFalse(isStateless("${literal('${allAttributes(\\'xx\\'):count()}'):length()}"));
+    }
+
+    @Test
+    public void testCompiledMatchesInterpreted() {
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("xx", "Hello, World");
+        attrs.put("yy", "");
+        attrs.put("num", "42");
+        attrs.put("csv", "a,b,c");
+
+        final String[] queries = new String[] {
+            "${xx}",
+            "prefix-${xx:toUpper()}-suffix",
+            "${xx:substringAfter(', '):toLower()}",
+            "${xx:replaceAll('(\\w+), (\\w+)', '$2 $1')}",
+            "${xx:matches('H.*d'):and(${yy:isEmpty()})}",
+            "${num:toNumber():plus(8):divide(5)}",
+            "${xx:find('W.r')}",
+            "${missing:replaceNull('default')}",
+            "${anyAttribute('xx', 'yy'):isEmpty()}",
+            "${allAttributes('xx', 'num'):join(';')}",
+            "${anyDelineatedValue(${csv}, ','):equals('b')}",
+            "${allDelineatedValues(${csv}, ','):count()}"
+        };
+
+        for (final String query : queries) {
+            final String interpreted = Query.prepare(query, false).evaluateExpressions(attrs, null);
+            // evaluate more than once, as the compiled form re-uses its Evaluators
+            final PreparedQuery compiled = Query.prepare(query, true);
+            assertEquals(query, interpreted, compiled.evaluateExpressions(attrs, null));
+            assertEquals(query, interpreted, compiled.evaluateExpressions(attrs, null));
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testConcurrentEvaluationOfCompiledQuery() throws Exception {
+        final PreparedQuery prepared = Query.prepare("${xx:toUpper()}-${yy:substring(1)}");
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int threadIndex = t;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        final Map<String, String> attrs = new HashMap<>();
+                        for (int i = 0; i < 10000; i++) {
+                            attrs.put("xx", "thread" + threadIndex);
+                            attrs.put("yy", "x" + i);
+                            if (!("THREAD" + threadIndex + "-" + i).equals(prepared.evaluateExpressions(attrs, null))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean isStateless(final String expression) {
+        return Query.isStateless(Query.compileTree(expression));
+    }
+
     private String evaluate(final String query, final Map<String, String> attrs) {
         final String evaluated = ((StandardPreparedQuery) Query.prepare(query)).evaluateExpressions(attrs, null);
         return evaluated;
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+public class TestPatternCache {
+
+    @Test
+    public void testHitsAndMisses() {
+        final PatternCache cache = new PatternCache(10);
+
+        final Pattern pattern = cache.compile("a.*b");
+        assertSame(pattern, cache.compile("a.*b"));
+        assertSame(pattern, cache.compile("a.*b"));
+        cache.compile("c+");
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testBounded() {
+        final PatternCache cache = new PatternCache(5);
+        for (int i = 0; i < 20; i++) {
+            cache.compile("value-" + i);
+        }
+
+        assertEquals(5, cache.size());
+        assertEquals(15, cache.getEvictionCount());
+        assertEquals(20, cache.getMissCount());
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testInvalidPatternNotCached() {
+        final PatternCache cache = new PatternCache(5);
+        try {
+            cache.compile("(unclosed");
+        } finally {
+            assertEquals(0, cache.size());
+        }
+    }
+}
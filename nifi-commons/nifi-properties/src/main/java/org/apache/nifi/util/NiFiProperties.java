@@ -66,6 +66,10 @@ public class NiFiProperties extends Properties {
     public static final String ADMINISTRATIVE_YIELD_DURATION = "nifi.administrative.yield.duration";
     public static final String PERSISTENT_STATE_DIRECTORY = "nifi.persistent.state.directory";
     public static final String BORED_YIELD_DURATION = "nifi.bored.yield.duration";
+    public static final String TIMER_DRIVEN_WORK_STEALING = "nifi.timer.driven.work.stealing";
+    public static final String ADAPTIVE_RUN_DURATION_ENABLED = "nifi.adaptive.run.duration.enabled";
+    public static final String ADAPTIVE_RUN_DURATION_MAX = "nifi.adaptive.run.duration.max";
+    public static final String BLOCKING_IO_PROCESSORS = "nifi.blocking.io.processors";
 
     // content repository properties
     public static final String REPOSITORY_CONTENT_PREFIX = "nifi.content.repository.directory.";
@@ -77,6 +81,7 @@ public class NiFiProperties extends Properties {
     public static final String CONTENT_ARCHIVE_BACK_PRESSURE_PERCENTAGE = "nifi.content.repository.archive.backpressure.percentage";
     public static final String CONTENT_ARCHIVE_ENABLED = "nifi.content.repository.archive.enabled";
     public static final String CONTENT_ARCHIVE_CLEANUP_FREQUENCY = "nifi.content.repository.archive.cleanup.frequency";
+    public static final String CONTENT_REPOSITORY_MEMORY_MAPPED = "nifi.content.repository.memory.mapped";
     public static final String CONTENT_VIEWER_URL = "nifi.content.viewer.url";
 
     // flowfile repository properties
@@ -87,10 +92,12 @@ public class NiFiProperties extends Properties {
     public static final String FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL = "nifi.flowfile.repository.checkpoint.interval";
     public static final String FLOWFILE_SWAP_MANAGER_IMPLEMENTATION = "nifi.swap.manager.implementation";
     public static final String QUEUE_SWAP_THRESHOLD = "nifi.queue.swap.threshold";
+    public static final String QUEUE_SHARD_COUNT = "nifi.queue.shard.count";
     public static final String SWAP_IN_THREADS = "nifi.swap.in.threads";
     public static final String SWAP_IN_PERIOD = "nifi.swap.in.period";
     public static final String SWAP_OUT_THREADS = "nifi.swap.out.threads";
     public static final String SWAP_OUT_PERIOD = "nifi.swap.out.period";
+    public static final String SWAP_COMPRESSION_ENABLED = "nifi.swap.compression.enabled";
 
     // provenance properties
     public static final String PROVENANCE_REPO_IMPLEMENTATION_CLASS = "nifi.provenance.repository.implementation";
@@ -105,7 +112,15 @@ public class NiFiProperties extends Properties {
     public static final String PROVENANCE_INDEXED_FIELDS = "nifi.provenance.repository.indexed.fields";
     public static final String PROVENANCE_INDEXED_ATTRIBUTES = "nifi.provenance.repository.indexed.attributes";
     public static final String PROVENANCE_INDEX_SHARD_SIZE = "nifi.provenance.repository.index.shard.size";
+    public static final String PROVENANCE_INDEX_SHARD_DURATION = "nifi.provenance.repository.index.shard.duration";
+    public static final String PROVENANCE_INDEX_SHARD_PARTITIONS = "nifi.provenance.repository.index.shard.partitions";
     public static final String PROVENANCE_JOURNAL_COUNT = "nifi.provenance.repository.journal.count";
+    public static final String PROVENANCE_JOURNAL_BUFFER_SIZE = "nifi.provenance.repository.journal.buffer.size";
+    public static final String PROVENANCE_INDEX_CONTINUOUSLY = "nifi.provenance.repository.index.continuously";
+    public static final String PROVENANCE_EVENT_FILE_FORMAT = "nifi.provenance.repository.event.file.format";
+    public static final String PROVENANCE_CACHE_SIZE = "nifi.provenance.repository.cache.size";
+    public static final String PROVENANCE_CAPTURE_POLICY_PREFIX = "nifi.provenance.capture.policy.";
+    public static final String PROVENANCE_COMPRESSION_THREAD_POOL_SIZE = "nifi.provenance.repository.compression.threads";
 
     // component status repository properties
     public static final String COMPONENT_STATUS_REPOSITORY_IMPLEMENTATION = "nifi.components.status.repository.implementation";
@@ -199,6 +214,7 @@ public class NiFiProperties extends Properties {
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "2 min";
     public static final int DEFAULT_MAX_FLOWFILES_PER_CLAIM = 100;
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
+    public static final int DEFAULT_QUEUE_SHARD_COUNT = 1;
     public static final String DEFAULT_SWAP_STORAGE_LOCATION = "./flowfile_repository/swap";
     public static final String DEFAULT_SWAP_IN_PERIOD = "1 sec";
     public static final String DEFAULT_SWAP_OUT_PERIOD = "5 sec";
@@ -208,6 +224,7 @@ public class NiFiProperties extends Properties {
     public static final String DEFAULT_PERSISTENT_STATE_DIRECTORY = "./conf/state";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
     public static final String DEFAULT_BORED_YIELD_DURATION = "10 millis";
+    public static final String DEFAULT_ADAPTIVE_RUN_DURATION_MAX = "100 millis";
 
     // cluster common defaults
     public static final String DEFAULT_CLUSTER_PROTOCOL_HEARTBEAT_INTERVAL = "5 sec";
@@ -329,6 +346,24 @@ public class NiFiProperties extends Properties {
         }
     }
 
+    /**
+     * @return the number of independently locked segments that each FlowFile Queue should be split into. A value
+     *         of 1 indicates that queues should not be sharded
+     */
+    public int getQueueShardCount() {
+        final String shardCountValue = getProperty(QUEUE_SHARD_COUNT);
+        if (shardCountValue == null) {
+            return DEFAULT_QUEUE_SHARD_COUNT;
+        }
+
+        try {
+            final int shardCount = Integer.parseInt(shardCountValue.trim());
+            return shardCount < 1 ? DEFAULT_QUEUE_SHARD_COUNT : shardCount;
+        } catch (final NumberFormatException e) {
+            return DEFAULT_QUEUE_SHARD_COUNT;
+        }
+    }
+
     public Integer getIntegerProperty(final String propertyName, final Integer defaultValue) {
         final String value = getProperty(propertyName);
         if (value == null) {
@@ -925,6 +960,27 @@ public class NiFiProperties extends Properties {
         return provenanceRepositoryPaths;
     }
 
+    /**
+     * Returns the provenance capture policies. This method returns a mapping of
+     * the component (a component identifier or type, optionally followed by a
+     * '.' and a provenance event type) to the configured policy. It simply
+     * returns the values configured.
+     *
+     * @return the component and policy of all provenance capture policies
+     */
+    public Map<String, String> getProvenanceCapturePolicies() {
+        final Map<String, String> capturePolicies = new HashMap<>();
+
+        for (String propertyName : stringPropertyNames()) {
+            if (StringUtils.startsWith(propertyName, PROVENANCE_CAPTURE_POLICY_PREFIX)) {
+                final String key = StringUtils.substringAfter(propertyName,
+                        PROVENANCE_CAPTURE_POLICY_PREFIX);
+                capturePolicies.put(key, getProperty(propertyName));
+            }
+        }
+        return capturePolicies;
+    }
+
     public int getMaxFlowFilesPerClaim() {
         try {
             return Integer.parseInt(getProperty(MAX_FLOWFILES_PER_CLAIM));
@@ -953,4 +1009,18 @@ public class NiFiProperties extends Properties {
     public String getBoredYieldDuration() {
         return getProperty(BORED_YIELD_DURATION, DEFAULT_BORED_YIELD_DURATION);
     }
+
+    /**
+     * @return whether the framework adapts the Run Duration of Processors that support batching at runtime
+     */
+    public boolean isAdaptiveRunDurationEnabled() {
+        return Boolean.parseBoolean(getProperty(ADAPTIVE_RUN_DURATION_ENABLED));
+    }
+
+    /**
+     * @return the longest Run Duration that the framework chooses when adapting the Run Duration of Processors
+     */
+    public String getAdaptiveRunDurationMax() {
+        return getProperty(ADAPTIVE_RUN_DURATION_MAX, DEFAULT_ADAPTIVE_RUN_DURATION_MAX);
+    }
 }
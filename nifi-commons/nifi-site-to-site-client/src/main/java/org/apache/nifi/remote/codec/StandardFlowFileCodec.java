@@ -47,6 +47,24 @@ public class StandardFlowFileCodec implements FlowFileCodec {
 
     @Override
     public void encode(final DataPacket dataPacket, final OutputStream encodedOut) throws IOException {
+        encodeHeader(dataPacket, encodedOut);
+
+        final InputStream in = dataPacket.getData();
+        StreamUtils.copy(in, encodedOut);
+        encodedOut.flush();
+    }
+
+    /**
+     * Encodes everything about the given DataPacket that precedes its content: the attributes and the
+     * length of the content. A caller that writes the header and then the {@link DataPacket#getSize()}
+     * bytes of content produces exactly what {@link #encode(DataPacket, OutputStream)} would, which
+     * allows the content to be sent by some other means, such as directly from a file channel.
+     *
+     * @param dataPacket the data packet whose header should be encoded; its data is not read
+     * @param encodedOut the stream to write the header to
+     * @throws IOException if unable to write to the stream
+     */
+    public void encodeHeader(final DataPacket dataPacket, final OutputStream encodedOut) throws IOException {
         final DataOutputStream out = new DataOutputStream(encodedOut);
 
         final Map<String, String> attributes = dataPacket.getAttributes();
@@ -57,10 +75,6 @@ public class StandardFlowFileCodec implements FlowFileCodec {
         }
 
         out.writeLong(dataPacket.getSize());
-
-        final InputStream in = dataPacket.getData();
-        StreamUtils.copy(in, encodedOut);
-        encodedOut.flush();
     }
 
     @Override
@@ -18,8 +18,10 @@ package org.apache.nifi.remote.io.socket;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 
+import org.apache.nifi.remote.exception.TransmissionDisabledException;
 import org.apache.nifi.stream.io.BufferedOutputStream;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
 import org.apache.nifi.remote.io.InterruptableOutputStream;
@@ -27,10 +29,15 @@ import org.apache.nifi.remote.protocol.CommunicationsOutput;
 
 public class SocketChannelOutput implements CommunicationsOutput {
 
+    // transfers are broken into chunks so that an interrupt is noticed while sending a large region
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024L * 1024L;
+
     private final SocketChannelOutputStream socketOutStream;
     private final ByteCountingOutputStream countingOut;
     private final OutputStream bufferedOut;
     private final InterruptableOutputStream interruptableOut;
+    private volatile boolean interrupted = false;
+    private volatile long bytesTransferred = 0L;
 
     public SocketChannelOutput(final SocketChannel socketChannel) throws IOException {
         socketOutStream = new SocketChannelOutputStream(socketChannel);
@@ -48,12 +55,40 @@ public class SocketChannelOutput implements CommunicationsOutput {
         socketOutStream.setTimeout(timeout);
     }
 
+    /**
+     * Flushes any bytes that have been written to the OutputStream and then sends the given region of the
+     * source channel directly to the socket, without copying the bytes through the JVM heap.
+     *
+     * @param source the channel to transfer bytes from
+     * @param position the position within the source channel of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @return the number of bytes transferred
+     * @throws IOException if unable to transfer the bytes
+     */
+    public long transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        interruptableOut.flush();
+
+        long transferred = 0L;
+        while (transferred < count) {
+            if (interrupted) {
+                throw new TransmissionDisabledException();
+            }
+
+            final long chunkSize = Math.min(TRANSFER_CHUNK_SIZE, count - transferred);
+            transferred += socketOutStream.transferFrom(source, position + transferred, chunkSize);
+            bytesTransferred += chunkSize;
+        }
+
+        return transferred;
+    }
+
     @Override
     public long getBytesWritten() {
-        return countingOut.getBytesWritten();
+        return countingOut.getBytesWritten() + bytesTransferred;
     }
 
     public void interrupt() {
+        interrupted = true;
         interruptableOut.interrupt();
     }
 }
@@ -16,11 +16,13 @@
  */
 package org.apache.nifi.remote.io.socket;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.TimeUnit;
 
@@ -102,6 +104,47 @@ public class SocketChannelOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Transfers the given region of the source channel directly to the underlying SocketChannel by means of
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, so that the bytes are
+     * not copied through the JVM heap. The same timeout applies as when writing to this stream.
+     *
+     * @param source the channel to transfer bytes from
+     * @param position the position within the source channel of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @return the number of bytes transferred
+     * @throws IOException if unable to read from the source or write to the socket, or if the source channel
+     *             does not contain the requested number of bytes
+     */
+    public long transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        final int timeoutMillis = this.timeout;
+        long maxTime = System.currentTimeMillis() + timeoutMillis;
+        long transferred = 0L;
+        while (transferred < count) {
+            final long bytesWritten = source.transferTo(position + transferred, count - transferred, channel);
+            if (bytesWritten == 0) {
+                if (position + transferred >= source.size()) {
+                    throw new EOFException("Expected to transfer " + count + " bytes but only " + transferred + " bytes were available");
+                }
+                if (System.currentTimeMillis() > maxTime) {
+                    throw new SocketTimeoutException("Timed out writing to socket");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(CHANNEL_FULL_WAIT_NANOS);
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt(); // set the interrupt status
+                    throw new ClosedByInterruptException(); // simulate an interrupted blocked write operation
+                }
+            } else {
+                transferred += bytesWritten;
+                maxTime = System.currentTimeMillis() + timeoutMillis;
+            }
+        }
+
+        return transferred;
+    }
+
     /**
      * Closes the underlying SocketChannel
      *
@@ -49,7 +49,10 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -80,6 +83,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
     private final Path partialPath;
     private final Path snapshotPath;
 
+    private final SerDeFactory<T> serdeFactory;
     private final SerDe<T> serde;
     private final SyncListener syncListener;
     private final FileChannel lockChannel;
@@ -101,6 +105,20 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
     private final Lock readLock = rwLock.readLock(); // required to update a partition
     private final Lock writeLock = rwLock.writeLock(); // required for checkpoint
 
+    private final AtomicLong syncCount = new AtomicLong(0L);
+    private final AtomicLong syncedTransactionCount = new AtomicLong(0L);
+    private final AtomicLong syncNanos = new AtomicLong(0L);
+    private long lastCheckpointSyncCount = 0L;
+    private long lastCheckpointSyncedTransactionCount = 0L;
+    private long lastCheckpointSyncNanos = 0L;
+
+    private static final int MIN_RECOVERY_THREADS = 4;
+    private static final int SNAPSHOT_READ_AHEAD_CHUNK_SIZE = 1024 * 1024;
+    private static final int SNAPSHOT_READ_AHEAD_CHUNKS = 16;
+    private volatile long snapshotRecoveryNanos = 0L;
+    private volatile long journalRecoveryNanos = 0L;
+    private volatile long recoveryCheckpointNanos = 0L;
+
     private volatile boolean updated = false;
     private volatile boolean recovered = false;
 
@@ -108,6 +126,14 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         this(new TreeSet<>(Collections.singleton(path)), partitionCount, serde, syncListener);
     }
 
+    public MinimalLockingWriteAheadLog(final SortedSet<Path> paths, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener) throws IOException {
+        this(paths, partitionCount, new SingletonSerDeFactory<>(requireNonNull(serde)), syncListener);
+    }
+
+    public MinimalLockingWriteAheadLog(final Path path, final int partitionCount, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(new TreeSet<>(Collections.singleton(path)), partitionCount, serdeFactory, syncListener);
+    }
+
     /**
      *
      * @param paths a sorted set of Paths to use for the partitions/journals and
@@ -116,16 +142,18 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
      * @param partitionCount the number of partitions/journals to use. For best
      * performance, this should be close to the number of threads that are
      * expected to update the repository simultaneously
-     * @param serde the serializer/deserializer for records
+     * @param serdeFactory the factory for the serializers/deserializers of
+     * records. Each partition creates a new SerDe for every journal that it
+     * writes or reads, and a new SerDe is created for every snapshot
      * @param syncListener the listener
      * @throws IOException if unable to initialize due to IO issue
      */
     @SuppressWarnings("unchecked")
-    public MinimalLockingWriteAheadLog(final SortedSet<Path> paths, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener) throws IOException {
+    public MinimalLockingWriteAheadLog(final SortedSet<Path> paths, final int partitionCount, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
         this.syncListener = syncListener;
 
         requireNonNull(paths);
-        requireNonNull(serde);
+        requireNonNull(serdeFactory);
 
         if (paths.isEmpty()) {
             throw new IllegalArgumentException("Paths must be non-empty");
@@ -172,7 +200,8 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         this.basePath = paths.iterator().next();
         this.partialPath = basePath.resolve("snapshot.partial");
         this.snapshotPath = basePath.resolve("snapshot");
-        this.serde = serde;
+        this.serdeFactory = serdeFactory;
+        this.serde = serdeFactory.createSerDe();
 
         final Path lockPath = basePath.resolve("wali.lock");
         lockChannel = new FileOutputStream(lockPath.toFile()).getChannel();
@@ -189,7 +218,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
 
             final Path partitionBasePath = pathIterator.next();
 
-            partitions[i] = new Partition<>(partitionBasePath.resolve("partition-" + i), serde, i, getVersion());
+            partitions[i] = new Partition<>(partitionBasePath.resolve("partition-" + i), serdeFactory, i, getVersion());
         }
     }
 
@@ -218,6 +247,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                 final int resolvedIdx = (int) (partitionIdx % partitions.length);
                 final Partition<T> partition = partitions[resolvedIdx];
                 if (partition.tryClaim()) {
+                    final long transactionSequence;
                     try {
                         final long transactionId = transactionIdGenerator.getAndIncrement();
                         if (logger.isTraceEnabled()) {
@@ -227,18 +257,37 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                         }
 
                         try {
-                            partition.update(records, transactionId, unmodifiableRecordMap, forceSync);
+                            transactionSequence = partition.update(records, transactionId, unmodifiableRecordMap, forceSync);
                         } catch (final Throwable t) {
-                            partition.blackList();
-                            numberBlackListedPartitions.incrementAndGet();
+                            if (partition.blackList()) {
+                                numberBlackListedPartitions.incrementAndGet();
+                            }
                             throw t;
                         }
+                    } finally {
+                        partition.releaseClaim();
+                    }
 
-                        if (forceSync && syncListener != null) {
+                    // The sync is performed after releasing the claim so that other threads are able to write to the
+                    // partition while it is being synced. Any transactions written in the meantime are then made durable
+                    // together by a single sync, rather than each caller syncing the partition in turn. Because of this,
+                    // transactions may have been written after the sync by the time that the listener is notified; the
+                    // listener can use getSyncedTransactionSequence to tell them apart.
+                    if (forceSync) {
+                        try {
+                            sync(partition, transactionSequence);
+                        } catch (final Throwable t) {
+                            // every thread waiting on a failed sync of this partition gets here, but the
+                            // partition is counted only by the thread that actually blacklists it
+                            if (partition.blackList()) {
+                                numberBlackListedPartitions.incrementAndGet();
+                            }
+                            throw t;
+                        }
+
+                        if (syncListener != null) {
                             syncListener.onSync(resolvedIdx);
                         }
-                    } finally {
-                        partition.releaseClaim();
                     }
 
                     for (final T record : records) {
@@ -280,6 +329,69 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         }
     }
 
+    private void sync(final Partition<T> partition, final long transactionSequence) throws IOException {
+        final long syncStart = System.nanoTime();
+        final int transactionsSynced = partition.sync(transactionSequence);
+
+        // if another thread's sync already covered our transaction, there is nothing to record
+        if (transactionsSynced > 0) {
+            syncCount.incrementAndGet();
+            syncedTransactionCount.addAndGet(transactionsSynced);
+            syncNanos.addAndGet(System.nanoTime() - syncStart);
+        }
+    }
+
+    /**
+     * @param partitionIndex the index of a partition, as returned by
+     * {@link #update(Collection, boolean)}
+     * @return the sequence number of the last transaction written to the given
+     * partition. Sequence numbers increase by one with each transaction written
+     * to the partition, whether or not the transaction requested a sync
+     */
+    public long getWrittenTransactionSequence(final int partitionIndex) {
+        return partitions[partitionIndex].getWrittenTransactionSequence();
+    }
+
+    /**
+     * @param partitionIndex the index of a partition, as returned by
+     * {@link #update(Collection, boolean)}
+     * @return the sequence number of the last transaction of the given
+     * partition that is known to have been synced to disk. Every transaction
+     * whose sequence number is less than or equal to this value is durable
+     */
+    public long getSyncedTransactionSequence(final int partitionIndex) {
+        return partitions[partitionIndex].getSyncedTransactionSequence();
+    }
+
+    /**
+     * @return the number of times that a partition has been synced to disk as
+     * a result of calling {@link #update(Collection, boolean)} with a value of
+     * <code>true</code> for the second argument
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+    /**
+     * @return the number of transactions that requested a sync and were made
+     * durable by the syncs counted by {@link #getSyncCount()}. Transactions
+     * written without requesting a sync are not included, even if one of
+     * those syncs made them durable. Because concurrent updates to
+     * the same partition are coalesced into a single sync, dividing this value
+     * by the sync count gives the average commit batch size
+     */
+    public long getSyncedTransactionCount() {
+        return syncedTransactionCount.get();
+    }
+
+    /**
+     * @return the total number of nanoseconds spent performing the syncs
+     * counted by {@link #getSyncCount()}
+     */
+    public long getSyncNanos() {
+        return syncNanos.get();
+    }
+
     @Override
     public Collection<T> recoverRecords() throws IOException {
         if (updated) {
@@ -288,9 +400,21 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
 
         final long recoverStart = System.nanoTime();
         writeLock.lock();
+        final ExecutorService recoveryExecutor = createRecoveryExecutor();
         try {
-            Long maxTransactionId = recoverFromSnapshot(recordMap);
+            // start reading the journals of all partitions in the background so that this overlaps with
+            // recovering the snapshot and with each other.
+            for (final Partition<T> partition : partitions) {
+                partition.beginRecovery(recoveryExecutor);
+            }
+
+            final long snapshotStart = System.nanoTime();
+            Long maxTransactionId = recoverFromSnapshot(recordMap, recoveryExecutor);
+            final long journalStart = System.nanoTime();
+            snapshotRecoveryNanos = journalStart - snapshotStart;
+
             recoverFromEdits(recordMap, maxTransactionId);
+            journalRecoveryNanos = System.nanoTime() - journalStart;
 
             for (final Partition<T> partition : partitions) {
                 final long transId = partition.getMaxRecoveredTransactionId();
@@ -303,23 +427,67 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
             this.externalLocations.addAll(recoveredExternalLocations);
             logger.info("{} finished recovering records. Performing Checkpoint to ensure proper state of Partitions before updates", this);
         } finally {
+            recoveryExecutor.shutdownNow();
             writeLock.unlock();
         }
         final long recoverNanos = System.nanoTime() - recoverStart;
         final long recoveryMillis = TimeUnit.MILLISECONDS.convert(recoverNanos, TimeUnit.NANOSECONDS);
-        logger.info("Successfully recovered {} records in {} milliseconds", recordMap.size(), recoveryMillis);
+        logger.info("Successfully recovered {} records in {} milliseconds (Snapshot recovery time = {} milliseconds, Journal recovery time = {} milliseconds)",
+            new Object[] {recordMap.size(), recoveryMillis, TimeUnit.NANOSECONDS.toMillis(snapshotRecoveryNanos), TimeUnit.NANOSECONDS.toMillis(journalRecoveryNanos)});
+
+        final long checkpointStart = System.nanoTime();
         checkpoint();
+        recoveryCheckpointNanos = System.nanoTime() - checkpointStart;
 
         recovered = true;
         return recordMap.values();
     }
 
+    private ExecutorService createRecoveryExecutor() {
+        // reading the journals is I/O-bound, so we use a thread per partition (plus one for the snapshot), up to a limit
+        final int threadCount = Math.min(partitions.length + 1, Math.max(MIN_RECOVERY_THREADS, Runtime.getRuntime().availableProcessors()));
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "Write-Ahead Log Recovery Thread-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * @return the number of nanoseconds that were spent recovering records from
+     * the snapshot when {@link #recoverRecords()} was called
+     */
+    public long getSnapshotRecoveryNanos() {
+        return snapshotRecoveryNanos;
+    }
+
+    /**
+     * @return the number of nanoseconds that were spent replaying the
+     * partitions' journals when {@link #recoverRecords()} was called
+     */
+    public long getJournalRecoveryNanos() {
+        return journalRecoveryNanos;
+    }
+
+    /**
+     * @return the number of nanoseconds that were spent performing the
+     * checkpoint that follows recovery when {@link #recoverRecords()} was
+     * called
+     */
+    public long getRecoveryCheckpointNanos() {
+        return recoveryCheckpointNanos;
+    }
+
     @Override
     public Set<String> getRecoveredSwapLocations() throws IOException {
         return recoveredExternalLocations;
     }
 
-    private Long recoverFromSnapshot(final Map<Object, T> recordMap) throws IOException {
+    private Long recoverFromSnapshot(final Map<Object, T> recordMap, final ExecutorService recoveryExecutor) throws IOException {
         final boolean partialExists = Files.exists(partialPath);
         final boolean snapshotExists = Files.exists(snapshotPath);
 
@@ -346,7 +514,9 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
 
         // at this point, we know the snapshotPath exists because if it didn't, then we either returned null
         // or we renamed partialPath to snapshotPath. So just Recover from snapshotPath.
-        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath, StandardOpenOption.READ)))) {
+        final InputStream snapshotIn = new ReadAheadInputStream(Files.newInputStream(snapshotPath, StandardOpenOption.READ),
+            recoveryExecutor, SNAPSHOT_READ_AHEAD_CHUNK_SIZE, SNAPSHOT_READ_AHEAD_CHUNKS);
+        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(snapshotIn))) {
             final String waliImplementationClass = dataIn.readUTF();
             final int waliImplementationVersion = dataIn.readInt();
 
@@ -365,8 +535,9 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
             final long maxTransactionId = dataIn.readLong();
             final int numRecords = dataIn.readInt();
 
+            final SerDe<T> snapshotSerde = serdeFactory.createSerDe();
             for (int i = 0; i < numRecords; i++) {
-                final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                final T record = snapshotSerde.deserializeRecord(dataIn, serdeVersion);
                 if (record == null) {
                     throw new EOFException();
                 }
@@ -514,8 +685,9 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                     try {
                         partition.rollover();
                     } catch (final Throwable t) {
-                        partition.blackList();
-                        numberBlackListedPartitions.getAndIncrement();
+                        if (partition.blackList()) {
+                            numberBlackListedPartitions.incrementAndGet();
+                        }
                         throw t;
                     }
                 }
@@ -536,14 +708,15 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
             dataOut = new DataOutputStream(fileOut);
             dataOut.writeUTF(MinimalLockingWriteAheadLog.class.getName());
             dataOut.writeInt(getVersion());
-            dataOut.writeUTF(serde.getClass().getName());
-            dataOut.writeInt(serde.getVersion());
+            final SerDe<T> snapshotSerde = serdeFactory.createSerDe();
+            dataOut.writeUTF(snapshotSerde.getClass().getName());
+            dataOut.writeInt(snapshotSerde.getVersion());
             dataOut.writeLong(maxTransactionId);
             dataOut.writeInt(records.size());
 
             for (final T record : records) {
                 logger.trace("Checkpointing {}", record);
-                serde.serializeRecord(record, dataOut);
+                snapshotSerde.serializeRecord(record, dataOut);
             }
 
             dataOut.writeInt(swapLocations.size());
@@ -592,6 +765,22 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                 + "time = {} milliseconds, Clear Edit Logs time = {} millis), max Transaction ID {}",
                 new Object[]{this, records.size(), swapLocations.size(), millis, stopTheWorldMillis, partitionMillis, maxTransactionId});
 
+        final long currentSyncCount = syncCount.get();
+        final long currentSyncedTransactionCount = syncedTransactionCount.get();
+        final long currentSyncNanos = syncNanos.get();
+        final long syncsSinceCheckpoint = currentSyncCount - lastCheckpointSyncCount;
+        if (syncsSinceCheckpoint > 0) {
+            final long transactionsSinceCheckpoint = currentSyncedTransactionCount - lastCheckpointSyncedTransactionCount;
+            final long syncMicrosSinceCheckpoint = TimeUnit.NANOSECONDS.toMicros(currentSyncNanos - lastCheckpointSyncNanos);
+            logger.info("{} performed {} syncs for {} transactions since the last checkpoint (average commit batch size = {}, "
+                    + "average sync latency = {} microseconds)",
+                    new Object[]{this, syncsSinceCheckpoint, transactionsSinceCheckpoint,
+                        String.format("%.2f", (double) transactionsSinceCheckpoint / syncsSinceCheckpoint), syncMicrosSinceCheckpoint / syncsSinceCheckpoint});
+        }
+        lastCheckpointSyncCount = currentSyncCount;
+        lastCheckpointSyncedTransactionCount = currentSyncedTransactionCount;
+        lastCheckpointSyncNanos = currentSyncNanos;
+
         return records.size();
     }
 
@@ -617,30 +806,60 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
      * .journal file.
      *
      * All methods with the exceptions of {@link #claim()}, {@link #tryClaim()},
-     * and {@link #releaseClaim()} in this Partition MUST be called while
-     * holding the claim (via {@link #claim} or {@link #tryClaim()}).
+     * {@link #releaseClaim()}, and {@link #sync(long)} in this Partition MUST
+     * be called while holding the claim (via {@link #claim} or
+     * {@link #tryClaim()}).
      *
      * @param <S> type of record held in the partitions
      */
+    /**
+     * Supplies the same SerDe for every stream, for SerDes that keep no state
+     * between records
+     */
+    private static class SingletonSerDeFactory<S> implements SerDeFactory<S> {
+        private final SerDe<S> serde;
+
+        public SingletonSerDeFactory(final SerDe<S> serde) {
+            this.serde = serde;
+        }
+
+        @Override
+        public SerDe<S> createSerDe() {
+            return serde;
+        }
+    }
+
     private static class Partition<S> {
 
         public static final String JOURNAL_EXTENSION = ".journal";
         private static final Pattern JOURNAL_FILENAME_PATTERN = Pattern.compile("\\d+\\.journal");
 
-        private final SerDe<S> serde;
+        private final SerDeFactory<S> serdeFactory;
+        private SerDe<S> serde; // replaced whenever a journal is opened, for writing under lock or for recovery
 
         private final Path editDirectory;
         private final int writeAheadLogVersion;
 
         private final Lock lock = new ReentrantLock();
+        private final Lock syncLock = new ReentrantLock();
+        private volatile long transactionsWritten = 0L; // updated while holding lock
+        private volatile long transactionsSynced = 0L; // updated while holding syncLock
+        private long syncRequestsWritten = 0L; // guarded by lock
+        private long syncRequestsSynced = 0L; // guarded by syncLock
         private DataOutputStream dataOut = null;
         private FileOutputStream fileOut = null;
         private boolean blackListed = false;
         private boolean closed = false;
         private DataInputStream recoveryIn;
+        private ExecutorService recoveryExecutor;
+        private Path prefetchedRecoveryPath;
+        private InputStream prefetchedRecoveryStream;
         private int recoveryVersion;
         private String currentJournalFilename = "";
 
+        private static final int JOURNAL_READ_AHEAD_CHUNK_SIZE = 64 * 1024;
+        private static final int JOURNAL_READ_AHEAD_CHUNKS = 8;
+
         private static final byte TRANSACTION_CONTINUE = 1;
         private static final byte TRANSACTION_COMMIT = 2;
 
@@ -650,9 +869,10 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
 
         private final Queue<Path> recoveryFiles;
 
-        public Partition(final Path path, final SerDe<S> serde, final int partitionIndex, final int writeAheadLogVersion) throws IOException {
+        public Partition(final Path path, final SerDeFactory<S> serdeFactory, final int partitionIndex, final int writeAheadLogVersion) throws IOException {
             this.editDirectory = path;
-            this.serde = serde;
+            this.serdeFactory = serdeFactory;
+            this.serde = serdeFactory.createSerDe();
 
             final File file = path.toFile();
             if (!file.exists() && !file.mkdirs()) {
@@ -702,19 +922,30 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
             this.dataOut = null;
         }
 
-        public void blackList() {
+        /**
+         * Marks this partition as unusable until it is next rolled over
+         *
+         * @return <code>true</code> if this call blacklisted the partition,
+         * <code>false</code> if it was already blacklisted
+         */
+        public boolean blackList() {
             lock.lock();
             try {
+                if (blackListed) {
+                    return false;
+                }
                 blackListed = true;
             } finally {
                 lock.unlock();
             }
             logger.debug("Blacklisted {}", this);
+            return true;
         }
 
         /**
          * Closes resources pointing to the current journal and begins writing
-         * to a new one
+         * to a new one. If this fails, the caller is responsible for
+         * blacklisting the partition
          *
          * @throws IOException if failure to rollover
          */
@@ -744,7 +975,8 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                 //
                 // Additionally, we are okay not ever calling close on the wrapping BufferedOutputStream and
                 // DataOutputStream because they don't actually hold any resources that need to be reclaimed,
-                // and after each update to the Write-Ahead Log, we call flush() ourselves to ensure that we don't
+                // and after each update to the Write-Ahead Log, we call flush() ourselves (either directly or as part of
+                // the sync that follows the update) to ensure that we don't
                 // leave arbitrary data in the BufferedOutputStream that hasn't been flushed to the underlying
                 // FileOutputStream.
                 final OutputStream out = fileOut;
@@ -754,8 +986,6 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                     } catch (final IOException ioe) {
                         dataOut = null;
                         fileOut = null;
-
-                        blackList();
                         throw ioe;
                     }
                 }
@@ -763,6 +993,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                 final Path editPath = getNewEditPath();
                 final FileOutputStream fos = new FileOutputStream(editPath.toFile());
                 try {
+                    serde = serdeFactory.createSerDe();
                     final DataOutputStream outStream = new DataOutputStream(new BufferedOutputStream(fos));
                     outStream.writeUTF(MinimalLockingWriteAheadLog.class.getName());
                     outStream.writeInt(writeAheadLogVersion);
@@ -780,8 +1011,6 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
 
                     dataOut = null;
                     fileOut = null;
-                    blackList();
-
                     throw ioe;
                 }
 
@@ -898,7 +1127,22 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
             return true;
         }
 
-        public void update(final Collection<S> records, final long transactionId, final Map<Object, S> recordMap, final boolean forceSync)
+        /**
+         * Writes the given records to the journal as a single transaction. If
+         * <code>forceSync</code> is <code>true</code>, the transaction is left
+         * in the buffer, and the caller is expected to call {@link #sync(long)}
+         * with the returned sequence number after releasing the claim, so that
+         * the transactions of concurrent callers can be written and synced
+         * together.
+         *
+         * @param records the records to write
+         * @param transactionId the id of the transaction
+         * @param recordMap the current version of each record
+         * @param forceSync whether or not the caller will sync the transaction
+         * @return the sequence number of the transaction within this partition
+         * @throws IOException if unable to write to the journal
+         */
+        public long update(final Collection<S> records, final long transactionId, final Map<Object, S> recordMap, final boolean forceSync)
                 throws IOException {
             if (this.closed) {
                 throw new IllegalStateException("Partition is closed");
@@ -921,15 +1165,124 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                 }
             }
 
-            out.flush();
-
             if (forceSync) {
-                fileOut.getFD().sync();
+                syncRequestsWritten++;
+            } else {
+                out.flush();
+            }
+
+            return ++transactionsWritten;
+        }
+
+        /**
+         * Ensures that the transaction with the given sequence number, and
+         * every transaction written to this partition before it, has been
+         * flushed and synced to disk. This method must be called WITHOUT
+         * holding the claim. If another thread is already syncing the
+         * partition, this method waits for it to finish and returns
+         * immediately if that sync covered the given transaction; otherwise,
+         * it flushes and syncs all of the transactions that have been written
+         * so far with a single sync.
+         *
+         * @param transactionSequence the sequence number returned by
+         * {@link #update(Collection, long, Map, boolean)}
+         * @return the number of transactions that requested a sync and were
+         * made durable by this call, or 0 if the transaction had already been
+         * synced by another thread. Transactions that were written without
+         * requesting a sync are not counted, even if this call made them
+         * durable
+         * @throws IOException if unable to flush or sync the journal
+         */
+        public int sync(final long transactionSequence) throws IOException {
+            syncLock.lock();
+            try {
+                if (transactionsSynced >= transactionSequence) {
+                    return 0;
+                }
+
+                // flush the buffered transactions while holding the claim, but perform the sync without it so that
+                // other threads can continue to write to the partition in the meantime.
+                final long syncThrough;
+                final long syncRequestsThrough;
+                final FileOutputStream out;
+                lock.lock();
+                try {
+                    if (closed || dataOut == null) {
+                        throw new IOException(this + " is closed");
+                    }
+
+                    dataOut.flush();
+                    syncThrough = transactionsWritten;
+                    syncRequestsThrough = syncRequestsWritten;
+                    out = fileOut;
+                } finally {
+                    lock.unlock();
+                }
+
+                out.getFD().sync();
+
+                final int transactionCount = (int) (syncRequestsThrough - syncRequestsSynced);
+                transactionsSynced = syncThrough;
+                syncRequestsSynced = syncRequestsThrough;
+                return transactionCount;
+            } finally {
+                syncLock.unlock();
+            }
+        }
+
+        /**
+         * @return the sequence number of the last transaction written to this
+         * partition
+         */
+        public long getWrittenTransactionSequence() {
+            return transactionsWritten;
+        }
+
+        /**
+         * @return the sequence number of the last transaction written to this
+         * partition that has been synced to disk
+         */
+        public long getSyncedTransactionSequence() {
+            return transactionsSynced;
+        }
+
+        /**
+         * Begins reading this partition's first journal in the background, using
+         * the given executor, so that it is ready by the time that it is needed.
+         * Subsequent journals are also read using the given executor.
+         *
+         * @param executor the executor to use for reading journals
+         * @throws IOException if unable to open the first journal
+         */
+        public void beginRecovery(final ExecutorService executor) throws IOException {
+            this.recoveryExecutor = executor;
+
+            final Path firstRecoveryPath = recoveryFiles.peek();
+            if (firstRecoveryPath != null) {
+                prefetchedRecoveryPath = firstRecoveryPath;
+                prefetchedRecoveryStream = createReadAheadStream(firstRecoveryPath);
             }
         }
 
+        private InputStream createReadAheadStream(final Path path) throws IOException {
+            return new ReadAheadInputStream(Files.newInputStream(path), recoveryExecutor, JOURNAL_READ_AHEAD_CHUNK_SIZE, JOURNAL_READ_AHEAD_CHUNKS);
+        }
+
         private DataInputStream createDataInputStream(final Path path) throws IOException {
-            return new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            if (recoveryExecutor == null) {
+                return new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            }
+
+            final InputStream in;
+            if (path.equals(prefetchedRecoveryPath)) {
+                in = prefetchedRecoveryStream;
+                prefetchedRecoveryPath = null;
+                prefetchedRecoveryStream = null;
+            } else {
+                in = createReadAheadStream(path);
+            }
+
+            return new DataInputStream(new BufferedInputStream(in));
         }
 
         private DataInputStream getRecoveryStream() throws IOException {
@@ -944,6 +1297,9 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                 }
 
                 logger.debug("{} recovering from {}", this, nextRecoveryPath);
+                if (recoveryIn != null) {
+                    recoveryIn.close();
+                }
                 recoveryIn = createDataInputStream(nextRecoveryPath);
                 if (hasMoreData(recoveryIn)) {
                     final String waliImplementationClass = recoveryIn.readUTF();
@@ -960,6 +1316,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                     @SuppressWarnings("unused")
                     final String serdeClassName = recoveryIn.readUTF();
                     this.recoveryVersion = recoveryIn.readInt();
+                    this.serde = serdeFactory.createSerDe();
 
                     break;
                 }
@@ -997,7 +1354,13 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         public void endRecovery() throws IOException {
             if (recoveryIn != null) {
                 recoveryIn.close();
+                recoveryIn = null;
+            }
+            if (prefetchedRecoveryStream != null) {
+                prefetchedRecoveryStream.close();
+                prefetchedRecoveryStream = null;
             }
+            recoveryExecutor = null;
 
             final Path nextRecoveryPath = this.recoveryFiles.poll();
             if (nextRecoveryPath != null) {
@@ -1008,6 +1371,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
             final Path newEditPath = getNewEditPath();
 
             final FileOutputStream fos = new FileOutputStream(newEditPath.toFile());
+            serde = serdeFactory.createSerDe();
             final DataOutputStream outStream = new DataOutputStream(new BufferedOutputStream(fos));
             outStream.writeUTF(MinimalLockingWriteAheadLog.class.getName());
             outStream.writeInt(writeAheadLogVersion);
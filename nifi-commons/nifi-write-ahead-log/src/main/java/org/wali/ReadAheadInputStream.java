@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wali;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.nifi.stream.io.StreamUtils;
+
+/**
+ * <p>
+ * An InputStream that reads ahead of the consumer by reading chunks of the
+ * underlying stream on a background thread, so that a file can be read from
+ * disk while the data that has already been read is being deserialized. This
+ * allows the journals of all partitions, as well as the snapshot, to be read
+ * from disk in parallel during recovery, even though the records must be
+ * deserialized in Transaction ID order.
+ * </p>
+ *
+ * <p>
+ * At most a fixed number of chunks are held in memory. Rather than blocking a
+ * thread while the buffer is full, the background task returns and is
+ * resubmitted once the consumer has drained some of the buffer, so that any
+ * number of these streams may share a small thread pool without the risk of
+ * one stream starving another.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe, with respect to the consumer.
+ * </p>
+ */
+class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final InputStream source;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxChunks;
+
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private final AtomicBoolean fillScheduled = new AtomicBoolean(false);
+    private final Runnable fillTask = new Runnable() {
+        @Override
+        public void run() {
+            fill();
+        }
+    };
+
+    private volatile boolean sourceExhausted = false;
+    private volatile boolean closed = false;
+    private volatile IOException failure = null;
+
+    private byte[] currentChunk = null;
+    private int currentIndex = 0;
+
+    /**
+     * @param source the stream to read from; it will be closed when it has been
+     * fully read or when this stream is closed
+     * @param executor the executor to use for reading from the source
+     * @param chunkSize the number of bytes to read from the source at a time
+     * @param maxChunks the maximum number of chunks to read ahead of the
+     * consumer
+     */
+    public ReadAheadInputStream(final InputStream source, final ExecutorService executor, final int chunkSize, final int maxChunks) {
+        this.source = source;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+
+        scheduleFill();
+    }
+
+    private void scheduleFill() {
+        if (sourceExhausted || closed) {
+            return;
+        }
+
+        if (fillScheduled.compareAndSet(false, true)) {
+            try {
+                executor.submit(fillTask);
+            } catch (final RejectedExecutionException ree) {
+                // the executor has been shut down; read on the consumer's thread instead
+                fill();
+            }
+        }
+    }
+
+    private void fill() {
+        try {
+            while (!closed && chunks.size() < maxChunks) {
+                final byte[] buffer = new byte[chunkSize];
+                final int bytesRead = StreamUtils.fillBuffer(source, buffer, false);
+                if (bytesRead > 0) {
+                    chunks.add(bytesRead < chunkSize ? Arrays.copyOf(buffer, bytesRead) : buffer);
+                }
+
+                if (bytesRead < chunkSize) {
+                    sourceExhausted = true;
+                    chunks.add(END_OF_STREAM);
+                    closeSource();
+                    return;
+                }
+            }
+        } catch (final IOException ioe) {
+            failure = ioe;
+            sourceExhausted = true;
+            chunks.add(END_OF_STREAM);
+            closeSource();
+        } finally {
+            fillScheduled.set(false);
+        }
+
+        if (closed) {
+            closeSource();
+        }
+    }
+
+    private void closeSource() {
+        try {
+            source.close();
+        } catch (final IOException ioe) {
+        }
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (currentChunk == END_OF_STREAM) {
+            return false;
+        }
+
+        byte[] chunk = chunks.poll();
+        while (chunk == null) {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            scheduleFill();
+            try {
+                chunk = chunks.poll(100, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for data to be read");
+            }
+        }
+
+        if (chunks.size() < maxChunks / 2) {
+            scheduleFill();
+        }
+
+        currentChunk = chunk;
+        currentIndex = 0;
+
+        if (chunk == END_OF_STREAM) {
+            final IOException ioe = failure;
+            if (ioe != null) {
+                throw ioe;
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (currentChunk == null || currentIndex >= currentChunk.length) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+
+        return currentChunk[currentIndex++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (currentChunk == null || currentIndex >= currentChunk.length) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+
+        final int toCopy = Math.min(len, currentChunk.length - currentIndex);
+        System.arraycopy(currentChunk, currentIndex, b, off, toCopy);
+        currentIndex += toCopy;
+        return toCopy;
+    }
+
+    @Override
+    public int available() {
+        return currentChunk == null ? 0 : currentChunk.length - currentIndex;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear();
+
+        // if a fill is in progress, it will close the source when it finishes
+        if (fillScheduled.compareAndSet(false, true)) {
+            closeSource();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wali;
+
+/**
+ * <p>
+ * Creates the {@link SerDe} instances used by a write-ahead log.
+ * </p>
+ *
+ * <p>
+ * A new SerDe is created for each journal and snapshot that is written or
+ * read, and that SerDe is used only for that one stream. A SerDe obtained from
+ * a factory may therefore keep state that is scoped to the stream, such as a
+ * dictionary of values that have already been written, without synchronizing
+ * access to it and without needing to be told when the stream changes.
+ * </p>
+ *
+ * @param <T> the type of record that is to be Serialized and De-Serialized by
+ * the SerDes that are created
+ */
+public interface SerDeFactory<T> {
+
+    /**
+     * @return a new SerDe that has not yet been used to write or read any
+     * stream
+     */
+    SerDe<T> createSerDe();
+}
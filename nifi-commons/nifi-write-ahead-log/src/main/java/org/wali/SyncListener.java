@@ -37,9 +37,11 @@ package org.wali;
  * </p>
  *
  * <p>
- * The {@link #onSync(int)} method will always be called while the associated
- * partition is locked. The {@link #onGlobalSync()} will always be called while
- * the entire repository is locked.
+ * The {@link #onSync(int)} method will always be called after the associated
+ * partition has been synched, but other threads may be updating the partition
+ * concurrently, so transactions written to the partition after the sync may not
+ * yet be durable when it is called. The {@link #onGlobalSync()} will always be called while the
+ * entire repository is locked.
  * </p>
  *
  */
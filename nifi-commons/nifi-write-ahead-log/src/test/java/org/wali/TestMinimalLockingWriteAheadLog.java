@@ -20,6 +20,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
@@ -244,6 +246,65 @@ public class TestMinimalLockingWriteAheadLog {
         }
     }
 
+    @Test
+    public void testConcurrentSyncedUpdatesAreGroupCommitted() throws IOException, InterruptedException {
+        final int numPartitions = 2;
+        final int numThreads = 8;
+        final int updatesPerThread = 250;
+
+        final Path path = Paths.get("target/minimal-locking-repo-group-commit");
+        deleteRecursively(path.toFile());
+        assertTrue(path.toFile().mkdirs());
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final MinimalLockingWriteAheadLog<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            final int startIndex = i * updatesPerThread;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < updatesPerThread; j++) {
+                            final DummyRecord record = new DummyRecord(String.valueOf(startIndex + j), UpdateType.CREATE);
+                            record.setProperty("A", "B");
+                            repo.update(Collections.singleton(record), true);
+                        }
+                    } catch (final Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            }));
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(null, failure.get());
+
+        // every transaction must have been synced exactly once, though many may have shared a single sync
+        final long totalUpdates = numThreads * updatesPerThread;
+        assertEquals(totalUpdates, repo.getSyncedTransactionCount());
+        assertTrue(repo.getSyncCount() > 0);
+        assertTrue(repo.getSyncCount() <= totalUpdates);
+        assertTrue(repo.getSyncNanos() > 0);
+        repo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(totalUpdates, recoveredRecords.size());
+        for (final DummyRecord record : recoveredRecords) {
+            assertEquals("B", record.getProperty("A"));
+        }
+        recoverRepo.shutdown();
+    }
+
     @Test
     public void testRecoverAfterIOException() throws IOException {
         final int numPartitions = 5;
@@ -312,6 +373,99 @@ public class TestMinimalLockingWriteAheadLog {
         assertTrue(record3);
     }
 
+    @Test
+    public void testSerDeFactoryCreatesSerDePerStream() throws IOException {
+        final Path path = Paths.get("target/minimal-locking-repo-serde-per-stream");
+        deleteRecursively(path.toFile());
+        Files.createDirectories(path);
+
+        final SerDeFactory<DummyRecord> serdeFactory = new SerDeFactory<DummyRecord>() {
+            @Override
+            public SerDe<DummyRecord> createSerDe() {
+                return new StreamSequenceSerde();
+            }
+        };
+
+        final WriteAheadRepository<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, 2, serdeFactory, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+        for (int i = 0; i < 10; i++) {
+            repo.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.CREATE)), false);
+        }
+
+        // the checkpoint writes a snapshot and rolls every partition over to a new journal; the sequence numbers
+        // written by StreamSequenceSerde only line up on recovery if each of those streams was given its own SerDe
+        repo.checkpoint();
+        for (int i = 10; i < 20; i++) {
+            repo.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.CREATE)), false);
+        }
+        repo.update(Collections.singleton(new DummyRecord("0", UpdateType.DELETE)), true);
+        repo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new MinimalLockingWriteAheadLog<>(path, 2, serdeFactory, null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(19, recoveredRecords.size());
+        recoverRepo.shutdown();
+    }
+
+    @Test
+    public void testSyncedTransactionCountExcludesUnsyncedUpdates() throws IOException {
+        final Path path = Paths.get("target/minimal-locking-repo-synced-count");
+        deleteRecursively(path.toFile());
+        Files.createDirectories(path);
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final MinimalLockingWriteAheadLog<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, 1, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        // the sync made durable by the third update also covers the first two, but they did not ask for it
+        repo.update(Collections.singleton(new DummyRecord("1", UpdateType.CREATE)), false);
+        repo.update(Collections.singleton(new DummyRecord("2", UpdateType.CREATE)), false);
+        repo.update(Collections.singleton(new DummyRecord("3", UpdateType.CREATE)), true);
+        assertEquals(1, repo.getSyncCount());
+        assertEquals(1, repo.getSyncedTransactionCount());
+
+        repo.update(Collections.singleton(new DummyRecord("4", UpdateType.CREATE)), true);
+        assertEquals(2, repo.getSyncCount());
+        assertEquals(2, repo.getSyncedTransactionCount());
+
+        repo.shutdown();
+    }
+
+    @Test
+    public void testCheckpointRestoresBlackListedPartitions() throws IOException {
+        final int numPartitions = 3;
+        final Path path = Paths.get("target/minimal-locking-repo-test-checkpoint-restores-blacklisted");
+        deleteRecursively(path.toFile());
+        Files.createDirectories(path);
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        serde.setThrowIOEAfterNSerializeEdits(0);
+        for (int i = 0; i < numPartitions; i++) {
+            try {
+                repo.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.CREATE)), true);
+                Assert.fail("Did not throw IOException");
+            } catch (final IOException e) {
+                // expected behavior.
+            }
+        }
+
+        serde.setThrowIOEAfterNSerializeEdits(-1);
+        try {
+            repo.update(Collections.singleton(new DummyRecord("1", UpdateType.CREATE)), true);
+            Assert.fail("Successfully updated repo with all partitions blacklisted");
+        } catch (final IOException e) {
+            assertTrue(e.getMessage().contains("All Partitions have been blacklisted"));
+        }
+
+        // a successful checkpoint rolls every partition over, which makes the repo usable again
+        repo.checkpoint();
+        repo.update(Collections.singleton(new DummyRecord("1", UpdateType.CREATE)), true);
+        repo.shutdown();
+    }
+
     @Test
     public void testCannotModifyLogAfterAllAreBlackListed() throws IOException {
         final int numPartitions = 5;
@@ -451,6 +605,31 @@ public class TestMinimalLockingWriteAheadLog {
     }
 
 
+    /**
+     * Prefixes each record with the number of records that this instance has
+     * already written, and fails to read a record whose number does not match
+     * the number of records that this instance has already read
+     */
+    private static class StreamSequenceSerde extends DummyRecordSerde {
+        private int written = 0;
+        private int read = 0;
+
+        @Override
+        public void serializeEdit(final DummyRecord previousState, final DummyRecord record, final DataOutputStream out) throws IOException {
+            out.writeInt(written++);
+            super.serializeEdit(previousState, record, out);
+        }
+
+        @Override
+        public DummyRecord deserializeRecord(final DataInputStream in, final int version) throws IOException {
+            final int sequence = in.readInt();
+            if (sequence != read++) {
+                throw new IOException("Expected record " + (read - 1) + " of the stream but found record " + sequence);
+            }
+            return super.deserializeRecord(in, version);
+        }
+    }
+
     private static class InsertThread extends Thread {
 
         private final List<List<DummyRecord>> records;
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wali;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestReadAheadInputStream {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private byte[] randomBytes(final int length) {
+        final byte[] data = new byte[length];
+        new Random().nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testReadsAllBytes() throws IOException {
+        final byte[] data = randomBytes(100_003);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 1024, 4)) {
+            // mix single-byte and bulk reads
+            baos.write(in.read());
+            final byte[] buffer = new byte[777];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                baos.write(buffer, 0, len);
+            }
+
+            assertEquals(-1, in.read());
+        }
+
+        assertArrayEquals(data, baos.toByteArray());
+    }
+
+    @Test
+    public void testEmptySource() throws IOException {
+        try (final InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(new byte[0]), executor, 1024, 4)) {
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[10]));
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testManyStreamsShareOneThread() throws IOException {
+        // Each stream holds far less than its source in memory, and a single thread serves all of them, so reading the
+        // streams in an interleaved order only completes if a full stream does not hold on to the thread.
+        final List<byte[]> sources = new ArrayList<>();
+        final List<InputStream> streams = new ArrayList<>();
+        final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final byte[] data = randomBytes(50_000);
+            sources.add(data);
+            streams.add(new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 512, 2));
+            outputs.add(new ByteArrayOutputStream());
+        }
+
+        boolean moreData = true;
+        final byte[] buffer = new byte[300];
+        while (moreData) {
+            moreData = false;
+            for (int i = streams.size() - 1; i >= 0; i--) {
+                final int len = streams.get(i).read(buffer);
+                if (len > 0) {
+                    outputs.get(i).write(buffer, 0, len);
+                    moreData = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < sources.size(); i++) {
+            streams.get(i).close();
+            assertArrayEquals(sources.get(i), outputs.get(i).toByteArray());
+        }
+    }
+}
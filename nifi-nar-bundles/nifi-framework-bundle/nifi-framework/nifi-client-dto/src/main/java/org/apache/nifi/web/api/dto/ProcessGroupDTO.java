@@ -27,6 +27,7 @@ public class ProcessGroupDTO extends NiFiComponentDTO {
 
     private String name;
     private String comments;
+    private Integer dedicatedThreadCount;
     private Boolean running;
 
     private ProcessGroupDTO parent;
@@ -93,6 +94,21 @@ public class ProcessGroupDTO extends NiFiComponentDTO {
         this.comments = comments;
     }
 
+    /**
+     * @return number of threads dedicated to this process group, or 0 if it uses the shared thread pool
+     */
+    @ApiModelProperty(
+            value = "The number of threads dedicated to the timer driven components of the process group and of its descendants without their own. "
+                    + "Zero means they use the shared thread pool."
+    )
+    public Integer getDedicatedThreadCount() {
+        return dedicatedThreadCount;
+    }
+
+    public void setDedicatedThreadCount(Integer dedicatedThreadCount) {
+        this.dedicatedThreadCount = dedicatedThreadCount;
+    }
+
     /**
      * @return contents of this process group. This field will be populated if the request is marked verbose
      */
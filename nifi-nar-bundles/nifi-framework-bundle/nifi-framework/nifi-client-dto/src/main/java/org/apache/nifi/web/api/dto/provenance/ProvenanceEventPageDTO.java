@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web.api.dto.provenance;
+
+import com.wordnik.swagger.annotations.ApiModelProperty;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * A single page of the provenance events that match a request, ordered by event id.
+ */
+@XmlType(name = "provenanceEventPage")
+public class ProvenanceEventPageDTO {
+
+    private ProvenanceRequestDTO request;
+    private String order;
+    private Integer pageSize;
+    private String continuationToken;
+    private String clusterNodeId;
+
+    private List<ProvenanceEventDTO> provenanceEvents;
+
+    /**
+     * @return the search criteria that the events must match
+     */
+    @ApiModelProperty(
+            value = "The search criteria that the events must match. The maximum number of results is ignored."
+    )
+    public ProvenanceRequestDTO getRequest() {
+        return request;
+    }
+
+    public void setRequest(ProvenanceRequestDTO request) {
+        this.request = request;
+    }
+
+    /**
+     * @return the order of the events by event id, either ASCENDING or DESCENDING
+     */
+    @ApiModelProperty(
+            value = "The order of the events by event id, either ASCENDING or DESCENDING. Ignored when a continuation token is specified.",
+            allowableValues = "ASCENDING, DESCENDING"
+    )
+    public String getOrder() {
+        return order;
+    }
+
+    public void setOrder(String order) {
+        this.order = order;
+    }
+
+    /**
+     * @return the maximum number of events in the page
+     */
+    @ApiModelProperty(
+            value = "The maximum number of events in the page."
+    )
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return in a request, the token of the page to get, or null for the first page; in a response, the token of the next page,
+     * or null if there are no more events
+     */
+    @ApiModelProperty(
+            value = "In a request, the token of the page to get, or null for the first page. In a response, the token of the next page, "
+                    + "or null if there are no more events."
+    )
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return id of the node to get the events from, if clustered
+     */
+    @ApiModelProperty(
+            value = "The id of the node in the cluster to get the events from. This is required when clustered."
+    )
+    public String getClusterNodeId() {
+        return clusterNodeId;
+    }
+
+    public void setClusterNodeId(String clusterNodeId) {
+        this.clusterNodeId = clusterNodeId;
+    }
+
+    /**
+     * @return the events of this page
+     */
+    @ApiModelProperty(
+            value = "The events of this page."
+    )
+    public List<ProvenanceEventDTO> getProvenanceEvents() {
+        return provenanceEvents;
+    }
+
+    public void setProvenanceEvents(List<ProvenanceEventDTO> provenanceEvents) {
+        this.provenanceEvents = provenanceEvents;
+    }
+}
@@ -49,6 +49,10 @@ public class ProcessGroupStatusDTO extends StatusDTO {
     private String received;
     private String sent;
     private Integer activeThreadCount;
+    private Integer dedicatedThreadCount;
+    private Integer dedicatedPoolActiveThreadCount;
+    private Integer dedicatedPoolQueuedTaskCount;
+    private Integer dedicatedPoolUtilization;
     private Date statsLastRefreshed;
 
     /**
@@ -95,6 +99,62 @@ public class ProcessGroupStatusDTO extends StatusDTO {
         this.activeThreadCount = activeThreadCount;
     }
 
+    /**
+     * @return size of the thread pool dedicated to this process group, or 0 if it uses the shared thread pool
+     */
+    @ApiModelProperty(
+            value = "The size of the thread pool dedicated to this process group, or 0 if it uses the shared thread pool."
+    )
+    public Integer getDedicatedThreadCount() {
+        return dedicatedThreadCount;
+    }
+
+    public void setDedicatedThreadCount(Integer dedicatedThreadCount) {
+        this.dedicatedThreadCount = dedicatedThreadCount;
+    }
+
+    /**
+     * @return number of threads of the dedicated thread pool that are running a task
+     */
+    @ApiModelProperty(
+            value = "The number of threads of the dedicated thread pool that are running a task."
+    )
+    public Integer getDedicatedPoolActiveThreadCount() {
+        return dedicatedPoolActiveThreadCount;
+    }
+
+    public void setDedicatedPoolActiveThreadCount(Integer dedicatedPoolActiveThreadCount) {
+        this.dedicatedPoolActiveThreadCount = dedicatedPoolActiveThreadCount;
+    }
+
+    /**
+     * @return number of tasks that are due to run but are waiting for a thread of the dedicated thread pool
+     */
+    @ApiModelProperty(
+            value = "The number of tasks that are due to run but are waiting for a thread of the dedicated thread pool."
+    )
+    public Integer getDedicatedPoolQueuedTaskCount() {
+        return dedicatedPoolQueuedTaskCount;
+    }
+
+    public void setDedicatedPoolQueuedTaskCount(Integer dedicatedPoolQueuedTaskCount) {
+        this.dedicatedPoolQueuedTaskCount = dedicatedPoolQueuedTaskCount;
+    }
+
+    /**
+     * @return percentage of the dedicated thread pool's thread time spent running tasks
+     */
+    @ApiModelProperty(
+            value = "The percentage of the dedicated thread pool's thread time spent running tasks over the most recent sampling window."
+    )
+    public Integer getDedicatedPoolUtilization() {
+        return dedicatedPoolUtilization;
+    }
+
+    public void setDedicatedPoolUtilization(Integer dedicatedPoolUtilization) {
+        this.dedicatedPoolUtilization = dedicatedPoolUtilization;
+    }
+
     /**
      * The status of all connections in this process group.
      *
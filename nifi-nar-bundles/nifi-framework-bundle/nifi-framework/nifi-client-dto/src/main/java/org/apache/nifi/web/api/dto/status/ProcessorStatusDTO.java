@@ -40,6 +40,7 @@ public class ProcessorStatusDTO extends StatusDTO {
     private String tasks;
     private String tasksDuration;
     private Integer activeThreadCount;
+    private Long runDurationMillis;
 
     /* getters / setters */
     /**
@@ -211,4 +212,19 @@ public class ProcessorStatusDTO extends StatusDTO {
         this.tasksDuration = tasksDuration;
     }
 
+    /**
+     * @return the run duration currently used for batches of this processor
+     */
+    @ApiModelProperty(
+            value = "The run duration, in milliseconds, that is currently used for batches of the processor. This may have been adapted "
+                    + "by the framework from the configured run duration."
+    )
+    public Long getRunDurationMillis() {
+        return runDurationMillis;
+    }
+
+    public void setRunDurationMillis(Long runDurationMillis) {
+        this.runDurationMillis = runDurationMillis;
+    }
+
 }
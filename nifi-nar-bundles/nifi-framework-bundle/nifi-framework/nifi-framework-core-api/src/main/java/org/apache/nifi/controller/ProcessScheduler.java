@@ -22,6 +22,7 @@ import org.apache.nifi.connectable.Connectable;
 import org.apache.nifi.connectable.Funnel;
 import org.apache.nifi.connectable.Port;
 import org.apache.nifi.controller.service.ControllerServiceNode;
+import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.scheduling.SchedulingStrategy;
 
 public interface ProcessScheduler {
@@ -134,6 +135,16 @@ public interface ProcessScheduler {
      */
     void setMaxThreadCount(SchedulingStrategy strategy, int maxThreadCount);
 
+    /**
+     * Notifies the ProcessScheduler of how many threads are dedicated to the
+     * timer-driven components of the given group and its descendants. A count
+     * of 0 returns those components to the shared thread pool.
+     *
+     * @param group the process group
+     * @param threadCount number of dedicated threads
+     */
+    void setProcessGroupThreadCount(ProcessGroup group, int threadCount);
+
     /**
      * Notifies the Scheduler that it should stop scheduling the given component
      * until its yield duration has expired
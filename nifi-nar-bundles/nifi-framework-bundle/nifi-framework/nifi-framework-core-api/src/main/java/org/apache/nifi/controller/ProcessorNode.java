@@ -77,6 +77,22 @@ public abstract class ProcessorNode extends AbstractConfiguredComponent implemen
 
     public abstract long getRunDuration(TimeUnit timeUnit);
 
+    /**
+     * Sets the Run Duration that the framework has chosen for this Processor's batches. The value is reset to the configured
+     * Run Duration whenever that is set.
+     *
+     * @param duration the duration of a batch
+     * @param timeUnit the unit of the duration
+     */
+    public abstract void setEffectiveRunDuration(long duration, TimeUnit timeUnit);
+
+    /**
+     * @param timeUnit the unit in which to return the duration
+     * @return the Run Duration that is used for this Processor's batches: the configured Run Duration, unless the framework
+     *         has adapted it at runtime
+     */
+    public abstract long getEffectiveRunDuration(TimeUnit timeUnit);
+
     public abstract Map<String, String> getStyle();
 
     public abstract void setStyle(Map<String, String> style);
@@ -96,6 +96,25 @@ public interface ProcessGroup {
      */
     void setComments(String comments);
 
+    /**
+     * @return the number of threads dedicated to running the timer-driven
+     * components of this ProcessGroup and of any descendant group that does
+     * not have its own, or 0 if they run on the shared thread pool
+     */
+    int getDedicatedThreadCount();
+
+    /**
+     * Updates the number of threads dedicated to this ProcessGroup. Resizing
+     * an existing pool takes effect immediately; moving components between
+     * the shared pool and a dedicated pool takes effect when they are next
+     * started.
+     *
+     * @param threadCount number of dedicated threads, or 0 to use the shared
+     * thread pool
+     * @throws IllegalArgumentException if threadCount is negative
+     */
+    void setDedicatedThreadCount(int threadCount);
+
     /**
      * @return the counts for this ProcessGroup
      */
@@ -16,69 +16,151 @@
  */
 package org.apache.nifi.controller;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.nifi.connectable.Connectable;
 import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.util.Connectables;
 
+/**
+ * <p>
+ * The queue of Event-Driven components that are ready to run. A component is offered to the queue when one of its
+ * incoming connections receives FlowFiles, or when one of its outgoing connections stops being full, and an idle thread
+ * that is parked in {@link #poll(long, TimeUnit)} is unparked to run it. Threads do not poll the components' connections
+ * and do not contend on a shared lock, so a FlowFile is handed off to the next component as soon as a thread is available
+ * and idle threads use no CPU.
+ * </p>
+ *
+ * <p>
+ * A component that is not able to run when it is polled waits for the event that makes it able to run again: a yielded
+ * component is held until its yield expires, a component whose destinations are full is offered again when FlowFiles are
+ * acknowledged downstream (and in any case rechecked after {@link #DESTINATION_FULL_RECHECK_MILLIS}), a component with
+ * no work or no free threads is offered again when FlowFiles arrive or when one of its tasks finishes, and an isolated
+ * component is offered again when this node's primary or clustered status changes.
+ * </p>
+ */
 public class EventDrivenWorkerQueue implements WorkerQueue {
 
-    private final Object workMonitor = new Object();
+    static final long DESTINATION_FULL_RECHECK_MILLIS = 1000L;
+
+    private final ConcurrentMap<Connectable, Worker> workerMap = new ConcurrentHashMap<>();
+    private final Queue<Worker> readyQueue = new ConcurrentLinkedQueue<>();
+    private final DelayQueue<DelayedWorker> delayedQueue = new DelayQueue<>();
+
+    // threads that are parked waiting for a worker; the most recently parked thread is woken first, as its caches are the warmest
+    private final ConcurrentLinkedDeque<Thread> parkedThreads = new ConcurrentLinkedDeque<>();
 
-    private final Map<Connectable, Worker> workerMap = new HashMap<>();   // protected by synchronizing on workMonitor
-    private final WorkerReadyQueue workerQueue;
+    private final ProcessScheduler scheduler;
+    private volatile boolean clustered = false;
+    private volatile boolean primary = false;
 
     public EventDrivenWorkerQueue(final boolean clustered, final boolean primary, final ProcessScheduler scheduler) {
-        workerQueue = new WorkerReadyQueue(scheduler);
-        workerQueue.setClustered(clustered);
-        workerQueue.setPrimary(primary);
+        this.scheduler = scheduler;
+        this.clustered = clustered;
+        this.primary = primary;
     }
 
     @Override
     public void setClustered(final boolean clustered) {
-        workerQueue.setClustered(clustered);
+        this.clustered = clustered;
+        recheckAll();
     }
 
     @Override
     public void setPrimary(final boolean primary) {
-        workerQueue.setPrimary(primary);
+        this.primary = primary;
+        recheckAll();
     }
 
     @Override
     public Worker poll(final long timeout, final TimeUnit timeUnit) {
-        final long maxTime = System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(timeout, timeUnit);
-        while (System.currentTimeMillis() < maxTime) {
-            synchronized (workMonitor) {
-                final Worker worker = workerQueue.poll();
-                if (worker == null) {
-                    // nothing to do. wait until we have something to do.
-                    final long timeLeft = maxTime - System.currentTimeMillis();
-                    if (timeLeft <= 0) {
-                        return null;
-                    }
+        final long maxNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        final Thread currentThread = Thread.currentThread();
 
-                    try {
-                        workMonitor.wait(timeLeft);
-                    } catch (final InterruptedException ignored) {
-                    }
-                } else {
-                    // Decrement the amount of work there is to do for this worker.
-                    final int workLeft = worker.decrementEventCount();
-                    if (workLeft > 0) {
-                        workerQueue.offer(worker);
+        while (true) {
+            final Worker worker = nextReadyWorker();
+            if (worker != null) {
+                return worker;
+            }
+
+            final long nanosLeft = maxNanos - System.nanoTime();
+            if (nanosLeft <= 0L) {
+                return null;
+            }
+
+            // Register as parked before checking the queue again, so that a worker that is offered in between is not missed:
+            // either this thread sees it, or the thread that offers it sees this thread and unparks it.
+            parkedThreads.push(currentThread);
+            try {
+                if (readyQueue.isEmpty()) {
+                    final DelayedWorker nextDelayed = delayedQueue.peek();
+                    final long parkNanos = nextDelayed == null ? nanosLeft : Math.min(nanosLeft, nextDelayed.getDelay(TimeUnit.NANOSECONDS));
+                    if (parkNanos > 0L) {
+                        LockSupport.parkNanos(this, parkNanos);
                     }
+                }
+            } finally {
+                parkedThreads.remove(currentThread);
+            }
+        }
+    }
+
+    private Worker nextReadyWorker() {
+        DelayedWorker delayed;
+        while ((delayed = delayedQueue.poll()) != null) {
+            readyQueue.offer(delayed.worker);
+        }
+
+        Worker worker;
+        while ((worker = readyQueue.poll()) != null) {
+            // clear the flag before checking the worker so that an event that arrives while it is checked queues it again
+            worker.queued.set(false);
+            if (!worker.active) {
+                continue;
+            }
 
-                    return worker;
+            final DelayProcessingReason reason = getDelayReason(worker);
+            if (reason == null) {
+                // Decrement the amount of work there is to do for this worker. If there is more, let another thread run it too.
+                final int workLeft = worker.decrementEventCount();
+                if (workLeft > 0) {
+                    enqueue(worker);
                 }
+
+                return worker;
+            }
+
+            switch (reason) {
+                case YIELDED:
+                    delay(worker, worker.getConnectable().getYieldExpiration() - System.currentTimeMillis());
+                    break;
+                case DESTINATION_FULL:
+                case ALL_WORK_PENALIZED:
+                    // acknowledging FlowFiles downstream offers the worker again; this is a safeguard
+                    delay(worker, DESTINATION_FULL_RECHECK_MILLIS);
+                    break;
+                case TOO_MANY_THREADS:
+                case ISOLATED:
+                    // offered again when one of its tasks finishes, or when the node's primary or clustered status changes
+                    break;
+                case NO_WORK:
+                case NOT_RUNNING:
+                default:
+                    // There's no need to check if this worker is available again until another event occurs.
+                    worker.resetWorkCount();
+                    break;
             }
         }
 
@@ -87,23 +169,48 @@ public class EventDrivenWorkerQueue implements WorkerQueue {
 
     @Override
     public void offer(final Connectable connectable) {
-        synchronized (workMonitor) {
-            Worker worker = workerMap.get(connectable);
-            if (worker == null) {
-                // if worker is null, then it has not been scheduled to run; ignore the event.
-                return;
-            }
+        final Worker worker = workerMap.get(connectable);
+        if (worker == null) {
+            // if worker is null, then it has not been scheduled to run; ignore the event.
+            return;
+        }
 
-            final int countBefore = worker.incrementEventCount();
-            if (countBefore < 0) {
-                worker.setWorkCount(1);
-            }
-            if (countBefore <= 0) {
-                // If countBefore > 0 then it's already on the queue, so just incrementing its counter is sufficient.
-                workerQueue.offer(worker);
-            }
+        final int countBefore = worker.incrementEventCount();
+        if (countBefore < 0) {
+            worker.setWorkCount(1);
+        }
+
+        enqueue(worker);
+    }
 
-            workMonitor.notify();
+    private void enqueue(final Worker worker) {
+        // a worker that is already queued or delayed is not queued again; its event count is sufficient
+        if (worker.queued.compareAndSet(false, true)) {
+            readyQueue.offer(worker);
+            unparkThread();
+        }
+    }
+
+    private void delay(final Worker worker, final long millis) {
+        if (worker.queued.compareAndSet(false, true)) {
+            delayedQueue.offer(new DelayedWorker(worker, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, millis))));
+            // a parked thread may be waiting for a later deadline than this one
+            unparkThread();
+        }
+    }
+
+    private void unparkThread() {
+        final Thread thread = parkedThreads.poll();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void recheckAll() {
+        for (final Worker worker : workerMap.values()) {
+            if (worker.workCount.get() > 0) {
+                enqueue(worker);
+            }
         }
     }
 
@@ -117,30 +224,108 @@ public class EventDrivenWorkerQueue implements WorkerQueue {
 
     @Override
     public void resumeWork(final Connectable connectable) {
-        synchronized (workMonitor) {
-            final int workCount = getWorkCount(connectable);
-            final Worker worker = new Worker(connectable);
-            workerMap.put(connectable, worker);
-
-            if (workCount > 0) {
-                worker.setWorkCount(workCount);
-                workerQueue.offer(worker);
-                workMonitor.notify();
-            }
+        final int workCount = getWorkCount(connectable);
+        final Worker worker = new Worker(connectable);
+        final Worker previous = workerMap.put(connectable, worker);
+        if (previous != null) {
+            previous.active = false;
+        }
+
+        if (workCount > 0) {
+            worker.setWorkCount(workCount);
+            enqueue(worker);
         }
     }
 
     @Override
     public void suspendWork(final Connectable connectable) {
-        synchronized (workMonitor) {
-            final Worker worker = this.workerMap.remove(connectable);
-            if (worker == null) {
-                return;
+        final Worker worker = this.workerMap.remove(connectable);
+        if (worker == null) {
+            return;
+        }
+
+        // the worker is discarded when it is next polled, if it is queued
+        worker.active = false;
+        worker.resetWorkCount();
+    }
+
+    private DelayProcessingReason getDelayReason(final Worker worker) {
+        final Connectable connectable = worker.getConnectable();
+
+        if (ScheduledState.RUNNING != connectable.getScheduledState()) {
+            return DelayProcessingReason.NOT_RUNNING;
+        }
+
+        if (connectable.getYieldExpiration() > System.currentTimeMillis()) {
+            return DelayProcessingReason.YIELDED;
+        }
+
+        // For Remote Output Ports,
+        int availableRelationshipCount = 0;
+        if (!connectable.getRelationships().isEmpty()) {
+            availableRelationshipCount = getAvailableRelationshipCount(connectable);
+
+            if (availableRelationshipCount == 0) {
+                return DelayProcessingReason.DESTINATION_FULL;
             }
+        }
+
+        if (connectable.hasIncomingConnection() && !Connectables.flowFilesQueued(connectable)) {
+            return DelayProcessingReason.NO_WORK;
+        }
 
-            worker.resetWorkCount();
-            workerQueue.remove(worker);
+        final int activeThreadCount = scheduler.getActiveThreadCount(worker.getConnectable());
+        final int maxThreadCount = worker.getConnectable().getMaxConcurrentTasks();
+        if (maxThreadCount > 0 && activeThreadCount >= maxThreadCount) {
+            return DelayProcessingReason.TOO_MANY_THREADS;
         }
+
+        if (connectable instanceof ProcessorNode) {
+            final ProcessorNode procNode = (ProcessorNode) connectable;
+            if (procNode.isIsolated() && clustered && !primary) {
+                return DelayProcessingReason.ISOLATED;
+            }
+
+            final boolean triggerWhenAnyAvailable = procNode.isTriggerWhenAnyDestinationAvailable();
+            final boolean allDestinationsAvailable = availableRelationshipCount == procNode.getRelationships().size();
+            if (!triggerWhenAnyAvailable && !allDestinationsAvailable) {
+                return DelayProcessingReason.DESTINATION_FULL;
+            }
+        }
+
+        return null;
+    }
+
+    private int getAvailableRelationshipCount(final Connectable connectable) {
+        int count = 0;
+        for (final Relationship relationship : connectable.getRelationships()) {
+            final Collection<Connection> connections = connectable.getConnections(relationship);
+
+            if (connections == null || connections.isEmpty()) {
+                if (connectable.isAutoTerminated(relationship)) {
+                    // If the relationship is auto-terminated, consider it available.
+                    count++;
+                }
+            } else {
+                boolean available = true;
+                for (final Connection connection : connections) {
+                    if (connection.getSource() == connection.getDestination()) {
+                        // don't count self-loops
+                        continue;
+                    }
+
+                    if (connection.getFlowFileQueue().isFull()) {
+                        available = false;
+                    }
+                }
+
+                if (available) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
     }
 
     public static class Worker implements EventBasedWorker {
@@ -148,6 +333,10 @@ public class EventDrivenWorkerQueue implements WorkerQueue {
         private final Connectable connectable;
         private final AtomicInteger workCount = new AtomicInteger(0);
 
+        // whether the worker is in the ready queue or the delayed queue
+        private final AtomicBoolean queued = new AtomicBoolean(false);
+        private volatile boolean active = true;
+
         public Worker(final Connectable connectable) {
             this.connectable = connectable;
         }
@@ -176,143 +365,25 @@ public class EventDrivenWorkerQueue implements WorkerQueue {
         }
     }
 
-    @SuppressWarnings("serial")
-    private static class WorkerReadyQueue extends LinkedList<Worker> {
-
-        private final ProcessScheduler scheduler;
-
-        private volatile boolean clustered = false;
-        private volatile boolean primary = false;
+    private static class DelayedWorker implements Delayed {
 
-        public WorkerReadyQueue(final ProcessScheduler scheduler) {
-            this.scheduler = scheduler;
-        }
-
-        public void setClustered(final boolean clustered) {
-            this.clustered = clustered;
-        }
+        private final Worker worker;
+        private final long triggerNanos;
 
-        public void setPrimary(final boolean primary) {
-            this.primary = primary;
+        public DelayedWorker(final Worker worker, final long triggerNanos) {
+            this.worker = worker;
+            this.triggerNanos = triggerNanos;
         }
 
         @Override
-        public Worker poll() {
-            final List<Worker> putBack = new ArrayList<>();
-
-            Worker worker;
-            try {
-                while ((worker = super.poll()) != null) {
-                    final DelayProcessingReason reason = getDelayReason(worker);
-                    if (reason == null) {
-                        return worker;
-                    } else {
-                        // Worker is not ready. We may want to add him back to the queue, depending on the reason that he is unready.
-                        switch (reason) {
-                            case YIELDED:
-                            case ISOLATED:
-                            case DESTINATION_FULL:
-                            case ALL_WORK_PENALIZED:
-                            case NO_WORK:
-                            case TOO_MANY_THREADS:
-                                // there will not be an event that triggers this to happen, so we add this worker back to the queue.
-                                putBack.add(worker);
-                                break;
-                            default:
-                            case NOT_RUNNING:
-                                // There's no need to check if this worker is available again until a another event
-                                // occurs. Therefore, we keep him off of the queue and reset his work count
-                                worker.resetWorkCount();
-                                break;
-                        }
-                    }
-                }
-            } finally {
-                if (!putBack.isEmpty()) {
-                    super.addAll(putBack);
-                }
-            }
-
-            return null;
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(triggerNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
         }
 
-        private DelayProcessingReason getDelayReason(final Worker worker) {
-            final Connectable connectable = worker.getConnectable();
-
-            if (ScheduledState.RUNNING != connectable.getScheduledState()) {
-                return DelayProcessingReason.NOT_RUNNING;
-            }
-
-            if (connectable.getYieldExpiration() > System.currentTimeMillis()) {
-                return DelayProcessingReason.YIELDED;
-            }
-
-            // For Remote Output Ports,
-            int availableRelationshipCount = 0;
-            if (!connectable.getRelationships().isEmpty()) {
-                availableRelationshipCount = getAvailableRelationshipCount(connectable);
-
-                if (availableRelationshipCount == 0) {
-                    return DelayProcessingReason.DESTINATION_FULL;
-                }
-            }
-
-            if (connectable.hasIncomingConnection() && !Connectables.flowFilesQueued(connectable)) {
-                return DelayProcessingReason.NO_WORK;
-            }
-
-            final int activeThreadCount = scheduler.getActiveThreadCount(worker.getConnectable());
-            final int maxThreadCount = worker.getConnectable().getMaxConcurrentTasks();
-            if (maxThreadCount > 0 && activeThreadCount >= maxThreadCount) {
-                return DelayProcessingReason.TOO_MANY_THREADS;
-            }
-
-            if (connectable instanceof ProcessorNode) {
-                final ProcessorNode procNode = (ProcessorNode) connectable;
-                if (procNode.isIsolated() && clustered && !primary) {
-                    return DelayProcessingReason.ISOLATED;
-                }
-
-                final boolean triggerWhenAnyAvailable = procNode.isTriggerWhenAnyDestinationAvailable();
-                final boolean allDestinationsAvailable = availableRelationshipCount == procNode.getRelationships().size();
-                if (!triggerWhenAnyAvailable && !allDestinationsAvailable) {
-                    return DelayProcessingReason.DESTINATION_FULL;
-                }
-            }
-
-            return null;
-        }
-
-        private int getAvailableRelationshipCount(final Connectable connectable) {
-            int count = 0;
-            for (final Relationship relationship : connectable.getRelationships()) {
-                final Collection<Connection> connections = connectable.getConnections(relationship);
-
-                if (connections == null || connections.isEmpty()) {
-                    if (connectable.isAutoTerminated(relationship)) {
-                        // If the relationship is auto-terminated, consider it available.
-                        count++;
-                    }
-                } else {
-                    boolean available = true;
-                    for (final Connection connection : connections) {
-                        if (connection.getSource() == connection.getDestination()) {
-                            // don't count self-loops
-                            continue;
-                        }
-
-                        if (connection.getFlowFileQueue().isFull()) {
-                            available = false;
-                        }
-                    }
-
-                    if (available) {
-                        count++;
-                    }
-                }
-            }
-
-            return count;
+        @Override
+        public int compareTo(final Delayed other) {
+            final long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+            return diff < 0 ? -1 : diff > 0 ? 1 : 0;
         }
     }
 
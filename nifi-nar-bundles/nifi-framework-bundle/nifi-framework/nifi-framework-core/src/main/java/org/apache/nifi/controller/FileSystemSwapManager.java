@@ -34,11 +34,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.QueueSize;
@@ -62,6 +69,14 @@ import org.slf4j.LoggerFactory;
  * <p>
  * An implementation of the {@link FlowFileSwapManager} that swaps FlowFiles to/from local disk
  * </p>
+ *
+ * <p>
+ * Each swap file begins with a header that summarizes its contents: the number of FlowFiles, their total size,
+ * the largest FlowFile ID, and (as of encoding version 9) the Resource Claims that the FlowFiles reference, along
+ * with the number of FlowFiles that reference each one. This allows swap files to be recovered on restart without
+ * reading the FlowFiles themselves. The FlowFiles follow the header and, if <code>nifi.swap.compression.enabled</code>
+ * is <code>true</code>, are compressed.
+ * </p>
  */
 public class FileSystemSwapManager implements FlowFileSwapManager {
 
@@ -69,11 +84,20 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private static final Pattern SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+\\.swap");
     private static final Pattern TEMP_SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+\\.swap\\.part");
 
-    public static final int SWAP_ENCODING_VERSION = 8;
+    public static final int SWAP_ENCODING_VERSION = 9;
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
     private static final Logger logger = LoggerFactory.getLogger(FileSystemSwapManager.class);
 
+    private static final int COMPRESSION_NONE = 0;
+    private static final int COMPRESSION_DEFLATE = 1;
+    private static final int COMPRESSION_BUFFER_SIZE = 65536;
+
     private final File storageDirectory;
+    private final boolean compress;
+
+    // the summaries of the swap files that were read when recovering swap locations, so that the swap files do not
+    // need to be opened again in order to determine their sizes and max record ids
+    private final ConcurrentMap<String, SwapHeader> recoveredSwapHeaders = new ConcurrentHashMap<>();
 
     // effectively final
     private FlowFileRepository flowFileRepository;
@@ -88,6 +112,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
         }
+
+        this.compress = Boolean.parseBoolean(properties.getProperty(NiFiProperties.SWAP_COMPRESSION_ENABLED, "false"));
     }
 
 
@@ -109,7 +135,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final String swapLocation = swapFile.getAbsolutePath();
 
         try (final FileOutputStream fos = new FileOutputStream(swapTempFile)) {
-            serializeFlowFiles(toSwap, flowFileQueue, swapLocation, fos);
+            serializeFlowFiles(toSwap, flowFileQueue, swapLocation, fos, compress);
             fos.getFD().sync();
         } catch (final IOException ioe) {
             // we failed to write out the entire swap file. Delete the temporary file, if we can.
@@ -133,6 +159,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final List<FlowFileRecord> swappedFlowFiles = peek(swapLocation, flowFileQueue);
         flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swappedFlowFiles, flowFileQueue);
 
+        recoveredSwapHeaders.remove(swapLocation);
         if (!swapFile.delete()) {
             warn("Swapped in FlowFiles from file " + swapFile.getAbsolutePath() + " but failed to delete the file; this file should be cleaned up manually");
         }
@@ -149,7 +176,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
         final List<FlowFileRecord> swappedFlowFiles;
         try (final InputStream fis = new FileInputStream(swapFile);
-            final DataInputStream in = new DataInputStream(fis)) {
+            final InputStream bufferedIn = new BufferedInputStream(fis);
+            final DataInputStream in = new DataInputStream(bufferedIn)) {
             swappedFlowFiles = deserializeFlowFiles(in, swapLocation, flowFileQueue, claimManager);
         }
 
@@ -171,6 +199,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                 warn("Failed to delete Swap File " + file + " when purging FlowFile Swap Manager");
             }
         }
+
+        recoveredSwapHeaders.clear();
     }
 
 
@@ -211,23 +241,21 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                 }
             }
 
-            // Read the queue identifier from the swap file to check if the swap file is for this queue
-            try (final InputStream fis = new FileInputStream(swapFile);
-                final InputStream bufferedIn = new BufferedInputStream(fis);
-                final DataInputStream in = new DataInputStream(bufferedIn)) {
-
-                final int swapEncodingVersion = in.readInt();
-                if (swapEncodingVersion > SWAP_ENCODING_VERSION) {
-                    final String errMsg = "Cannot swap FlowFiles in from " + swapFile + " because the encoding version is "
-                        + swapEncodingVersion + ", which is too new (expecting " + SWAP_ENCODING_VERSION + " or less)";
-
-                    eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, errMsg);
-                    throw new IOException(errMsg);
-                }
-
-                final String connectionId = in.readUTF();
-                if (connectionId.equals(flowFileQueue.getIdentifier())) {
-                    swapLocations.add(swapFile.getAbsolutePath());
+            // Read the header from the swap file to check if the swap file is for this queue
+            final SwapHeader header = readSwapHeader(swapFile);
+            if (header.getConnectionId().equals(flowFileQueue.getIdentifier())) {
+                final String swapLocation = swapFile.getAbsolutePath();
+                swapLocations.add(swapLocation);
+                recoveredSwapHeaders.put(swapLocation, header);
+
+                // The swapped out FlowFiles still hold their Content Claims, so we must restore the claimant counts
+                // of those claims, just as the FlowFile Repository does for the FlowFiles that it recovers.
+                final ResourceClaim[] resourceClaims = header.getResourceClaims();
+                final int[] claimantCounts = header.getClaimantCounts();
+                for (int i = 0; i < resourceClaims.length; i++) {
+                    for (int j = 0; j < claimantCounts[i]; j++) {
+                        claimManager.incrementClaimantCount(resourceClaims[i]);
+                    }
                 }
             }
         }
@@ -236,66 +264,56 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         return swapLocations;
     }
 
-    @Override
-    public QueueSize getSwapSize(final String swapLocation) throws IOException {
-        final File swapFile = new File(swapLocation);
-
-        // read record from disk via the swap file
+    private SwapHeader readSwapHeader(final File swapFile) throws IOException {
         try (final InputStream fis = new FileInputStream(swapFile);
             final InputStream bufferedIn = new BufferedInputStream(fis);
             final DataInputStream in = new DataInputStream(bufferedIn)) {
 
-            final int swapEncodingVersion = in.readInt();
-            if (swapEncodingVersion > SWAP_ENCODING_VERSION) {
-                final String errMsg = "Cannot swap FlowFiles in from " + swapFile + " because the encoding version is "
-                    + swapEncodingVersion + ", which is too new (expecting " + SWAP_ENCODING_VERSION + " or less)";
-
-                eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, errMsg);
-                throw new IOException(errMsg);
-            }
+            return readHeader(in, claimManager);
+        } catch (final UnsupportedEncodingVersionException e) {
+            final String errMsg = "Cannot swap FlowFiles in from " + swapFile + " because the encoding version is "
+                + e.getEncodingVersion() + ", which is too new (expecting " + SWAP_ENCODING_VERSION + " or less)";
 
-            in.readUTF(); // ignore Connection ID
-            final int numRecords = in.readInt();
-            final long contentSize = in.readLong();
+            eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, errMsg);
+            throw new IOException(errMsg);
+        }
+    }
 
-            return new QueueSize(numRecords, contentSize);
+    private SwapHeader getSwapHeader(final String swapLocation) throws IOException {
+        final SwapHeader header = recoveredSwapHeaders.get(swapLocation);
+        if (header != null) {
+            return header;
         }
+
+        return readSwapHeader(new File(swapLocation));
+    }
+
+    @Override
+    public QueueSize getSwapSize(final String swapLocation) throws IOException {
+        final SwapHeader header = getSwapHeader(swapLocation);
+        return new QueueSize(header.getRecordCount(), header.getContentSize());
     }
 
     @Override
     public Long getMaxRecordId(final String swapLocation) throws IOException {
-        final File swapFile = new File(swapLocation);
+        final SwapHeader header = getSwapHeader(swapLocation);
+        if (header.getRecordCount() == 0) {
+            return null;
+        }
+
+        if (header.getMaxRecordId() != null) {
+            return header.getMaxRecordId();
+        }
 
-        // read record from disk via the swap file
+        // Before swap encoding version 8, we did not write out the max record id, so we have to read all
+        // swap files to determine the max record id
+        final File swapFile = new File(swapLocation);
         try (final InputStream fis = new FileInputStream(swapFile);
             final InputStream bufferedIn = new BufferedInputStream(fis);
             final DataInputStream in = new DataInputStream(bufferedIn)) {
 
-            final int swapEncodingVersion = in.readInt();
-            if (swapEncodingVersion > SWAP_ENCODING_VERSION) {
-                final String errMsg = "Cannot swap FlowFiles in from " + swapFile + " because the encoding version is "
-                    + swapEncodingVersion + ", which is too new (expecting " + SWAP_ENCODING_VERSION + " or less)";
-
-                eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, errMsg);
-                throw new IOException(errMsg);
-            }
-
-            in.readUTF(); // ignore connection id
-            final int numRecords = in.readInt();
-            in.readLong(); // ignore content size
-
-            if (numRecords == 0) {
-                return null;
-            }
-
-            if (swapEncodingVersion > 7) {
-                final long maxRecordId = in.readLong();
-                return maxRecordId;
-            }
-
-            // Before swap encoding version 8, we did not write out the max record id, so we have to read all
-            // swap files to determine the max record id
-            final List<FlowFileRecord> records = deserializeFlowFiles(in, numRecords, swapEncodingVersion, true, claimManager);
+            final SwapHeader fullHeader = readHeader(in, claimManager);
+            final List<FlowFileRecord> records = deserializeFlowFiles(in, fullHeader, true, claimManager);
             long maxId = 0L;
             for (final FlowFileRecord record : records) {
                 if (record.getId() > maxId) {
@@ -309,72 +327,82 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
 
     public static int serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination) throws IOException {
+        return serializeFlowFiles(toSwap, queue, swapLocation, destination, false);
+    }
+
+    public static int serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination,
+        final boolean compress) throws IOException {
         if (toSwap == null || toSwap.isEmpty()) {
             return 0;
         }
 
+        // summarize the FlowFiles so that the summary can be written to the header
         long contentSize = 0L;
-        for (final FlowFileRecord record : toSwap) {
-            contentSize += record.getSize();
+        long maxRecordId = 0L;
+        final Map<ResourceClaim, Integer> resourceClaimIndices = new LinkedHashMap<>();
+        final List<Integer> claimantCounts = new ArrayList<>();
+        for (final FlowFileRecord flowFile : toSwap) {
+            contentSize += flowFile.getSize();
+            if (flowFile.getId() > maxRecordId) {
+                maxRecordId = flowFile.getId();
+            }
+
+            final ContentClaim claim = flowFile.getContentClaim();
+            if (claim != null) {
+                final ResourceClaim resourceClaim = claim.getResourceClaim();
+                final Integer index = resourceClaimIndices.get(resourceClaim);
+                if (index == null) {
+                    resourceClaimIndices.put(resourceClaim, claimantCounts.size());
+                    claimantCounts.add(1);
+                } else {
+                    claimantCounts.set(index, claimantCounts.get(index) + 1);
+                }
+            }
         }
 
         // persist record to disk via the swap file
         final OutputStream bufferedOut = new BufferedOutputStream(destination);
         final DataOutputStream out = new DataOutputStream(bufferedOut);
+        Deflater deflater = null;
         try {
             out.writeInt(SWAP_ENCODING_VERSION);
             out.writeUTF(queue.getIdentifier());
             out.writeInt(toSwap.size());
             out.writeLong(contentSize);
 
-            // get the max record id and write that out so that we know it quickly for restoration
-            long maxRecordId = 0L;
-            for (final FlowFileRecord flowFile : toSwap) {
-                if (flowFile.getId() > maxRecordId) {
-                    maxRecordId = flowFile.getId();
-                }
-            }
-
+            // write the max record id so that we know it quickly for restoration
             out.writeLong(maxRecordId);
 
-            for (final FlowFileRecord flowFile : toSwap) {
-                out.writeLong(flowFile.getId());
-                out.writeLong(flowFile.getEntryDate());
-
-                final Set<String> lineageIdentifiers = flowFile.getLineageIdentifiers();
-                out.writeInt(lineageIdentifiers.size());
-                for (final String lineageId : lineageIdentifiers) {
-                    out.writeUTF(lineageId);
-                }
+            out.writeInt(resourceClaimIndices.size());
+            for (final ResourceClaim resourceClaim : resourceClaimIndices.keySet()) {
+                out.writeUTF(resourceClaim.getId());
+                out.writeUTF(resourceClaim.getContainer());
+                out.writeUTF(resourceClaim.getSection());
+                out.writeBoolean(resourceClaim.isLossTolerant());
+                out.writeInt(claimantCounts.get(resourceClaimIndices.get(resourceClaim)));
+            }
 
-                out.writeLong(flowFile.getLineageStartDate());
-                out.writeLong(flowFile.getLastQueueDate());
-                out.writeLong(flowFile.getSize());
+            out.write(compress ? COMPRESSION_DEFLATE : COMPRESSION_NONE);
 
-                final ContentClaim claim = flowFile.getContentClaim();
-                if (claim == null) {
-                    out.writeBoolean(false);
-                } else {
-                    out.writeBoolean(true);
-                    final ResourceClaim resourceClaim = claim.getResourceClaim();
-                    out.writeUTF(resourceClaim.getId());
-                    out.writeUTF(resourceClaim.getContainer());
-                    out.writeUTF(resourceClaim.getSection());
-                    out.writeLong(claim.getOffset());
-                    out.writeLong(claim.getLength());
-                    out.writeLong(flowFile.getContentClaimOffset());
-                    out.writeBoolean(resourceClaim.isLossTolerant());
+            if (compress) {
+                deflater = new Deflater(Deflater.BEST_SPEED);
+                final DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater, COMPRESSION_BUFFER_SIZE);
+                final DataOutputStream recordOut = new DataOutputStream(deflaterOut);
+                for (final FlowFileRecord flowFile : toSwap) {
+                    serializeFlowFile(flowFile, resourceClaimIndices, recordOut);
                 }
-
-                final Map<String, String> attributes = flowFile.getAttributes();
-                out.writeInt(attributes.size());
-                for (final Map.Entry<String, String> entry : attributes.entrySet()) {
-                    writeString(entry.getKey(), out);
-                    writeString(entry.getValue(), out);
+                recordOut.flush();
+                deflaterOut.finish();
+            } else {
+                for (final FlowFileRecord flowFile : toSwap) {
+                    serializeFlowFile(flowFile, resourceClaimIndices, out);
                 }
             }
         } finally {
             out.flush();
+            if (deflater != null) {
+                deflater.end();
+            }
         }
 
         logger.info("Successfully swapped out {} FlowFiles from {} to Swap File {}", new Object[] {toSwap.size(), queue, swapLocation});
@@ -382,6 +410,39 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         return toSwap.size();
     }
 
+    private static void serializeFlowFile(final FlowFileRecord flowFile, final Map<ResourceClaim, Integer> resourceClaimIndices, final DataOutputStream out) throws IOException {
+        out.writeLong(flowFile.getId());
+        out.writeLong(flowFile.getEntryDate());
+
+        final Set<String> lineageIdentifiers = flowFile.getLineageIdentifiers();
+        out.writeInt(lineageIdentifiers.size());
+        for (final String lineageId : lineageIdentifiers) {
+            out.writeUTF(lineageId);
+        }
+
+        out.writeLong(flowFile.getLineageStartDate());
+        out.writeLong(flowFile.getLastQueueDate());
+        out.writeLong(flowFile.getSize());
+
+        // the Resource Claim is written to the header, so we refer to it by its index there
+        final ContentClaim claim = flowFile.getContentClaim();
+        if (claim == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(resourceClaimIndices.get(claim.getResourceClaim()));
+            out.writeLong(claim.getOffset());
+            out.writeLong(claim.getLength());
+            out.writeLong(flowFile.getContentClaimOffset());
+        }
+
+        final Map<String, String> attributes = flowFile.getAttributes();
+        out.writeInt(attributes.size());
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            writeString(entry.getKey(), out);
+            writeString(entry.getValue(), out);
+        }
+    }
+
     private static void writeString(final String toWrite, final OutputStream out) throws IOException {
         final byte[] bytes = toWrite.getBytes(StandardCharsets.UTF_8);
         final int utflen = bytes.length;
@@ -401,31 +462,81 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
     }
 
-    static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+    private static SwapHeader readHeader(final DataInputStream in, final ResourceClaimManager claimManager) throws IOException {
         final int swapEncodingVersion = in.readInt();
         if (swapEncodingVersion > SWAP_ENCODING_VERSION) {
+            throw new UnsupportedEncodingVersionException(swapEncodingVersion);
+        }
+
+        final String connectionId = in.readUTF();
+        final int numRecords = in.readInt();
+        final long contentSize = in.readLong();
+
+        if (swapEncodingVersion < 8) {
+            return new SwapHeader(swapEncodingVersion, connectionId, numRecords, contentSize, null, new ResourceClaim[0], new int[0], COMPRESSION_NONE);
+        }
+
+        final long maxRecordId = in.readLong();
+        if (swapEncodingVersion < 9) {
+            return new SwapHeader(swapEncodingVersion, connectionId, numRecords, contentSize, maxRecordId, new ResourceClaim[0], new int[0], COMPRESSION_NONE);
+        }
+
+        final int numResourceClaims = in.readInt();
+        final ResourceClaim[] resourceClaims = new ResourceClaim[numResourceClaims];
+        final int[] claimantCounts = new int[numResourceClaims];
+        for (int i = 0; i < numResourceClaims; i++) {
+            final String claimId = in.readUTF();
+            final String container = in.readUTF();
+            final String section = in.readUTF();
+            final boolean lossTolerant = in.readBoolean();
+            resourceClaims[i] = claimManager.newResourceClaim(container, section, claimId, lossTolerant);
+            claimantCounts[i] = in.readInt();
+        }
+
+        final int compression = in.read();
+        if (compression != COMPRESSION_NONE && compression != COMPRESSION_DEFLATE) {
+            throw new IOException("Swap File indicates an unknown compression codec: " + compression);
+        }
+
+        return new SwapHeader(swapEncodingVersion, connectionId, numRecords, contentSize, maxRecordId, resourceClaims, claimantCounts, compression);
+    }
+
+    static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+        final SwapHeader header;
+        try {
+            header = readHeader(in, claimManager);
+        } catch (final UnsupportedEncodingVersionException e) {
             throw new IOException("Cannot swap FlowFiles in from SwapFile because the encoding version is "
-                + swapEncodingVersion + ", which is too new (expecting " + SWAP_ENCODING_VERSION + " or less)");
+                + e.getEncodingVersion() + ", which is too new (expecting " + SWAP_ENCODING_VERSION + " or less)");
         }
 
-        final String connectionId = in.readUTF(); // Connection ID
+        final String connectionId = header.getConnectionId();
         if (!connectionId.equals(queue.getIdentifier())) {
             throw new IllegalArgumentException("Cannot deserialize FlowFiles from Swap File at location " + swapLocation +
                 " because those FlowFiles belong to Connection with ID " + connectionId + " and an attempt was made to swap them into a Connection with ID " + queue.getIdentifier());
         }
 
-        final int numRecords = in.readInt();
-        in.readLong(); // Content Size
-        if (swapEncodingVersion > 7) {
-            in.readLong(); // Max Record ID
+        return deserializeFlowFiles(in, header, false, claimManager);
+    }
+
+    private static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final SwapHeader header, final boolean incrementContentClaims,
+        final ResourceClaimManager claimManager) throws IOException {
+        if (header.getCompression() != COMPRESSION_DEFLATE) {
+            return deserializeFlowFiles(in, header.getRecordCount(), header.getEncodingVersion(), header.getResourceClaims(), incrementContentClaims, claimManager);
         }
 
-        return deserializeFlowFiles(in, numRecords, swapEncodingVersion, false, claimManager);
+        final Inflater inflater = new Inflater();
+        try {
+            final DataInputStream recordIn = new DataInputStream(new InflaterInputStream(in, inflater, COMPRESSION_BUFFER_SIZE));
+            return deserializeFlowFiles(recordIn, header.getRecordCount(), header.getEncodingVersion(), header.getResourceClaims(), incrementContentClaims, claimManager);
+        } finally {
+            inflater.end();
+        }
     }
 
-    private static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final int numFlowFiles,
-        final int serializationVersion, final boolean incrementContentClaims, final ResourceClaimManager claimManager) throws IOException {
-        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+    private static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final int numFlowFiles, final int serializationVersion,
+        final ResourceClaim[] resourceClaims, final boolean incrementContentClaims, final ResourceClaimManager claimManager) throws IOException {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(numFlowFiles);
         for (int i = 0; i < numFlowFiles; i++) {
             // legacy encoding had an "action" because it used to be couple with FlowFile Repository code
             if (serializationVersion < 3) {
@@ -460,47 +571,68 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                 readString(in); // connection Id
             }
 
-            final boolean hasClaim = in.readBoolean();
-            if (hasClaim) {
-                final String claimId;
-                if (serializationVersion < 5) {
-                    claimId = String.valueOf(in.readLong());
-                } else {
-                    claimId = in.readUTF();
+            if (serializationVersion > 8) {
+                // as of version 9, the Resource Claim is written to the header and referenced by its index
+                final int resourceClaimIndex = in.readInt();
+                if (resourceClaimIndex >= resourceClaims.length) {
+                    throw new IOException("Swap File references Resource Claim " + resourceClaimIndex + " but its header contains only " + resourceClaims.length + " Resource Claims");
                 }
 
-                final String container = in.readUTF();
-                final String section = in.readUTF();
+                if (resourceClaimIndex >= 0) {
+                    final ResourceClaim resourceClaim = resourceClaims[resourceClaimIndex];
+                    final StandardContentClaim claim = new StandardContentClaim(resourceClaim, in.readLong());
+                    claim.setLength(in.readLong());
 
-                final long resourceOffset;
-                final long resourceLength;
-                if (serializationVersion < 6) {
-                    resourceOffset = 0L;
-                    resourceLength = -1L;
-                } else {
-                    resourceOffset = in.readLong();
-                    resourceLength = in.readLong();
-                }
-
-                final long claimOffset = in.readLong();
+                    if (incrementContentClaims) {
+                        claimManager.incrementClaimantCount(resourceClaim);
+                    }
 
-                final boolean lossTolerant;
-                if (serializationVersion >= 4) {
-                    lossTolerant = in.readBoolean();
-                } else {
-                    lossTolerant = false;
+                    ffBuilder.contentClaim(claim);
+                    ffBuilder.contentClaimOffset(in.readLong());
                 }
-
-                final ResourceClaim resourceClaim = claimManager.newResourceClaim(container, section, claimId, lossTolerant);
-                final StandardContentClaim claim = new StandardContentClaim(resourceClaim, resourceOffset);
-                claim.setLength(resourceLength);
-
-                if (incrementContentClaims) {
-                    claimManager.incrementClaimantCount(resourceClaim);
+            } else {
+                final boolean hasClaim = in.readBoolean();
+                if (hasClaim) {
+                    final String claimId;
+                    if (serializationVersion < 5) {
+                        claimId = String.valueOf(in.readLong());
+                    } else {
+                        claimId = in.readUTF();
+                    }
+
+                    final String container = in.readUTF();
+                    final String section = in.readUTF();
+
+                    final long resourceOffset;
+                    final long resourceLength;
+                    if (serializationVersion < 6) {
+                        resourceOffset = 0L;
+                        resourceLength = -1L;
+                    } else {
+                        resourceOffset = in.readLong();
+                        resourceLength = in.readLong();
+                    }
+
+                    final long claimOffset = in.readLong();
+
+                    final boolean lossTolerant;
+                    if (serializationVersion >= 4) {
+                        lossTolerant = in.readBoolean();
+                    } else {
+                        lossTolerant = false;
+                    }
+
+                    final ResourceClaim resourceClaim = claimManager.newResourceClaim(container, section, claimId, lossTolerant);
+                    final StandardContentClaim claim = new StandardContentClaim(resourceClaim, resourceOffset);
+                    claim.setLength(resourceLength);
+
+                    if (incrementContentClaims) {
+                        claimManager.incrementClaimantCount(resourceClaim);
+                    }
+
+                    ffBuilder.contentClaim(claim);
+                    ffBuilder.contentClaimOffset(claimOffset);
                 }
-
-                ffBuilder.contentClaim(claim);
-                ffBuilder.contentClaimOffset(claimOffset);
             }
 
             boolean attributesChanged = true;
@@ -636,4 +768,78 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
     }
 
+    /**
+     * The summary of a swap file that is written at the beginning of the file
+     */
+    private static class SwapHeader {
+        private final int encodingVersion;
+        private final String connectionId;
+        private final int recordCount;
+        private final long contentSize;
+        private final Long maxRecordId;
+        private final ResourceClaim[] resourceClaims;
+        private final int[] claimantCounts;
+        private final int compression;
+
+        public SwapHeader(final int encodingVersion, final String connectionId, final int recordCount, final long contentSize, final Long maxRecordId,
+            final ResourceClaim[] resourceClaims, final int[] claimantCounts, final int compression) {
+            this.encodingVersion = encodingVersion;
+            this.connectionId = connectionId;
+            this.recordCount = recordCount;
+            this.contentSize = contentSize;
+            this.maxRecordId = maxRecordId;
+            this.resourceClaims = resourceClaims;
+            this.claimantCounts = claimantCounts;
+            this.compression = compression;
+        }
+
+        public int getEncodingVersion() {
+            return encodingVersion;
+        }
+
+        public String getConnectionId() {
+            return connectionId;
+        }
+
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        public long getContentSize() {
+            return contentSize;
+        }
+
+        /**
+         * @return the max record id, or <code>null</code> if the swap file was written before the max record id was included in the header
+         */
+        public Long getMaxRecordId() {
+            return maxRecordId;
+        }
+
+        public ResourceClaim[] getResourceClaims() {
+            return resourceClaims;
+        }
+
+        public int[] getClaimantCounts() {
+            return claimantCounts;
+        }
+
+        public int getCompression() {
+            return compression;
+        }
+    }
+
+    private static class UnsupportedEncodingVersionException extends IOException {
+        private static final long serialVersionUID = 1L;
+        private final int encodingVersion;
+
+        public UnsupportedEncodingVersionException(final int encodingVersion) {
+            super("Unsupported Swap File encoding version: " + encodingVersion);
+            this.encodingVersion = encodingVersion;
+        }
+
+        public int getEncodingVersion() {
+            return encodingVersion;
+        }
+    }
 }
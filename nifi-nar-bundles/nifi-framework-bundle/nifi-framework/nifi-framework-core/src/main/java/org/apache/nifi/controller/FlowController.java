@@ -64,6 +64,7 @@ import org.apache.nifi.controller.repository.FlowFileEventRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.ProvenanceCapturePolicies;
 import org.apache.nifi.controller.repository.QueueProvider;
 import org.apache.nifi.controller.repository.RepositoryRecord;
 import org.apache.nifi.controller.repository.RepositoryStatusReport;
@@ -79,11 +80,18 @@ import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
+import org.apache.nifi.controller.scheduling.AdaptiveRunDuration;
+import org.apache.nifi.controller.scheduling.BlockingIoSchedulingAgent;
 import org.apache.nifi.controller.scheduling.EventDrivenSchedulingAgent;
 import org.apache.nifi.controller.scheduling.ProcessContextFactory;
+import org.apache.nifi.controller.scheduling.ProcessGroupThreadPool;
+import org.apache.nifi.controller.scheduling.ProcessGroupThreadPools;
 import org.apache.nifi.controller.scheduling.QuartzSchedulingAgent;
 import org.apache.nifi.controller.scheduling.StandardProcessScheduler;
+import org.apache.nifi.controller.scheduling.LatencyHistogram;
+import org.apache.nifi.controller.scheduling.SchedulingAgent;
 import org.apache.nifi.controller.scheduling.TimerDrivenSchedulingAgent;
+import org.apache.nifi.controller.scheduling.WorkStealingSchedulingAgent;
 import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.controller.service.ControllerServiceProvider;
 import org.apache.nifi.controller.service.StandardConfigurationContext;
@@ -248,6 +256,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
     private final UserService userService;
     private final AuditService auditService;
     private final EventDrivenWorkerQueue eventDrivenWorkerQueue;
+    private final WorkStealingSchedulingAgent workStealingAgent;
     private final ComponentStatusRepository componentStatusRepository;
     private final long systemStartTime = System.currentTimeMillis(); // time at which the node was started
     private final ConcurrentMap<String, ReportingTaskNode> reportingTasks = new ConcurrentHashMap<>();
@@ -421,15 +430,29 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         eventDrivenWorkerQueue = new EventDrivenWorkerQueue(false, false, processScheduler);
         controllerServiceProvider = new StandardControllerServiceProvider(processScheduler, bulletinRepository);
 
-        final ProcessContextFactory contextFactory = new ProcessContextFactory(contentRepository, flowFileRepository, flowFileEventRepository, counterRepositoryRef.get(), provenanceEventRepository);
+        final ProcessContextFactory contextFactory = new ProcessContextFactory(contentRepository, flowFileRepository, flowFileEventRepository, counterRepositoryRef.get(), provenanceEventRepository,
+            ProvenanceCapturePolicies.fromProperties(properties), AdaptiveRunDuration.fromProperties(properties));
         processScheduler.setSchedulingAgent(SchedulingStrategy.EVENT_DRIVEN, new EventDrivenSchedulingAgent(
             eventDrivenEngineRef.get(), this, eventDrivenWorkerQueue, contextFactory, maxEventDrivenThreads.get(), encryptor));
 
         final QuartzSchedulingAgent quartzSchedulingAgent = new QuartzSchedulingAgent(this, timerDrivenEngineRef.get(), contextFactory, encryptor);
-        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), contextFactory, encryptor);
+        final SchedulingAgent timerDrivenAgent;
+        if (Boolean.parseBoolean(properties.getProperty(NiFiProperties.TIMER_DRIVEN_WORK_STEALING))) {
+            workStealingAgent = new WorkStealingSchedulingAgent(this, timerDrivenEngineRef.get(), contextFactory, encryptor, maxTimerDrivenThreads.get());
+            timerDrivenAgent = workStealingAgent;
+        } else {
+            workStealingAgent = null;
+            timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), contextFactory, encryptor);
+        }
         processScheduler.setSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN, timerDrivenAgent);
         processScheduler.setSchedulingAgent(SchedulingStrategy.PRIMARY_NODE_ONLY, timerDrivenAgent);
         processScheduler.setSchedulingAgent(SchedulingStrategy.CRON_DRIVEN, quartzSchedulingAgent);
+
+        final Set<String> blockingIoProcessors = BlockingIoSchedulingAgent.getConfiguredComponents(properties);
+        if (!blockingIoProcessors.isEmpty()) {
+            processScheduler.setBlockingIoSchedulingAgent(new BlockingIoSchedulingAgent(this, contextFactory, encryptor, blockingIoProcessors));
+        }
+        processScheduler.setProcessGroupThreadPools(new ProcessGroupThreadPools(this, contextFactory, encryptor));
         processScheduler.scheduleFrameworkTask(new ExpireFlowFiles(this, contextFactory), "Expire FlowFiles", 30L, 30L, TimeUnit.SECONDS);
 
         startConnectablesAfterInitialization = new ArrayList<>();
@@ -1218,10 +1241,29 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         return maxEventDrivenThreads.get();
     }
 
+    /**
+     * @param connectable a Timer-Driven component
+     * @return the histogram of the time that the component's tasks waited to run, or <code>null</code> if
+     *         the work-stealing scheduler is not enabled or has never scheduled the component
+     */
+    public LatencyHistogram getQueueWaitHistogram(final Connectable connectable) {
+        return workStealingAgent == null ? null : workStealingAgent.getQueueWaitHistogram(connectable);
+    }
+
+    /**
+     * @param connectable a Timer-Driven component
+     * @return the histogram of the time that the component's tasks took to run, or <code>null</code> if
+     *         the work-stealing scheduler is not enabled or has never scheduled the component
+     */
+    public LatencyHistogram getRunTimeHistogram(final Connectable connectable) {
+        return workStealingAgent == null ? null : workStealingAgent.getRunTimeHistogram(connectable);
+    }
+
     public void setMaxTimerDrivenThreadCount(final int maxThreadCount) {
         writeLock.lock();
         try {
             setMaxThreadCount(maxThreadCount, this.timerDrivenEngineRef.get(), this.maxTimerDrivenThreads);
+            processScheduler.setMaxThreadCount(SchedulingStrategy.TIMER_DRIVEN, maxThreadCount);
         } finally {
             writeLock.unlock();
         }
@@ -1320,6 +1362,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         final String name = dto.getName();
         final PositionDTO position = dto.getPosition();
         final String comments = dto.getComments();
+        final Integer dedicatedThreadCount = dto.getDedicatedThreadCount();
 
         if (name != null) {
             group.setName(name);
@@ -1330,6 +1373,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         if (comments != null) {
             group.setComments(comments);
         }
+        if (dedicatedThreadCount != null) {
+            group.setDedicatedThreadCount(dedicatedThreadCount);
+        }
     }
 
     //
@@ -1605,6 +1651,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
                 childGroup.setPosition(toPosition(groupDTO.getPosition()));
                 childGroup.setComments(groupDTO.getComments());
                 childGroup.setName(groupDTO.getName());
+                if (groupDTO.getDedicatedThreadCount() != null) {
+                    childGroup.setDedicatedThreadCount(groupDTO.getDedicatedThreadCount());
+                }
                 group.addProcessGroup(childGroup);
 
                 final FlowSnippetDTO contents = groupDTO.getContents();
@@ -2303,6 +2352,14 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         status.setFlowFilesTransferred(flowFilesTransferred);
         status.setBytesTransferred(bytesTransferred);
 
+        final ProcessGroupThreadPool threadPool = processScheduler.getProcessGroupThreadPool(group.getIdentifier());
+        if (threadPool != null) {
+            status.setDedicatedThreadCount(threadPool.getThreadCount());
+            status.setDedicatedPoolActiveThreadCount(threadPool.getActiveThreadCount());
+            status.setDedicatedPoolQueuedTaskCount(threadPool.getQueuedTaskCount());
+            status.setDedicatedPoolUtilization(threadPool.getUtilization());
+        }
+
         return status;
     }
 
@@ -2451,6 +2508,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         }
 
         status.setActiveThreadCount(processScheduler.getActiveThreadCount(procNode));
+        if (procNode.isHighThroughputSupported()) {
+            status.setRunDuration(procNode.getEffectiveRunDuration(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
 
         return status;
     }
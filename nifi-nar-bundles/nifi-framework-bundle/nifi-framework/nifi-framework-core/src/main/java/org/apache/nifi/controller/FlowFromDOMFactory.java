@@ -122,6 +122,9 @@ public class FlowFromDOMFactory {
         dto.setName(getString(element, "name"));
         dto.setPosition(getPosition(DomUtils.getChild(element, "position")));
         dto.setComments(getString(element, "comment"));
+        // an absent count means the group uses the shared thread pool
+        final Integer dedicatedThreadCount = getOptionalInt(element, "dedicatedThreadCount");
+        dto.setDedicatedThreadCount(dedicatedThreadCount == null ? 0 : dedicatedThreadCount);
 
         final Set<ProcessorDTO> processors = new HashSet<>();
         final Set<ConnectionDTO> connections = new HashSet<>();
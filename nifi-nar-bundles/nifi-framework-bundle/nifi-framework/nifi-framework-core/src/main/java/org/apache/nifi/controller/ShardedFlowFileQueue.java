@@ -0,0 +1,1332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.nifi.annotation.behavior.PrioritizesByQueueDate;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.StandardFlowFileQueue.Prioritizer;
+import org.apache.nifi.controller.queue.DropFlowFileState;
+import org.apache.nifi.controller.queue.DropFlowFileStatus;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.RepositoryRecord;
+import org.apache.nifi.controller.repository.RepositoryRecordType;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.processor.FlowFileFilter.FlowFileFilterResult;
+import org.apache.nifi.provenance.ProvenanceEventBuilder;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.reporting.Severity;
+import org.apache.nifi.scheduling.SchedulingStrategy;
+import org.apache.nifi.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A FlowFileQueue that splits its active queue across a number of segments, each of which is guarded by its own
+ * lock. This allows many threads to put FlowFiles onto and poll FlowFiles from the same Connection without all of
+ * them contending for a single queue-wide lock, as is the case with {@link StandardFlowFileQueue}.
+ * </p>
+ *
+ * <p>
+ * Segmentation is only used when the queue has no prioritizers or only prioritizers that are annotated with
+ * {@link PrioritizesByQueueDate}, such as First-In-First-Out. In this case, ordering is maintained within each segment
+ * but FlowFiles in different segments may be processed in a slightly different order than that in which they were
+ * queued. If any other prioritizer is configured, all FlowFiles are moved into a single segment so that the queue's
+ * ordering is honored.
+ * </p>
+ *
+ * <p>
+ * Each segment holds at most its share of the swap threshold. Any FlowFiles that do not fit are placed onto a
+ * queue-wide overflow queue, from which they are swapped out to disk or migrated back into a segment once that
+ * segment has room.
+ * </p>
+ */
+public final class ShardedFlowFileQueue implements LockableFlowFileQueue {
+
+    public static final int MAX_EXPIRED_RECORDS_PER_ITERATION = StandardFlowFileQueue.MAX_EXPIRED_RECORDS_PER_ITERATION;
+    public static final int SWAP_RECORD_POLL_SIZE = StandardFlowFileQueue.SWAP_RECORD_POLL_SIZE;
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedFlowFileQueue.class);
+
+    private final Segment[] segments;
+    private volatile int activeSegmentCount;
+    private final AtomicInteger putIndex = new AtomicInteger(0);
+
+    // The following members are guarded by the swap lock. The swapped count & bytes include both the FlowFiles
+    // that are waiting on the overflow queue and those that have been swapped out to disk.
+    private final ReentrantLock swapLock = new ReentrantLock();
+    private final List<FlowFileRecord> swapQueue = new ArrayList<>();
+    private final List<String> swapLocations = new ArrayList<>();
+    private volatile int swappedCount = 0;
+    private volatile long swappedBytes = 0L;
+    private volatile boolean swapMode = false;
+
+    private volatile String maximumQueueDataSize;
+    private volatile long maximumQueueByteCount;
+    private volatile long maximumQueueObjectCount;
+
+    private final EventReporter eventReporter;
+    private final AtomicLong flowFileExpirationMillis;
+    private final Connection connection;
+    private final AtomicReference<String> flowFileExpirationPeriod;
+    private final List<FlowFilePrioritizer> priorities;
+    private final int swapThreshold;
+    private final FlowFileSwapManager swapManager;
+    private final String identifier;
+    private final FlowFileRepository flowFileRepository;
+    private final ProvenanceEventRepository provRepository;
+    private final ResourceClaimManager resourceClaimManager;
+
+    private final AtomicBoolean queueFullRef = new AtomicBoolean(false);
+
+    // SCHEDULER CANNOT BE NOTIFIED OF EVENTS WITH A SEGMENT OR SWAP LOCK HELD! DOING SO WILL RESULT IN A DEADLOCK!
+    private final ProcessScheduler scheduler;
+
+    public ShardedFlowFileQueue(final String identifier, final Connection connection, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
+        final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter,
+        final int swapThreshold, final int segmentCount) {
+        if (segmentCount < 1) {
+            throw new IllegalArgumentException("Segment Count must be at least 1");
+        }
+
+        final Prioritizer prioritizer = new Prioritizer(new ArrayList<FlowFilePrioritizer>());
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i, prioritizer);
+        }
+        activeSegmentCount = segmentCount;
+
+        priorities = new ArrayList<>();
+        maximumQueueObjectCount = 0L;
+        maximumQueueDataSize = "0 MB";
+        maximumQueueByteCount = 0L;
+        flowFileExpirationMillis = new AtomicLong(0);
+        flowFileExpirationPeriod = new AtomicReference<>("0 mins");
+        this.eventReporter = eventReporter;
+        this.swapManager = swapManager;
+        this.flowFileRepository = flowFileRepo;
+        this.provRepository = provRepo;
+        this.resourceClaimManager = resourceClaimManager;
+
+        this.identifier = identifier;
+        this.swapThreshold = swapThreshold;
+        this.scheduler = scheduler;
+        this.connection = connection;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * @return the number of segments that FlowFiles are currently being distributed across
+     */
+    public int getActiveSegmentCount() {
+        return activeSegmentCount;
+    }
+
+    /**
+     * @param segmentIndex the index of the segment
+     * @return the number of FlowFiles on the active queue of the given segment
+     */
+    int getActiveCount(final int segmentIndex) {
+        return segments[segmentIndex].activeCount;
+    }
+
+    @Override
+    public List<FlowFilePrioritizer> getPriorities() {
+        return Collections.unmodifiableList(priorities);
+    }
+
+    @Override
+    public void setPriorities(final List<FlowFilePrioritizer> newPriorities) {
+        lock();
+        try {
+            final List<FlowFileRecord> activeFlowFiles = new ArrayList<>();
+            final Prioritizer prioritizer = new Prioritizer(newPriorities);
+            for (final Segment segment : segments) {
+                activeFlowFiles.addAll(segment.activeQueue);
+                segment.activeQueue = new PriorityQueue<>(Math.max(20, segment.activeQueue.size()), prioritizer);
+                segment.activeCount = 0;
+                segment.activeBytes = 0L;
+            }
+
+            final int newSegmentCount = isSegmentable(newPriorities) ? segments.length : 1;
+            for (int i = 0; i < activeFlowFiles.size(); i++) {
+                final FlowFileRecord flowFile = activeFlowFiles.get(i);
+                final Segment segment = segments[i % newSegmentCount];
+                segment.activeQueue.add(flowFile);
+                segment.incrementActiveQueueSize(1, flowFile.getSize());
+            }
+
+            activeSegmentCount = newSegmentCount;
+            priorities.clear();
+            priorities.addAll(newPriorities);
+        } finally {
+            unlock();
+        }
+    }
+
+    private static boolean isSegmentable(final List<FlowFilePrioritizer> prioritizers) {
+        for (final FlowFilePrioritizer prioritizer : prioritizers) {
+            if (!prioritizer.getClass().isAnnotationPresent(PrioritizesByQueueDate.class)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void setBackPressureObjectThreshold(final long maxQueueSize) {
+        maximumQueueObjectCount = maxQueueSize;
+        this.queueFullRef.set(determineIfFull());
+    }
+
+    @Override
+    public long getBackPressureObjectThreshold() {
+        return maximumQueueObjectCount;
+    }
+
+    @Override
+    public void setBackPressureDataSizeThreshold(final String maxDataSize) {
+        maximumQueueByteCount = DataUnit.parseDataSize(maxDataSize, DataUnit.B).longValue();
+        maximumQueueDataSize = maxDataSize;
+        this.queueFullRef.set(determineIfFull());
+    }
+
+    @Override
+    public String getBackPressureDataSizeThreshold() {
+        return maximumQueueDataSize;
+    }
+
+    @Override
+    public QueueSize size() {
+        int count = swappedCount;
+        long bytes = swappedBytes;
+        for (final Segment segment : segments) {
+            count += segment.activeCount + segment.unacknowledgedCount.get();
+            bytes += segment.activeBytes + segment.unacknowledgedBytes.get();
+        }
+
+        return new QueueSize(count, bytes);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size().getObjectCount() == 0;
+    }
+
+    @Override
+    public boolean isActiveQueueEmpty() {
+        return swappedCount == 0 && getActiveQueueSize().getObjectCount() == 0;
+    }
+
+    public QueueSize getActiveQueueSize() {
+        int count = 0;
+        long bytes = 0L;
+        for (final Segment segment : segments) {
+            count += segment.activeCount;
+            bytes += segment.activeBytes;
+        }
+
+        return new QueueSize(count, bytes);
+    }
+
+    @Override
+    public QueueSize getUnacknowledgedQueueSize() {
+        int count = 0;
+        long bytes = 0L;
+        for (final Segment segment : segments) {
+            count += segment.unacknowledgedCount.get();
+            bytes += segment.unacknowledgedBytes.get();
+        }
+
+        return new QueueSize(count, bytes);
+    }
+
+    @Override
+    public void acknowledge(final FlowFileRecord flowFile) {
+        getThreadSegment().incrementUnacknowledgedQueueSize(-1, -flowFile.getSize());
+        if (queueFullRef.get()) {
+            queueFullRef.set(determineIfFull());
+        }
+
+        if (connection.getSource().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
+            // queue was full but no longer is. Notify that the source may now be available to run,
+            // because of back pressure caused by this queue.
+            scheduler.registerEvent(connection.getSource());
+        }
+    }
+
+    @Override
+    public void acknowledge(final Collection<FlowFileRecord> flowFiles) {
+        long totalSize = 0L;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            totalSize += flowFile.getSize();
+        }
+
+        getThreadSegment().incrementUnacknowledgedQueueSize(-flowFiles.size(), -totalSize);
+        if (queueFullRef.get()) {
+            queueFullRef.set(determineIfFull());
+        }
+
+        if (connection.getSource().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
+            // it's possible that queue was full but no longer is. Notify that the source may now be available to run,
+            // because of back pressure caused by this queue.
+            scheduler.registerEvent(connection.getSource());
+        }
+    }
+
+    @Override
+    public boolean isFull() {
+        return queueFullRef.get();
+    }
+
+    private boolean determineIfFull() {
+        final long maxSize = maximumQueueObjectCount;
+        final long maxBytes = maximumQueueByteCount;
+        if (maxSize <= 0 && maxBytes <= 0) {
+            return false;
+        }
+
+        final QueueSize queueSize = size();
+        if (maxSize > 0 && queueSize.getObjectCount() >= maxSize) {
+            return true;
+        }
+
+        if (maxBytes > 0 && queueSize.getByteCount() >= maxBytes) {
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The segment that a thread uses to start polling and to record acknowledgments. Unacknowledged counts are
+     * only ever meaningful when summed across all segments, so it does not matter which segment is updated; using
+     * a per-thread segment simply spreads the updates across several counters.
+     */
+    private Segment getThreadSegment() {
+        return segments[(int) (Thread.currentThread().getId() % segments.length)];
+    }
+
+    /**
+     * Chooses the next segment in round-robin order and locks it, ensuring that the segment that is returned is
+     * still one of the active segments once its lock has been obtained.
+     */
+    private Segment lockSegmentForPut() {
+        while (true) {
+            final int index = (putIndex.getAndIncrement() & Integer.MAX_VALUE) % activeSegmentCount;
+            final Segment segment = segments[index];
+            segment.lock.lock();
+            if (segment.index < activeSegmentCount) {
+                return segment;
+            }
+
+            segment.lock.unlock();
+        }
+    }
+
+    private int getSegmentSwapThreshold() {
+        return Math.max(1, swapThreshold / activeSegmentCount);
+    }
+
+    @Override
+    public void put(final FlowFileRecord file) {
+        enqueue(Collections.singletonList(file), file.getSize());
+    }
+
+    @Override
+    public void putAll(final Collection<FlowFileRecord> files) {
+        long bytes = 0L;
+        for (final FlowFile flowFile : files) {
+            bytes += flowFile.getSize();
+        }
+
+        enqueue(files, bytes);
+    }
+
+    private void enqueue(final Collection<FlowFileRecord> files, final long bytes) {
+        final int numFiles = files.size();
+
+        boolean queued = false;
+        if (!swapMode) {
+            final Segment segment = lockSegmentForPut();
+            try {
+                if (segment.activeQueue.size() <= getSegmentSwapThreshold() - numFiles) {
+                    segment.activeQueue.addAll(files);
+                    segment.incrementActiveQueueSize(numFiles, bytes);
+                    queued = true;
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        if (!queued) {
+            swapLock.lock();
+            try {
+                swapQueue.addAll(files);
+                incrementSwapQueueSize(numFiles, bytes);
+                swapMode = true;
+                writeSwapFilesIfNecessary();
+            } finally {
+                swapLock.unlock();
+            }
+        }
+
+        queueFullRef.set(determineIfFull());
+
+        // Signal the destination directly, so that it runs as soon as a thread is available rather than when its queues are
+        // next polled. Agents that do not wait for events ignore the signal.
+        scheduler.registerEvent(connection.getDestination());
+    }
+
+    private boolean isLaterThan(final Long maxAge) {
+        if (maxAge == null) {
+            return false;
+        }
+        return maxAge < System.currentTimeMillis();
+    }
+
+    private Long getExpirationDate(final FlowFile flowFile, final long expirationMillis) {
+        if (flowFile == null) {
+            return null;
+        }
+        if (expirationMillis <= 0) {
+            return null;
+        } else {
+            final long entryDate = flowFile.getEntryDate();
+            final long expirationDate = entryDate + expirationMillis;
+            return expirationDate;
+        }
+    }
+
+    /**
+     * @param segment the segment to check
+     * @return <code>true</code> if there may be FlowFiles available to the given segment, either
+     *         on its own active queue or on the overflow queue. Segments beyond the active segment
+     *         count are never refilled from the overflow queue, as the prioritizers order only the
+     *         FlowFiles of the active segments.
+     */
+    private boolean isPollable(final Segment segment) {
+        return segment.activeCount > 0 || (swapMode && segment.index < activeSegmentCount);
+    }
+
+    @Override
+    public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords) {
+        final long expirationMillis = flowFileExpirationMillis.get();
+        final int startIndex = getThreadSegment().index;
+
+        // On the first pass, skip over any segment that is currently locked by another thread. Only if we
+        // find nothing do we wait on those segments.
+        for (int pass = 0; pass < 2; pass++) {
+            boolean segmentSkipped = false;
+
+            for (int i = 0; i < segments.length; i++) {
+                final Segment segment = segments[(startIndex + i) % segments.length];
+                if (!isPollable(segment)) {
+                    continue;
+                }
+
+                if (pass == 0) {
+                    if (!segment.lock.tryLock()) {
+                        segmentSkipped = true;
+                        continue;
+                    }
+                } else {
+                    segment.lock.lock();
+                }
+
+                final FlowFileRecord flowFile;
+                try {
+                    flowFile = doPoll(segment, expiredRecords, expirationMillis);
+                } finally {
+                    segment.lock.unlock();
+                }
+
+                if (flowFile != null || expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                    return flowFile;
+                }
+            }
+
+            if (!segmentSkipped) {
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method MUST be called with the segment's lock held
+     */
+    private FlowFileRecord doPoll(final Segment segment, final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
+        FlowFileRecord flowFile;
+        boolean isExpired;
+
+        migrateSwapToActive(segment);
+        final boolean queueFullAtStart = queueFullRef.get();
+
+        int expiredCount = 0;
+        long expiredBytes = 0L;
+
+        do {
+            flowFile = segment.activeQueue.poll();
+
+            isExpired = isLaterThan(getExpirationDate(flowFile, expirationMillis));
+            if (isExpired) {
+                expiredRecords.add(flowFile);
+                expiredCount++;
+                expiredBytes += flowFile.getSize();
+                flowFile = null;
+
+                if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                    break;
+                }
+            } else if (flowFile != null && flowFile.isPenalized()) {
+                segment.activeQueue.add(flowFile);
+                flowFile = null;
+                break;
+            }
+
+            if (flowFile != null) {
+                segment.incrementActiveQueueSize(-1, -flowFile.getSize());
+                segment.incrementUnacknowledgedQueueSize(1, flowFile.getSize());
+            }
+        } while (isExpired);
+
+        if (expiredCount > 0) {
+            segment.incrementActiveQueueSize(-expiredCount, -expiredBytes);
+        }
+
+        // if at least 1 FlowFile was expired & the queue was full before we started, then
+        // we need to determine whether or not the queue is full again. If no FlowFile was expired,
+        // then the queue will still be full until the appropriate #acknowledge method is called.
+        if (queueFullAtStart && expiredCount > 0) {
+            queueFullRef.set(determineIfFull());
+        }
+
+        return flowFile;
+    }
+
+    @Override
+    public List<FlowFileRecord> poll(final int maxResults, final Set<FlowFileRecord> expiredRecords) {
+        final List<FlowFileRecord> records = new ArrayList<>(Math.min(1024, maxResults));
+        final int startIndex = getThreadSegment().index;
+
+        for (int i = 0; i < segments.length && records.size() < maxResults; i++) {
+            final Segment segment = segments[(startIndex + i) % segments.length];
+            if (!isPollable(segment)) {
+                continue;
+            }
+
+            segment.lock.lock();
+            try {
+                doPoll(segment, records, maxResults, expiredRecords);
+            } finally {
+                segment.lock.unlock();
+            }
+
+            if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                break;
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * This method MUST be called with the segment's lock held
+     */
+    private void doPoll(final Segment segment, final List<FlowFileRecord> records, final int maxResults, final Set<FlowFileRecord> expiredRecords) {
+        migrateSwapToActive(segment);
+
+        final boolean queueFullAtStart = queueFullRef.get();
+        final int originalRecordCount = records.size();
+        final int originalExpiredCount = expiredRecords.size();
+
+        final long bytesDrained = drainQueue(segment.activeQueue, records, maxResults, expiredRecords);
+
+        long bytesPolled = 0L;
+        for (int i = originalRecordCount; i < records.size(); i++) {
+            bytesPolled += records.get(i).getSize();
+        }
+
+        final int recordsPolled = records.size() - originalRecordCount;
+        final int recordsExpired = expiredRecords.size() - originalExpiredCount;
+        segment.incrementActiveQueueSize(-(recordsPolled + recordsExpired), -bytesDrained);
+        segment.incrementUnacknowledgedQueueSize(recordsPolled, bytesPolled);
+
+        // if at least 1 FlowFile was expired & the queue was full before we started, then
+        // we need to determine whether or not the queue is full again. If no FlowFile was expired,
+        // then the queue will still be full until the appropriate #acknowledge method is called.
+        if (queueFullAtStart && recordsExpired > 0) {
+            queueFullRef.set(determineIfFull());
+        }
+    }
+
+    @Override
+    public long drainQueue(final Queue<FlowFileRecord> sourceQueue, final List<FlowFileRecord> destination, final int maxResults, final Set<FlowFileRecord> expiredRecords) {
+        long drainedSize = 0L;
+        FlowFileRecord pulled = null;
+
+        final long expirationMillis = this.flowFileExpirationMillis.get();
+        while (destination.size() < maxResults && (pulled = sourceQueue.poll()) != null) {
+            if (isLaterThan(getExpirationDate(pulled, expirationMillis))) {
+                expiredRecords.add(pulled);
+                if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                    break;
+                }
+            } else {
+                if (pulled.isPenalized()) {
+                    sourceQueue.add(pulled);
+                    break;
+                }
+                destination.add(pulled);
+            }
+            drainedSize += pulled.getSize();
+        }
+        return drainedSize;
+    }
+
+    @Override
+    public List<FlowFileRecord> poll(final FlowFileFilter filter, final Set<FlowFileRecord> expiredRecords) {
+        final List<FlowFileRecord> selectedFlowFiles = new ArrayList<>();
+        final int startIndex = getThreadSegment().index;
+
+        for (int i = 0; i < segments.length; i++) {
+            final Segment segment = segments[(startIndex + i) % segments.length];
+            if (!isPollable(segment)) {
+                continue;
+            }
+
+            final boolean continueFiltering;
+            segment.lock.lock();
+            try {
+                continueFiltering = doPoll(segment, filter, selectedFlowFiles, expiredRecords);
+            } finally {
+                segment.lock.unlock();
+            }
+
+            if (!continueFiltering) {
+                break;
+            }
+        }
+
+        return selectedFlowFiles;
+    }
+
+    /**
+     * This method MUST be called with the segment's lock held
+     *
+     * @return <code>true</code> if the filter should continue to be applied to FlowFiles in other segments
+     */
+    private boolean doPoll(final Segment segment, final FlowFileFilter filter, final List<FlowFileRecord> selectedFlowFiles, final Set<FlowFileRecord> expiredRecords) {
+        long bytesPulled = 0L;
+        int flowFilesPulled = 0;
+        boolean continueFiltering = true;
+
+        try {
+            migrateSwapToActive(segment);
+
+            final long expirationMillis = this.flowFileExpirationMillis.get();
+            final boolean queueFullAtStart = queueFullRef.get();
+            final int originalExpiredCount = expiredRecords.size();
+
+            final List<FlowFileRecord> unselected = new ArrayList<>();
+
+            while (true) {
+                FlowFileRecord flowFile = segment.activeQueue.poll();
+                if (flowFile == null) {
+                    break;
+                }
+
+                final boolean isExpired = isLaterThan(getExpirationDate(flowFile, expirationMillis));
+                if (isExpired) {
+                    expiredRecords.add(flowFile);
+                    bytesPulled += flowFile.getSize();
+                    flowFilesPulled++;
+
+                    if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                        continueFiltering = false;
+                        break;
+                    } else {
+                        continue;
+                    }
+                } else if (flowFile.isPenalized()) {
+                    segment.activeQueue.add(flowFile);
+                    flowFile = null;
+                    break; // just stop searching because the rest are all penalized.
+                }
+
+                final FlowFileFilterResult result = filter.filter(flowFile);
+                if (result.isAccept()) {
+                    bytesPulled += flowFile.getSize();
+                    flowFilesPulled++;
+
+                    segment.incrementUnacknowledgedQueueSize(1, flowFile.getSize());
+                    selectedFlowFiles.add(flowFile);
+                } else {
+                    unselected.add(flowFile);
+                }
+
+                if (!result.isContinue()) {
+                    continueFiltering = false;
+                    break;
+                }
+            }
+
+            segment.activeQueue.addAll(unselected);
+
+            // if at least 1 FlowFile was expired & the queue was full before we started, then
+            // we need to determine whether or not the queue is full again. If no FlowFile was expired,
+            // then the queue will still be full until the appropriate #acknowledge method is called.
+            if (queueFullAtStart && expiredRecords.size() > originalExpiredCount) {
+                queueFullRef.set(determineIfFull());
+            }
+
+            return continueFiltering;
+        } finally {
+            segment.incrementActiveQueueSize(-flowFilesPulled, -bytesPulled);
+        }
+    }
+
+    /**
+     * If there are FlowFiles waiting on the overflow queue or swapped out to disk, and the given segment
+     * has room for them, moves FlowFiles onto the segment's active queue.
+     *
+     * This method MUST be called with the segment's lock held.
+     */
+    private void migrateSwapToActive(final Segment segment) {
+        // this is the most common condition (nothing is swapped out), so do the check first and avoid the expense
+        // of obtaining the swap lock for 99.999% of the cases.
+        if (!swapMode) {
+            return;
+        }
+
+        // Only active segments are refilled; setPriorities holds every segment lock while changing the count.
+        if (segment.index >= activeSegmentCount) {
+            return;
+        }
+
+        // Refill the segment only once it has been drained to half of its threshold so that the swap lock is
+        // obtained in batches rather than on every poll.
+        final int segmentThreshold = getSegmentSwapThreshold();
+        if (segment.activeQueue.size() > segmentThreshold / 2) {
+            return;
+        }
+
+        swapLock.lock();
+        try {
+            // If there are swap files waiting to be swapped in, swap those in first, so that those that
+            // were swapped out first are then swapped back in first. A swap file is swapped in only once
+            // a segment has been emptied, as it generally holds far more FlowFiles than a single segment's share.
+            if (!swapLocations.isEmpty()) {
+                if (!segment.activeQueue.isEmpty()) {
+                    return;
+                }
+
+                final String swapLocation = swapLocations.remove(0);
+                try {
+                    final List<FlowFileRecord> swappedIn = swapManager.swapIn(swapLocation, this);
+                    distributeSwappedIn(segment, swappedIn);
+                    return;
+                } catch (final FileNotFoundException fnfe) {
+                    logger.error("Failed to swap in FlowFiles from Swap File {} because the Swap File can no longer be found", swapLocation);
+                    if (eventReporter != null) {
+                        eventReporter.reportEvent(Severity.ERROR, "Swap File", "Failed to swap in FlowFiles from Swap File " + swapLocation + " because the Swap File can no longer be found");
+                    }
+                    return;
+                } catch (final IOException ioe) {
+                    logger.error("Failed to swap in FlowFiles from Swap File {}; Swap File appears to be corrupt!", swapLocation);
+                    logger.error("", ioe);
+                    if (eventReporter != null) {
+                        eventReporter.reportEvent(Severity.ERROR, "Swap File", "Failed to swap in FlowFiles from Swap File " +
+                            swapLocation + "; Swap File appears to be corrupt! Some FlowFiles in the queue may not be accessible. See logs for more information.");
+                    }
+                    return;
+                }
+            }
+
+            int recordsMigrated = 0;
+            long bytesMigrated = 0L;
+            final Iterator<FlowFileRecord> swapItr = swapQueue.iterator();
+            while (segment.activeQueue.size() < segmentThreshold && swapItr.hasNext()) {
+                final FlowFileRecord toMigrate = swapItr.next();
+                segment.activeQueue.add(toMigrate);
+                bytesMigrated += toMigrate.getSize();
+                recordsMigrated++;
+                swapItr.remove();
+            }
+
+            if (recordsMigrated > 0) {
+                segment.incrementActiveQueueSize(recordsMigrated, bytesMigrated);
+                incrementSwapQueueSize(-recordsMigrated, -bytesMigrated);
+            }
+
+            if (swappedCount == 0) {
+                swapMode = false;
+            }
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    /**
+     * Spreads FlowFiles that were swapped in across the active segments, giving each segment at most an equal share
+     * and no more than it has room for. Any segment other than the given one that is locked by another thread is
+     * skipped, because waiting for a segment lock while holding the swap lock could deadlock. Whatever the other
+     * segments do not take is added to the given segment.
+     *
+     * This method MUST be called with the given segment's lock and the swap lock held.
+     */
+    private void distributeSwappedIn(final Segment segment, final List<FlowFileRecord> swappedIn) {
+        final int segmentCount = activeSegmentCount;
+        final int share = (swappedIn.size() + segmentCount - 1) / segmentCount;
+        final int segmentThreshold = getSegmentSwapThreshold();
+
+        int distributed = Math.min(share, swappedIn.size());
+        for (int i = 1; i < segmentCount && distributed < swappedIn.size(); i++) {
+            final Segment other = segments[(segment.index + i) % segmentCount];
+            if (!other.lock.tryLock()) {
+                continue;
+            }
+
+            try {
+                final int room = segmentThreshold - other.activeQueue.size();
+                if (room <= 0) {
+                    continue;
+                }
+
+                final int toIndex = Math.min(swappedIn.size(), distributed + Math.min(share, room));
+                addToActiveQueue(other, swappedIn.subList(distributed, toIndex));
+                distributed = toIndex;
+            } finally {
+                other.lock.unlock();
+            }
+        }
+
+        final List<FlowFileRecord> remaining = new ArrayList<>(swappedIn.subList(0, Math.min(share, swappedIn.size())));
+        remaining.addAll(swappedIn.subList(distributed, swappedIn.size()));
+        addToActiveQueue(segment, remaining);
+    }
+
+    /**
+     * This method MUST be called with the segment's lock and the swap lock held
+     */
+    private void addToActiveQueue(final Segment segment, final List<FlowFileRecord> flowFiles) {
+        long bytes = 0L;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            bytes += flowFile.getSize();
+        }
+
+        incrementSwapQueueSize(-flowFiles.size(), -bytes);
+        segment.incrementActiveQueueSize(flowFiles.size(), bytes);
+        segment.activeQueue.addAll(flowFiles);
+    }
+
+    /**
+     * This method MUST be called with the swap lock held
+     */
+    private void writeSwapFilesIfNecessary() {
+        if (swapQueue.size() < SWAP_RECORD_POLL_SIZE) {
+            return;
+        }
+
+        final int numSwapFiles = swapQueue.size() / SWAP_RECORD_POLL_SIZE;
+
+        // Order the overflow queue by priority so that the lowest-priority FlowFiles are at the end of the list.
+        // Those are the ones that we want to swap out.
+        Collections.sort(swapQueue, new Prioritizer(priorities));
+
+        for (int i = 0; i < numSwapFiles; i++) {
+            final List<FlowFileRecord> lowestPriority = swapQueue.subList(swapQueue.size() - SWAP_RECORD_POLL_SIZE, swapQueue.size());
+            final List<FlowFileRecord> toSwap = new ArrayList<>(lowestPriority);
+
+            try {
+                final String swapLocation = swapManager.swapOut(toSwap, this);
+                swapLocations.add(swapLocation);
+                lowestPriority.clear();
+            } catch (final IOException ioe) {
+                logger.error("FlowFile Queue with identifier {} has {} FlowFiles queued up. Attempted to spill FlowFile information over to disk in order to avoid exhausting "
+                    + "the Java heap space but failed to write information to disk due to {}", getIdentifier(), size().getObjectCount(), ioe.toString());
+                logger.error("", ioe);
+                if (eventReporter != null) {
+                    eventReporter.reportEvent(Severity.ERROR, "Failed to Overflow to Disk", "Flowfile Queue with identifier " + getIdentifier() + " has " + size().getObjectCount() +
+                        " queued up. Attempted to spill FlowFile information over to disk in order to avoid exhausting the Java heap space but failed to write information to disk. "
+                        + "See logs for more information.");
+                }
+
+                break;
+            }
+        }
+    }
+
+    @Override
+    public String getFlowFileExpiration() {
+        return flowFileExpirationPeriod.get();
+    }
+
+    @Override
+    public int getFlowFileExpiration(final TimeUnit timeUnit) {
+        return (int) timeUnit.convert(flowFileExpirationMillis.get(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void setFlowFileExpiration(final String flowExpirationPeriod) {
+        final long millis = FormatUtils.getTimeDuration(flowExpirationPeriod, TimeUnit.MILLISECONDS);
+        if (millis < 0) {
+            throw new IllegalArgumentException("FlowFile Expiration Period must be positive");
+        }
+        this.flowFileExpirationPeriod.set(flowExpirationPeriod);
+        this.flowFileExpirationMillis.set(millis);
+    }
+
+    @Override
+    public void purgeSwapFiles() {
+        swapManager.purge();
+    }
+
+    @Override
+    public Long recoverSwappedFlowFiles() {
+        int swapFlowFileCount = 0;
+        long swapByteCount = 0L;
+        Long maxId = null;
+
+        swapLock.lock();
+        try {
+            final List<String> swapLocations;
+            try {
+                swapLocations = swapManager.recoverSwapLocations(this);
+            } catch (final IOException ioe) {
+                logger.error("Failed to determine whether or not any Swap Files exist for FlowFile Queue {}", getIdentifier());
+                logger.error("", ioe);
+                if (eventReporter != null) {
+                    eventReporter.reportEvent(Severity.ERROR, "FlowFile Swapping", "Failed to determine whether or not any Swap Files exist for FlowFile Queue " +
+                        getIdentifier() + "; see logs for more detials");
+                }
+                return null;
+            }
+
+            for (final String swapLocation : swapLocations) {
+                try {
+                    final QueueSize queueSize = swapManager.getSwapSize(swapLocation);
+                    final Long maxSwapRecordId = swapManager.getMaxRecordId(swapLocation);
+                    if (maxSwapRecordId != null) {
+                        if (maxId == null || maxSwapRecordId > maxId) {
+                            maxId = maxSwapRecordId;
+                        }
+                    }
+
+                    swapFlowFileCount += queueSize.getObjectCount();
+                    swapByteCount += queueSize.getByteCount();
+                } catch (final IOException ioe) {
+                    logger.error("Failed to recover FlowFiles from Swap File {}; the file appears to be corrupt", swapLocation, ioe.toString());
+                    logger.error("", ioe);
+                    if (eventReporter != null) {
+                        eventReporter.reportEvent(Severity.ERROR, "FlowFile Swapping", "Failed to recover FlowFiles from Swap File " + swapLocation +
+                            "; the file appears to be corrupt. See logs for more details");
+                    }
+                }
+            }
+
+            incrementSwapQueueSize(swapFlowFileCount, swapByteCount);
+            this.swapLocations.addAll(swapLocations);
+            if (!this.swapLocations.isEmpty()) {
+                swapMode = true;
+            }
+        } finally {
+            swapLock.unlock();
+        }
+
+        return maxId;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowFileQueue[id=" + identifier + "]";
+    }
+
+    private final ConcurrentMap<String, DropFlowFileRequest> dropRequestMap = new ConcurrentHashMap<>();
+
+    @Override
+    public DropFlowFileStatus dropFlowFiles(final String requestIdentifier, final String requestor) {
+        logger.info("Initiating drop of FlowFiles from {} on behalf of {} (request identifier={})", this, requestor, requestIdentifier);
+
+        // purge any old requests from the map just to keep it clean. But if there are very requests, which is usually the case, then don't bother
+        if (dropRequestMap.size() > 10) {
+            final List<String> toDrop = new ArrayList<>();
+            for (final Map.Entry<String, DropFlowFileRequest> entry : dropRequestMap.entrySet()) {
+                final DropFlowFileRequest request = entry.getValue();
+                final boolean completed = request.getState() == DropFlowFileState.COMPLETE || request.getState() == DropFlowFileState.FAILURE;
+
+                if (completed && System.currentTimeMillis() - request.getLastUpdated() > TimeUnit.MINUTES.toMillis(5L)) {
+                    toDrop.add(entry.getKey());
+                }
+            }
+
+            for (final String requestId : toDrop) {
+                dropRequestMap.remove(requestId);
+            }
+        }
+
+        final DropFlowFileRequest dropRequest = new DropFlowFileRequest(requestIdentifier);
+        final QueueSize originalSize = size();
+        dropRequest.setCurrentSize(originalSize);
+        dropRequest.setOriginalSize(originalSize);
+        if (originalSize.getObjectCount() == 0) {
+            dropRequest.setDroppedSize(originalSize);
+            dropRequest.setState(DropFlowFileState.COMPLETE);
+            return dropRequest;
+        }
+
+        final Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock();
+                try {
+                    dropRequest.setState(DropFlowFileState.DROPPING_FLOWFILES);
+                    logger.debug("For DropFlowFileRequest {}, original size is {}", requestIdentifier, size());
+
+                    try {
+                        for (final Segment segment : segments) {
+                            if (dropRequest.getState() == DropFlowFileState.CANCELED) {
+                                logger.info("Cancel requested for DropFlowFileRequest {}", requestIdentifier);
+                                return;
+                            }
+
+                            final QueueSize droppedSize;
+                            try {
+                                droppedSize = drop(new ArrayList<>(segment.activeQueue), requestor);
+                                logger.debug("For DropFlowFileRequest {}, Dropped {} from active queue of segment {}", requestIdentifier, droppedSize, segment.index);
+                            } catch (final IOException ioe) {
+                                logger.error("Failed to drop the FlowFiles from queue {} due to {}", ShardedFlowFileQueue.this.getIdentifier(), ioe.toString());
+                                logger.error("", ioe);
+
+                                dropRequest.setState(DropFlowFileState.FAILURE, "Failed to drop FlowFiles due to " + ioe.toString());
+                                return;
+                            }
+
+                            segment.activeQueue.clear();
+                            segment.incrementActiveQueueSize(-droppedSize.getObjectCount(), -droppedSize.getByteCount());
+                            dropRequest.setCurrentSize(size());
+                            dropRequest.setDroppedSize(dropRequest.getDroppedSize().add(droppedSize));
+                        }
+
+                        QueueSize droppedSize;
+                        try {
+                            logger.debug("For DropFlowFileRequest {}, Swap Queue has {} elements, Swapped Record Count = {}, Swapped Content Size = {}",
+                                requestIdentifier, swapQueue.size(), swappedCount, swappedBytes);
+                            if (dropRequest.getState() == DropFlowFileState.CANCELED) {
+                                logger.info("Cancel requested for DropFlowFileRequest {}", requestIdentifier);
+                                return;
+                            }
+
+                            droppedSize = drop(swapQueue, requestor);
+                        } catch (final IOException ioe) {
+                            logger.error("Failed to drop the FlowFiles from queue {} due to {}", ShardedFlowFileQueue.this.getIdentifier(), ioe.toString());
+                            logger.error("", ioe);
+
+                            dropRequest.setState(DropFlowFileState.FAILURE, "Failed to drop FlowFiles due to " + ioe.toString());
+                            return;
+                        }
+
+                        swapQueue.clear();
+                        incrementSwapQueueSize(-droppedSize.getObjectCount(), -droppedSize.getByteCount());
+                        dropRequest.setCurrentSize(size());
+                        dropRequest.setDroppedSize(dropRequest.getDroppedSize().add(droppedSize));
+                        logger.debug("For DropFlowFileRequest {}, dropped {} from Swap Queue", requestIdentifier, droppedSize);
+
+                        final int swapFileCount = swapLocations.size();
+                        final Iterator<String> swapLocationItr = swapLocations.iterator();
+                        while (swapLocationItr.hasNext()) {
+                            final String swapLocation = swapLocationItr.next();
+
+                            List<FlowFileRecord> swappedIn = null;
+                            try {
+                                if (dropRequest.getState() == DropFlowFileState.CANCELED) {
+                                    logger.info("Cancel requested for DropFlowFileRequest {}", requestIdentifier);
+                                    return;
+                                }
+
+                                swappedIn = swapManager.swapIn(swapLocation, ShardedFlowFileQueue.this);
+                                droppedSize = drop(swappedIn, requestor);
+                            } catch (final IOException ioe) {
+                                logger.error("Failed to swap in FlowFiles from Swap File {} in order to drop the FlowFiles for Connection {} due to {}",
+                                    swapLocation, ShardedFlowFileQueue.this.getIdentifier(), ioe.toString());
+                                logger.error("", ioe);
+
+                                dropRequest.setState(DropFlowFileState.FAILURE, "Failed to swap in FlowFiles from Swap File " + swapLocation + " due to " + ioe.toString());
+                                if (swappedIn != null) {
+                                    swapQueue.addAll(swappedIn); // ensure that we don't lose the FlowFiles from our queue.
+                                }
+
+                                return;
+                            }
+
+                            dropRequest.setDroppedSize(dropRequest.getDroppedSize().add(droppedSize));
+                            incrementSwapQueueSize(-droppedSize.getObjectCount(), -droppedSize.getByteCount());
+
+                            dropRequest.setCurrentSize(size());
+                            swapLocationItr.remove();
+                            logger.debug("For DropFlowFileRequest {}, dropped {} for Swap File {}", requestIdentifier, droppedSize, swapLocation);
+                        }
+
+                        swapMode = false;
+                        logger.debug("Dropped FlowFiles from {} Swap Files", swapFileCount);
+                        logger.info("Successfully dropped {} FlowFiles ({} bytes) from Connection with ID {} on behalf of {}",
+                            dropRequest.getDroppedSize().getObjectCount(), dropRequest.getDroppedSize().getByteCount(), ShardedFlowFileQueue.this.getIdentifier(), requestor);
+                        dropRequest.setState(DropFlowFileState.COMPLETE);
+                    } catch (final Exception e) {
+                        logger.error("Failed to drop FlowFiles from Connection with ID {} due to {}", ShardedFlowFileQueue.this.getIdentifier(), e.toString());
+                        logger.error("", e);
+                        dropRequest.setState(DropFlowFileState.FAILURE, "Failed to drop FlowFiles due to " + e.toString());
+                    }
+                } finally {
+                    unlock();
+                }
+            }
+        }, "Drop FlowFiles for Connection " + getIdentifier());
+        t.setDaemon(true);
+        t.start();
+
+        dropRequestMap.put(requestIdentifier, dropRequest);
+
+        return dropRequest;
+    }
+
+    private QueueSize drop(final List<FlowFileRecord> flowFiles, final String requestor) throws IOException {
+        // Create a Provenance Event and a FlowFile Repository record for each FlowFile
+        final List<ProvenanceEventRecord> provenanceEvents = new ArrayList<>(flowFiles.size());
+        final List<RepositoryRecord> flowFileRepoRecords = new ArrayList<>(flowFiles.size());
+        for (final FlowFileRecord flowFile : flowFiles) {
+            provenanceEvents.add(createDropEvent(flowFile, requestor));
+            flowFileRepoRecords.add(createDeleteRepositoryRecord(flowFile));
+        }
+
+        long dropContentSize = 0L;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            dropContentSize += flowFile.getSize();
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim == null) {
+                continue;
+            }
+
+            final ResourceClaim resourceClaim = contentClaim.getResourceClaim();
+            if (resourceClaim == null) {
+                continue;
+            }
+
+            resourceClaimManager.decrementClaimantCount(resourceClaim);
+        }
+
+        provRepository.registerEvents(provenanceEvents);
+        flowFileRepository.updateRepository(flowFileRepoRecords);
+        return new QueueSize(flowFiles.size(), dropContentSize);
+    }
+
+    private ProvenanceEventRecord createDropEvent(final FlowFileRecord flowFile, final String requestor) {
+        final ProvenanceEventBuilder builder = provRepository.eventBuilder();
+        builder.fromFlowFile(flowFile);
+        builder.setEventType(ProvenanceEventType.DROP);
+        builder.setLineageStartDate(flowFile.getLineageStartDate());
+        builder.setComponentId(getIdentifier());
+        builder.setComponentType("Connection");
+        builder.setAttributes(flowFile.getAttributes(), Collections.<String, String> emptyMap());
+        builder.setDetails("FlowFile Queue emptied by " + requestor);
+        builder.setSourceQueueIdentifier(getIdentifier());
+
+        final ContentClaim contentClaim = flowFile.getContentClaim();
+        if (contentClaim != null) {
+            final ResourceClaim resourceClaim = contentClaim.getResourceClaim();
+            builder.setPreviousContentClaim(resourceClaim.getContainer(), resourceClaim.getSection(), resourceClaim.getId(), contentClaim.getOffset(), flowFile.getSize());
+        }
+
+        return builder.build();
+    }
+
+    private RepositoryRecord createDeleteRepositoryRecord(final FlowFileRecord flowFile) {
+        return new RepositoryRecord() {
+            @Override
+            public FlowFileQueue getDestination() {
+                return null;
+            }
+
+            @Override
+            public FlowFileQueue getOriginalQueue() {
+                return ShardedFlowFileQueue.this;
+            }
+
+            @Override
+            public RepositoryRecordType getType() {
+                return RepositoryRecordType.DELETE;
+            }
+
+            @Override
+            public ContentClaim getCurrentClaim() {
+                return flowFile.getContentClaim();
+            }
+
+            @Override
+            public ContentClaim getOriginalClaim() {
+                return flowFile.getContentClaim();
+            }
+
+            @Override
+            public long getCurrentClaimOffset() {
+                return flowFile.getContentClaimOffset();
+            }
+
+            @Override
+            public FlowFileRecord getCurrent() {
+                return flowFile;
+            }
+
+            @Override
+            public boolean isAttributesChanged() {
+                return false;
+            }
+
+            @Override
+            public boolean isMarkedForAbort() {
+                return false;
+            }
+
+            @Override
+            public String getSwapLocation() {
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public DropFlowFileRequest cancelDropFlowFileRequest(final String requestIdentifier) {
+        final DropFlowFileRequest request = dropRequestMap.remove(requestIdentifier);
+        if (request == null) {
+            return null;
+        }
+
+        request.cancel();
+        return request;
+    }
+
+    @Override
+    public DropFlowFileStatus getDropFlowFileStatus(final String requestIdentifier) {
+        return dropRequestMap.get(requestIdentifier);
+    }
+
+    /**
+     * Locks every segment, in order, followed by the swap lock.
+     */
+    @Override
+    public void lock() {
+        for (final Segment segment : segments) {
+            segment.lock.lock();
+        }
+        swapLock.lock();
+    }
+
+    @Override
+    public void unlock() {
+        swapLock.unlock();
+        for (int i = segments.length - 1; i >= 0; i--) {
+            segments[i].lock.unlock();
+        }
+    }
+
+    /**
+     * This method MUST be called with the swap lock held
+     */
+    private void incrementSwapQueueSize(final int count, final long bytes) {
+        swappedCount += count;
+        swappedBytes += bytes;
+
+        if (swappedCount < 0 || swappedBytes < 0) {
+            logger.error("Updated Size of Queue swap to " + swappedCount + " FlowFiles, " + swappedBytes + " bytes", new RuntimeException("Cannot create negative queue size"));
+        }
+    }
+
+
+    /**
+     * A single segment of the queue. The active queue and its counts may be modified only while holding the
+     * segment's lock, but the counts may be read at any time.
+     */
+    private static final class Segment {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private PriorityQueue<FlowFileRecord> activeQueue;
+        private volatile int activeCount = 0;
+        private volatile long activeBytes = 0L;
+        private final AtomicInteger unacknowledgedCount = new AtomicInteger(0);
+        private final AtomicLong unacknowledgedBytes = new AtomicLong(0L);
+
+        private Segment(final int index, final Prioritizer prioritizer) {
+            this.index = index;
+            this.activeQueue = new PriorityQueue<>(20, prioritizer);
+        }
+
+        private void incrementActiveQueueSize(final int count, final long bytes) {
+            activeCount += count;
+            activeBytes += bytes;
+
+            if (activeCount < 0 || activeBytes < 0) {
+                logger.error("Updated Size of Queue active to " + activeCount + " FlowFiles, " + activeBytes + " bytes", new RuntimeException("Cannot create negative queue size"));
+            }
+        }
+
+        private void incrementUnacknowledgedQueueSize(final int count, final long bytes) {
+            unacknowledgedCount.addAndGet(count);
+            unacknowledgedBytes.addAndGet(bytes);
+        }
+    }
+}
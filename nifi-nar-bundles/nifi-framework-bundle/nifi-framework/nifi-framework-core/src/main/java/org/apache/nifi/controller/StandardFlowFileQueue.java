@@ -72,7 +72,7 @@ import org.slf4j.LoggerFactory;
  * processing. Must be thread safe.
  *
  */
-public final class StandardFlowFileQueue implements FlowFileQueue {
+public final class StandardFlowFileQueue implements LockableFlowFileQueue {
 
     public static final int MAX_EXPIRED_RECORDS_PER_ITERATION = 100000;
     public static final int SWAP_RECORD_POLL_SIZE = 10000;
@@ -313,9 +313,9 @@ public final class StandardFlowFileQueue implements FlowFileQueue {
             writeLock.unlock("put(FlowFileRecord)");
         }
 
-        if (connection.getDestination().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
-            scheduler.registerEvent(connection.getDestination());
-        }
+        // Signal the destination directly, so that it runs as soon as a thread is available rather than when its queues are
+        // next polled. Agents that do not wait for events ignore the signal.
+        scheduler.registerEvent(connection.getDestination());
     }
 
     @Override
@@ -343,9 +343,9 @@ public final class StandardFlowFileQueue implements FlowFileQueue {
             writeLock.unlock("putAll");
         }
 
-        if (connection.getDestination().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
-            scheduler.registerEvent(connection.getDestination());
-        }
+        // Signal the destination directly, so that it runs as soon as a thread is available rather than when its queues are
+        // next polled. Agents that do not wait for events ignore the signal.
+        scheduler.registerEvent(connection.getDestination());
     }
 
 
@@ -751,12 +751,12 @@ public final class StandardFlowFileQueue implements FlowFileQueue {
 
 
 
-    private static final class Prioritizer implements Comparator<FlowFileRecord>, Serializable {
+    static final class Prioritizer implements Comparator<FlowFileRecord>, Serializable {
 
         private static final long serialVersionUID = 1L;
         private final transient List<FlowFilePrioritizer> prioritizers = new ArrayList<>();
 
-        private Prioritizer(final List<FlowFilePrioritizer> priorities) {
+        Prioritizer(final List<FlowFilePrioritizer> priorities) {
             if (null != priorities) {
                 prioritizers.addAll(priorities);
             }
@@ -1169,17 +1169,12 @@ public final class StandardFlowFileQueue implements FlowFileQueue {
         return dropRequestMap.get(requestIdentifier);
     }
 
-    /**
-     * Lock the queue so that other threads are unable to interact with the
-     * queue
-     */
+    @Override
     public void lock() {
         writeLock.lock();
     }
 
-    /**
-     * Unlock the queue
-     */
+    @Override
     public void unlock() {
         writeLock.unlock("external unlock");
     }
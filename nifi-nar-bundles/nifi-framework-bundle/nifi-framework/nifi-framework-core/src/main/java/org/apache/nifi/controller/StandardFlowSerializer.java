@@ -138,6 +138,9 @@ public class StandardFlowSerializer implements FlowSerializer {
         addTextElement(element, "name", group.getName());
         addPosition(element, group.getPosition());
         addTextElement(element, "comment", group.getComments());
+        if (group.getDedicatedThreadCount() > 0) {
+            addTextElement(element, "dedicatedThreadCount", group.getDedicatedThreadCount());
+        }
 
         for (final ProcessorNode processor : group.getProcessors()) {
             addProcessor(element, processor);
@@ -113,6 +113,7 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
     private final ValidationContextFactory validationContextFactory;
     private final ProcessScheduler processScheduler;
     private long runNanos = 0L;
+    private volatile long effectiveRunNanos = 0L;
 
     private SchedulingStrategy schedulingStrategy; // guarded by read/write lock
 
@@ -499,11 +500,26 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
             }
 
             this.runNanos = timeUnit.toNanos(duration);
+            this.effectiveRunNanos = this.runNanos;
         } finally {
             writeLock.unlock();
         }
     }
 
+    @Override
+    public long getEffectiveRunDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(effectiveRunNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void setEffectiveRunDuration(final long duration, final TimeUnit timeUnit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Run Duration must be non-negative value; cannot set to " + timeUnit.toSeconds(duration) + " seconds");
+        }
+
+        this.effectiveRunNanos = timeUnit.toNanos(duration);
+    }
+
     @Override
     public long getYieldPeriod(final TimeUnit timeUnit) {
         return FormatUtils.getTimeDuration(getYieldPeriod(), timeUnit == null ? DEFAULT_TIME_UNIT : timeUnit);
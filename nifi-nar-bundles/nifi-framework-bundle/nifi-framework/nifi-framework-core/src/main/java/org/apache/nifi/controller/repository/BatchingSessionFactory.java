@@ -27,10 +27,12 @@ import java.util.regex.Pattern;
 
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.FileChannelProcessSession;
 import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -49,7 +51,7 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
         return highThroughputSession;
     }
 
-    private class HighThroughputSession implements ProcessSession {
+    private class HighThroughputSession implements FileChannelProcessSession {
 
         private final StandardProcessSession session;
 
@@ -192,6 +194,11 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             session.read(source, allowSessionStreamManagement, reader);
         }
 
+        @Override
+        public boolean read(FlowFile source, FileChannelCallback reader) {
+            return session.read(source, reader);
+        }
+
         @Override
         public FlowFile merge(Collection<FlowFile> sources, FlowFile destination) {
             return session.merge(sources, destination);
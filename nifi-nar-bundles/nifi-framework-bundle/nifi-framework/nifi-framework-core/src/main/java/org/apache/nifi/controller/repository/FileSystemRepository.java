@@ -23,6 +23,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -38,6 +41,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,7 +68,9 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
+import org.apache.nifi.controller.repository.io.MappedFileInputStream;
 import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.stream.io.SynchronizedByteCountingOutputStream;
@@ -80,7 +86,7 @@ import org.slf4j.LoggerFactory;
  * Is thread safe
  *
  */
-public class FileSystemRepository implements ContentRepository {
+public class FileSystemRepository implements FileChannelContentRepository {
 
     public static final int SECTIONS_PER_CONTAINER = 1024;
     public static final String ARCHIVE_DIR_NAME = "archive";
@@ -103,6 +109,20 @@ public class FileSystemRepository implements ContentRepository {
     // files would mean that we are writing gigabytes per second - quite a bit faster than any disks can handle now.
     private final long maxAppendClaimLength = 1024L * 1024L;
 
+    // When memory mapping is enabled, Resource Claim files that are no longer being appended to are mapped once, in their
+    // entirety, and the mapping is shared by every read of a claim within the file. Mappings are not unmapped explicitly,
+    // as that is unsafe while another thread may still be reading from one; instead, they are released by the garbage
+    // collector once they have been evicted from this cache and are no longer referenced by any stream.
+    private static final int MAX_MAPPED_RESOURCE_CLAIMS = 256;
+    private final Map<ResourceClaim, MappedByteBuffer> mappedResourceClaims = new LinkedHashMap<ResourceClaim, MappedByteBuffer>(16, 0.75F, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<ResourceClaim, MappedByteBuffer> eldest) {
+            return size() > MAX_MAPPED_RESOURCE_CLAIMS;
+        }
+    };
+
     // Queue for claims that are kept open for writing. Size of 100 is pretty arbitrary. Ideally, this will be at
     // least as large as the number of threads that will be updating the repository simultaneously but we don't want
     // to get too large because it will hold open up to this many FileOutputStreams.
@@ -116,6 +136,7 @@ public class FileSystemRepository implements ContentRepository {
     private final long maxArchiveMillis;
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
+    private final boolean memoryMapped;
     private final ScheduledExecutorService containerCleanupExecutor;
 
     private ResourceClaimManager resourceClaimManager; // effectively final
@@ -207,6 +228,8 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(properties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+        this.memoryMapped = Boolean.parseBoolean(properties.getProperty(NiFiProperties.CONTENT_REPOSITORY_MEMORY_MAPPED));
+        LOG.info("Initializing FileSystemRepository with 'Memory Mapped' set to {}", memoryMapped);
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -626,6 +649,7 @@ public class FileSystemRepository implements ContentRepository {
         } catch (final ContentNotFoundException cnfe) {
         }
 
+        removeMapping(claim);
         final File file = path.toFile();
         if (!file.delete() && file.exists()) {
             LOG.warn("Unable to delete {} at path {}", new Object[] {claim, path});
@@ -806,6 +830,16 @@ public class FileSystemRepository implements ContentRepository {
             return new ByteArrayInputStream(new byte[0]);
         }
         final Path path = getPath(claim, true);
+
+        // Small claims are read directly out of a shared mapping of their Resource Claim's file, if it has one. Larger
+        // claims are streamed, as mapping them buys little for sequential reads.
+        if (memoryMapped && claim.getLength() >= 0 && claim.getLength() <= maxAppendClaimLength) {
+            final MappedByteBuffer mapping = getMapping(claim.getResourceClaim(), path, claim.getOffset() + claim.getLength());
+            if (mapping != null) {
+                return new MappedFileInputStream(path, mapping, claim.getOffset(), claim.getLength());
+            }
+        }
+
         final FileInputStream fis = new FileInputStream(path.toFile());
         if (claim.getOffset() > 0L) {
             StreamUtils.skip(fis, claim.getOffset());
@@ -819,6 +853,76 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Returns a read-only mapping of the given Resource Claim's file that covers at least the given number of bytes,
+     * mapping the file if it has not already been mapped. Files that may still be appended to are not mapped, because
+     * each claim appended to them would require a larger mapping; claims in those files are streamed instead.
+     *
+     * @param resourceClaim the Resource Claim whose file is to be mapped
+     * @param path the path of the Resource Claim's file
+     * @param requiredLength the number of bytes, from the start of the file, that the mapping must cover
+     * @return the mapping, or <code>null</code> if the file should not be mapped
+     * @throws IOException if unable to map the file
+     */
+    private MappedByteBuffer getMapping(final ResourceClaim resourceClaim, final Path path, final long requiredLength) throws IOException {
+        synchronized (mappedResourceClaims) {
+            final MappedByteBuffer mapping = mappedResourceClaims.get(resourceClaim);
+            if (mapping != null && mapping.capacity() >= requiredLength) {
+                return mapping;
+            }
+        }
+
+        if (activeResourceClaims.contains(resourceClaim) || writableClaimStreams.containsKey(resourceClaim)) {
+            return null;
+        }
+
+        // the mapping remains valid after the channel is closed
+        final MappedByteBuffer mapping;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileLength = channel.size();
+            if (fileLength < requiredLength || fileLength > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            mapping = channel.map(MapMode.READ_ONLY, 0L, fileLength);
+        }
+
+        synchronized (mappedResourceClaims) {
+            mappedResourceClaims.put(resourceClaim, mapping);
+        }
+        return mapping;
+    }
+
+    private void removeMapping(final ResourceClaim resourceClaim) {
+        if (memoryMapped) {
+            synchronized (mappedResourceClaims) {
+                mappedResourceClaims.remove(resourceClaim);
+            }
+        }
+    }
+
+    @Override
+    public boolean read(final ContentClaim claim, final long offset, final long length, final FileChannelCallback callback) throws IOException {
+        if (claim == null) {
+            return false;
+        }
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and Length cannot be negative");
+        }
+
+        // see javadocs for claim.getLength() as to why we check for a non-negative length.
+        if (claim.getLength() >= 0 && offset + length > claim.getLength()) {
+            throw new IllegalArgumentException("Region of " + length + " bytes at offset " + offset + " exceeds claim size of " + claim.getLength());
+        }
+
+        final Path path = getPath(claim, true);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            callback.process(channel, claim.getOffset() + offset, length);
+        }
+
+        return true;
+    }
+
     @Override
     public OutputStream write(final ContentClaim claim) throws IOException {
         return write(claim, false);
@@ -960,13 +1064,18 @@ public class FileSystemRepository implements ContentRepository {
                     // because those need to be done atomically, or if we are destroying a claim that is on
                     // the queue because we need to ensure that the latter operation does not cause problems
                     // with the former.
+                    //
+                    // The stream must be registered before the claim is made available on the queue. Otherwise, another
+                    // thread could pull the claim from the queue and open a second stream to the same file before this
+                    // one is registered.
                     final ClaimLengthPair pair = new ClaimLengthPair(scc.getResourceClaim(), resourceClaimLength);
+                    writableClaimStreams.put(scc.getResourceClaim(), bcos);
                     final boolean enqueued = writableClaimQueue.offer(pair);
 
                     if (enqueued) {
-                        writableClaimStreams.put(scc.getResourceClaim(), bcos);
                         LOG.debug("Claim length less than max; Adding {} back to writableClaimStreams", this);
                     } else {
+                        writableClaimStreams.remove(scc.getResourceClaim());
                         bcos.close();
 
                         LOG.debug("Claim length less than max; Closing {} because could not add back to queue", this);
@@ -1120,6 +1229,7 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
+        removeMapping(claim);
         final boolean archived = archive(curPath);
         LOG.debug("Successfully moved {} to archive", claim);
         return archived;
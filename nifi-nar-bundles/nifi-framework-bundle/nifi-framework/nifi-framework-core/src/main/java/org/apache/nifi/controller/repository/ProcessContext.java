@@ -43,17 +43,27 @@ public class ProcessContext {
     private final FlowFileEventRepository flowFileEventRepo;
     private final CounterRepository counterRepo;
     private final ProvenanceEventRepository provenanceRepo;
+    private final ProvenanceCapturePolicies capturePolicies;
     private final AtomicLong connectionIndex;
 
     public ProcessContext(final Connectable connectable, final AtomicLong connectionIndex, final ContentRepository contentRepository,
             final FlowFileRepository flowFileRepository, final FlowFileEventRepository flowFileEventRepository,
             final CounterRepository counterRepository, final ProvenanceEventRepository provenanceRepository) {
+        this(connectable, connectionIndex, contentRepository, flowFileRepository, flowFileEventRepository, counterRepository, provenanceRepository,
+            ProvenanceCapturePolicies.CAPTURE_ALL);
+    }
+
+    public ProcessContext(final Connectable connectable, final AtomicLong connectionIndex, final ContentRepository contentRepository,
+            final FlowFileRepository flowFileRepository, final FlowFileEventRepository flowFileEventRepository,
+            final CounterRepository counterRepository, final ProvenanceEventRepository provenanceRepository,
+            final ProvenanceCapturePolicies capturePolicies) {
         this.connectable = connectable;
         contentRepo = contentRepository;
         flowFileRepo = flowFileRepository;
         flowFileEventRepo = flowFileEventRepository;
         counterRepo = counterRepository;
         provenanceRepo = provenanceRepository;
+        this.capturePolicies = capturePolicies;
 
         this.connectionIndex = connectionIndex;
     }
@@ -137,6 +147,14 @@ public class ProcessContext {
         counterRepo.adjustCounter(globalContext, name, delta);
     }
 
+    /**
+     * @param componentType the type of the component, as reported in its Provenance Events
+     * @return the policy that determines which of the component's Provenance Events are registered
+     */
+    ProvenanceCapturePolicy getProvenanceCapturePolicy(final String componentType) {
+        return capturePolicies.getPolicy(connectable.getIdentifier(), componentType);
+    }
+
     ContentRepository getContentRepository() {
         return contentRepo;
     }
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.util.NiFiProperties;
+
+/**
+ * <p>
+ * The configured Provenance Capture Policies of all components. Each policy is keyed by a Component ID or a
+ * component type (the simple class name of a Processor), optionally followed by a '.' and a Provenance Event Type,
+ * and is one of:
+ * </p>
+ *
+ * <ul>
+ * <li><b>all</b> - all events are captured. This is the policy of any component that has none configured.</li>
+ * <li><b>none</b> - no events are captured.</li>
+ * <li><b>terminal</b> - only events that mark the beginning or the end of a FlowFile's life in this instance
+ * (RECEIVE, SEND, DROP and EXPIRE) are captured.</li>
+ * <li><b>sample 1/N</b> - the events of one in every N FlowFiles are captured. FlowFiles are sampled by their UUID,
+ * so that either all or none of the events of a FlowFile are captured.</li>
+ * </ul>
+ *
+ * <p>
+ * The policy for a given event is the first one that is configured of: the Component ID and Event Type, the component
+ * type and Event Type, the Component ID, and the component type.
+ * </p>
+ */
+public class ProvenanceCapturePolicies {
+
+    public static final ProvenanceCapturePolicies CAPTURE_ALL = new ProvenanceCapturePolicies(new HashMap<String, String>());
+
+    private static final Pattern SAMPLE_PATTERN = Pattern.compile("sample\\s+1\\s*/\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final Set<ProvenanceEventType> TERMINAL_EVENT_TYPES = EnumSet.of(ProvenanceEventType.RECEIVE, ProvenanceEventType.SEND,
+        ProvenanceEventType.DROP, ProvenanceEventType.EXPIRE);
+
+    private final Map<String, Rule> componentRules = new HashMap<>();
+    private final Map<String, Map<ProvenanceEventType, Rule>> eventTypeRules = new HashMap<>();
+
+    /**
+     * @param policies the configured policies, keyed as described in the class documentation
+     * @throws IllegalArgumentException if any of the policies is not valid
+     */
+    public ProvenanceCapturePolicies(final Map<String, String> policies) {
+        for (final Map.Entry<String, String> entry : policies.entrySet()) {
+            final String key = entry.getKey();
+            final Rule rule = parse(key, entry.getValue());
+
+            final int dotIndex = key.lastIndexOf('.');
+            final ProvenanceEventType eventType = dotIndex < 0 ? null : getEventType(key.substring(dotIndex + 1));
+            if (eventType == null) {
+                componentRules.put(key, rule);
+            } else {
+                final String component = key.substring(0, dotIndex);
+                Map<ProvenanceEventType, Rule> rules = eventTypeRules.get(component);
+                if (rules == null) {
+                    rules = new EnumMap<>(ProvenanceEventType.class);
+                    eventTypeRules.put(component, rules);
+                }
+                rules.put(eventType, rule);
+            }
+        }
+    }
+
+    public static ProvenanceCapturePolicies fromProperties(final NiFiProperties properties) {
+        return new ProvenanceCapturePolicies(properties.getProvenanceCapturePolicies());
+    }
+
+    private static ProvenanceEventType getEventType(final String name) {
+        for (final ProvenanceEventType eventType : ProvenanceEventType.values()) {
+            if (eventType.name().equalsIgnoreCase(name)) {
+                return eventType;
+            }
+        }
+        return null;
+    }
+
+    private static Rule parse(final String key, final String value) {
+        final String trimmed = value == null ? "" : value.trim();
+        if (trimmed.equalsIgnoreCase("all")) {
+            return Rule.ALL;
+        }
+        if (trimmed.equalsIgnoreCase("none")) {
+            return Rule.NONE;
+        }
+        if (trimmed.equalsIgnoreCase("terminal")) {
+            return Rule.TERMINAL;
+        }
+
+        final Matcher matcher = SAMPLE_PATTERN.matcher(trimmed);
+        if (matcher.matches()) {
+            final int rate;
+            try {
+                rate = Integer.parseInt(matcher.group(1));
+            } catch (final NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid Provenance Capture Policy for " + key + ": " + value);
+            }
+            if (rate < 1) {
+                throw new IllegalArgumentException("Invalid Provenance Capture Policy for " + key + ": sample rate must be at least 1");
+            }
+            return rate == 1 ? Rule.ALL : new Rule(Mode.SAMPLE, rate);
+        }
+
+        throw new IllegalArgumentException("Invalid Provenance Capture Policy for " + key + ": " + value
+            + "; must be one of 'all', 'none', 'terminal' or 'sample 1/N'");
+    }
+
+    /**
+     * @return <code>true</code> if no policies are configured
+     */
+    public boolean isEmpty() {
+        return componentRules.isEmpty() && eventTypeRules.isEmpty();
+    }
+
+    /**
+     * Resolves the policy of the given component
+     *
+     * @param componentId the identifier of the component
+     * @param componentType the type of the component
+     * @return the policy that determines which of the component's events are captured
+     */
+    public ProvenanceCapturePolicy getPolicy(final String componentId, final String componentType) {
+        if (isEmpty()) {
+            return ProvenanceCapturePolicy.CAPTURE_ALL;
+        }
+
+        final Rule componentRule = first(componentRules.get(componentId), componentRules.get(componentType));
+        final Map<ProvenanceEventType, Rule> idRules = eventTypeRules.get(componentId);
+        final Map<ProvenanceEventType, Rule> typeRules = eventTypeRules.get(componentType);
+
+        final Map<ProvenanceEventType, Rule> rules = new EnumMap<>(ProvenanceEventType.class);
+        for (final ProvenanceEventType eventType : ProvenanceEventType.values()) {
+            final Rule rule = first(idRules == null ? null : idRules.get(eventType), typeRules == null ? null : typeRules.get(eventType), componentRule);
+            if (rule != null) {
+                rules.put(eventType, rule);
+            }
+        }
+
+        return new ProvenanceCapturePolicy(rules);
+    }
+
+    private static Rule first(final Rule... rules) {
+        for (final Rule rule : rules) {
+            if (rule != null) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    static boolean isTerminal(final ProvenanceEventType eventType) {
+        return TERMINAL_EVENT_TYPES.contains(eventType);
+    }
+
+    enum Mode {
+        ALL, NONE, TERMINAL, SAMPLE;
+    }
+
+    static class Rule {
+        static final Rule ALL = new Rule(Mode.ALL, 1);
+        static final Rule NONE = new Rule(Mode.NONE, 1);
+        static final Rule TERMINAL = new Rule(Mode.TERMINAL, 1);
+
+        final Mode mode;
+        final int sampleRate;
+
+        Rule(final Mode mode, final int sampleRate) {
+            this.mode = mode;
+            this.sampleRate = sampleRate;
+        }
+    }
+}
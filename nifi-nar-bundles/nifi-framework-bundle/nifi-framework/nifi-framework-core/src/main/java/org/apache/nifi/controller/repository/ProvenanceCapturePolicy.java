@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.nifi.controller.repository.ProvenanceCapturePolicies.Rule;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+
+/**
+ * The Provenance Capture Policy of a single component, which determines which of the Provenance Events that the
+ * component generates are registered with the Provenance Repository. See {@link ProvenanceCapturePolicies}.
+ */
+public class ProvenanceCapturePolicy {
+
+    public static final ProvenanceCapturePolicy CAPTURE_ALL = new ProvenanceCapturePolicy(Collections.<ProvenanceEventType, Rule> emptyMap());
+
+    /**
+     * The name of the counter that is incremented for each event that is not captured, so that the gaps in
+     * lineage that this causes are visible
+     */
+    public static final String EVENTS_NOT_CAPTURED_COUNTER = "Provenance Events Not Captured";
+
+    private final Map<ProvenanceEventType, Rule> rules;
+    private final boolean captureAll;
+
+    ProvenanceCapturePolicy(final Map<ProvenanceEventType, Rule> rules) {
+        this.rules = rules;
+
+        boolean all = true;
+        for (final Rule rule : rules.values()) {
+            if (rule.mode != ProvenanceCapturePolicies.Mode.ALL) {
+                all = false;
+                break;
+            }
+        }
+        this.captureAll = all;
+    }
+
+    /**
+     * @return <code>true</code> if all events are captured
+     */
+    public boolean isCaptureAll() {
+        return captureAll;
+    }
+
+    /**
+     * @param event the event
+     * @return <code>true</code> if the event should be registered with the Provenance Repository
+     */
+    public boolean isCaptured(final ProvenanceEventRecord event) {
+        if (captureAll) {
+            return true;
+        }
+
+        final Rule rule = rules.get(event.getEventType());
+        if (rule == null) {
+            return true;
+        }
+
+        switch (rule.mode) {
+            case NONE:
+                return false;
+            case TERMINAL:
+                return ProvenanceCapturePolicies.isTerminal(event.getEventType());
+            case SAMPLE:
+                final String uuid = event.getFlowFileUuid();
+                return uuid == null || (uuid.hashCode() & Integer.MAX_VALUE) % rule.sampleRate == 0;
+            case ALL:
+            default:
+                return true;
+        }
+    }
+}
@@ -56,13 +56,14 @@ import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.controller.repository.io.LongHolder;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.FileChannelProcessSession;
 import org.apache.nifi.processor.FlowFileFilter;
-import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -88,7 +89,7 @@ import org.slf4j.LoggerFactory;
  * </p>
  * <p/>
  */
-public final class StandardProcessSession implements ProcessSession, ProvenanceEventEnricher {
+public final class StandardProcessSession implements FileChannelProcessSession, ProvenanceEventEnricher {
 
     private static final AtomicLong idGenerator = new AtomicLong(0L);
 
@@ -115,6 +116,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     private final Set<String> createdFlowFiles = new HashSet<>();
 
     private final StandardProvenanceReporter provenanceReporter;
+    private final ProvenanceCapturePolicy capturePolicy;
 
     private int removedCount = 0; // number of flowfiles removed in this session
     private long removedBytes = 0L; // size of all flowfiles removed in this session
@@ -172,6 +174,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
 
         this.provenanceReporter = new StandardProvenanceReporter(this, connectable.getIdentifier(), componentType,
             context.getProvenanceRepository(), this);
+        this.capturePolicy = context.getProvenanceCapturePolicy(componentType);
         this.sessionId = idGenerator.getAndIncrement();
         this.connectableDescription = description;
 
@@ -655,7 +658,39 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
             flowFileRecordMap.put(flowFile.getAttribute(CoreAttributes.UUID.key()), flowFile);
         }
 
-        final List<ProvenanceEventRecord> autoTermEvents = checkpoint.autoTerminatedEvents;
+        // Discard any events that the component's Provenance Capture Policy does not call for, counting them so that
+        // the gaps in lineage are visible. We do this after all of the events have been gathered, rather than as
+        // the Processor reports them, because the framework generates many of the events itself.
+        final List<ProvenanceEventRecord> autoTermEvents;
+        if (capturePolicy.isCaptureAll()) {
+            autoTermEvents = checkpoint.autoTerminatedEvents;
+        } else {
+            long notCaptured = 0L;
+            for (final Iterator<ProvenanceEventRecord> itr = recordsToSubmit.iterator(); itr.hasNext();) {
+                if (!capturePolicy.isCaptured(itr.next())) {
+                    itr.remove();
+                    notCaptured++;
+                }
+            }
+
+            if (checkpoint.autoTerminatedEvents == null) {
+                autoTermEvents = null;
+            } else {
+                autoTermEvents = new ArrayList<>(checkpoint.autoTerminatedEvents.size());
+                for (final ProvenanceEventRecord event : checkpoint.autoTerminatedEvents) {
+                    if (capturePolicy.isCaptured(event)) {
+                        autoTermEvents.add(event);
+                    } else {
+                        notCaptured++;
+                    }
+                }
+            }
+
+            if (notCaptured > 0L) {
+                context.adjustCounter(ProvenanceCapturePolicy.EVENTS_NOT_CAPTURED_COUNTER, notCaptured);
+            }
+        }
+
         final Iterable<ProvenanceEventRecord> iterable = new Iterable<ProvenanceEventRecord>() {
             final Iterator<ProvenanceEventRecord> recordsToSubmitIterator = recordsToSubmit.iterator();
             final Iterator<ProvenanceEventRecord> autoTermIterator = autoTermEvents == null ? null : autoTermEvents.iterator();
@@ -1828,6 +1863,45 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
     }
 
+    @Override
+    public boolean read(final FlowFile source, final FileChannelCallback reader) {
+        validateRecordState(source);
+        final StandardRepositoryRecord record = records.get(source);
+
+        // If there's no content, there is no file region to provide.
+        if (record.getCurrentClaim() == null || source.getSize() == 0L) {
+            return false;
+        }
+
+        final ContentRepository contentRepo = context.getContentRepository();
+        if (!(contentRepo instanceof FileChannelContentRepository)) {
+            return false;
+        }
+
+        try {
+            ensureNotAppending(record.getCurrentClaim());
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        try {
+            recursionSet.add(source);
+            final boolean invoked = ((FileChannelContentRepository) contentRepo).read(record.getCurrentClaim(), record.getCurrentClaimOffset(), source.getSize(), reader);
+            if (invoked) {
+                bytesRead.increment(source.getSize());
+            }
+
+            return invoked;
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+            return false;
+        } catch (final IOException ex) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ex.toString(), ex);
+        } finally {
+            recursionSet.remove(source);
+        }
+    }
+
     @Override
     public FlowFile merge(final Collection<FlowFile> sources, final FlowFile destination) {
         return merge(sources, destination, null, null, null);
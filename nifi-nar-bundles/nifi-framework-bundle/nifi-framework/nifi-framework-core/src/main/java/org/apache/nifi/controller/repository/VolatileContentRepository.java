@@ -47,6 +47,7 @@ import org.apache.nifi.controller.repository.io.ArrayManagedOutputStream;
 import org.apache.nifi.controller.repository.io.MemoryManager;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.stream.io.ByteArrayInputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.NiFiProperties;
@@ -75,7 +76,7 @@ import org.slf4j.LoggerFactory;
  * result in an {@link IllegalStateException} being thrown.
  * </p>
  */
-public class VolatileContentRepository implements ContentRepository {
+public class VolatileContentRepository implements FileChannelContentRepository {
 
     private final Logger logger = LoggerFactory.getLogger(VolatileContentRepository.class);
     public static String CONTAINER_NAME = "in-memory";
@@ -441,6 +442,21 @@ public class VolatileContentRepository implements ContentRepository {
         return backupClaim == null ? getContent(claim).read() : getBackupRepository().read(backupClaim);
     }
 
+    @Override
+    public boolean read(final ContentClaim claim, final long offset, final long length, final FileChannelCallback callback) throws IOException {
+        if (claim == null) {
+            return false;
+        }
+
+        // content that is held in memory cannot be accessed as a file region; only content that has spilled over
+        // to the backup repository can be.
+        final ContentClaim backupClaim = getBackupClaim(claim);
+        if (backupClaim == null || !(getBackupRepository() instanceof FileChannelContentRepository)) {
+            return false;
+        }
+        return ((FileChannelContentRepository) getBackupRepository()).read(backupClaim, offset, length, callback);
+    }
+
     @Override
     public OutputStream write(final ContentClaim claim) throws IOException {
         final ContentClaim backupClaim = getBackupClaim(claim);
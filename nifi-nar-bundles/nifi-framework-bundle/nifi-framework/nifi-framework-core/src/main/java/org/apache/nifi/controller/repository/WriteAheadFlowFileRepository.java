@@ -34,11 +34,16 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.nifi.controller.queue.FlowFileQueue;
@@ -53,9 +58,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wali.MinimalLockingWriteAheadLog;
 import org.wali.SerDe;
+import org.wali.SerDeFactory;
 import org.wali.SyncListener;
 import org.wali.UpdateType;
-import org.wali.WriteAheadRepository;
 
 /**
  * <p>
@@ -85,8 +90,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private final ScheduledExecutorService checkpointExecutor;
 
     // effectively final
-    private WriteAheadRepository<RepositoryRecord> wal;
-    private WriteAheadRecordSerde serde;
+    private MinimalLockingWriteAheadLog<RepositoryRecord> wal;
+    private WriteAheadRecordSerdeFactory serdeFactory;
     private ResourceClaimManager claimManager;
 
     // WALI Provides the ability to register callbacks for when a Partition or the entire Repository is sync'ed with the underlying disk.
@@ -110,7 +115,11 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     // We can then destroy the data. If we end up syncing the FlowFile Repository to the backing storage mechanism and then restart
     // before the data is destroyed, it's okay because the data will be unknown to the Content Repository, so it will be destroyed
     // on restart.
-    private final ConcurrentMap<Integer, BlockingQueue<ContentClaim>> claimsAwaitingDestruction = new ConcurrentHashMap<>();
+    //
+    // Partitions are synced without being locked, so another thread may write an update to the partition after the sync
+    // and queue its claims before we are notified. Each batch of claims is therefore queued along with the sequence number
+    // of the last transaction written to the partition at that time, and is destroyed only once that transaction is synced.
+    private final ConcurrentMap<Integer, BlockingQueue<ClaimsAwaitingSync>> claimsAwaitingDestruction = new ConcurrentHashMap<>();
 
     public WriteAheadFlowFileRepository() {
         final NiFiProperties properties = NiFiProperties.getInstance();
@@ -135,8 +144,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // TODO: Allow for backup path that can be used if disk out of space?? Would allow a snapshot to be stored on
         // backup and then the data deleted from the normal location; then can move backup to normal location and
         // delete backup. On restore, if no files exist in partition's directory, would have to check backup directory
-        serde = new WriteAheadRecordSerde(claimManager);
-        wal = new MinimalLockingWriteAheadLog<>(flowFileRepositoryPath, numPartitions, serde, this);
+        serdeFactory = new WriteAheadRecordSerdeFactory(claimManager);
+        wal = new MinimalLockingWriteAheadLog<>(flowFileRepositoryPath, numPartitions, serdeFactory, this);
     }
 
     @Override
@@ -236,29 +245,42 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         if (!claimsToAdd.isEmpty()) {
             // Get / Register a Set<ContentClaim> for the given Partiton Index
             final Integer partitionKey = Integer.valueOf(partitionIndex);
-            BlockingQueue<ContentClaim> claimQueue = claimsAwaitingDestruction.get(partitionKey);
+            BlockingQueue<ClaimsAwaitingSync> claimQueue = claimsAwaitingDestruction.get(partitionKey);
             if (claimQueue == null) {
                 claimQueue = new LinkedBlockingQueue<>();
-                final BlockingQueue<ContentClaim> existingClaimQueue = claimsAwaitingDestruction.putIfAbsent(partitionKey, claimQueue);
+                final BlockingQueue<ClaimsAwaitingSync> existingClaimQueue = claimsAwaitingDestruction.putIfAbsent(partitionKey, claimQueue);
                 if (existingClaimQueue != null) {
                     claimQueue = existingClaimQueue;
                 }
             }
 
-            claimQueue.addAll(claimsToAdd);
+            // Our transaction has been written, so the partition's current sequence number is at least that of our transaction.
+            // Reading it while holding the queue's monitor keeps the queue ordered by sequence number.
+            synchronized (claimQueue) {
+                claimQueue.add(new ClaimsAwaitingSync(wal.getWrittenTransactionSequence(partitionIndex), claimsToAdd));
+            }
         }
     }
 
 
     @Override
     public void onSync(final int partitionIndex) {
-        final BlockingQueue<ContentClaim> claimQueue = claimsAwaitingDestruction.get(Integer.valueOf(partitionIndex));
+        final BlockingQueue<ClaimsAwaitingSync> claimQueue = claimsAwaitingDestruction.get(Integer.valueOf(partitionIndex));
         if (claimQueue == null) {
             return;
         }
 
+        // Only destroy the claims whose transactions are known to be durable. Any others are left on the queue
+        // for a later sync of the partition, or for the next checkpoint.
+        final long syncedSequence = wal.getSyncedTransactionSequence(partitionIndex);
         final Set<ContentClaim> claimsToDestroy = new HashSet<>();
-        claimQueue.drainTo(claimsToDestroy);
+        synchronized (claimQueue) {
+            ClaimsAwaitingSync claims;
+            while ((claims = claimQueue.peek()) != null && claims.getTransactionSequence() <= syncedSequence) {
+                claimQueue.poll();
+                claimsToDestroy.addAll(claims.getClaims());
+            }
+        }
 
         for (final ContentClaim claim : claimsToDestroy) {
             markDestructable(claim);
@@ -267,9 +289,16 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
     @Override
     public void onGlobalSync() {
-        for (final BlockingQueue<ContentClaim> claimQueue : claimsAwaitingDestruction.values()) {
+        for (final BlockingQueue<ClaimsAwaitingSync> claimQueue : claimsAwaitingDestruction.values()) {
+            final List<ClaimsAwaitingSync> drained = new ArrayList<>();
+            synchronized (claimQueue) {
+                claimQueue.drainTo(drained);
+            }
+
             final Set<ContentClaim> claimsToDestroy = new HashSet<>();
-            claimQueue.drainTo(claimsToDestroy);
+            for (final ClaimsAwaitingSync claims : drained) {
+                claimsToDestroy.addAll(claims.getClaims());
+            }
 
             for (final ContentClaim claim : claimsToDestroy) {
                 markDestructable(claim);
@@ -324,36 +353,53 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         for (final FlowFileQueue queue : queueProvider.getAllQueues()) {
             queueMap.put(queue.getIdentifier(), queue);
         }
-        serde.setQueueMap(queueMap);
+        final long recoverStart = System.nanoTime();
+        serdeFactory.setQueueMap(queueMap);
         final Collection<RepositoryRecord> recordList = wal.recoverRecords();
-        serde.setQueueMap(null);
+        serdeFactory.setQueueMap(null);
+        final long recoverNanos = System.nanoTime() - recoverStart;
 
+        // Restore the Content Claims' claimant counts, determine the next sequence number for FlowFiles,
+        // and group the FlowFiles by queue so that each queue can be loaded with a single call to putAll
+        final long claimStart = System.nanoTime();
+        long maxId = minimumSequenceNumber;
+        final Map<FlowFileQueue, List<FlowFileRecord>> flowFilesByQueue = new HashMap<>();
         for (final RepositoryRecord record : recordList) {
             final ContentClaim claim = record.getCurrentClaim();
             if (claim != null) {
                 claimManager.incrementClaimantCount(claim.getResourceClaim());
             }
-        }
 
-        // Determine the next sequence number for FlowFiles
-        long maxId = minimumSequenceNumber;
-        for (final RepositoryRecord record : recordList) {
-            final long recordId = serde.getRecordIdentifier(record);
+            final long recordId = record.getCurrent().getId();
             if (recordId > maxId) {
                 maxId = recordId;
             }
 
-            final FlowFileRecord flowFile = record.getCurrent();
             final FlowFileQueue queue = record.getOriginalQueue();
             if (queue != null) {
-                queue.put(flowFile);
+                List<FlowFileRecord> queueFlowFiles = flowFilesByQueue.get(queue);
+                if (queueFlowFiles == null) {
+                    queueFlowFiles = new ArrayList<>();
+                    flowFilesByQueue.put(queue, queueFlowFiles);
+                }
+                queueFlowFiles.add(record.getCurrent());
             }
         }
+        final long claimNanos = System.nanoTime() - claimStart;
+
+        final long queueStart = System.nanoTime();
+        loadQueues(flowFilesByQueue);
+        final long queueNanos = System.nanoTime() - queueStart;
 
         // Set the AtomicLong to 1 more than the max ID so that calls to #getNextFlowFileSequence() will
         // return the appropriate number.
         flowFileSequenceGenerator.set(maxId + 1);
-        logger.info("Successfully restored {} FlowFiles", recordList.size());
+        logger.info("Successfully restored {} FlowFiles in {} milliseconds (Snapshot recovery = {} millis, Journal recovery = {} millis, "
+            + "Post-recovery checkpoint = {} millis, Content Claim restoration = {} millis, Queue loading = {} millis for {} queues)",
+            new Object[] {recordList.size(), TimeUnit.NANOSECONDS.toMillis(recoverNanos + claimNanos + queueNanos),
+                TimeUnit.NANOSECONDS.toMillis(wal.getSnapshotRecoveryNanos()), TimeUnit.NANOSECONDS.toMillis(wal.getJournalRecoveryNanos()),
+                TimeUnit.NANOSECONDS.toMillis(wal.getRecoveryCheckpointNanos()), TimeUnit.NANOSECONDS.toMillis(claimNanos),
+                TimeUnit.NANOSECONDS.toMillis(queueNanos), flowFilesByQueue.size()});
 
         final Runnable checkpointRunnable = new Runnable() {
             @Override
@@ -377,6 +423,60 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         return maxId;
     }
 
+    /**
+     * Places the given FlowFiles into their queues. Each queue is loaded with a single call to putAll, and
+     * different queues are loaded concurrently.
+     */
+    private void loadQueues(final Map<FlowFileQueue, List<FlowFileRecord>> flowFilesByQueue) throws IOException {
+        if (flowFilesByQueue.size() < 2) {
+            for (final Map.Entry<FlowFileQueue, List<FlowFileRecord>> entry : flowFilesByQueue.entrySet()) {
+                entry.getKey().putAll(entry.getValue());
+            }
+            return;
+        }
+
+        final int threadCount = Math.min(flowFilesByQueue.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService queueLoadExecutor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "FlowFile Repository Queue Loader-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>(flowFilesByQueue.size());
+            for (final Map.Entry<FlowFileQueue, List<FlowFileRecord>> entry : flowFilesByQueue.entrySet()) {
+                futures.add(queueLoadExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        entry.getKey().putAll(entry.getValue());
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while loading FlowFiles into queues", ie);
+                } catch (final ExecutionException ee) {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException("Failed to load FlowFiles into queues", cause);
+                }
+            }
+        } finally {
+            queueLoadExecutor.shutdown();
+        }
+    }
+
     @Override
     public long getNextFlowFileSequence() {
         return flowFileSequenceGenerator.getAndIncrement();
@@ -392,6 +492,46 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         return wal.checkpoint();
     }
 
+    /**
+     * The Content Claims that were queued for destruction by an update to a partition, along with a sequence number
+     * that is at least that of the update's transaction
+     */
+    private static class ClaimsAwaitingSync {
+        private final long transactionSequence;
+        private final Set<ContentClaim> claims;
+
+        public ClaimsAwaitingSync(final long transactionSequence, final Set<ContentClaim> claims) {
+            this.transactionSequence = transactionSequence;
+            this.claims = claims;
+        }
+
+        public long getTransactionSequence() {
+            return transactionSequence;
+        }
+
+        public Set<ContentClaim> getClaims() {
+            return claims;
+        }
+    }
+
+    private static class WriteAheadRecordSerdeFactory implements SerDeFactory<RepositoryRecord> {
+        private final ResourceClaimManager claimManager;
+        private volatile Map<String, FlowFileQueue> flowFileQueueMap = null;
+
+        public WriteAheadRecordSerdeFactory(final ResourceClaimManager claimManager) {
+            this.claimManager = claimManager;
+        }
+
+        private void setQueueMap(final Map<String, FlowFileQueue> queueMap) {
+            this.flowFileQueueMap = queueMap;
+        }
+
+        @Override
+        public SerDe<RepositoryRecord> createSerDe() {
+            return new WriteAheadRecordSerde(claimManager, flowFileQueueMap);
+        }
+    }
+
     private static class WriteAheadRecordSerde implements SerDe<RepositoryRecord> {
 
         public static final byte ACTION_CREATE = 0;
@@ -400,15 +540,29 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         public static final byte ACTION_SWAPPED_OUT = 3;
         public static final byte ACTION_SWAPPED_IN = 4;
 
-        private Map<String, FlowFileQueue> flowFileQueueMap = null;
+        private static final int ATTRIBUTES_UNCHANGED = 0;
+        private static final int ATTRIBUTES_ALL = 1;
+        private static final int ATTRIBUTES_CHANGED = 2;
+
+        // Starting with version 8, attribute keys, queue identifiers, and claim containers and sections are written using a dictionary
+        // that is scoped to the stream being written, that is, to a single journal or snapshot. The first time that a string is written
+        // to the stream it is written in full and assigned the next index; after that, only the index is written. The WAL creates a new
+        // SerDe for each journal or snapshot and always reads a journal or snapshot from the beginning with a new SerDe as well, so the
+        // dictionaries are simply members of this object, and the reader is able to rebuild the same dictionary that the writer used.
+        private static final int DICTIONARY_NEW_ENTRY = 0;
+        private static final int DICTIONARY_LITERAL = 1;
+        private static final int DICTIONARY_INDEX_OFFSET = 2;
+        private static final int MAX_DICTIONARY_SIZE = 10000;
+
+        private final Map<String, FlowFileQueue> flowFileQueueMap;
         private long recordsRestored = 0L;
         private final ResourceClaimManager claimManager;
 
-        public WriteAheadRecordSerde(final ResourceClaimManager claimManager) {
-            this.claimManager = claimManager;
-        }
+        private final Map<String, Integer> writeDictionary = new HashMap<>();
+        private final List<String> readDictionary = new ArrayList<>();
 
-        private void setQueueMap(final Map<String, FlowFileQueue> queueMap) {
+        public WriteAheadRecordSerde(final ResourceClaimManager claimManager, final Map<String, FlowFileQueue> queueMap) {
+            this.claimManager = claimManager;
             this.flowFileQueueMap = queueMap;
         }
 
@@ -418,11 +572,13 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         }
 
         public void serializeEdit(final RepositoryRecord previousRecordState, final RepositoryRecord record, final DataOutputStream out, final boolean forceAttributesWritten) throws IOException {
+            final Map<String, Integer> dictionary = writeDictionary;
+
             if (record.isMarkedForAbort()) {
                 logger.warn("Repository Record {} is marked to be aborted; it will be persisted in the FlowFileRepository as a DELETE record", record);
                 out.write(ACTION_DELETE);
-                out.writeLong(getRecordIdentifier(record));
-                serializeContentClaim(record.getCurrentClaim(), record.getCurrentClaimOffset(), out);
+                writeVarLong(getRecordIdentifier(record), out);
+                serializeContentClaim(record.getCurrentClaim(), record.getCurrentClaimOffset(), dictionary, out);
                 return;
             }
 
@@ -430,8 +586,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
             if (updateType.equals(UpdateType.DELETE)) {
                 out.write(ACTION_DELETE);
-                out.writeLong(getRecordIdentifier(record));
-                serializeContentClaim(record.getCurrentClaim(), record.getCurrentClaimOffset(), out);
+                writeVarLong(getRecordIdentifier(record), out);
+                serializeContentClaim(record.getCurrentClaim(), record.getCurrentClaimOffset(), dictionary, out);
                 return;
             }
 
@@ -446,9 +602,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
             if (updateType.equals(UpdateType.SWAP_OUT)) {
                 out.write(ACTION_SWAPPED_OUT);
-                out.writeLong(getRecordIdentifier(record));
-                out.writeUTF(associatedQueue.getIdentifier());
-                out.writeUTF(getLocation(record));
+                writeVarLong(getRecordIdentifier(record), out);
+                writeDictionaryString(associatedQueue.getIdentifier(), dictionary, out);
+                writeVarString(getLocation(record), out);
                 return;
             }
 
@@ -469,57 +625,100 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                     throw new AssertionError();
             }
 
-            out.writeLong(getRecordIdentifier(record));
-            out.writeLong(flowFile.getEntryDate());
+            writeVarLong(getRecordIdentifier(record), out);
+            writeVarLong(flowFile.getEntryDate(), out);
 
             final Set<String> lineageIdentifiers = flowFile.getLineageIdentifiers();
-            out.writeInt(lineageIdentifiers.size());
+            writeVarInt(lineageIdentifiers.size(), out);
             for (final String lineageId : lineageIdentifiers) {
-                out.writeUTF(lineageId);
+                writeVarString(lineageId, out);
             }
 
-            out.writeLong(flowFile.getLineageStartDate());
+            writeVarLong(flowFile.getLineageStartDate(), out);
 
             final Long queueDate = flowFile.getLastQueueDate();
-            out.writeLong(queueDate == null ? System.currentTimeMillis() : queueDate);
-            out.writeLong(flowFile.getSize());
+            writeVarLong(queueDate == null ? System.currentTimeMillis() : queueDate, out);
+            writeVarLong(flowFile.getSize(), out);
 
             if (associatedQueue == null) {
                 logger.warn("{} Repository Record {} has no Connection associated with it; it will be destroyed on restart",
                         new Object[]{this, record});
-                writeString("", out);
+                writeDictionaryString("", dictionary, out);
             } else {
-                writeString(associatedQueue.getIdentifier(), out);
+                writeDictionaryString(associatedQueue.getIdentifier(), dictionary, out);
             }
 
-            serializeContentClaim(claim, record.getCurrentClaimOffset(), out);
-
-            if (forceAttributesWritten || record.isAttributesChanged() || updateType == UpdateType.CREATE || updateType == UpdateType.SWAP_IN) {
-                out.write(1);   // indicate attributes changed
-                final Map<String, String> attributes = flowFile.getAttributes();
-                out.writeInt(attributes.size());
-                for (final Map.Entry<String, String> entry : attributes.entrySet()) {
-                    writeString(entry.getKey(), out);
-                    writeString(entry.getValue(), out);
+            serializeContentClaim(claim, record.getCurrentClaimOffset(), dictionary, out);
+
+            final Map<String, String> attributes = flowFile.getAttributes();
+            if (forceAttributesWritten || updateType == UpdateType.CREATE || updateType == UpdateType.SWAP_IN) {
+                serializeAllAttributes(attributes, dictionary, out);
+            } else if (record.isAttributesChanged()) {
+                // We can write only the attributes that changed if we know which version of the FlowFile the reader
+                // will apply them to. If the previous state is the same object as the new state, it has been modified
+                // in place, so we no longer know what it looked like and must write all of the attributes.
+                if (previousRecordState == null || previousRecordState == record || previousRecordState.getCurrent() == null) {
+                    serializeAllAttributes(attributes, dictionary, out);
+                } else {
+                    serializeChangedAttributes(previousRecordState.getCurrent().getAttributes(), attributes, dictionary, out);
                 }
             } else {
-                out.write(0);   // indicate attributes did not change
+                out.write(ATTRIBUTES_UNCHANGED);
             }
 
             if (updateType == UpdateType.SWAP_IN) {
-                out.writeUTF(record.getSwapLocation());
+                writeVarString(record.getSwapLocation(), out);
+            }
+        }
+
+        private void serializeAllAttributes(final Map<String, String> attributes, final Map<String, Integer> dictionary, final OutputStream out) throws IOException {
+            out.write(ATTRIBUTES_ALL);
+            writeVarInt(attributes.size(), out);
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                writeDictionaryString(entry.getKey(), dictionary, out);
+                writeVarString(entry.getValue(), out);
+            }
+        }
+
+        private void serializeChangedAttributes(final Map<String, String> previousAttributes, final Map<String, String> attributes,
+            final Map<String, Integer> dictionary, final OutputStream out) throws IOException {
+            final Map<String, String> updatedAttributes = new HashMap<>();
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                if (!entry.getValue().equals(previousAttributes.get(entry.getKey()))) {
+                    updatedAttributes.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            final Set<String> removedKeys = new HashSet<>();
+            for (final String key : previousAttributes.keySet()) {
+                if (!attributes.containsKey(key)) {
+                    removedKeys.add(key);
+                }
+            }
+
+            out.write(ATTRIBUTES_CHANGED);
+            writeVarInt(updatedAttributes.size(), out);
+            for (final Map.Entry<String, String> entry : updatedAttributes.entrySet()) {
+                writeDictionaryString(entry.getKey(), dictionary, out);
+                writeVarString(entry.getValue(), out);
+            }
+
+            writeVarInt(removedKeys.size(), out);
+            for (final String key : removedKeys) {
+                writeDictionaryString(key, dictionary, out);
             }
         }
 
         @Override
         public RepositoryRecord deserializeEdit(final DataInputStream in, final Map<Object, RepositoryRecord> currentRecordStates, final int version) throws IOException {
+            final List<String> dictionary = readDictionary;
             final int action = in.read();
-            final long recordId = in.readLong();
+            final long recordId = readLong(in, version);
             if (action == ACTION_DELETE) {
                 final StandardFlowFileRecord.Builder ffBuilder = new StandardFlowFileRecord.Builder().id(recordId);
 
                 if (version > 4) {
-                    deserializeClaim(in, version, ffBuilder);
+                    deserializeClaim(in, version, dictionary, ffBuilder);
                 }
 
                 final FlowFileRecord flowFileRecord = ffBuilder.build();
@@ -530,8 +729,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             }
 
             if (action == ACTION_SWAPPED_OUT) {
-                final String queueId = in.readUTF();
-                final String location = in.readUTF();
+                final String queueId = version > 7 ? readDictionaryString(in, dictionary) : in.readUTF();
+                final String location = readUTF(in, version);
                 final FlowFileQueue queue = flowFileQueueMap.get(queueId);
 
                 final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
@@ -547,45 +746,51 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             if (record != null) {
                 ffBuilder.fromFlowFile(record.getCurrent());
             }
-            ffBuilder.entryDate(in.readLong());
+            ffBuilder.entryDate(readLong(in, version));
 
             if (version > 1) {
                 // read the lineage identifiers and lineage start date, which were added in version 2.
-                final int numLineageIds = in.readInt();
+                final int numLineageIds = readInt(in, version);
                 final Set<String> lineageIdentifiers = new HashSet<>(numLineageIds);
                 for (int i = 0; i < numLineageIds; i++) {
-                    lineageIdentifiers.add(in.readUTF());
+                    lineageIdentifiers.add(readUTF(in, version));
                 }
                 ffBuilder.lineageIdentifiers(lineageIdentifiers);
-                ffBuilder.lineageStartDate(in.readLong());
+                ffBuilder.lineageStartDate(readLong(in, version));
 
                 if (version > 5) {
-                    ffBuilder.lastQueueDate(in.readLong());
+                    ffBuilder.lastQueueDate(readLong(in, version));
                 }
             }
 
-            ffBuilder.size(in.readLong());
-            final String connectionId = readString(in);
+            ffBuilder.size(readLong(in, version));
+            final String connectionId = version > 7 ? readDictionaryString(in, dictionary) : readString(in);
 
             logger.debug("{} -> {}", new Object[]{recordId, connectionId});
 
-            deserializeClaim(in, version, ffBuilder);
+            deserializeClaim(in, version, dictionary, ffBuilder);
 
             // recover new attributes, if they changed
             final int attributesChanged = in.read();
             if (attributesChanged == -1) {
                 throw new EOFException();
-            } else if (attributesChanged == 1) {
-                final int numAttributes = in.readInt();
-                final Map<String, String> attributes = new HashMap<>();
-                for (int i = 0; i < numAttributes; i++) {
-                    final String key = readString(in);
-                    final String value = readString(in);
-                    attributes.put(key, value);
+            } else if (attributesChanged == ATTRIBUTES_ALL) {
+                if (version > 7 && record != null) {
+                    // the attributes that were written are the complete set, so any that are no longer present were removed
+                    ffBuilder.removeAttributes(record.getCurrent().getAttributes().keySet());
                 }
 
-                ffBuilder.addAttributes(attributes);
-            } else if (attributesChanged != 0) {
+                ffBuilder.addAttributes(deserializeAttributes(in, version, dictionary));
+            } else if (attributesChanged == ATTRIBUTES_CHANGED && version > 7) {
+                ffBuilder.addAttributes(deserializeAttributes(in, version, dictionary));
+
+                final int numRemoved = readVarInt(in);
+                final Set<String> removedKeys = new HashSet<>(numRemoved);
+                for (int i = 0; i < numRemoved; i++) {
+                    removedKeys.add(readDictionaryString(in, dictionary));
+                }
+                ffBuilder.removeAttributes(removedKeys);
+            } else if (attributesChanged != ATTRIBUTES_UNCHANGED) {
                 throw new IOException("Attribute Change Qualifier not found in stream; found value: "
                         + attributesChanged + " after successfully restoring " + recordsRestored + " records. The FlowFile Repository appears to be corrupt!");
             }
@@ -593,7 +798,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             final FlowFileRecord flowFile = ffBuilder.build();
             String swapLocation = null;
             if (action == ACTION_SWAPPED_IN) {
-                swapLocation = in.readUTF();
+                swapLocation = readUTF(in, version);
             }
 
             final StandardRepositoryRecord standardRepoRecord;
@@ -627,12 +832,13 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                 return null;
             }
 
-            final long recordId = in.readLong();
+            final List<String> dictionary = readDictionary;
+            final long recordId = readLong(in, version);
             if (action == ACTION_DELETE) {
                 final StandardFlowFileRecord.Builder ffBuilder = new StandardFlowFileRecord.Builder().id(recordId);
 
                 if (version > 4) {
-                    deserializeClaim(in, version, ffBuilder);
+                    deserializeClaim(in, version, dictionary, ffBuilder);
                 }
 
                 final FlowFileRecord flowFileRecord = ffBuilder.build();
@@ -643,25 +849,25 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
             // if action was not delete, it must be create/swap in
             final StandardFlowFileRecord.Builder ffBuilder = new StandardFlowFileRecord.Builder();
-            final long entryDate = in.readLong();
+            final long entryDate = readLong(in, version);
 
             if (version > 1) {
                 // read the lineage identifiers and lineage start date, which were added in version 2.
-                final int numLineageIds = in.readInt();
+                final int numLineageIds = readInt(in, version);
                 final Set<String> lineageIdentifiers = new HashSet<>(numLineageIds);
                 for (int i = 0; i < numLineageIds; i++) {
-                    lineageIdentifiers.add(in.readUTF());
+                    lineageIdentifiers.add(readUTF(in, version));
                 }
                 ffBuilder.lineageIdentifiers(lineageIdentifiers);
-                ffBuilder.lineageStartDate(in.readLong());
+                ffBuilder.lineageStartDate(readLong(in, version));
 
                 if (version > 5) {
-                    ffBuilder.lastQueueDate(in.readLong());
+                    ffBuilder.lastQueueDate(readLong(in, version));
                 }
             }
 
-            final long size = in.readLong();
-            final String connectionId = readString(in);
+            final long size = readLong(in, version);
+            final String connectionId = version > 7 ? readDictionaryString(in, dictionary) : readString(in);
 
             logger.debug("{} -> {}", new Object[]{recordId, connectionId});
 
@@ -669,22 +875,14 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             ffBuilder.entryDate(entryDate);
             ffBuilder.size(size);
 
-            deserializeClaim(in, version, ffBuilder);
+            deserializeClaim(in, version, dictionary, ffBuilder);
 
             final int attributesChanged = in.read();
-            if (attributesChanged == 1) {
-                final int numAttributes = in.readInt();
-                final Map<String, String> attributes = new HashMap<>();
-                for (int i = 0; i < numAttributes; i++) {
-                    final String key = readString(in);
-                    final String value = readString(in);
-                    attributes.put(key, value);
-                }
-
-                ffBuilder.addAttributes(attributes);
+            if (attributesChanged == ATTRIBUTES_ALL) {
+                ffBuilder.addAttributes(deserializeAttributes(in, version, dictionary));
             } else if (attributesChanged == -1) {
                 throw new EOFException();
-            } else if (attributesChanged != 0) {
+            } else if (attributesChanged != ATTRIBUTES_UNCHANGED) {
                 throw new IOException("Attribute Change Qualifier not found in stream; found value: "
                         + attributesChanged + " after successfully restoring " + recordsRestored + " records");
             }
@@ -692,7 +890,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             final FlowFileRecord flowFile = ffBuilder.build();
             String swapLocation = null;
             if (action == ACTION_SWAPPED_IN) {
-                swapLocation = in.readUTF();
+                swapLocation = readUTF(in, version);
             }
 
             final StandardRepositoryRecord record;
@@ -719,42 +917,70 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             return record;
         }
 
+        private Map<String, String> deserializeAttributes(final DataInputStream in, final int version, final List<String> dictionary) throws IOException {
+            final int numAttributes = readInt(in, version);
+            final Map<String, String> attributes = new HashMap<>(numAttributes);
+            for (int i = 0; i < numAttributes; i++) {
+                if (version > 7) {
+                    final String key = readDictionaryString(in, dictionary);
+                    final String value = readVarString(in);
+                    attributes.put(key, value);
+                } else {
+                    final String key = readString(in);
+                    final String value = readString(in);
+                    attributes.put(key, value);
+                }
+            }
+
+            return attributes;
+        }
+
         @Override
         public void serializeRecord(final RepositoryRecord record, final DataOutputStream out) throws IOException {
             serializeEdit(null, record, out, true);
         }
 
-        private void serializeContentClaim(final ContentClaim claim, final long offset, final DataOutputStream out) throws IOException {
+        private void serializeContentClaim(final ContentClaim claim, final long offset, final Map<String, Integer> dictionary, final OutputStream out) throws IOException {
             if (claim == null) {
                 out.write(0);
             } else {
                 out.write(1);
 
                 final ResourceClaim resourceClaim = claim.getResourceClaim();
-                writeString(resourceClaim.getId(), out);
-                writeString(resourceClaim.getContainer(), out);
-                writeString(resourceClaim.getSection(), out);
-                out.writeLong(claim.getOffset());
-                out.writeLong(claim.getLength());
-
-                out.writeLong(offset);
-                out.writeBoolean(resourceClaim.isLossTolerant());
+                writeVarString(resourceClaim.getId(), out);
+                writeDictionaryString(resourceClaim.getContainer(), dictionary, out);
+                writeDictionaryString(resourceClaim.getSection(), dictionary, out);
+                writeVarLong(claim.getOffset(), out);
+                writeVarLong(claim.getLength(), out);
+
+                writeVarLong(offset, out);
+                out.write(resourceClaim.isLossTolerant() ? 1 : 0);
             }
         }
 
-        private void deserializeClaim(final DataInputStream in, final int serializationVersion, final StandardFlowFileRecord.Builder ffBuilder) throws IOException {
+        private void deserializeClaim(final DataInputStream in, final int serializationVersion, final List<String> dictionary,
+            final StandardFlowFileRecord.Builder ffBuilder) throws IOException {
             // determine current Content Claim.
             final int claimExists = in.read();
             if (claimExists == 1) {
                 final String claimId;
                 if (serializationVersion < 4) {
                     claimId = String.valueOf(in.readLong());
-                } else {
+                } else if (serializationVersion < 8) {
                     claimId = readString(in);
+                } else {
+                    claimId = readVarString(in);
                 }
 
-                final String container = readString(in);
-                final String section = readString(in);
+                final String container;
+                final String section;
+                if (serializationVersion < 8) {
+                    container = readString(in);
+                    section = readString(in);
+                } else {
+                    container = readDictionaryString(in, dictionary);
+                    section = readDictionaryString(in, dictionary);
+                }
 
                 final long resourceOffset;
                 final long resourceLength;
@@ -762,11 +988,11 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                     resourceOffset = 0L;
                     resourceLength = -1L;
                 } else {
-                    resourceOffset = in.readLong();
-                    resourceLength = in.readLong();
+                    resourceOffset = readLong(in, serializationVersion);
+                    resourceLength = readLong(in, serializationVersion);
                 }
 
-                final long claimOffset = in.readLong();
+                final long claimOffset = readLong(in, serializationVersion);
 
                 final boolean lossTolerant;
                 if (serializationVersion >= 3) {
@@ -789,23 +1015,122 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             }
         }
 
-        private void writeString(final String toWrite, final OutputStream out) throws IOException {
-            final byte[] bytes = toWrite.getBytes("UTF-8");
-            final int utflen = bytes.length;
+        private void writeDictionaryString(final String toWrite, final Map<String, Integer> dictionary, final OutputStream out) throws IOException {
+            final Integer index = dictionary.get(toWrite);
+            if (index != null) {
+                writeVarInt(index + DICTIONARY_INDEX_OFFSET, out);
+                return;
+            }
 
-            if (utflen < 65535) {
-                out.write(utflen >>> 8);
-                out.write(utflen);
-                out.write(bytes);
+            if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(toWrite, dictionary.size());
+                writeVarInt(DICTIONARY_NEW_ENTRY, out);
             } else {
-                out.write(255);
-                out.write(255);
-                out.write(utflen >>> 24);
-                out.write(utflen >>> 16);
-                out.write(utflen >>> 8);
-                out.write(utflen);
-                out.write(bytes);
+                writeVarInt(DICTIONARY_LITERAL, out);
             }
+            writeVarString(toWrite, out);
+        }
+
+        private String readDictionaryString(final InputStream in, final List<String> dictionary) throws IOException {
+            final int code = readVarInt(in);
+            if (code == DICTIONARY_NEW_ENTRY) {
+                final String value = readVarString(in);
+                dictionary.add(value);
+                return value;
+            } else if (code == DICTIONARY_LITERAL) {
+                return readVarString(in);
+            }
+
+            final int index = code - DICTIONARY_INDEX_OFFSET;
+            if (index >= dictionary.size()) {
+                throw new IOException("Found reference to dictionary entry " + index + " but only " + dictionary.size() + " entries have been defined after successfully restoring "
+                        + recordsRestored + " records. The FlowFile Repository appears to be corrupt!");
+            }
+            return dictionary.get(index);
+        }
+
+        private void writeVarString(final String toWrite, final OutputStream out) throws IOException {
+            final byte[] bytes = toWrite.getBytes("UTF-8");
+            writeVarInt(bytes.length, out);
+            out.write(bytes);
+        }
+
+        private String readVarString(final InputStream in) throws IOException {
+            final int numBytes = readVarInt(in);
+            final byte[] bytes = new byte[numBytes];
+            fillBuffer(in, bytes, numBytes);
+            return new String(bytes, "UTF-8");
+        }
+
+        /**
+         * Writes the given non-negative value using 7 bits per byte, so that small values take up a single byte
+         */
+        private void writeVarInt(final int value, final OutputStream out) throws IOException {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                out.write((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            out.write(remaining);
+        }
+
+        private int readVarInt(final InputStream in) throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = in.read();
+                if (b < 0) {
+                    throw new EOFException();
+                }
+
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException("Found malformed variable-length integer after successfully restoring " + recordsRestored + " records");
+        }
+
+        /**
+         * Writes the given value using 7 bits per byte. The value is zig-zag encoded so that small negative values, such as
+         * the -1 used for an unknown claim length, also take up a single byte
+         */
+        private void writeVarLong(final long value, final OutputStream out) throws IOException {
+            long remaining = (value << 1) ^ (value >> 63);
+            while ((remaining & ~0x7FL) != 0) {
+                out.write((int) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            out.write((int) remaining);
+        }
+
+        private long readVarLong(final InputStream in) throws IOException {
+            long encoded = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = in.read();
+                if (b < 0) {
+                    throw new EOFException();
+                }
+
+                encoded |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (encoded >>> 1) ^ -(encoded & 1);
+                }
+            }
+
+            throw new IOException("Found malformed variable-length integer after successfully restoring " + recordsRestored + " records");
+        }
+
+        private long readLong(final DataInputStream in, final int version) throws IOException {
+            return version > 7 ? readVarLong(in) : in.readLong();
+        }
+
+        private int readInt(final DataInputStream in, final int version) throws IOException {
+            return version > 7 ? readVarInt(in) : in.readInt();
+        }
+
+        private String readUTF(final DataInputStream in, final int version) throws IOException {
+            return version > 7 ? readVarString(in) : in.readUTF();
         }
 
         private String readString(final InputStream in) throws IOException {
@@ -877,7 +1202,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
         @Override
         public int getVersion() {
-            return 7;
+            return 8;
         }
 
         @Override
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * An InputStream that reads a region of a file out of a read-only memory mapping of that file, so that
+ * reading from the stream is a copy out of the operating system's page cache rather than a series of
+ * read system calls. The mapping may be shared by many streams and is not released when the stream is
+ * closed; it is released by the garbage collector once it is no longer referenced. This class is not
+ * thread-safe.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private final Path path;
+    private ByteBuffer buffer;
+    private int markPosition = 0;
+
+    /**
+     * Creates a stream that reads the region of the given mapping that starts at the given offset and spans
+     * the given number of bytes. The mapping itself is not modified.
+     *
+     * @param path the file that is mapped
+     * @param mapping a mapping of the file, starting at the beginning of the file
+     * @param offset the offset into the file at which the region begins
+     * @param length the number of bytes in the region
+     */
+    public MappedFileInputStream(final Path path, final MappedByteBuffer mapping, final long offset, final long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and Length cannot be negative");
+        }
+        if (offset + length > mapping.capacity()) {
+            throw new IllegalArgumentException("Region of " + length + " bytes at offset " + offset + " exceeds mapping of " + mapping.capacity() + " bytes");
+        }
+
+        this.path = path;
+
+        // work on a view of the mapping so that its position and limit, which other streams share, are left alone
+        final ByteBuffer region = mapping.duplicate();
+        region.limit((int) (offset + length));
+        region.position((int) offset);
+        buffer = region.slice();
+    }
+
+    private ByteBuffer getBuffer() throws IOException {
+        if (buffer == null) {
+            throw new IOException("Stream is closed");
+        }
+        return buffer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final ByteBuffer buffer = getBuffer();
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final ByteBuffer buffer = getBuffer();
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        final int toCopy = Math.min(len, buffer.remaining());
+        buffer.get(b, off, toCopy);
+        return toCopy;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final ByteBuffer buffer = getBuffer();
+        if (n <= 0) {
+            return 0L;
+        }
+
+        final int toSkip = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + toSkip);
+        return toSkip;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return getBuffer().remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+        if (buffer != null) {
+            markPosition = buffer.position();
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        getBuffer().position(markPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFileInputStream[" + path + "]";
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+
+/**
+ * <p>
+ * Adapts the Run Duration of Processors that support batching to how they behave at runtime. After each batch, the
+ * Processor's effective Run Duration is:
+ * </p>
+ *
+ * <ul>
+ * <li>halved, if all of the Processor's outgoing connections were empty after the batch was committed. The components
+ * downstream are waiting on this Processor, so holding FlowFiles back only adds latency.</li>
+ * <li>doubled, up to the configured maximum, if committing the batch took longer than running it. The cost of updating
+ * the FlowFile Repository and the Provenance Repository dominates, so it is spread over more FlowFiles.</li>
+ * <li>left unchanged, otherwise, other than being limited to the configured maximum.</li>
+ * </ul>
+ */
+public class AdaptiveRunDuration {
+
+    public static final AdaptiveRunDuration DISABLED = new AdaptiveRunDuration(0L, TimeUnit.NANOSECONDS);
+
+    // the shortest non-zero Run Duration that is chosen; a shorter one is not worth the cost of batching
+    static final long MIN_RUN_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final long maxRunNanos;
+
+    /**
+     * @param maxRunDuration the longest Run Duration to choose; if 0, Run Durations are not adapted
+     * @param timeUnit the unit of the maximum Run Duration
+     */
+    public AdaptiveRunDuration(final long maxRunDuration, final TimeUnit timeUnit) {
+        if (maxRunDuration < 0) {
+            throw new IllegalArgumentException("Maximum Run Duration must be non-negative");
+        }
+        this.maxRunNanos = timeUnit.toNanos(maxRunDuration);
+    }
+
+    public static AdaptiveRunDuration fromProperties(final NiFiProperties properties) {
+        if (!properties.isAdaptiveRunDurationEnabled()) {
+            return DISABLED;
+        }
+
+        final String maxRunDuration = properties.getAdaptiveRunDurationMax();
+        try {
+            return new AdaptiveRunDuration(FormatUtils.getTimeDuration(maxRunDuration, TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("The " + NiFiProperties.ADAPTIVE_RUN_DURATION_MAX + " property is set to an invalid time duration: " + maxRunDuration);
+        }
+    }
+
+    /**
+     * @param procNode a Processor
+     * @return <code>true</code> if the given Processor's Run Duration is adapted
+     */
+    public boolean isAdapted(final ProcessorNode procNode) {
+        return maxRunNanos > 0L && procNode.isHighThroughputSupported();
+    }
+
+    /**
+     * Chooses the Run Duration of the next batch of the given Processor, based on the batch that just finished, and sets it
+     * as the Processor's effective Run Duration.
+     *
+     * @param procNode the Processor
+     * @param triggerNanos how long the Processor ran during the batch
+     * @param commitNanos how long it took to commit the batch
+     * @param downstreamEmpty whether all of the Processor's outgoing connections were empty after the batch was committed
+     * @return the new effective Run Duration, in nanoseconds
+     */
+    public long onBatchComplete(final ProcessorNode procNode, final long triggerNanos, final long commitNanos, final boolean downstreamEmpty) {
+        final long currentNanos = procNode.getEffectiveRunDuration(TimeUnit.NANOSECONDS);
+        final long nextNanos = nextRunNanos(currentNanos, triggerNanos, commitNanos, downstreamEmpty);
+        if (nextNanos != currentNanos) {
+            procNode.setEffectiveRunDuration(nextNanos, TimeUnit.NANOSECONDS);
+        }
+        return nextNanos;
+    }
+
+    long nextRunNanos(final long currentNanos, final long triggerNanos, final long commitNanos, final boolean downstreamEmpty) {
+        if (downstreamEmpty) {
+            final long halved = currentNanos / 2;
+            return halved < MIN_RUN_NANOS ? 0L : halved;
+        }
+
+        if (commitNanos > triggerNanos) {
+            return Math.min(maxRunNanos, Math.max(MIN_RUN_NANOS, currentNanos * 2));
+        }
+
+        return Math.min(currentNanos, maxRunNanos);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Runs Timer-Driven and Primary-Node-Only Processors that spend most of their time blocked on I/O, such as those that
+ * call remote services or databases, on a thread pool of their own instead of the Timer-Driven thread pool. Such
+ * Processors are typically configured with many Concurrent Tasks, which would otherwise take threads away from the rest
+ * of the flow.
+ * </p>
+ *
+ * <p>
+ * The pool grows and shrinks as Processors are scheduled and unscheduled so that it always has one thread for each
+ * Concurrent Task of the Processors that it runs: each task has a thread to block on without waiting for another, and
+ * the Processors' Concurrent Tasks settings still limit how many threads each of them uses. Otherwise the Processors are
+ * run exactly as the {@link TimerDrivenSchedulingAgent} runs them.
+ * </p>
+ *
+ * <p>
+ * The Processors that are run by this agent are configured by the <code>nifi.blocking.io.processors</code> property as a
+ * comma-separated list of Processor IDs and Processor types (simple class names).
+ * </p>
+ */
+public class BlockingIoSchedulingAgent implements SchedulingAgent {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockingIoSchedulingAgent.class);
+
+    private final Set<String> components;
+    private final FlowEngine flowEngine;
+    private final TimerDrivenSchedulingAgent timerDrivenAgent;
+
+    // the number of threads that were added to the pool for each scheduled Processor
+    private final ConcurrentMap<Connectable, Integer> threadCounts = new ConcurrentHashMap<>();
+    private int poolSize = 0; // guarded by synchronizing on this
+
+    /**
+     * @param flowController the controller whose Processors are scheduled
+     * @param contextFactory the factory for the Processors' process contexts
+     * @param encryptor the encryptor for sensitive property values
+     * @param components the IDs and types (simple class names) of the Processors to run
+     */
+    public BlockingIoSchedulingAgent(final FlowController flowController, final ProcessContextFactory contextFactory, final StringEncryptor encryptor,
+        final Set<String> components) {
+        this.components = Collections.unmodifiableSet(new HashSet<>(components));
+        this.flowEngine = new FlowEngine(1, "Blocking I/O Process");
+        this.timerDrivenAgent = new TimerDrivenSchedulingAgent(flowController, flowEngine, contextFactory, encryptor);
+    }
+
+    /**
+     * @param properties the NiFi properties
+     * @return the IDs and types of the Processors that are configured to be run on the blocking I/O thread pool
+     */
+    public static Set<String> getConfiguredComponents(final NiFiProperties properties) {
+        final String value = properties.getProperty(NiFiProperties.BLOCKING_IO_PROCESSORS);
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> components = new HashSet<>();
+        for (final String component : value.split(",")) {
+            if (!component.trim().isEmpty()) {
+                components.add(component.trim());
+            }
+        }
+        return components;
+    }
+
+    /**
+     * @param connectable a component
+     * @return <code>true</code> if the given component is a Processor that is configured to be run by this agent
+     */
+    public boolean isBlockingIo(final Connectable connectable) {
+        if (!(connectable instanceof ProcessorNode)) {
+            return false;
+        }
+
+        final ProcessorNode procNode = (ProcessorNode) connectable;
+        return components.contains(procNode.getIdentifier()) || components.contains(procNode.getProcessor().getClass().getSimpleName());
+    }
+
+    /**
+     * @return the number of threads in the pool
+     */
+    public synchronized int getPoolSize() {
+        return poolSize;
+    }
+
+    private synchronized void resizePool(final int delta) {
+        poolSize += delta;
+        // a ScheduledThreadPoolExecutor needs at least one core thread
+        flowEngine.setCorePoolSize(Math.max(1, poolSize));
+    }
+
+    @Override
+    public void shutdown() {
+        timerDrivenAgent.shutdown();
+    }
+
+    @Override
+    public void schedule(final ReportingTaskNode taskNode, final ScheduleState scheduleState) {
+        throw new UnsupportedOperationException("ReportingTasks cannot be scheduled on the blocking I/O thread pool");
+    }
+
+    @Override
+    public void unschedule(final ReportingTaskNode taskNode, final ScheduleState scheduleState) {
+        throw new UnsupportedOperationException("ReportingTasks cannot be scheduled on the blocking I/O thread pool");
+    }
+
+    @Override
+    public void schedule(final Connectable connectable, final ScheduleState scheduleState) {
+        final int threadCount = Math.max(1, connectable.getMaxConcurrentTasks());
+        final Integer previous = threadCounts.put(connectable, threadCount);
+        resizePool(threadCount - (previous == null ? 0 : previous));
+
+        timerDrivenAgent.schedule(connectable, scheduleState);
+        logger.info("Scheduled {} to run on the blocking I/O thread pool, which now has {} threads", connectable, getPoolSize());
+    }
+
+    @Override
+    public void unschedule(final Connectable connectable, final ScheduleState scheduleState) {
+        timerDrivenAgent.unschedule(connectable, scheduleState);
+
+        final Integer threadCount = threadCounts.remove(connectable);
+        if (threadCount != null) {
+            // threads that are still running a task finish it before they are removed from the pool
+            resizePool(-threadCount);
+        }
+    }
+
+    @Override
+    public void onEvent(final Connectable connectable) {
+    }
+
+    @Override
+    public void setMaxThreadCount(final int maxThreads) {
+        // the pool is sized by the Processors that are scheduled, not by the maximum Timer-Driven thread count
+    }
+
+    @Override
+    public void setAdministrativeYieldDuration(final String duration) {
+        timerDrivenAgent.setAdministrativeYieldDuration(duration);
+    }
+
+    @Override
+    public String getAdministrativeYieldDuration() {
+        return timerDrivenAgent.getAdministrativeYieldDuration();
+    }
+
+    @Override
+    public long getAdministrativeYieldDuration(final TimeUnit timeUnit) {
+        return timerDrivenAgent.getAdministrativeYieldDuration(timeUnit);
+    }
+}
@@ -179,11 +179,13 @@ public class EventDrivenSchedulingAgent implements SchedulingAgent {
                     final ProcessorNode procNode = (ProcessorNode) connectable;
                     final StandardProcessContext standardProcessContext = new StandardProcessContext(procNode, controllerServiceProvider, encryptor);
 
-                    final long runNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+                    final AdaptiveRunDuration adaptiveRunDuration = contextFactory.getAdaptiveRunDuration();
+                    final boolean adaptive = adaptiveRunDuration.isAdapted(procNode);
+                    final long runNanos = procNode.getEffectiveRunDuration(TimeUnit.NANOSECONDS);
                     final ProcessSessionFactory sessionFactory;
                     final StandardProcessSession rawSession;
                     final boolean batch;
-                    if (procNode.isHighThroughputSupported() && runNanos > 0L) {
+                    if (procNode.isHighThroughputSupported() && (runNanos > 0L || adaptive)) {
                         rawSession = new StandardProcessSession(context);
                         sessionFactory = new BatchingSessionFactory(rawSession);
                         batch = true;
@@ -221,8 +223,17 @@ public class EventDrivenSchedulingAgent implements SchedulingAgent {
                         }
                     } finally {
                         if (batch && rawSession != null) {
+                            final long triggerNanos = System.nanoTime() - startNanos;
                             try {
+                                final long commitStart = System.nanoTime();
                                 rawSession.commit();
+                                final long commitNanos = System.nanoTime() - commitStart;
+
+                                if (adaptive && invocationCount > 0) {
+                                    // sample after the commit so that the FlowFiles this batch transferred are counted
+                                    final boolean downstreamEmpty = Connectables.downstreamQueuesEmpty(procNode);
+                                    adaptiveRunDuration.onBatchComplete(procNode, triggerNanos, commitNanos, downstreamEmpty);
+                                }
                             } catch (final RuntimeException re) {
                                 logger.error("Unable to commit process session", re);
                             }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations, used to track how long tasks wait to be run and how long they run for. Durations
+ * are counted in buckets whose bounds are powers of two nanoseconds, so percentiles are accurate to within a factor of two,
+ * which is plenty to tell a task that waits microseconds from one that waits milliseconds.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(0L);
+    private final AtomicLong totalNanos = new AtomicLong(0L);
+    private final AtomicLong maxNanos = new AtomicLong(0L);
+
+    /**
+     * Records a single duration
+     *
+     * @param nanos the duration, in nanoseconds
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0L, nanos);
+        counts.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return the number of durations recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the average of the recorded durations, or 0 if none have been recorded
+     */
+    public long getAverage(final TimeUnit timeUnit) {
+        final long recorded = count.get();
+        return recorded == 0L ? 0L : timeUnit.convert(totalNanos.get() / recorded, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the longest recorded duration
+     */
+    public long getMax(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns an upper bound for the given percentile of the recorded durations. The value returned is the upper bound of
+     * the bucket that holds the percentile, capped at the longest recorded duration.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @param timeUnit the unit of the value to return
+     * @return an upper bound for the given percentile, or 0 if no durations have been recorded
+     */
+    public long getPercentile(final double percentile, final TimeUnit timeUnit) {
+        if (percentile < 0D || percentile > 100D) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+
+        final long[] bucketCounts = getBucketCounts();
+        long total = 0L;
+        for (final long bucketCount : bucketCounts) {
+            total += bucketCount;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100D));
+        long seen = 0L;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return timeUnit.convert(Math.min(getBucketUpperBound(i), maxNanos.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return timeUnit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of durations recorded in each bucket. Bucket <code>i</code> holds durations of at least
+     *         2<sup>i-1</sup> and less than 2<sup>i</sup> nanoseconds; bucket 0 holds durations of 0 nanoseconds.
+     */
+    public long[] getBucketCounts() {
+        final long[] bucketCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] = counts.get(i);
+        }
+        return bucketCounts;
+    }
+
+    private static int getBucket(final long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private static long getBucketUpperBound(final int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1L;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=" + getCount() + ", average=" + getAverage(TimeUnit.MICROSECONDS) + " micros, 99th percentile="
+            + getPercentile(99D, TimeUnit.MICROSECONDS) + " micros, max=" + getMax(TimeUnit.MICROSECONDS) + " micros]";
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.nifi.controller.repository.CounterRepository;
 import org.apache.nifi.controller.repository.FlowFileEventRepository;
 import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.repository.ProcessContext;
+import org.apache.nifi.controller.repository.ProvenanceCapturePolicies;
 import org.apache.nifi.provenance.ProvenanceEventRepository;
 
 public class ProcessContextFactory {
@@ -33,19 +34,28 @@ public class ProcessContextFactory {
     private final FlowFileEventRepository flowFileEventRepo;
     private final CounterRepository counterRepo;
     private final ProvenanceEventRepository provenanceRepo;
+    private final ProvenanceCapturePolicies capturePolicies;
+    private final AdaptiveRunDuration adaptiveRunDuration;
 
     public ProcessContextFactory(final ContentRepository contentRepository, final FlowFileRepository flowFileRepository,
             final FlowFileEventRepository flowFileEventRepository, final CounterRepository counterRepository,
-            final ProvenanceEventRepository provenanceRepository) {
+            final ProvenanceEventRepository provenanceRepository, final ProvenanceCapturePolicies capturePolicies,
+            final AdaptiveRunDuration adaptiveRunDuration) {
 
         this.contentRepo = contentRepository;
         this.flowFileRepo = flowFileRepository;
         this.flowFileEventRepo = flowFileEventRepository;
         this.counterRepo = counterRepository;
         this.provenanceRepo = provenanceRepository;
+        this.capturePolicies = capturePolicies;
+        this.adaptiveRunDuration = adaptiveRunDuration;
     }
 
     public ProcessContext newProcessContext(final Connectable connectable, final AtomicLong connectionIndex) {
-        return new ProcessContext(connectable, connectionIndex, contentRepo, flowFileRepo, flowFileEventRepo, counterRepo, provenanceRepo);
+        return new ProcessContext(connectable, connectionIndex, contentRepo, flowFileRepo, flowFileEventRepo, counterRepo, provenanceRepo, capturePolicies);
+    }
+
+    public AdaptiveRunDuration getAdaptiveRunDuration() {
+        return adaptiveRunDuration;
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A thread pool that is dedicated to the Timer-Driven and Primary-Node-Only components of a Process Group and of its
+ * descendant groups that do not have a pool of their own. Components in the group therefore cannot take threads away
+ * from the rest of the flow, nor can the rest of the flow starve them. Otherwise the components are run exactly as the
+ * {@link TimerDrivenSchedulingAgent} runs them.
+ * </p>
+ *
+ * <p>
+ * A pool that is retired, because its group no longer has dedicated threads or was removed, keeps running the
+ * components that were scheduled on it and shuts down once the last of them is unscheduled.
+ * </p>
+ */
+public class ProcessGroupThreadPool implements SchedulingAgent {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessGroupThreadPool.class);
+
+    // utilization is averaged over at least this long so that a single long task does not make it jump around
+    private static final long UTILIZATION_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    private final String groupId;
+    private final FlowEngine flowEngine;
+    private final TimerDrivenSchedulingAgent timerDrivenAgent;
+    private final Set<Connectable> scheduled = Collections.newSetFromMap(new ConcurrentHashMap<Connectable, Boolean>());
+    private volatile int threadCount;
+    private volatile boolean retired = false;
+
+    // guarded by synchronizing on this
+    private long windowStartNanos;
+    private long windowStartBusyNanos;
+    private int utilization = 0;
+
+    /**
+     * @param groupId the ID of the Process Group that the pool is dedicated to
+     * @param threadCount the number of threads in the pool
+     * @param flowController the controller whose components are scheduled
+     * @param contextFactory the factory for the Processors' process contexts
+     * @param encryptor the encryptor for sensitive property values
+     */
+    public ProcessGroupThreadPool(final String groupId, final int threadCount, final FlowController flowController, final ProcessContextFactory contextFactory,
+        final StringEncryptor encryptor) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("A Process Group thread pool must have at least 1 thread");
+        }
+
+        this.groupId = groupId;
+        this.threadCount = threadCount;
+        this.flowEngine = new FlowEngine(threadCount, "Process Group " + groupId);
+        this.timerDrivenAgent = new TimerDrivenSchedulingAgent(flowController, flowEngine, contextFactory, encryptor);
+        this.windowStartNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the ID of the Process Group that the pool is dedicated to
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * @return the number of threads in the pool
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @return the number of threads that are currently running a task
+     */
+    public int getActiveThreadCount() {
+        return flowEngine.getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks whose scheduled time has passed but that are still waiting for a thread
+     */
+    public int getQueuedTaskCount() {
+        int queued = 0;
+        for (final Runnable runnable : flowEngine.getQueue()) {
+            if (runnable instanceof Delayed && ((Delayed) runnable).getDelay(TimeUnit.NANOSECONDS) <= 0L) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * @return the percentage of the pool's thread time that was spent running tasks over the most recently completed
+     *         sampling window of at least one second
+     */
+    public synchronized int getUtilization() {
+        final long now = System.nanoTime();
+        final long elapsed = now - windowStartNanos;
+        if (elapsed >= UTILIZATION_WINDOW_NANOS) {
+            final long busyNanos = flowEngine.getBusyNanos();
+            final long capacityNanos = elapsed * threadCount;
+            utilization = (int) Math.min(100L, (busyNanos - windowStartBusyNanos) * 100L / capacityNanos);
+            windowStartNanos = now;
+            windowStartBusyNanos = busyNanos;
+        }
+        return utilization;
+    }
+
+    /**
+     * @return <code>true</code> if the pool no longer accepts components
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * @return <code>true</code> if the pool has been shut down
+     */
+    public boolean isShutdown() {
+        return flowEngine.isShutdown();
+    }
+
+    /**
+     * Stops the pool from accepting components, shutting it down as soon as none of its components are scheduled
+     */
+    public void retire() {
+        retired = true;
+        if (scheduled.isEmpty()) {
+            shutdown();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        timerDrivenAgent.shutdown();
+    }
+
+    @Override
+    public void schedule(final ReportingTaskNode taskNode, final ScheduleState scheduleState) {
+        throw new UnsupportedOperationException("ReportingTasks cannot be scheduled on a Process Group thread pool");
+    }
+
+    @Override
+    public void unschedule(final ReportingTaskNode taskNode, final ScheduleState scheduleState) {
+        throw new UnsupportedOperationException("ReportingTasks cannot be scheduled on a Process Group thread pool");
+    }
+
+    @Override
+    public void schedule(final Connectable connectable, final ScheduleState scheduleState) {
+        scheduled.add(connectable);
+        timerDrivenAgent.schedule(connectable, scheduleState);
+        logger.info("Scheduled {} to run on the thread pool of Process Group {}", connectable, groupId);
+    }
+
+    @Override
+    public void unschedule(final Connectable connectable, final ScheduleState scheduleState) {
+        timerDrivenAgent.unschedule(connectable, scheduleState);
+        scheduled.remove(connectable);
+
+        if (retired && scheduled.isEmpty()) {
+            shutdown();
+        }
+    }
+
+    @Override
+    public void onEvent(final Connectable connectable) {
+    }
+
+    @Override
+    public void setMaxThreadCount(final int maxThreads) {
+        // threads that are still running a task finish it before they are removed from the pool
+        this.threadCount = maxThreads;
+        flowEngine.setCorePoolSize(maxThreads);
+    }
+
+    @Override
+    public void setAdministrativeYieldDuration(final String duration) {
+        timerDrivenAgent.setAdministrativeYieldDuration(duration);
+    }
+
+    @Override
+    public String getAdministrativeYieldDuration() {
+        return timerDrivenAgent.getAdministrativeYieldDuration();
+    }
+
+    @Override
+    public long getAdministrativeYieldDuration(final TimeUnit timeUnit) {
+        return timerDrivenAgent.getAdministrativeYieldDuration(timeUnit);
+    }
+}
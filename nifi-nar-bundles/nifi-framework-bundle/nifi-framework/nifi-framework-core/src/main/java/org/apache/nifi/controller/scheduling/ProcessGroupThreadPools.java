@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.groups.ProcessGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the {@link ProcessGroupThreadPool}s of the Process Groups that have dedicated threads and determines
+ * which of them, if any, runs a given component.
+ */
+public class ProcessGroupThreadPools {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessGroupThreadPools.class);
+
+    private final FlowController flowController;
+    private final ProcessContextFactory contextFactory;
+    private final StringEncryptor encryptor;
+    private final ConcurrentMap<String, ProcessGroupThreadPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * @param flowController the controller whose components are scheduled
+     * @param contextFactory the factory for the Processors' process contexts
+     * @param encryptor the encryptor for sensitive property values
+     */
+    public ProcessGroupThreadPools(final FlowController flowController, final ProcessContextFactory contextFactory, final StringEncryptor encryptor) {
+        this.flowController = flowController;
+        this.contextFactory = contextFactory;
+        this.encryptor = encryptor;
+    }
+
+    /**
+     * Creates, resizes, or retires the thread pool of the given group
+     *
+     * @param group the process group
+     * @param threadCount the number of dedicated threads, or 0 to retire the group's pool
+     */
+    public synchronized void setThreadCount(final ProcessGroup group, final int threadCount) {
+        final ProcessGroupThreadPool pool = pools.get(group.getIdentifier());
+        if (threadCount <= 0) {
+            if (pool != null) {
+                pools.remove(group.getIdentifier());
+                pool.retire();
+                logger.info("Retired the thread pool of {}; its components will use the shared thread pool when next started", group);
+            }
+            return;
+        }
+
+        if (pool == null) {
+            pools.put(group.getIdentifier(), new ProcessGroupThreadPool(group.getIdentifier(), threadCount, flowController, contextFactory, encryptor));
+            logger.info("Created a thread pool of {} threads for {}; its components will use it when next started", threadCount, group);
+        } else {
+            pool.setMaxThreadCount(threadCount);
+            logger.info("Resized the thread pool of {} to {} threads", group, threadCount);
+        }
+    }
+
+    /**
+     * @param groupId the ID of a process group
+     * @return the thread pool dedicated to the given group, or <code>null</code> if it does not have one
+     */
+    public ProcessGroupThreadPool getThreadPool(final String groupId) {
+        return pools.get(groupId);
+    }
+
+    /**
+     * @param connectable a component
+     * @return the thread pool of the nearest group containing the given component that has dedicated threads, or
+     *         <code>null</code> if the component runs on the shared thread pool
+     */
+    public ProcessGroupThreadPool getThreadPool(final Connectable connectable) {
+        if (pools.isEmpty()) {
+            return null;
+        }
+
+        for (ProcessGroup group = connectable.getProcessGroup(); group != null; group = group.getParent()) {
+            final ProcessGroupThreadPool pool = pools.get(group.getIdentifier());
+            if (pool != null) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shuts down all of the thread pools
+     */
+    public synchronized void shutdown() {
+        for (final ProcessGroupThreadPool pool : pools.values()) {
+            try {
+                pool.shutdown();
+            } catch (final Throwable t) {
+                logger.error("Failed to shutdown thread pool of Process Group {} due to {}", pool.getGroupId(), t.toString());
+                logger.error("", t);
+            }
+        }
+        pools.clear();
+    }
+}
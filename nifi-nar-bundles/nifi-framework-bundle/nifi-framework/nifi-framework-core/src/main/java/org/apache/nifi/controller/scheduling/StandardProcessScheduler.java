@@ -58,6 +58,7 @@ import org.apache.nifi.controller.service.ControllerServiceState;
 import org.apache.nifi.controller.service.StandardConfigurationContext;
 import org.apache.nifi.encrypt.StringEncryptor;
 import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.logging.ProcessorLog;
 import org.apache.nifi.nar.NarCloseable;
@@ -88,6 +89,11 @@ public final class StandardProcessScheduler implements ProcessScheduler {
     private final ConcurrentMap<Object, ScheduleState> scheduleStates = new ConcurrentHashMap<>();
     private final ScheduledExecutorService frameworkTaskExecutor;
     private final ConcurrentMap<SchedulingStrategy, SchedulingAgent> strategyAgentMap = new ConcurrentHashMap<>();
+    private volatile BlockingIoSchedulingAgent blockingIoAgent;
+    private volatile ProcessGroupThreadPools groupThreadPools;
+    // the agent that each scheduled component was scheduled with, so that it is unscheduled from the same one even if
+    // its Process Group's thread pool has changed since
+    private final ConcurrentMap<Connectable, SchedulingAgent> scheduledAgents = new ConcurrentHashMap<>();
     // thread pool for starting/stopping components
     private final ExecutorService componentLifeCycleThreadPool = new ThreadPoolExecutor(25, 50, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(5000));
     private final StringEncryptor encryptor;
@@ -137,8 +143,80 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         return strategyAgentMap.get(strategy);
     }
 
+    /**
+     * Sets the agent that runs Timer-Driven and Primary-Node-Only Processors that are configured as blocking on I/O, in
+     * place of the agent for their Scheduling Strategy.
+     *
+     * @param agent the agent
+     */
+    public void setBlockingIoSchedulingAgent(final BlockingIoSchedulingAgent agent) {
+        this.blockingIoAgent = agent;
+    }
+
+    /**
+     * Sets the thread pools of the Process Groups that have dedicated threads. Timer-Driven and Primary-Node-Only
+     * components in such a group, or in a descendant group without a pool of its own, are run on the group's pool in
+     * place of the agent for their Scheduling Strategy.
+     *
+     * @param threadPools the thread pools
+     */
+    public void setProcessGroupThreadPools(final ProcessGroupThreadPools threadPools) {
+        this.groupThreadPools = threadPools;
+    }
+
+    @Override
+    public void setProcessGroupThreadCount(final ProcessGroup group, final int threadCount) {
+        final ProcessGroupThreadPools threadPools = groupThreadPools;
+        if (threadPools == null) {
+            LOG.warn("Cannot dedicate {} threads to {} because Process Group thread pools are not available", threadCount, group);
+            return;
+        }
+
+        threadPools.setThreadCount(group, threadCount);
+    }
+
+    /**
+     * @param groupId the ID of a Process Group
+     * @return the thread pool dedicated to the given group, or <code>null</code> if the group does not have one
+     */
+    public ProcessGroupThreadPool getProcessGroupThreadPool(final String groupId) {
+        final ProcessGroupThreadPools threadPools = groupThreadPools;
+        return threadPools == null ? null : threadPools.getThreadPool(groupId);
+    }
+
     private SchedulingAgent getSchedulingAgent(final Connectable connectable) {
-        return getSchedulingAgent(connectable.getSchedulingStrategy());
+        final SchedulingAgent scheduledAgent = scheduledAgents.get(connectable);
+        if (scheduledAgent != null) {
+            return scheduledAgent;
+        }
+
+        final SchedulingStrategy strategy = connectable.getSchedulingStrategy();
+        if (strategy == SchedulingStrategy.TIMER_DRIVEN || strategy == SchedulingStrategy.PRIMARY_NODE_ONLY) {
+            final BlockingIoSchedulingAgent blockingAgent = blockingIoAgent;
+            if (blockingAgent != null && blockingAgent.isBlockingIo(connectable)) {
+                return blockingAgent;
+            }
+
+            final ProcessGroupThreadPools threadPools = groupThreadPools;
+            final ProcessGroupThreadPool groupPool = threadPools == null ? null : threadPools.getThreadPool(connectable);
+            if (groupPool != null) {
+                return groupPool;
+            }
+        }
+
+        return getSchedulingAgent(strategy);
+    }
+
+    private void scheduleWithAgent(final Connectable connectable, final ScheduleState scheduleState) {
+        final SchedulingAgent agent = getSchedulingAgent(connectable);
+        agent.schedule(connectable, scheduleState);
+        scheduledAgents.put(connectable, agent);
+    }
+
+    private void unscheduleFromAgent(final Connectable connectable, final ScheduleState scheduleState) {
+        final SchedulingAgent agent = getSchedulingAgent(connectable);
+        scheduledAgents.remove(connectable);
+        agent.unschedule(connectable, scheduleState);
     }
 
     @Override
@@ -152,6 +230,21 @@ public final class StandardProcessScheduler implements ProcessScheduler {
             }
         }
 
+        final BlockingIoSchedulingAgent blockingAgent = blockingIoAgent;
+        if (blockingAgent != null) {
+            try {
+                blockingAgent.shutdown();
+            } catch (final Throwable t) {
+                LOG.error("Failed to shutdown Scheduling Agent {} due to {}", blockingAgent, t.toString());
+                LOG.error("", t);
+            }
+        }
+
+        final ProcessGroupThreadPools threadPools = groupThreadPools;
+        if (threadPools != null) {
+            threadPools.shutdown();
+        }
+
         frameworkTaskExecutor.shutdown();
         componentLifeCycleThreadPool.shutdown();
     }
@@ -354,7 +447,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
                                 final SchedulingContext schedulingContext = new StandardSchedulingContext(processContext, controllerServiceProvider, procNode);
                                 ReflectionUtils.invokeMethodsWithAnnotations(OnScheduled.class, org.apache.nifi.processor.annotation.OnScheduled.class, procNode.getProcessor(), schedulingContext);
 
-                                getSchedulingAgent(procNode).schedule(procNode, scheduleState);
+                                scheduleWithAgent(procNode, scheduleState);
 
                                 heartbeater.heartbeat();
                                 return;
@@ -420,7 +513,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
             }
 
             state.setScheduled(false);
-            getSchedulingAgent(procNode).unschedule(procNode, state);
+            unscheduleFromAgent(procNode, state);
             procNode.setScheduledState(ScheduledState.STOPPED);
         }
 
@@ -446,7 +539,10 @@ public final class StandardProcessScheduler implements ProcessScheduler {
 
     @Override
     public void registerEvent(final Connectable worker) {
-        getSchedulingAgent(worker).onEvent(worker);
+        final SchedulingAgent agent = getSchedulingAgent(worker);
+        if (agent != null) {
+            agent.onEvent(worker);
+        }
     }
 
     @Override
@@ -497,7 +593,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
             throw new IllegalStateException("Port cannot be scheduled to run until its last " + activeThreads + " threads finish");
         }
 
-        getSchedulingAgent(connectable).schedule(connectable, scheduleState);
+        scheduleWithAgent(connectable, scheduleState);
         scheduleState.setScheduled(true);
     }
 
@@ -508,7 +604,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         }
 
         state.setScheduled(false);
-        getSchedulingAgent(connectable).unschedule(connectable, state);
+        unscheduleFromAgent(connectable, state);
 
         if (!state.isScheduled() && state.getActiveThreadCount() == 0 && state.mustCallOnStoppedMethods()) {
             final ConnectableProcessContext processContext = new ConnectableProcessContext(connectable, encryptor);
@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.controller.tasks.ContinuallyRunConnectableTask;
+import org.apache.nifi.controller.tasks.ContinuallyRunProcessorTask;
+import org.apache.nifi.controller.tasks.ReportingTaskWrapper;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.nar.NarThreadContextClassLoader;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.StandardProcessContext;
+import org.apache.nifi.util.Connectables;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * An alternative to the {@link TimerDrivenSchedulingAgent} that runs Timer-Driven components on a work-stealing pool
+ * rather than triggering each of them at a fixed delay on the shared {@link FlowEngine}.
+ * </p>
+ *
+ * <p>
+ * Each concurrent task of a component is a unit of work that is handed to the pool only when the component is able to
+ * do something: when it has no incoming connections (a source component), when it is triggered even if its queues are
+ * empty, or when FlowFiles are queued for it. A task that finds nothing to do is parked rather than polled; parked tasks
+ * are woken by {@link #onEvent(Connectable)} or by a single monitor that checks the queues of idle components every
+ * bored yield duration. Yielded components and components with a scheduling period are handed back to the pool once the
+ * yield or period has elapsed, as are Processors that cannot run because their destinations are full or because they run
+ * only on the primary node, which are handed back after the bored yield duration.
+ * </p>
+ *
+ * <p>
+ * When a task runs again immediately, it is forked onto the queue of the worker that just ran it, so that a busy component
+ * keeps running on the same thread, with its data still in that CPU's caches, unless an idle worker steals it. After a
+ * number of consecutive runs the task is submitted to the pool's shared queue instead, so that components waiting there
+ * are not starved.
+ * </p>
+ *
+ * <p>
+ * The time that each run of a component waits in the pool and the time that it takes to run are recorded in histograms
+ * that are available from {@link #getQueueWaitHistogram(Connectable)} and {@link #getRunTimeHistogram(Connectable)}.
+ * </p>
+ */
+public class WorkStealingSchedulingAgent implements SchedulingAgent {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkStealingSchedulingAgent.class);
+
+    // the number of times in a row that a task may be run by the same worker before it goes back through the shared queue
+    private static final int MAX_AFFINITY_RUNS = 16;
+    private static final long MIN_IDLE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final FlowController flowController;
+    private final FlowEngine flowEngine;
+    private final ProcessContextFactory contextFactory;
+    private final StringEncryptor encryptor;
+    private final long noWorkYieldNanos;
+
+    private volatile ForkJoinPool workerPool;
+    private final AtomicInteger poolIndex = new AtomicInteger(0);
+
+    private final ConcurrentMap<Connectable, ScheduledComponent> scheduledComponents = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Connectable, LatencyHistogram> queueWaitHistograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Connectable, LatencyHistogram> runTimeHistograms = new ConcurrentHashMap<>();
+
+    private volatile String adminYieldDuration = "1 sec";
+
+    /**
+     * @param flowController the controller whose components are scheduled
+     * @param flowEngine the engine that runs Reporting Tasks and that hands delayed and woken tasks back to the worker pool
+     * @param contextFactory the factory for the components' process contexts
+     * @param encryptor the encryptor for sensitive property values
+     * @param maxThreadCount the number of worker threads that run components
+     */
+    public WorkStealingSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final ProcessContextFactory contextFactory,
+        final StringEncryptor encryptor, final int maxThreadCount) {
+        this.flowController = flowController;
+        this.flowEngine = flowEngine;
+        this.contextFactory = contextFactory;
+        this.encryptor = encryptor;
+        this.workerPool = createWorkerPool(maxThreadCount);
+
+        final String boredYieldDuration = NiFiProperties.getInstance().getBoredYieldDuration();
+        try {
+            noWorkYieldNanos = FormatUtils.getTimeDuration(boredYieldDuration, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
+        }
+
+        final long idleCheckNanos = Math.max(noWorkYieldNanos, MIN_IDLE_CHECK_NANOS);
+        flowEngine.scheduleWithFixedDelay(new IdleComponentMonitor(), idleCheckNanos, idleCheckNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private ForkJoinPool createWorkerPool(final int parallelism) {
+        final int index = poolIndex.incrementAndGet();
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        final ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+                final ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+                };
+                thread.setName("Work-Stealing Process Pool-" + index + " Thread-" + threadIndex.incrementAndGet());
+                thread.setContextClassLoader(NarThreadContextClassLoader.getInstance());
+                return thread;
+            }
+        };
+
+        final Thread.UncaughtExceptionHandler exceptionHandler = new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable t) {
+                logger.error("Uncaught Exception in {}: {}", thread.getName(), t.toString());
+                logger.error("", t);
+            }
+        };
+
+        // asyncMode gives each worker's own queue first-in-first-out order, so that the components that a worker keeps running take turns
+        return new ForkJoinPool(parallelism, threadFactory, exceptionHandler, true);
+    }
+
+    @Override
+    public void shutdown() {
+        workerPool.shutdown();
+        flowEngine.shutdown();
+    }
+
+    @Override
+    public void schedule(final ReportingTaskNode taskNode, final ScheduleState scheduleState) {
+        final Runnable reportingTaskWrapper = new ReportingTaskWrapper(taskNode, scheduleState);
+        final long schedulingNanos = taskNode.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+
+        final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(reportingTaskWrapper, 0L, schedulingNanos, TimeUnit.NANOSECONDS);
+        final List<ScheduledFuture<?>> futures = new ArrayList<>(1);
+        futures.add(future);
+        scheduleState.setFutures(futures);
+
+        logger.info("{} started.", taskNode.getReportingTask());
+    }
+
+    @Override
+    public void unschedule(final ReportingTaskNode taskNode, final ScheduleState scheduleState) {
+        for (final ScheduledFuture<?> future : scheduleState.getFutures()) {
+            // stop scheduling to run but do not interrupt currently running tasks.
+            future.cancel(false);
+        }
+
+        logger.info("Stopped scheduling {} to run", taskNode.getReportingTask());
+    }
+
+    @Override
+    public void schedule(final Connectable connectable, final ScheduleState scheduleState) {
+        final ScheduledComponent component = new ScheduledComponent(connectable, scheduleState, contextFactory.newProcessContext(connectable, new AtomicLong(0L)),
+            getHistogram(queueWaitHistograms, connectable), getHistogram(runTimeHistograms, connectable));
+
+        final ScheduledComponent previous = scheduledComponents.put(connectable, component);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
+            final Callable<Boolean> continuallyRunTask;
+
+            // Determine the task to run and create it.
+            if (connectable.getConnectableType() == ConnectableType.PROCESSOR) {
+                final ProcessorNode procNode = (ProcessorNode) connectable;
+                final StandardProcessContext standardProcContext = new StandardProcessContext(procNode, flowController, encryptor);
+                continuallyRunTask = new ContinuallyRunProcessorTask(this, procNode, flowController, contextFactory, scheduleState, standardProcContext);
+            } else {
+                final ProcessContext processContext = new ConnectableProcessContext(connectable, encryptor);
+                continuallyRunTask = new ContinuallyRunConnectableTask(contextFactory, connectable, scheduleState, processContext);
+            }
+
+            submit(new ComponentTask(component, continuallyRunTask));
+        }
+
+        logger.info("Scheduled {} to run with {} threads on the work-stealing pool", connectable, connectable.getMaxConcurrentTasks());
+    }
+
+    @Override
+    public void unschedule(final Connectable connectable, final ScheduleState scheduleState) {
+        final ScheduledComponent component = scheduledComponents.remove(connectable);
+        if (component != null) {
+            // tasks that are running are allowed to finish; they are not run again
+            component.cancel();
+        }
+
+        logger.info("Stopped scheduling {} to run", connectable);
+    }
+
+    @Override
+    public void onEvent(final Connectable connectable) {
+        final ScheduledComponent component = scheduledComponents.get(connectable);
+        if (component != null) {
+            wakeIdleTask(component);
+        }
+    }
+
+    @Override
+    public void setMaxThreadCount(final int maxThreads) {
+        if (maxThreads < 1 || maxThreads == workerPool.getParallelism()) {
+            return;
+        }
+
+        // The parallelism of a ForkJoinPool is fixed, so replace the pool. Tasks that are queued in the old pool still run
+        // there, after which they are handed to the new pool.
+        final ForkJoinPool oldPool = workerPool;
+        workerPool = createWorkerPool(maxThreads);
+        oldPool.shutdown();
+        logger.info("Resized the work-stealing pool from {} to {} threads", oldPool.getParallelism(), maxThreads);
+    }
+
+    @Override
+    public void setAdministrativeYieldDuration(final String yieldDuration) {
+        this.adminYieldDuration = yieldDuration;
+    }
+
+    @Override
+    public String getAdministrativeYieldDuration() {
+        return adminYieldDuration;
+    }
+
+    @Override
+    public long getAdministrativeYieldDuration(final TimeUnit timeUnit) {
+        return FormatUtils.getTimeDuration(adminYieldDuration, timeUnit);
+    }
+
+    /**
+     * @param connectable a component
+     * @return the histogram of the time between each task of the given component becoming ready to run and it starting to run,
+     *         or <code>null</code> if the component has never been scheduled by this agent
+     */
+    public LatencyHistogram getQueueWaitHistogram(final Connectable connectable) {
+        return queueWaitHistograms.get(connectable);
+    }
+
+    /**
+     * @param connectable a component
+     * @return the histogram of the time that each task of the given component took to run, or <code>null</code> if the component
+     *         has never been scheduled by this agent
+     */
+    public LatencyHistogram getRunTimeHistogram(final Connectable connectable) {
+        return runTimeHistograms.get(connectable);
+    }
+
+    private static LatencyHistogram getHistogram(final ConcurrentMap<Connectable, LatencyHistogram> histograms, final Connectable connectable) {
+        LatencyHistogram histogram = histograms.get(connectable);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            final LatencyHistogram existing = histograms.putIfAbsent(connectable, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    private static boolean hasWork(final Connectable connectable) {
+        return connectable.isTriggerWhenEmpty() || !connectable.hasIncomingConnection() || Connectables.flowFilesQueued(connectable);
+    }
+
+    /**
+     * @return whether the component is a Processor that cannot run for a reason that FlowFiles being queued for it do not change:
+     *         it runs only on the primary node and this node is not the primary, or too few of its destinations are available
+     */
+    private boolean isBlocked(final ScheduledComponent component) {
+        if (component.connectable.getConnectableType() != ConnectableType.PROCESSOR) {
+            return false;
+        }
+
+        final ProcessorNode procNode = (ProcessorNode) component.connectable;
+        if (procNode.isIsolated() && flowController.isClustered() && !flowController.isPrimary()) {
+            return true;
+        }
+
+        final int numRelationships = procNode.getRelationships().size();
+        if (numRelationships == 0) {
+            return false;
+        }
+
+        final int requiredNumberOfAvailableRelationships = procNode.isTriggerWhenAnyDestinationAvailable() ? 1 : numRelationships;
+        return !component.processContext.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships);
+    }
+
+    private void submit(final ComponentTask task) {
+        try {
+            workerPool.execute(new ComponentRun(task, System.nanoTime(), 0));
+        } catch (final RejectedExecutionException ree) {
+            if (!flowEngine.isShutdown()) {
+                logger.warn("Unable to run {} because the work-stealing pool rejected it", task.component.connectable);
+            }
+        }
+    }
+
+    private void submitLater(final ComponentTask task, final long delay, final TimeUnit timeUnit) {
+        try {
+            flowEngine.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    submit(task);
+                }
+            }, delay, timeUnit);
+        } catch (final RejectedExecutionException ree) {
+            // the engine has been shut down
+        }
+    }
+
+    private void wakeIdleTask(final ScheduledComponent component) {
+        final ComponentTask task = component.idleTasks.poll();
+        if (task != null) {
+            submit(task);
+        }
+    }
+
+    /**
+     * Determines what to do with a task once it has run: run it again right away, run it after a delay, or park it until
+     * its component has work to do.
+     */
+    private void afterRun(final ComponentTask task, final boolean noWork, final int affinityRuns) {
+        final ScheduledComponent component = task.component;
+        if (!component.isActive()) {
+            return;
+        }
+
+        final Connectable connectable = component.connectable;
+        final long yieldMillis = connectable.getYieldExpiration() - System.currentTimeMillis();
+        if (yieldMillis > 0L) {
+            submitLater(task, yieldMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        // A Processor whose destinations are full, or that runs only on the primary node, is not triggered at all, and waking it for
+        // queued FlowFiles would only have it check again. Run it again after the same delay that the monitor waits between checks.
+        if (isBlocked(component)) {
+            submitLater(task, Math.max(noWorkYieldNanos, MIN_IDLE_CHECK_NANOS), TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        if (noWork && noWorkYieldNanos > 0L) {
+            component.idleTasks.offer(task);
+
+            // FlowFiles may have been queued after the task checked; if so, make sure that they are not left waiting for the monitor
+            if (hasWork(connectable)) {
+                wakeIdleTask(component);
+            }
+            return;
+        }
+
+        // The component did some work. If it still has work to do and some of its tasks are idle, put another one to work too.
+        if (!component.idleTasks.isEmpty() && hasWork(connectable)) {
+            wakeIdleTask(component);
+        }
+
+        final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+        if (schedulingNanos > 0L) {
+            submitLater(task, schedulingNanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        final ForkJoinPool pool = workerPool;
+        if (affinityRuns < MAX_AFFINITY_RUNS && ForkJoinTask.getPool() == pool) {
+            // keep the task on this worker's own queue, where it runs next unless another worker steals it
+            new ComponentRun(task, System.nanoTime(), affinityRuns + 1).fork();
+        } else {
+            submit(task);
+        }
+    }
+
+    /**
+     * A component that is scheduled to run, along with the tasks that are waiting for it to have work to do
+     */
+    private static class ScheduledComponent {
+        private final Connectable connectable;
+        private final ScheduleState scheduleState;
+        private final org.apache.nifi.controller.repository.ProcessContext processContext;
+        private final LatencyHistogram queueWaitHistogram;
+        private final LatencyHistogram runTimeHistogram;
+        private final Queue<ComponentTask> idleTasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        public ScheduledComponent(final Connectable connectable, final ScheduleState scheduleState,
+            final org.apache.nifi.controller.repository.ProcessContext processContext, final LatencyHistogram queueWaitHistogram,
+            final LatencyHistogram runTimeHistogram) {
+            this.connectable = connectable;
+            this.scheduleState = scheduleState;
+            this.processContext = processContext;
+            this.queueWaitHistogram = queueWaitHistogram;
+            this.runTimeHistogram = runTimeHistogram;
+        }
+
+        public boolean isActive() {
+            return !cancelled.get() && scheduleState.isScheduled();
+        }
+
+        public void cancel() {
+            cancelled.set(true);
+            idleTasks.clear();
+        }
+    }
+
+    /**
+     * One of the concurrent tasks of a component. A task is either waiting in the pool, running, waiting for a delay to
+     * elapse, or parked in its component's idle queue; never more than one of these at a time.
+     */
+    private static class ComponentTask {
+        private final ScheduledComponent component;
+        private final Callable<Boolean> continuallyRunTask;
+
+        public ComponentTask(final ScheduledComponent component, final Callable<Boolean> continuallyRunTask) {
+            this.component = component;
+            this.continuallyRunTask = continuallyRunTask;
+        }
+    }
+
+    /**
+     * A single run of a component task in the work-stealing pool
+     */
+    private class ComponentRun extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ComponentTask task;
+        private final long submittedNanos;
+        private final int affinityRuns;
+
+        public ComponentRun(final ComponentTask task, final long submittedNanos, final int affinityRuns) {
+            this.task = task;
+            this.submittedNanos = submittedNanos;
+            this.affinityRuns = affinityRuns;
+        }
+
+        @Override
+        protected void compute() {
+            final ScheduledComponent component = task.component;
+            if (!component.isActive()) {
+                return;
+            }
+
+            final long startNanos = System.nanoTime();
+            component.queueWaitHistogram.record(startNanos - submittedNanos);
+
+            boolean noWork = false;
+            try {
+                // Ensure classloader is correct
+                Thread.currentThread().setContextClassLoader(NarThreadContextClassLoader.getInstance());
+                noWork = task.continuallyRunTask.call();
+            } catch (final Throwable t) {
+                logger.error("Failed to run {} due to {}", component.connectable, t.toString());
+                logger.error("", t);
+                submitLater(task, getAdministrativeYieldDuration(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                return;
+            } finally {
+                component.runTimeHistogram.record(System.nanoTime() - startNanos);
+            }
+
+            afterRun(task, noWork, affinityRuns);
+        }
+    }
+
+    /**
+     * Hands an idle task back to the pool for each component that has work to do but no task running
+     */
+    private class IdleComponentMonitor implements Runnable {
+        @Override
+        public void run() {
+            for (final Map.Entry<Connectable, ScheduledComponent> entry : scheduledComponents.entrySet()) {
+                final ScheduledComponent component = entry.getValue();
+                if (component.idleTasks.isEmpty() || !hasWork(entry.getKey())) {
+                    continue;
+                }
+
+                wakeIdleTask(component);
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.nifi.controller.repository.ProcessContext;
 import org.apache.nifi.controller.repository.StandardFlowFileEvent;
 import org.apache.nifi.controller.repository.StandardProcessSession;
 import org.apache.nifi.controller.repository.StandardProcessSessionFactory;
+import org.apache.nifi.controller.scheduling.AdaptiveRunDuration;
 import org.apache.nifi.controller.scheduling.ProcessContextFactory;
 import org.apache.nifi.controller.scheduling.ScheduleState;
 import org.apache.nifi.controller.scheduling.SchedulingAgent;
@@ -57,6 +58,7 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
     private final StandardProcessContext processContext;
     private final FlowController flowController;
     private final int numRelationships;
+    private final AdaptiveRunDuration adaptiveRunDuration;
 
     public ContinuallyRunProcessorTask(final SchedulingAgent schedulingAgent, final ProcessorNode procNode,
             final FlowController flowController, final ProcessContextFactory contextFactory, final ScheduleState scheduleState,
@@ -70,6 +72,7 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
 
         context = contextFactory.newProcessContext(procNode, new AtomicLong(0L));
         this.processContext = processContext;
+        this.adaptiveRunDuration = contextFactory.getAdaptiveRunDuration();
     }
 
     @Override
@@ -98,11 +101,13 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
             shouldRun = context.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships);
         }
 
-        final long batchNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+        // when the Run Duration is adapted, always batch, even if the current duration is 0, so that the cost of the commit is known
+        final boolean adaptive = adaptiveRunDuration.isAdapted(procNode);
+        final long batchNanos = procNode.getEffectiveRunDuration(TimeUnit.NANOSECONDS);
         final ProcessSessionFactory sessionFactory;
         final StandardProcessSession rawSession;
         final boolean batch;
-        if (procNode.isHighThroughputSupported() && batchNanos > 0L) {
+        if (procNode.isHighThroughputSupported() && (batchNanos > 0L || adaptive)) {
             rawSession = new StandardProcessSession(context);
             sessionFactory = new BatchingSessionFactory(rawSession);
             batch = true;
@@ -159,8 +164,17 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
         } finally {
             try {
                 if (batch) {
+                    final long triggerNanos = System.nanoTime() - startNanos;
                     try {
+                        final long commitStart = System.nanoTime();
                         rawSession.commit();
+                        final long commitNanos = System.nanoTime() - commitStart;
+
+                        if (adaptive && invocationCount > 0) {
+                            // sample after the commit so that the FlowFiles this batch transferred are counted
+                            final boolean downstreamEmpty = Connectables.downstreamQueuesEmpty(procNode);
+                            adaptiveRunDuration.onBatchComplete(procNode, triggerNanos, commitNanos, downstreamEmpty);
+                        }
                     } catch (final Exception e) {
                         final ProcessorLog procLog = new SimpleProcessLogger(procNode.getIdentifier(), procNode.getProcessor());
                         procLog.error("Failed to commit session {} due to {}; rolling back", new Object[] { rawSession, e.toString() }, e);
@@ -26,11 +26,15 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class FlowEngine extends ScheduledThreadPoolExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(FlowEngine.class);
 
+    private final ThreadLocal<Long> taskStartNanos = new ThreadLocal<>();
+    private final AtomicLong busyNanos = new AtomicLong(0L);
+
     /**
      * Creates a new instance of FlowEngine
      *
@@ -77,6 +81,7 @@ public final class FlowEngine extends ScheduledThreadPoolExecutor {
         // Ensure classloader is correct
         thread.setContextClassLoader(NarThreadContextClassLoader.getInstance());
         super.beforeExecute(thread, runnable);
+        taskStartNanos.set(System.nanoTime());
     }
 
     /**
@@ -87,6 +92,11 @@ public final class FlowEngine extends ScheduledThreadPoolExecutor {
      */
     @Override
     protected void afterExecute(final Runnable runnable, final Throwable throwable) {
+        final Long startNanos = taskStartNanos.get();
+        if (startNanos != null) {
+            busyNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+
         super.afterExecute(runnable, throwable);
         if (runnable instanceof FutureTask<?>) {
             final FutureTask<?> task = (FutureTask<?>) runnable;
@@ -117,6 +127,14 @@ public final class FlowEngine extends ScheduledThreadPoolExecutor {
         }
     }
 
+    /**
+     * @return the total number of nanoseconds that threads of this engine have
+     *         spent running tasks that have completed
+     */
+    public long getBusyNanos() {
+        return busyNanos.get();
+    }
+
     /**
      * Hook method called whenever the engine is terminated.
      */
@@ -70,6 +70,7 @@ public final class StandardProcessGroup implements ProcessGroup {
     private final AtomicReference<String> name;
     private final AtomicReference<Position> position;
     private final AtomicReference<String> comments;
+    private volatile int dedicatedThreadCount = 0;
 
     private final ProcessScheduler scheduler;
     private final ControllerServiceProvider controllerServiceProvider;
@@ -150,6 +151,25 @@ public final class StandardProcessGroup implements ProcessGroup {
         this.comments.set(comments);
     }
 
+    @Override
+    public int getDedicatedThreadCount() {
+        return dedicatedThreadCount;
+    }
+
+    @Override
+    public synchronized void setDedicatedThreadCount(final int threadCount) {
+        if (threadCount < 0) {
+            throw new IllegalArgumentException("Dedicated Thread Count must be 0 or greater");
+        }
+
+        if (threadCount == dedicatedThreadCount) {
+            return;
+        }
+
+        this.dedicatedThreadCount = threadCount;
+        scheduler.setProcessGroupThreadCount(this, threadCount);
+    }
+
     @Override
     public ProcessGroupCounts getCounts() {
         int inputPortCount = 0;
@@ -559,6 +579,9 @@ public final class StandardProcessGroup implements ProcessGroup {
             toRemove.verifyCanDelete();
 
             removeComponents(group);
+            if (toRemove.getDedicatedThreadCount() > 0) {
+                scheduler.setProcessGroupThreadCount(toRemove, 0);
+            }
             processGroups.remove(group.getIdentifier());
             LOG.info("{} removed from flow", group);
         } finally {
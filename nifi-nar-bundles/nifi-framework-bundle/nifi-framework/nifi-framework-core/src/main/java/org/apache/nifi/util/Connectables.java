@@ -34,6 +34,27 @@ public class Connectables {
         return false;
     }
 
+    /**
+     * @param connectable a component
+     * @return <code>true</code> if the component has at least one outgoing connection to another component and all of its
+     *         outgoing connections are empty, meaning that the components downstream are waiting on this one
+     */
+    public static boolean downstreamQueuesEmpty(final Connectable connectable) {
+        boolean downstream = false;
+        for (final Connection conn : connectable.getConnections()) {
+            if (conn.getDestination() == connectable) {
+                continue;
+            }
+
+            if (!conn.getFlowFileQueue().isActiveQueueEmpty()) {
+                return false;
+            }
+            downstream = true;
+        }
+
+        return downstream;
+    }
+
     public static boolean anyRelationshipAvailable(final Connectable connectable) {
         for (final Relationship relationship : connectable.getRelationships()) {
             final Collection<Connection> connections = connectable.getConnections(relationship);
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.processor.Relationship;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestEventDrivenWorkerQueue {
+
+    private EventDrivenWorkerQueue workerQueue;
+    private AtomicBoolean queueEmpty;
+    private AtomicLong yieldExpiration;
+    private Connectable connectable;
+
+    @Before
+    public void setup() {
+        workerQueue = new EventDrivenWorkerQueue(false, false, Mockito.mock(ProcessScheduler.class));
+        queueEmpty = new AtomicBoolean(true);
+        yieldExpiration = new AtomicLong(0L);
+
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.isActiveQueueEmpty()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) throws Throwable {
+                return queueEmpty.get();
+            }
+        });
+        Mockito.when(flowFileQueue.size()).thenReturn(new QueueSize(0, 0L));
+
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getFlowFileQueue()).thenReturn(flowFileQueue);
+
+        connectable = Mockito.mock(Connectable.class);
+        Mockito.when(connectable.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+        Mockito.when(connectable.getRelationships()).thenReturn(Collections.<Relationship> emptySet());
+        Mockito.when(connectable.hasIncomingConnection()).thenReturn(true);
+        Mockito.when(connectable.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+        Mockito.when(connectable.getMaxConcurrentTasks()).thenReturn(1);
+        Mockito.when(connectable.getYieldExpiration()).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(final InvocationOnMock invocation) throws Throwable {
+                return yieldExpiration.get();
+            }
+        });
+
+        workerQueue.resumeWork(connectable);
+    }
+
+    @Test(timeout = 10000)
+    public void testParkedThreadWokenByOffer() throws InterruptedException {
+        final AtomicReference<EventBasedWorker> polled = new AtomicReference<>();
+        final Thread pollThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                polled.set(workerQueue.poll(5, TimeUnit.SECONDS));
+            }
+        });
+        pollThread.start();
+
+        // let the thread park
+        Thread.sleep(100L);
+        queueEmpty.set(false);
+        final long offerNanos = System.nanoTime();
+        workerQueue.offer(connectable);
+        pollThread.join();
+
+        assertNotNull(polled.get());
+        assertSame(connectable, polled.get().getConnectable());
+        assertTrue(System.nanoTime() - offerNanos < TimeUnit.SECONDS.toNanos(1L));
+    }
+
+    @Test
+    public void testWorkerWithoutWorkNotReturned() {
+        workerQueue.offer(connectable);
+        assertNull(workerQueue.poll(50, TimeUnit.MILLISECONDS));
+
+        // the worker was dropped, so FlowFiles arriving without an event do not make it ready
+        queueEmpty.set(false);
+        assertNull(workerQueue.poll(50, TimeUnit.MILLISECONDS));
+
+        workerQueue.offer(connectable);
+        assertNotNull(workerQueue.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testYieldedWorkerReturnedWhenYieldExpires() {
+        queueEmpty.set(false);
+        final long yieldMillis = 200L;
+        yieldExpiration.set(System.currentTimeMillis() + yieldMillis);
+        final long start = System.nanoTime();
+        workerQueue.offer(connectable);
+
+        final EventBasedWorker worker = workerQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(worker);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(yieldMillis - 20L));
+    }
+
+    @Test
+    public void testSuspendedWorkerNotReturned() {
+        queueEmpty.set(false);
+        workerQueue.offer(connectable);
+        workerQueue.suspendWork(connectable);
+        assertNull(workerQueue.poll(50, TimeUnit.MILLISECONDS));
+
+        workerQueue.offer(connectable);
+        assertNull(workerQueue.poll(50, TimeUnit.MILLISECONDS));
+    }
+}
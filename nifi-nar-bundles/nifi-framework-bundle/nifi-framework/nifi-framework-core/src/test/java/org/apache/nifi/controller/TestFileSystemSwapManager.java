@@ -17,6 +17,7 @@
 package org.apache.nifi.controller;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
@@ -33,14 +34,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.flowfile.FlowFile;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -113,6 +121,120 @@ public class TestFileSystemSwapManager {
         }
     }
 
+    @Test
+    public void testRoundTripCompressedWithContentClaims() throws IOException {
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        final ResourceClaim[] resourceClaims = new ResourceClaim[3];
+        for (int i = 0; i < resourceClaims.length; i++) {
+            resourceClaims[i] = claimManager.newResourceClaim("container", "section-" + i, "claim-" + i, false);
+        }
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        for (int i = 0; i < 10000; i++) {
+            final Map<String, String> attrs = new HashMap<>();
+            attrs.put("i", String.valueOf(i));
+            attrs.put("uuid", UUID.randomUUID().toString());
+
+            // leave every tenth FlowFile without content
+            final StandardContentClaim claim;
+            if (i % 10 == 0) {
+                claim = null;
+            } else {
+                claim = new StandardContentClaim(resourceClaims[i % resourceClaims.length], i * 10L);
+                claim.setLength(10L);
+            }
+
+            toSwap.add(new TestFlowFile(attrs, 10L, claim, i % 5));
+        }
+
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final String swapLocation = "target/testRoundTripCompressed.swap";
+        final File swapFile = new File(swapLocation);
+        Files.deleteIfExists(swapFile.toPath());
+
+        try (final FileOutputStream fos = new FileOutputStream(swapFile)) {
+            FileSystemSwapManager.serializeFlowFiles(toSwap, flowFileQueue, swapLocation, fos, true);
+        }
+
+        final List<FlowFileRecord> swappedIn;
+        try (final FileInputStream fis = new FileInputStream(swapFile);
+            final DataInputStream dis = new DataInputStream(new BufferedInputStream(fis))) {
+            swappedIn = FileSystemSwapManager.deserializeFlowFiles(dis, swapLocation, flowFileQueue, claimManager);
+        }
+
+        assertEquals(toSwap.size(), swappedIn.size());
+        for (int i = 0; i < toSwap.size(); i++) {
+            final FlowFileRecord pre = toSwap.get(i);
+            final FlowFileRecord post = swappedIn.get(i);
+
+            assertEquals(pre.getId(), post.getId());
+            assertEquals(pre.getAttributes(), post.getAttributes());
+            assertEquals(pre.getContentClaim(), post.getContentClaim());
+            assertEquals(pre.getContentClaimOffset(), post.getContentClaimOffset());
+            if (pre.getContentClaim() != null) {
+                assertEquals(pre.getContentClaim().getLength(), post.getContentClaim().getLength());
+            }
+        }
+
+        // deserializing does not restore claimant counts; that is done when swap locations are recovered
+        for (final ResourceClaim resourceClaim : resourceClaims) {
+            assertEquals(0, claimManager.getClaimantCount(resourceClaim));
+        }
+    }
+
+    @Test
+    public void testRecoverSwapLocationsFromHeader() throws IOException {
+        System.setProperty("nifi.properties.file.path", "src/test/resources/nifi.properties");
+
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn(UUID.randomUUID().toString());
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim("container", "section", "recovered-claim", false);
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final StandardContentClaim claim = i % 2 == 0 ? new StandardContentClaim(resourceClaim, i) : null;
+            toSwap.add(new TestFlowFile(Collections.singletonMap("i", String.valueOf(i)), 100L, claim, 0L));
+        }
+
+        long maxId = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            maxId = Math.max(maxId, flowFile.getId());
+        }
+
+        final FileSystemSwapManager swapOutManager = new FileSystemSwapManager();
+        swapOutManager.initialize(createInitializationContext(new StandardResourceClaimManager()));
+        final String swapLocation = swapOutManager.swapOut(toSwap, flowFileQueue);
+
+        // a new swap manager simulates a restart
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager();
+        swapManager.initialize(createInitializationContext(claimManager));
+
+        final List<String> swapLocations = swapManager.recoverSwapLocations(flowFileQueue);
+        assertEquals(Collections.singletonList(swapLocation), swapLocations);
+        assertEquals(50, claimManager.getClaimantCount(resourceClaim));
+        final QueueSize swapSize = swapManager.getSwapSize(swapLocation);
+        assertEquals(100, swapSize.getObjectCount());
+        assertEquals(10000L, swapSize.getByteCount());
+        assertEquals(Long.valueOf(maxId), swapManager.getMaxRecordId(swapLocation));
+
+        final List<FlowFileRecord> swappedIn = swapManager.swapIn(swapLocation, flowFileQueue);
+        assertEquals(100, swappedIn.size());
+        assertEquals(50, claimManager.getClaimantCount(resourceClaim));
+        assertTrue(!new File(swapLocation).exists());
+    }
+
+    private SwapManagerInitializationContext createInitializationContext(final ResourceClaimManager claimManager) {
+        final SwapManagerInitializationContext context = Mockito.mock(SwapManagerInitializationContext.class);
+        Mockito.when(context.getResourceClaimManager()).thenReturn(claimManager);
+        Mockito.when(context.getFlowFileRepository()).thenReturn(Mockito.mock(FlowFileRepository.class));
+        Mockito.when(context.getEventReporter()).thenReturn(Mockito.mock(EventReporter.class));
+        return context;
+    }
+
 
     public class NopResourceClaimManager implements ResourceClaimManager {
 
@@ -167,11 +289,19 @@ public class TestFileSystemSwapManager {
         private final long lastQueueDate = System.currentTimeMillis();
         private final Map<String, String> attributes;
         private final long size;
+        private final ContentClaim contentClaim;
+        private final long contentClaimOffset;
 
 
         public TestFlowFile(final Map<String, String> attributes, final long size) {
+            this(attributes, size, null, 0L);
+        }
+
+        public TestFlowFile(final Map<String, String> attributes, final long size, final ContentClaim contentClaim, final long contentClaimOffset) {
             this.attributes = attributes;
             this.size = size;
+            this.contentClaim = contentClaim;
+            this.contentClaimOffset = contentClaimOffset;
         }
 
 
@@ -232,12 +362,12 @@ public class TestFileSystemSwapManager {
 
         @Override
         public ContentClaim getContentClaim() {
-            return null;
+            return contentClaim;
         }
 
         @Override
         public long getContentClaimOffset() {
-            return 0;
+            return contentClaimOffset;
         }
     }
 }
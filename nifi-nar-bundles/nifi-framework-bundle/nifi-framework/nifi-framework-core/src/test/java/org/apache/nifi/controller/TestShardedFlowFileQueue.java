@@ -0,0 +1,619 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.annotation.behavior.PrioritizesByQueueDate;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.queue.DropFlowFileState;
+import org.apache.nifi.controller.queue.DropFlowFileStatus;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestShardedFlowFileQueue {
+    private static final int SEGMENT_COUNT = 4;
+
+    private TestSwapManager swapManager = null;
+    private ShardedFlowFileQueue queue = null;
+
+    @Before
+    public void setup() {
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getSource()).thenReturn(Mockito.mock(Connectable.class));
+        Mockito.when(connection.getDestination()).thenReturn(Mockito.mock(Connectable.class));
+
+        final ProcessScheduler scheduler = Mockito.mock(ProcessScheduler.class);
+        swapManager = new TestSwapManager();
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        final ProvenanceEventRepository provRepo = Mockito.mock(ProvenanceEventRepository.class);
+        final ResourceClaimManager claimManager = Mockito.mock(ResourceClaimManager.class);
+
+        Mockito.when(provRepo.eventBuilder()).thenReturn(new StandardProvenanceEventRecord.Builder());
+
+        queue = new ShardedFlowFileQueue("id", connection, flowFileRepo, provRepo, claimManager, scheduler, swapManager, null, 10000, SEGMENT_COUNT);
+        TestFlowFile.idGenerator.set(0L);
+    }
+
+    @Test
+    public void testPutAndPollAcrossSegments() {
+        for (int i = 0; i < 100; i++) {
+            queue.put(new TestFlowFile());
+        }
+
+        assertEquals(100, queue.size().getObjectCount());
+        assertEquals(100, queue.getActiveQueueSize().getObjectCount());
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        final Set<Long> polledIds = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final FlowFileRecord flowFile = queue.poll(expired);
+            assertNotNull(flowFile);
+            assertTrue(polledIds.add(flowFile.getId()));
+        }
+
+        assertNull(queue.poll(expired));
+        assertTrue(expired.isEmpty());
+        assertEquals(0, queue.getActiveQueueSize().getObjectCount());
+        assertEquals(100, queue.getUnacknowledgedQueueSize().getObjectCount());
+        assertEquals(100, queue.size().getObjectCount());
+        assertTrue(queue.isActiveQueueEmpty());
+        assertTrue(!queue.isEmpty());
+
+        final List<FlowFileRecord> toAcknowledge = new ArrayList<>();
+        for (final Long id : polledIds) {
+            toAcknowledge.add(new TestFlowFile(id));
+        }
+        queue.acknowledge(toAcknowledge);
+
+        assertEquals(0, queue.getUnacknowledgedQueueSize().getObjectCount());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPollMultiple() {
+        for (int i = 0; i < 100; i++) {
+            queue.put(new TestFlowFile());
+        }
+
+        final List<FlowFileRecord> flowFiles = queue.poll(60, new HashSet<FlowFileRecord>());
+        assertEquals(60, flowFiles.size());
+        assertEquals(40, queue.getActiveQueueSize().getObjectCount());
+        assertEquals(60, queue.getUnacknowledgedQueueSize().getObjectCount());
+
+        final List<FlowFileRecord> remaining = queue.poll(Integer.MAX_VALUE, new HashSet<FlowFileRecord>());
+        assertEquals(40, remaining.size());
+        assertEquals(0, queue.getActiveQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testPollWithFilter() {
+        for (int i = 0; i < 100; i++) {
+            queue.put(new TestFlowFile(i));
+        }
+
+        final List<FlowFileRecord> evenSized = queue.poll(new FlowFileFilter() {
+            @Override
+            public FlowFileFilterResult filter(final FlowFile flowFile) {
+                return flowFile.getSize() % 2 == 0 ? FlowFileFilterResult.ACCEPT_AND_CONTINUE : FlowFileFilterResult.REJECT_AND_CONTINUE;
+            }
+        }, new HashSet<FlowFileRecord>());
+
+        assertEquals(50, evenSized.size());
+        for (final FlowFileRecord flowFile : evenSized) {
+            assertEquals(0, flowFile.getSize() % 2);
+        }
+
+        assertEquals(50, queue.getActiveQueueSize().getObjectCount());
+        assertEquals(50, queue.getUnacknowledgedQueueSize().getObjectCount());
+
+        final List<FlowFileRecord> single = queue.poll(new FlowFileFilter() {
+            @Override
+            public FlowFileFilterResult filter(final FlowFile flowFile) {
+                return FlowFileFilterResult.ACCEPT_AND_TERMINATE;
+            }
+        }, new HashSet<FlowFileRecord>());
+        assertEquals(1, single.size());
+        assertEquals(49, queue.getActiveQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testExpire() {
+        queue.setFlowFileExpiration("1 ms");
+
+        for (int i = 0; i < 100; i++) {
+            queue.put(new TestFlowFile());
+        }
+
+        // just make sure that the flowfiles have time to expire.
+        try {
+            Thread.sleep(100L);
+        } catch (final InterruptedException ie) {
+        }
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>(100);
+        final FlowFileRecord pulled = queue.poll(expiredRecords);
+
+        assertNull(pulled);
+        assertEquals(100, expiredRecords.size());
+
+        final QueueSize activeSize = queue.getActiveQueueSize();
+        assertEquals(0, activeSize.getObjectCount());
+        assertEquals(0L, activeSize.getByteCount());
+
+        final QueueSize unackSize = queue.getUnacknowledgedQueueSize();
+        assertEquals(0, unackSize.getObjectCount());
+        assertEquals(0L, unackSize.getByteCount());
+    }
+
+    @Test
+    public void testPrioritizerCollapsesSegments() {
+        for (int i = 0; i < 1000; i++) {
+            queue.put(new TestFlowFile(1000 - i));
+        }
+
+        assertEquals(SEGMENT_COUNT, queue.getActiveSegmentCount());
+
+        final List<FlowFilePrioritizer> prioritizers = new ArrayList<>();
+        prioritizers.add(new FlowFileSizePrioritizer());
+        queue.setPriorities(prioritizers);
+        assertEquals(1, queue.getActiveSegmentCount());
+        assertEquals(1000, queue.getActiveQueueSize().getObjectCount());
+
+        for (int i = 0; i < 1000; i++) {
+            queue.put(new TestFlowFile(2000 - i));
+        }
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        long lastSize = -1L;
+        for (int i = 0; i < 2000; i++) {
+            final FlowFileRecord flowFile = queue.poll(expired);
+            assertTrue(flowFile.getSize() >= lastSize);
+            lastSize = flowFile.getSize();
+        }
+
+        queue.setPriorities(Collections.<FlowFilePrioritizer> emptyList());
+        assertEquals(SEGMENT_COUNT, queue.getActiveSegmentCount());
+    }
+
+    @Test
+    public void testQueueDatePrioritizerKeepsSegments() {
+        final List<FlowFilePrioritizer> prioritizers = new ArrayList<>();
+        prioritizers.add(new QueueDatePrioritizer());
+        queue.setPriorities(prioritizers);
+        assertEquals(SEGMENT_COUNT, queue.getActiveSegmentCount());
+
+        prioritizers.add(new FlowFileSizePrioritizer());
+        queue.setPriorities(prioritizers);
+        assertEquals(1, queue.getActiveSegmentCount());
+    }
+
+    @Test
+    public void testSwapInDistributedAcrossSegments() {
+        // each of the 4 segments holds up to 2,500 FlowFiles; the next 10,000 are swapped out
+        for (int i = 0; i < 20000; i++) {
+            queue.put(new TestFlowFile());
+        }
+        assertEquals(1, swapManager.swapOutCalledCount);
+
+        // drain until a segment empties and the swap file is swapped in
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        while (swapManager.swapInCalledCount == 0) {
+            assertNotNull(queue.poll(expired));
+        }
+
+        // the swapped-in FlowFiles are spread over the segments rather than all placed in the one that emptied
+        int maxActiveCount = 0;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            maxActiveCount = Math.max(maxActiveCount, queue.getActiveCount(i));
+        }
+        assertTrue("Largest segment holds " + maxActiveCount + " FlowFiles", maxActiveCount < 10000);
+
+        while (queue.poll(expired) != null) {
+        }
+        assertEquals(20000, queue.getUnacknowledgedQueueSize().getObjectCount());
+        assertTrue(queue.isActiveQueueEmpty());
+    }
+
+    @Test(timeout = 20000)
+    public void testSwapInHonorsPrioritizer() throws InterruptedException {
+        final List<FlowFilePrioritizer> prioritizers = new ArrayList<>();
+        prioritizers.add(new FlowFileSizePrioritizer());
+        queue.setPriorities(prioritizers);
+        assertEquals(1, queue.getActiveSegmentCount());
+
+        // the single active segment holds the 10,000 smallest; the largest are swapped out
+        for (int i = 0; i < 20000; i++) {
+            queue.put(new TestFlowFile((long) i));
+        }
+        assertEquals(1, swapManager.swapOutCalledCount);
+
+        // poll from threads that map to every segment, including the inactive ones, which must not
+        // take the swapped-in FlowFiles ahead of the ones already queued
+        final List<Thread> pollers = new ArrayList<>();
+        final Set<Long> segmentsCovered = new HashSet<>();
+        final List<FlowFileRecord> polled = Collections.synchronizedList(new ArrayList<FlowFileRecord>());
+        while (segmentsCovered.size() < SEGMENT_COUNT) {
+            final Thread poller = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Set<FlowFileRecord> expired = new HashSet<>();
+                    for (int i = 0; i < 20000 / SEGMENT_COUNT; i++) {
+                        polled.add(queue.poll(expired));
+                    }
+                }
+            });
+            if (segmentsCovered.add(poller.getId() % SEGMENT_COUNT)) {
+                pollers.add(poller);
+            }
+        }
+
+        for (final Thread poller : pollers) {
+            poller.start();
+            poller.join();
+        }
+
+        assertEquals(20000, polled.size());
+        assertEquals(1, swapManager.swapInCalledCount);
+        for (int i = 0; i < polled.size(); i++) {
+            assertNotNull(polled.get(i));
+            assertEquals(i, polled.get(i).getSize());
+        }
+    }
+
+    @Test
+    public void testSwapOutAndSwapIn() {
+        // each of the 4 segments holds up to 2,500 FlowFiles; the rest overflow.
+        for (int i = 0; i < 10000; i++) {
+            queue.put(new TestFlowFile());
+        }
+        assertEquals(0, swapManager.swapOutCalledCount);
+        assertEquals(10000, queue.getActiveQueueSize().getObjectCount());
+
+        for (int i = 0; i < 10000; i++) {
+            queue.put(new TestFlowFile());
+        }
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(20000, queue.size().getObjectCount());
+        assertEquals(10000, queue.getActiveQueueSize().getObjectCount());
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        final Set<Long> polledIds = new HashSet<>();
+        FlowFileRecord flowFile;
+        while ((flowFile = queue.poll(expired)) != null) {
+            assertTrue(polledIds.add(flowFile.getId()));
+        }
+
+        assertEquals(20000, polledIds.size());
+        assertEquals(1, swapManager.swapInCalledCount);
+        assertTrue(swapManager.swappedOut.isEmpty());
+        assertEquals(0, queue.getActiveQueueSize().getObjectCount());
+        assertEquals(20000, queue.getUnacknowledgedQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testRecoverSwappedFlowFiles() {
+        final List<FlowFileRecord> swapped = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            swapped.add(new TestFlowFile());
+        }
+        swapManager.swappedOut.put("swap-1", swapped);
+
+        assertEquals(Long.valueOf(99L), queue.recoverSwappedFlowFiles());
+        assertEquals(100, queue.size().getObjectCount());
+        assertTrue(!queue.isActiveQueueEmpty());
+
+        final List<FlowFileRecord> polled = queue.poll(Integer.MAX_VALUE, new HashSet<FlowFileRecord>());
+        assertEquals(100, polled.size());
+        assertEquals(1, swapManager.swapInCalledCount);
+    }
+
+    @Test(timeout = 20000)
+    public void testDropSwappedFlowFiles() {
+        for (int i = 1; i <= 210000; i++) {
+            queue.put(new TestFlowFile());
+        }
+
+        assertEquals(20, swapManager.swappedOut.size());
+        final DropFlowFileStatus status = queue.dropFlowFiles("1", "Unit Test");
+        while (status.getState() != DropFlowFileState.COMPLETE) {
+            try {
+                Thread.sleep(100L);
+            } catch (final Exception e) {
+            }
+        }
+
+        assertEquals(0, queue.size().getObjectCount());
+        assertEquals(0, queue.size().getByteCount());
+        assertEquals(0, swapManager.swappedOut.size());
+        assertEquals(20, swapManager.swapInCalledCount);
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentPutAndPoll() throws InterruptedException {
+        final int threadCount = 8;
+        final int flowFilesPerThread = 25000;
+        final CountDownLatch producersDone = new CountDownLatch(threadCount);
+        final AtomicInteger polledCount = new AtomicInteger(0);
+        final Set<Long> polledIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < flowFilesPerThread; j++) {
+                        queue.put(new TestFlowFile());
+                    }
+                    producersDone.countDown();
+                }
+            }));
+
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Set<FlowFileRecord> expired = new HashSet<>();
+                    while (polledCount.get() < threadCount * flowFilesPerThread) {
+                        final FlowFileRecord flowFile = queue.poll(expired);
+                        if (flowFile == null) {
+                            continue;
+                        }
+
+                        polledIds.add(flowFile.getId());
+                        polledCount.incrementAndGet();
+                        queue.acknowledge(flowFile);
+                    }
+                }
+            }));
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        assertTrue(producersDone.await(30, TimeUnit.SECONDS));
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threadCount * flowFilesPerThread, polledIds.size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getUnacknowledgedQueueSize().getObjectCount());
+    }
+
+    private class TestSwapManager implements FlowFileSwapManager {
+        private final Map<String, List<FlowFileRecord>> swappedOut = new HashMap<>();
+        int swapOutCalledCount = 0;
+        int swapInCalledCount = 0;
+
+        @Override
+        public void initialize(final SwapManagerInitializationContext initializationContext) {
+
+        }
+
+        @Override
+        public String swapOut(List<FlowFileRecord> flowFiles, FlowFileQueue flowFileQueue) throws IOException {
+            swapOutCalledCount++;
+            final String location = UUID.randomUUID().toString();
+            swappedOut.put(location, new ArrayList<FlowFileRecord>(flowFiles));
+            return location;
+        }
+
+        @Override
+        public List<FlowFileRecord> peek(String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            return new ArrayList<FlowFileRecord>(swappedOut.get(swapLocation));
+        }
+
+        @Override
+        public List<FlowFileRecord> swapIn(String swapLocation, FlowFileQueue flowFileQueue) throws IOException {
+            swapInCalledCount++;
+            return swappedOut.remove(swapLocation);
+        }
+
+        @Override
+        public List<String> recoverSwapLocations(FlowFileQueue flowFileQueue) throws IOException {
+            return new ArrayList<String>(swappedOut.keySet());
+        }
+
+        @Override
+        public QueueSize getSwapSize(String swapLocation) throws IOException {
+            final List<FlowFileRecord> flowFiles = swappedOut.get(swapLocation);
+            if (flowFiles == null) {
+                return new QueueSize(0, 0L);
+            }
+
+            int count = 0;
+            long size = 0L;
+            for (final FlowFileRecord flowFile : flowFiles) {
+                count++;
+                size += flowFile.getSize();
+            }
+
+            return new QueueSize(count, size);
+        }
+
+        @Override
+        public Long getMaxRecordId(String swapLocation) throws IOException {
+            final List<FlowFileRecord> flowFiles = swappedOut.get(swapLocation);
+            if (flowFiles == null) {
+                return null;
+            }
+
+            Long max = null;
+            for (final FlowFileRecord flowFile : flowFiles) {
+                if (max == null || flowFile.getId() > max) {
+                    max = flowFile.getId();
+                }
+            }
+
+            return max;
+        }
+
+        @Override
+        public void purge() {
+            swappedOut.clear();
+        }
+    }
+
+
+    private static class TestFlowFile implements FlowFileRecord {
+        private static final AtomicLong idGenerator = new AtomicLong(0L);
+
+        private final long id;
+        private final long entryDate = System.currentTimeMillis();
+        private final Map<String, String> attributes;
+        private final long size;
+
+        public TestFlowFile() {
+            this(1L);
+        }
+
+        public TestFlowFile(final long size) {
+            this(idGenerator.getAndIncrement(), new HashMap<String, String>(), size);
+        }
+
+        public TestFlowFile(final Long id) {
+            this(id, new HashMap<String, String>(), 1L);
+        }
+
+        public TestFlowFile(final long id, final Map<String, String> attributes, final long size) {
+            this.id = id;
+            this.attributes = attributes;
+            this.size = size;
+
+            if (!attributes.containsKey(CoreAttributes.UUID.key())) {
+                attributes.put(CoreAttributes.UUID.key(), UUID.randomUUID().toString());
+            }
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public long getEntryDate() {
+            return entryDate;
+        }
+
+        @Override
+        public long getLineageStartDate() {
+            return entryDate;
+        }
+
+        @Override
+        public Long getLastQueueDate() {
+            return null;
+        }
+
+        @Override
+        public Set<String> getLineageIdentifiers() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public boolean isPenalized() {
+            return false;
+        }
+
+        @Override
+        public String getAttribute(String key) {
+            return attributes.get(key);
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public Map<String, String> getAttributes() {
+            return Collections.unmodifiableMap(attributes);
+        }
+
+        @Override
+        public int compareTo(final FlowFile o) {
+            return Long.compare(id, o.getId());
+        }
+
+        @Override
+        public long getPenaltyExpirationMillis() {
+            return 0;
+        }
+
+        @Override
+        public ContentClaim getContentClaim() {
+            return null;
+        }
+
+        @Override
+        public long getContentClaimOffset() {
+            return 0;
+        }
+    }
+
+    @PrioritizesByQueueDate
+    private static class QueueDatePrioritizer implements FlowFilePrioritizer {
+        @Override
+        public int compare(final FlowFile o1, final FlowFile o2) {
+            return o1.getLastQueueDate().compareTo(o2.getLastQueueDate());
+        }
+    }
+
+    private static class FlowFileSizePrioritizer implements FlowFilePrioritizer {
+        @Override
+        public int compare(final FlowFile o1, final FlowFile o2) {
+            return Long.compare(o1.getSize(), o2.getSize());
+        }
+    }
+}
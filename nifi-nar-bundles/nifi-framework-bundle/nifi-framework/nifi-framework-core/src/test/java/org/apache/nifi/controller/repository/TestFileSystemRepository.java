@@ -29,6 +29,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -36,10 +38,13 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.io.MappedFileInputStream;
 import org.apache.nifi.controller.repository.util.DiskUtils;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.junit.After;
@@ -388,6 +393,104 @@ public class TestFileSystemRepository {
         assertTrue(repository.remove(claim));
     }
 
+    @Test
+    public void testReadFileChannelRegion() throws IOException {
+        final ContentClaim claim1 = repository.create(false);
+        try (final OutputStream out = repository.write(claim1)) {
+            out.write("Hello".getBytes());
+        }
+
+        final ContentClaim claim2 = repository.create(false);
+        assertEquals(claim1.getResourceClaim(), claim2.getResourceClaim());
+        try (final OutputStream out = repository.write(claim2)) {
+            out.write("The quick brown fox".getBytes());
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final boolean invoked = repository.read(claim2, 4L, 5L, new FileChannelCallback() {
+            @Override
+            public void process(final FileChannel channel, final long position, final long length) throws IOException {
+                assertEquals(claim2.getOffset() + 4L, position);
+                assertEquals(5L, length);
+                channel.transferTo(position, length, Channels.newChannel(baos));
+            }
+        });
+
+        assertTrue(invoked);
+        assertEquals("quick", baos.toString());
+    }
+
+    @Test
+    public void testMemoryMappedRead() throws IOException {
+        restartWithMemoryMapping(true);
+        try {
+            final ContentClaim claim1 = repository.create(false);
+            try (final OutputStream out = repository.write(claim1)) {
+                out.write("Hello".getBytes());
+            }
+
+            final ContentClaim claim2 = repository.create(false);
+            assertEquals(claim1.getResourceClaim(), claim2.getResourceClaim());
+            try (final OutputStream out = repository.write(claim2)) {
+                out.write(" World".getBytes());
+            }
+            assertEquals(5L, claim2.getOffset());
+
+            // the Resource Claim may still be appended to, so these claims are streamed
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (final InputStream in = repository.read(claim1)) {
+                StreamUtils.copy(in, baos);
+            }
+            assertEquals("Hello", baos.toString());
+
+            // write more than an appendable claim's worth of data so that the Resource Claim is closed
+            final byte[] data = new byte[3 * 1024 * 1024 + 17];
+            new Random(1L).nextBytes(data);
+            final ContentClaim claim3 = repository.create(false);
+            assertEquals(claim1.getResourceClaim(), claim3.getResourceClaim());
+            try (final OutputStream out = repository.write(claim3)) {
+                out.write(data);
+            }
+            assertEquals(data.length, claim3.getLength());
+            assertEquals(11L + data.length, Files.size(getPath(claim3)));
+
+            final ContentClaim claim4 = repository.create(false);
+            assertNotSame(claim1.getResourceClaim(), claim4.getResourceClaim());
+
+            // the small claims are now read out of a single mapping of the file, which closing a stream does not release
+            try (final InputStream in1 = repository.read(claim1); final InputStream in2 = repository.read(claim2)) {
+                assertTrue(in1 instanceof MappedFileInputStream);
+                assertTrue(in2 instanceof MappedFileInputStream);
+
+                baos.reset();
+                StreamUtils.copy(in1, baos);
+                assertEquals("Hello", baos.toString());
+                in1.close();
+
+                baos.reset();
+                StreamUtils.copy(in2, baos);
+                assertEquals(" World", baos.toString());
+            }
+
+            baos.reset();
+            try (final InputStream in = repository.read(claim3)) {
+                assertFalse(in instanceof MappedFileInputStream);
+                StreamUtils.copy(in, baos);
+            }
+            assertTrue(Arrays.equals(data, baos.toByteArray()));
+        } finally {
+            restartWithMemoryMapping(false);
+        }
+    }
+
+    private void restartWithMemoryMapping(final boolean memoryMapped) throws IOException {
+        repository.shutdown();
+        NiFiProperties.getInstance().setProperty(NiFiProperties.CONTENT_REPOSITORY_MEMORY_MAPPED, String.valueOf(memoryMapped));
+
+        repository = new FileSystemRepository();
+        repository.initialize(new StandardResourceClaimManager());
+    }
+
     @Test
     public void testMergeWithHeaderFooterDemarcator() throws IOException {
         testMerge("HEADER", "FOOTER", "DEMARCATOR");
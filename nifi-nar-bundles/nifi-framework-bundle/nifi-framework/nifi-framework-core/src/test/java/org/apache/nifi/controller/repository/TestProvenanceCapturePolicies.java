@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.Test;
+
+public class TestProvenanceCapturePolicies {
+
+    private ProvenanceEventRecord createEvent(final ProvenanceEventType eventType, final String uuid) {
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder()
+            .setEventType(eventType)
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileUUID(uuid)
+            .setComponentId("1234")
+            .setComponentType("MyProcessor")
+            .setCurrentContentClaim(null, null, null, null, 0L);
+
+        if (eventType == ProvenanceEventType.SEND || eventType == ProvenanceEventType.RECEIVE) {
+            builder.setTransitUri("nifi://unit-test");
+        }
+        if (eventType == ProvenanceEventType.ROUTE) {
+            builder.setRelationship("success");
+        }
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", uuid);
+        builder.setAttributes(attributes, attributes);
+        return builder.build();
+    }
+
+    @Test
+    public void testNoPoliciesCapturesAll() {
+        final ProvenanceCapturePolicy policy = ProvenanceCapturePolicies.CAPTURE_ALL.getPolicy("1234", "MyProcessor");
+        assertTrue(policy.isCaptureAll());
+        assertTrue(policy.isCaptured(createEvent(ProvenanceEventType.ROUTE, UUID.randomUUID().toString())));
+    }
+
+    @Test
+    public void testTerminalAndEventTypePrecedence() {
+        final Map<String, String> policies = new HashMap<>();
+        policies.put("MyProcessor", "terminal");
+        policies.put("MyProcessor.ROUTE", "all");
+        policies.put("1234.SEND", "none");
+        policies.put("OtherProcessor", "none");
+
+        final ProvenanceCapturePolicy policy = new ProvenanceCapturePolicies(policies).getPolicy("1234", "MyProcessor");
+        assertFalse(policy.isCaptureAll());
+
+        final String uuid = UUID.randomUUID().toString();
+        assertTrue(policy.isCaptured(createEvent(ProvenanceEventType.RECEIVE, uuid)));
+        assertTrue(policy.isCaptured(createEvent(ProvenanceEventType.DROP, uuid)));
+        assertTrue(policy.isCaptured(createEvent(ProvenanceEventType.ROUTE, uuid)));
+        assertFalse(policy.isCaptured(createEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, uuid)));
+        assertFalse(policy.isCaptured(createEvent(ProvenanceEventType.SEND, uuid)));
+
+        // a different component of the same type gets the type's policy, without the component's overrides
+        final ProvenanceCapturePolicy otherPolicy = new ProvenanceCapturePolicies(policies).getPolicy("5678", "MyProcessor");
+        assertTrue(otherPolicy.isCaptured(createEvent(ProvenanceEventType.SEND, uuid)));
+
+        // a component with no policy captures all
+        assertTrue(new ProvenanceCapturePolicies(policies).getPolicy("5678", "ThirdProcessor").isCaptureAll());
+    }
+
+    @Test
+    public void testSampleIsConsistentPerFlowFile() {
+        final Map<String, String> policies = new HashMap<>();
+        policies.put("MyProcessor", "sample 1/10");
+        final ProvenanceCapturePolicy policy = new ProvenanceCapturePolicies(policies).getPolicy("1234", "MyProcessor");
+
+        int captured = 0;
+        for (int i = 0; i < 10000; i++) {
+            final String uuid = UUID.randomUUID().toString();
+            final boolean routeCaptured = policy.isCaptured(createEvent(ProvenanceEventType.ROUTE, uuid));
+            assertEquals(routeCaptured, policy.isCaptured(createEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, uuid)));
+            if (routeCaptured) {
+                captured++;
+            }
+        }
+
+        assertTrue("Captured " + captured + " of 10000 FlowFiles", captured > 700 && captured < 1300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPolicy() {
+        final Map<String, String> policies = new HashMap<>();
+        policies.put("MyProcessor", "sometimes");
+        new ProvenanceCapturePolicies(policies);
+    }
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -31,14 +32,21 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -63,6 +71,7 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -319,6 +328,32 @@ public class TestStandardProcessSession {
         assertDisabled(outputStreamHolder.get());
     }
 
+    @Test
+    public void testReadFileChannel() throws IOException {
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write("Hello, World".getBytes());
+            }
+        });
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final boolean invoked = session.read(flowFile, new FileChannelCallback() {
+            @Override
+            public void process(final FileChannel channel, final long position, final long length) throws IOException {
+                final WritableByteChannel destination = Channels.newChannel(baos);
+                long transferred = 0L;
+                while (transferred < length) {
+                    transferred += channel.transferTo(position + transferred, length - transferred, destination);
+                }
+            }
+        });
+
+        assertTrue(invoked);
+        assertEquals("Hello, World", new String(baos.toByteArray()));
+    }
+
     @Test
     public void testReadAfterSessionClosesStream() throws IOException {
         final ContentClaim claim = contentRepo.create(false);
@@ -1086,6 +1121,36 @@ public class TestStandardProcessSession {
         assertEquals(ProvenanceEventType.ATTRIBUTES_MODIFIED, event.getEventType());
     }
 
+    @Test
+    public void testProvenanceCapturePolicyDiscardsEvents() throws IOException {
+        final Map<String, String> policies = new HashMap<>();
+        policies.put("connectable-1.ATTRIBUTES_MODIFIED", "none");
+        final CounterRepository counterRepo = Mockito.mock(CounterRepository.class);
+        final ProcessContext policyContext = new ProcessContext(context.getConnectable(), new AtomicLong(0L), contentRepo, flowFileRepo,
+            Mockito.mock(FlowFileEventRepository.class), counterRepo, provenanceRepo, new ProvenanceCapturePolicies(policies));
+        final StandardProcessSession policySession = new StandardProcessSession(policyContext);
+
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+            .id(1L)
+            .addAttribute("uuid", "000000000000-0000-0000-0000-00000000")
+            .build();
+        this.flowFileQueue.put(flowFile);
+
+        FlowFile existingFlowFile = policySession.get();
+        existingFlowFile = policySession.putAttribute(existingFlowFile, "attr", "a");
+        policySession.transfer(existingFlowFile, new Relationship.Builder().name("A").build());
+        final FlowFile newFlowFile = policySession.create();
+        policySession.transfer(newFlowFile, new Relationship.Builder().name("A").build());
+        policySession.commit();
+
+        final List<ProvenanceEventRecord> events = provenanceRepo.getEvents(0L, 10000);
+        assertEquals(1, events.size());
+        assertEquals(ProvenanceEventType.CREATE, events.get(0).getEventType());
+
+        // the counter is adjusted for both the component and its type
+        Mockito.verify(counterRepo, Mockito.times(2)).adjustCounter(Mockito.anyString(), Mockito.eq(ProvenanceCapturePolicy.EVENTS_NOT_CAPTURED_COUNTER), Mockito.eq(1L));
+    }
+
     private static class MockFlowFileRepository implements FlowFileRepository {
         private boolean failOnUpdate = false;
         private final AtomicLong idGenerator = new AtomicLong(0L);
@@ -1148,7 +1213,7 @@ public class TestStandardProcessSession {
         }
     }
 
-    private static class MockContentRepository implements ContentRepository {
+    private static class MockContentRepository implements FileChannelContentRepository {
 
         private final AtomicLong idGenerator = new AtomicLong(0L);
         private final AtomicLong claimsRemoved = new AtomicLong(0L);
@@ -1326,6 +1391,24 @@ public class TestStandardProcessSession {
             }
         }
 
+        @Override
+        public boolean read(ContentClaim claim, long offset, long length, FileChannelCallback callback) throws IOException {
+            if (disableRead) {
+                throw new IOException("Reading from repo is disabled by unit test");
+            }
+
+            if (claim == null) {
+                return false;
+            }
+
+            try (final FileChannel channel = FileChannel.open(getPath(claim), StandardOpenOption.READ)) {
+                callback.process(channel, offset, length);
+            } catch (final NoSuchFileException nsfe) {
+                throw new ContentNotFoundException(claim, nsfe);
+            }
+            return true;
+        }
+
         @Override
         public OutputStream write(final ContentClaim claim) throws IOException {
             final Path path = getPath(claim);
@@ -21,8 +21,12 @@ import org.apache.nifi.controller.repository.StandardRepositoryRecord;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.repository.StandardFlowFileRecord;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -31,9 +35,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.util.file.FileUtils;
 
@@ -84,6 +92,14 @@ public class TestWriteAheadFlowFileRepository {
                 return null;
             }
         }).when(queue).put(any(FlowFileRecord.class));
+        doAnswer(new Answer<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                flowFileCollection.addAll((Collection<FlowFileRecord>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(queue).putAll(Mockito.<Collection<FlowFileRecord>> any());
 
         when(connection.getFlowFileQueue()).thenReturn(queue);
 
@@ -132,4 +148,188 @@ public class TestWriteAheadFlowFileRepository {
         repo2.close();
     }
 
+    @Test
+    public void testRestartWithChangedAttributes() throws IOException {
+        System.setProperty("nifi.properties.file.path", "src/test/resources/nifi.properties");
+        final Path path = Paths.get("target/test-repo");
+        if (Files.exists(path)) {
+            FileUtils.deleteFile(path.toFile(), true);
+        }
+
+        final WriteAheadFlowFileRepository repo = new WriteAheadFlowFileRepository();
+        repo.initialize(new StandardResourceClaimManager());
+
+        final List<Connection> connectionList = new ArrayList<>();
+        final QueueProvider queueProvider = new QueueProvider() {
+            @Override
+            public Collection<FlowFileQueue> getAllQueues() {
+                final List<FlowFileQueue> queueList = new ArrayList<>();
+                for (final Connection conn : connectionList) {
+                    queueList.add(conn.getFlowFileQueue());
+                }
+
+                return queueList;
+            }
+        };
+
+        repo.loadFlowFiles(queueProvider, 0L);
+
+        final List<FlowFileRecord> flowFileCollection = new ArrayList<>();
+
+        final Connection connection = Mockito.mock(Connection.class);
+        when(connection.getIdentifier()).thenReturn("1234");
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getIdentifier()).thenReturn("1234");
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                flowFileCollection.add((FlowFileRecord) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(queue).put(any(FlowFileRecord.class));
+        doAnswer(new Answer<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                flowFileCollection.addAll((Collection<FlowFileRecord>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(queue).putAll(Mockito.<Collection<FlowFileRecord>> any());
+
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        connectionList.add(connection);
+
+        // create several FlowFiles that share the same attribute keys
+        final List<FlowFileRecord> created = new ArrayList<>();
+        final List<RepositoryRecord> createRecords = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+                .id(i)
+                .addAttribute("filename", "file-" + i)
+                .addAttribute("path", "./")
+                .addAttribute("removed", "yes")
+                .size(i)
+                .build();
+            created.add(flowFile);
+
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(null);
+            record.setWorking(flowFile);
+            record.setDestination(queue);
+            createRecords.add(record);
+        }
+        repo.updateRepository(createRecords);
+
+        // update each FlowFile in a new record, as a session would, so that only the changed attributes are written
+        final List<RepositoryRecord> updateRecords = new ArrayList<>();
+        for (final FlowFileRecord flowFile : created) {
+            final FlowFileRecord updated = new StandardFlowFileRecord.Builder()
+                .fromFlowFile(flowFile)
+                .addAttribute("filename", "renamed-" + flowFile.getId())
+                .addAttribute("mime.type", "text/plain")
+                .removeAttributes("removed")
+                .build();
+
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(queue, flowFile);
+            record.setWorking(updated, "filename", updated.getAttribute("filename"));
+            record.setWorking(updated, "mime.type", "text/plain");
+            record.setWorking(updated, "removed", null);
+            record.setDestination(queue);
+            updateRecords.add(record);
+        }
+        repo.updateRepository(updateRecords);
+
+        repo.close();
+
+        // restore
+        final WriteAheadFlowFileRepository repo2 = new WriteAheadFlowFileRepository();
+        repo2.initialize(new StandardResourceClaimManager());
+        repo2.loadFlowFiles(queueProvider, 0L);
+
+        assertEquals(3, flowFileCollection.size());
+        for (final FlowFileRecord flowFile : flowFileCollection) {
+            assertEquals("renamed-" + flowFile.getId(), flowFile.getAttribute("filename"));
+            assertEquals("./", flowFile.getAttribute("path"));
+            assertEquals("text/plain", flowFile.getAttribute("mime.type"));
+            assertNull(flowFile.getAttribute("removed"));
+            assertEquals(flowFile.getId(), flowFile.getSize());
+        }
+
+        repo2.close();
+    }
+
+    @Test
+    public void testClaimsOfUpdateWrittenAfterSyncAreNotDestroyed() throws Exception {
+        System.setProperty("nifi.properties.file.path", "src/test/resources/nifi.properties");
+        final Path path = Paths.get("target/test-repo");
+        if (Files.exists(path)) {
+            FileUtils.deleteFile(path.toFile(), true);
+        }
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getIdentifier()).thenReturn("1234");
+
+        final StandardResourceClaimManager claimManager = Mockito.spy(new StandardResourceClaimManager());
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim("container", "section", "1", false);
+        final FlowFileRecord deleted = new StandardFlowFileRecord.Builder().id(1L).size(10L)
+            .contentClaim(new StandardContentClaim(resourceClaim, 0L)).build();
+        final FlowFileRecord swapped = new StandardFlowFileRecord.Builder().id(2L).size(0L).build();
+
+        final StandardRepositoryRecord createRecord = new StandardRepositoryRecord(null);
+        createRecord.setWorking(deleted);
+        createRecord.setDestination(queue);
+
+        final StandardRepositoryRecord deleteRecord = new StandardRepositoryRecord(queue, deleted);
+        deleteRecord.markForDelete();
+
+        // Once the swap out below has synced the partition, but before the repository is notified, another thread
+        // deletes a FlowFile without syncing. Its claim must not be destroyed until that update is synced.
+        final AtomicBoolean interleaved = new AtomicBoolean(false);
+        final WriteAheadFlowFileRepository repo = new WriteAheadFlowFileRepository() {
+            @Override
+            public void onSync(final int partitionIndex) {
+                if (interleaved.compareAndSet(false, true)) {
+                    final WriteAheadFlowFileRepository repository = this;
+                    final Thread deleteThread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                repository.updateRepository(Collections.<RepositoryRecord> singletonList(deleteRecord));
+                            } catch (final IOException ioe) {
+                                throw new RuntimeException(ioe);
+                            }
+                        }
+                    });
+                    deleteThread.start();
+                    try {
+                        deleteThread.join();
+                    } catch (final InterruptedException ie) {
+                        throw new RuntimeException(ie);
+                    }
+                }
+
+                super.onSync(partitionIndex);
+            }
+        };
+
+        repo.initialize(claimManager);
+        repo.loadFlowFiles(new QueueProvider() {
+            @Override
+            public Collection<FlowFileQueue> getAllQueues() {
+                return Collections.singletonList(queue);
+            }
+        }, 0L);
+
+        repo.updateRepository(Collections.<RepositoryRecord> singletonList(createRecord));
+        repo.swapFlowFilesOut(Collections.singletonList(swapped), queue, "swap-location");
+        assertTrue(interleaved.get());
+
+        verify(claimManager, never()).markDestructable(resourceClaim);
+
+        // a checkpoint makes every update durable, so the claim can now be destroyed
+        repo.checkpoint();
+        verify(claimManager).markDestructable(resourceClaim);
+
+        repo.close();
+    }
 }
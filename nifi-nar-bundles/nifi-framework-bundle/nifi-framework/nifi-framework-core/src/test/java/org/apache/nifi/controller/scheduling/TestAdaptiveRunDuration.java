@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.util.Connectables;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestAdaptiveRunDuration {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final AdaptiveRunDuration adaptive = new AdaptiveRunDuration(100L, TimeUnit.MILLISECONDS);
+
+    @Test
+    public void testGrowsWhenCommitDominates() {
+        assertEquals(MILLI, adaptive.nextRunNanos(0L, 10L, 1000L, false));
+        assertEquals(2 * MILLI, adaptive.nextRunNanos(MILLI, 10L, 1000L, false));
+        assertEquals(64 * MILLI, adaptive.nextRunNanos(32 * MILLI, 10L, 1000L, false));
+        assertEquals(100 * MILLI, adaptive.nextRunNanos(64 * MILLI, 10L, 1000L, false));
+        assertEquals(100 * MILLI, adaptive.nextRunNanos(100 * MILLI, 10L, 1000L, false));
+    }
+
+    @Test
+    public void testShrinksWhenDownstreamEmpty() {
+        assertEquals(32 * MILLI, adaptive.nextRunNanos(64 * MILLI, 10L, 1000L, true));
+        assertEquals(MILLI, adaptive.nextRunNanos(2 * MILLI, 1000L, 10L, true));
+        assertEquals(0L, adaptive.nextRunNanos(MILLI, 1000L, 10L, true));
+        assertEquals(0L, adaptive.nextRunNanos(0L, 1000L, 10L, true));
+    }
+
+    @Test
+    public void testUnchangedWhenTriggerDominates() {
+        assertEquals(8 * MILLI, adaptive.nextRunNanos(8 * MILLI, 1000L, 10L, false));
+        assertEquals(100 * MILLI, adaptive.nextRunNanos(500 * MILLI, 1000L, 10L, false));
+    }
+
+    @Test
+    public void testAdaptsOnlyBatchingProcessorsWhenEnabled() {
+        final ProcessorNode batching = Mockito.mock(ProcessorNode.class);
+        Mockito.when(batching.isHighThroughputSupported()).thenReturn(true);
+        final ProcessorNode nonBatching = Mockito.mock(ProcessorNode.class);
+
+        assertTrue(adaptive.isAdapted(batching));
+        assertFalse(adaptive.isAdapted(nonBatching));
+        assertFalse(AdaptiveRunDuration.DISABLED.isAdapted(batching));
+    }
+
+    @Test
+    public void testOnBatchCompleteUpdatesProcessor() {
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        Mockito.when(procNode.getEffectiveRunDuration(TimeUnit.NANOSECONDS)).thenReturn(4 * MILLI);
+
+        assertEquals(8 * MILLI, adaptive.onBatchComplete(procNode, 10L, 1000L, false));
+        Mockito.verify(procNode).setEffectiveRunDuration(8 * MILLI, TimeUnit.NANOSECONDS);
+    }
+
+    @Test
+    public void testDownstreamQueuesEmpty() {
+        final Connectable connectable = Mockito.mock(Connectable.class);
+        final Connection emptyConnection = createConnection(true);
+        final Connection fullConnection = createConnection(false);
+
+        // no outgoing connections: nothing downstream is waiting
+        Mockito.when(connectable.getConnections()).thenReturn(Collections.<Connection> emptySet());
+        assertFalse(Connectables.downstreamQueuesEmpty(connectable));
+
+        Mockito.when(connectable.getConnections()).thenReturn(Collections.singleton(emptyConnection));
+        assertTrue(Connectables.downstreamQueuesEmpty(connectable));
+
+        Mockito.when(connectable.getConnections()).thenReturn(new HashSet<>(Arrays.asList(emptyConnection, fullConnection)));
+        assertFalse(Connectables.downstreamQueuesEmpty(connectable));
+
+        // a self-loop is not downstream
+        final Connection selfLoop = createConnection(false);
+        Mockito.when(selfLoop.getDestination()).thenReturn(connectable);
+        Mockito.when(connectable.getConnections()).thenReturn(new HashSet<>(Arrays.asList(emptyConnection, selfLoop)));
+        assertTrue(Connectables.downstreamQueuesEmpty(connectable));
+    }
+
+    private Connection createConnection(final boolean empty) {
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.isActiveQueueEmpty()).thenReturn(empty);
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getFlowFileQueue()).thenReturn(queue);
+        return connection;
+    }
+}
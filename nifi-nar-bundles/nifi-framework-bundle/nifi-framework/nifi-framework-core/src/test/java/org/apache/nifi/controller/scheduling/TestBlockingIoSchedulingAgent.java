@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestBlockingIoSchedulingAgent {
+
+    private BlockingIoSchedulingAgent agent;
+
+    @Before
+    public void setup() {
+        System.setProperty("nifi.properties.file.path", "src/test/resources/nifi.properties");
+        agent = new BlockingIoSchedulingAgent(null, Mockito.mock(ProcessContextFactory.class), null,
+            new HashSet<>(Arrays.asList("BlockingProcessor", "1234")));
+    }
+
+    @After
+    public void cleanup() {
+        agent.shutdown();
+    }
+
+    @Test
+    public void testGetConfiguredComponents() {
+        final NiFiProperties properties = NiFiProperties.getInstance();
+        try {
+            assertTrue(BlockingIoSchedulingAgent.getConfiguredComponents(properties).isEmpty());
+
+            properties.setProperty(NiFiProperties.BLOCKING_IO_PROCESSORS, " InvokeHTTP, PutSQL,,1234 ");
+            final Set<String> components = BlockingIoSchedulingAgent.getConfiguredComponents(properties);
+            assertEquals(new HashSet<>(Arrays.asList("InvokeHTTP", "PutSQL", "1234")), components);
+        } finally {
+            properties.remove(NiFiProperties.BLOCKING_IO_PROCESSORS);
+        }
+    }
+
+    @Test
+    public void testIsBlockingIo() {
+        assertTrue(agent.isBlockingIo(createProcessor("5678", new BlockingProcessor(), 1)));
+        assertTrue(agent.isBlockingIo(createProcessor("1234", new OtherProcessor(), 1)));
+        assertFalse(agent.isBlockingIo(createProcessor("5678", new OtherProcessor(), 1)));
+
+        final Connectable port = Mockito.mock(Connectable.class);
+        Mockito.when(port.getIdentifier()).thenReturn("1234");
+        assertFalse(agent.isBlockingIo(port));
+    }
+
+    @Test
+    public void testPoolSizedByConcurrentTasks() {
+        final ProcessorNode first = createProcessor("1234", new OtherProcessor(), 10);
+        final ProcessorNode second = createProcessor("5678", new BlockingProcessor(), 25);
+        final ScheduleState firstState = new ScheduleState();
+        final ScheduleState secondState = new ScheduleState();
+
+        agent.schedule(first, firstState);
+        assertEquals(10, agent.getPoolSize());
+        agent.schedule(second, secondState);
+        assertEquals(35, agent.getPoolSize());
+
+        agent.unschedule(first, firstState);
+        assertEquals(25, agent.getPoolSize());
+        agent.unschedule(second, secondState);
+        assertEquals(0, agent.getPoolSize());
+
+        // unscheduling a processor that is not scheduled does not change the pool
+        agent.unschedule(second, secondState);
+        assertEquals(0, agent.getPoolSize());
+    }
+
+    private ProcessorNode createProcessor(final String id, final AbstractProcessor processor, final int concurrentTasks) {
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        Mockito.when(procNode.getIdentifier()).thenReturn(id);
+        Mockito.when(procNode.getProcessor()).thenReturn(processor);
+        Mockito.when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        Mockito.when(procNode.getMaxConcurrentTasks()).thenReturn(concurrentTasks);
+        Mockito.when(procNode.getSchedulingPeriod(TimeUnit.NANOSECONDS)).thenReturn(TimeUnit.SECONDS.toNanos(1L));
+        // keep the processor yielded so that its tasks never trigger it
+        Mockito.when(procNode.getYieldExpiration()).thenReturn(Long.MAX_VALUE);
+        return procNode;
+    }
+
+    public static class BlockingProcessor extends AbstractProcessor {
+        @Override
+        public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+        }
+    }
+
+    public static class OtherProcessor extends AbstractProcessor {
+        @Override
+        public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.groups.ProcessGroup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestProcessGroupThreadPools {
+
+    private ProcessGroupThreadPools threadPools;
+    private ProcessGroup root;
+    private ProcessGroup child;
+    private ProcessGroup grandchild;
+
+    @Before
+    public void setup() {
+        System.setProperty("nifi.properties.file.path", "src/test/resources/nifi.properties");
+        threadPools = new ProcessGroupThreadPools(null, Mockito.mock(ProcessContextFactory.class), null);
+        root = createGroup("root", null);
+        child = createGroup("child", root);
+        grandchild = createGroup("grandchild", child);
+    }
+
+    @After
+    public void cleanup() {
+        threadPools.shutdown();
+    }
+
+    @Test
+    public void testNearestGroupWithPoolIsUsed() {
+        final Connectable inRoot = createProcessor(root);
+        final Connectable inGrandchild = createProcessor(grandchild);
+        assertNull(threadPools.getThreadPool(inGrandchild));
+
+        threadPools.setThreadCount(child, 2);
+        final ProcessGroupThreadPool childPool = threadPools.getThreadPool("child");
+        assertNotNull(childPool);
+        assertSame(childPool, threadPools.getThreadPool(inGrandchild));
+        assertNull(threadPools.getThreadPool(inRoot));
+
+        threadPools.setThreadCount(grandchild, 1);
+        assertSame(threadPools.getThreadPool("grandchild"), threadPools.getThreadPool(inGrandchild));
+
+        threadPools.setThreadCount(grandchild, 0);
+        assertSame(childPool, threadPools.getThreadPool(inGrandchild));
+    }
+
+    @Test
+    public void testResizeKeepsPool() {
+        threadPools.setThreadCount(child, 2);
+        final ProcessGroupThreadPool pool = threadPools.getThreadPool("child");
+        assertEquals(2, pool.getThreadCount());
+
+        threadPools.setThreadCount(child, 4);
+        assertSame(pool, threadPools.getThreadPool("child"));
+        assertEquals(4, pool.getThreadCount());
+    }
+
+    @Test
+    public void testRetiredPoolRunsScheduledComponentsUntilUnscheduled() {
+        threadPools.setThreadCount(child, 2);
+        final ProcessGroupThreadPool pool = threadPools.getThreadPool("child");
+        final ProcessorNode procNode = createProcessor(child);
+        final ScheduleState scheduleState = new ScheduleState();
+        pool.schedule(procNode, scheduleState);
+
+        threadPools.setThreadCount(child, 0);
+        assertNull(threadPools.getThreadPool("child"));
+        assertNull(threadPools.getThreadPool(procNode));
+        assertTrue(pool.isRetired());
+        assertFalse(pool.isShutdown());
+
+        pool.unschedule(procNode, scheduleState);
+        assertTrue(pool.isShutdown());
+    }
+
+    @Test
+    public void testRetiredIdlePoolIsShutdown() {
+        threadPools.setThreadCount(child, 2);
+        final ProcessGroupThreadPool pool = threadPools.getThreadPool("child");
+
+        threadPools.setThreadCount(child, 0);
+        assertTrue(pool.isShutdown());
+    }
+
+    @Test
+    public void testIdlePoolIsNotUtilized() {
+        threadPools.setThreadCount(child, 2);
+        assertEquals(0, threadPools.getThreadPool("child").getUtilization());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPoolRequiresThreads() {
+        new ProcessGroupThreadPool("child", 0, null, Mockito.mock(ProcessContextFactory.class), null);
+    }
+
+    private ProcessGroup createGroup(final String id, final ProcessGroup parent) {
+        final ProcessGroup group = Mockito.mock(ProcessGroup.class);
+        Mockito.when(group.getIdentifier()).thenReturn(id);
+        Mockito.when(group.getParent()).thenReturn(parent);
+        return group;
+    }
+
+    private ProcessorNode createProcessor(final ProcessGroup group) {
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        Mockito.when(procNode.getProcessGroup()).thenReturn(group);
+        Mockito.when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        Mockito.when(procNode.getMaxConcurrentTasks()).thenReturn(1);
+        Mockito.when(procNode.getSchedulingPeriod(TimeUnit.NANOSECONDS)).thenReturn(TimeUnit.SECONDS.toNanos(1L));
+        // keep the processor yielded so that its tasks never trigger it
+        Mockito.when(procNode.getYieldExpiration()).thenReturn(Long.MAX_VALUE);
+        return procNode;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestWorkStealingSchedulingAgent {
+
+    private FlowEngine flowEngine;
+    private WorkStealingSchedulingAgent agent;
+
+    @Before
+    public void setup() {
+        System.setProperty("nifi.properties.file.path", "src/test/resources/nifi.properties");
+        flowEngine = new FlowEngine(2, "Test Timer-Driven Process");
+        agent = new WorkStealingSchedulingAgent(null, flowEngine, Mockito.mock(ProcessContextFactory.class), null, 4);
+    }
+
+    @After
+    public void cleanup() {
+        agent.shutdown();
+    }
+
+    @Test(timeout = 20000)
+    public void testRunsOnlyWhenFlowFilesQueued() throws InterruptedException {
+        final AtomicBoolean queueEmpty = new AtomicBoolean(true);
+        final AtomicInteger triggerCount = new AtomicInteger(0);
+        final Connectable connectable = createConnectable(queueEmpty, triggerCount);
+        final ScheduleState scheduleState = new ScheduleState();
+        scheduleState.setScheduled(true);
+
+        agent.schedule(connectable, scheduleState);
+        Thread.sleep(200L);
+        assertEquals(0, triggerCount.get());
+
+        queueEmpty.set(false);
+        agent.onEvent(connectable);
+        while (triggerCount.get() < 10) {
+            Thread.sleep(10L);
+        }
+
+        final LatencyHistogram queueWaitHistogram = agent.getQueueWaitHistogram(connectable);
+        final LatencyHistogram runTimeHistogram = agent.getRunTimeHistogram(connectable);
+        assertNotNull(queueWaitHistogram);
+        assertNotNull(runTimeHistogram);
+        assertTrue(queueWaitHistogram.getCount() >= 10);
+        assertTrue(runTimeHistogram.getCount() >= 10);
+        assertTrue(runTimeHistogram.getMax(TimeUnit.NANOSECONDS) >= runTimeHistogram.getAverage(TimeUnit.NANOSECONDS));
+
+        scheduleState.setScheduled(false);
+        agent.unschedule(connectable, scheduleState);
+        Thread.sleep(100L);
+        final int stoppedCount = triggerCount.get();
+        Thread.sleep(200L);
+        assertEquals(stoppedCount, triggerCount.get());
+    }
+
+    @Test(timeout = 20000)
+    public void testIdleComponentWokenByMonitor() throws InterruptedException {
+        final AtomicBoolean queueEmpty = new AtomicBoolean(true);
+        final AtomicInteger triggerCount = new AtomicInteger(0);
+        final Connectable connectable = createConnectable(queueEmpty, triggerCount);
+        final ScheduleState scheduleState = new ScheduleState();
+        scheduleState.setScheduled(true);
+
+        agent.schedule(connectable, scheduleState);
+        Thread.sleep(100L);
+        assertEquals(0, triggerCount.get());
+
+        // no event is given to the agent, so the monitor must notice the queued FlowFiles
+        queueEmpty.set(false);
+        while (triggerCount.get() == 0) {
+            Thread.sleep(10L);
+        }
+
+        scheduleState.setScheduled(false);
+        agent.unschedule(connectable, scheduleState);
+    }
+
+    private Connectable createConnectable(final AtomicBoolean queueEmpty, final AtomicInteger triggerCount) {
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.isActiveQueueEmpty()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) throws Throwable {
+                return queueEmpty.get();
+            }
+        });
+
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getFlowFileQueue()).thenReturn(queue);
+
+        final Connectable connectable = Mockito.mock(Connectable.class);
+        Mockito.when(connectable.getConnectableType()).thenReturn(ConnectableType.OUTPUT_PORT);
+        Mockito.when(connectable.getMaxConcurrentTasks()).thenReturn(2);
+        Mockito.when(connectable.hasIncomingConnection()).thenReturn(true);
+        Mockito.when(connectable.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                triggerCount.incrementAndGet();
+                return null;
+            }
+        }).when(connectable).onTrigger(any(ProcessContext.class), any(ProcessSessionFactory.class));
+
+        return connectable;
+    }
+}
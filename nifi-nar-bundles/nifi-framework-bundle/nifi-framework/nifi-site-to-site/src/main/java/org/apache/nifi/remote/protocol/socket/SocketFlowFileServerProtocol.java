@@ -16,12 +16,14 @@
  */
 package org.apache.nifi.remote.protocol.socket;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -37,9 +39,11 @@ import org.apache.nifi.connectable.Port;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.FileChannelProcessSession;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.io.FileChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.remote.Peer;
 import org.apache.nifi.remote.PortAuthorizationResult;
@@ -49,10 +53,13 @@ import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
 import org.apache.nifi.remote.cluster.NodeInformant;
 import org.apache.nifi.remote.codec.FlowFileCodec;
+import org.apache.nifi.remote.codec.StandardFlowFileCodec;
 import org.apache.nifi.remote.exception.HandshakeException;
 import org.apache.nifi.remote.exception.ProtocolException;
 import org.apache.nifi.remote.io.CompressionInputStream;
 import org.apache.nifi.remote.io.CompressionOutputStream;
+import org.apache.nifi.remote.io.socket.SocketChannelOutput;
+import org.apache.nifi.remote.protocol.CommunicationsOutput;
 import org.apache.nifi.remote.protocol.CommunicationsSession;
 import org.apache.nifi.remote.protocol.DataPacket;
 import org.apache.nifi.remote.protocol.RequestType;
@@ -320,6 +327,19 @@ public class SocketFlowFileServerProtocol implements ServerProtocol {
         final Set<FlowFile> flowFilesSent = new HashSet<>();
         final CRC32 crc = new CRC32();
 
+        // If the connection is neither secure nor compressed, content can be sent directly from the
+        // Content Repository to the socket rather than being copied through the JVM heap. Peers that speak
+        // version 4 or later of the protocol verify a CRC32 checksum of the content, though, and calculating
+        // it means reading the content into the heap anyway, so for those peers the content is streamed as usual.
+        final CommunicationsOutput commsOutput = commsSession.getOutput();
+        final SocketChannelOutput channelOutput;
+        if (!useGzip && versionNegotiator.getVersion() <= 3 && commsOutput instanceof SocketChannelOutput && codec instanceof StandardFlowFileCodec
+            && session instanceof FileChannelProcessSession) {
+            channelOutput = (SocketChannelOutput) commsOutput;
+        } else {
+            channelOutput = null;
+        }
+
         // send data until we reach some batch size
         boolean continueTransaction = true;
         final long startNanos = System.nanoTime();
@@ -333,13 +353,27 @@ public class SocketFlowFileServerProtocol implements ServerProtocol {
             final StopWatch transferWatch = new StopWatch(true);
 
             final FlowFile toSend = flowFile;
-            session.read(flowFile, new InputStreamCallback() {
-                @Override
-                public void process(final InputStream in) throws IOException {
-                    final DataPacket dataPacket = new StandardDataPacket(toSend.getAttributes(), in, toSend.getSize());
-                    codec.encode(dataPacket, checkedOutputStream);
-                }
-            });
+            boolean transferredFromChannel = false;
+            if (channelOutput != null) {
+                transferredFromChannel = ((FileChannelProcessSession) session).read(flowFile, new FileChannelCallback() {
+                    @Override
+                    public void process(final FileChannel channel, final long position, final long length) throws IOException {
+                        final DataPacket header = new StandardDataPacket(toSend.getAttributes(), new ByteArrayInputStream(new byte[0]), toSend.getSize());
+                        ((StandardFlowFileCodec) codec).encodeHeader(header, checkedOutputStream);
+                        channelOutput.transferFrom(channel, position, length);
+                    }
+                });
+            }
+
+            if (!transferredFromChannel) {
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(final InputStream in) throws IOException {
+                        final DataPacket dataPacket = new StandardDataPacket(toSend.getAttributes(), in, toSend.getSize());
+                        codec.encode(dataPacket, checkedOutputStream);
+                    }
+                });
+            }
 
             final long transmissionMillis = transferWatch.getElapsed(TimeUnit.MILLISECONDS);
 
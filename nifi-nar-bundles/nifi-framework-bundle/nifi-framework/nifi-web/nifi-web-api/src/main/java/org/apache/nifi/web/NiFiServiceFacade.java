@@ -58,6 +58,7 @@ import org.apache.nifi.web.api.dto.action.ActionDTO;
 import org.apache.nifi.web.api.dto.action.HistoryDTO;
 import org.apache.nifi.web.api.dto.action.HistoryQueryDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventPageDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
@@ -171,6 +172,14 @@ public interface NiFiServiceFacade {
      */
     ProvenanceEventDTO getProvenanceEvent(Long id);
 
+    /**
+     * Gets a single page of the provenance events that match the specified request.
+     *
+     * @param provenanceEventPageDto request
+     * @return page of events
+     */
+    ProvenanceEventPageDTO getProvenanceEventPage(ProvenanceEventPageDTO provenanceEventPageDto);
+
     /**
      * Gets the configuration for this controller.
      *
@@ -122,6 +122,7 @@ import org.apache.nifi.web.api.dto.action.HistoryDTO;
 import org.apache.nifi.web.api.dto.action.HistoryQueryDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventPageDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
 import org.apache.nifi.web.api.dto.search.SearchResultsDTO;
@@ -1955,6 +1956,11 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         return controllerFacade.getProvenanceEvent(id);
     }
 
+    @Override
+    public ProvenanceEventPageDTO getProvenanceEventPage(final ProvenanceEventPageDTO provenanceEventPageDto) {
+        return controllerFacade.getProvenanceEventPage(provenanceEventPageDto);
+    }
+
     @Override
     public ProcessGroupStatusDTO getProcessGroupStatus(String groupId) {
         ProcessGroupStatusDTO statusReport;
@@ -67,6 +67,7 @@ import static org.apache.nifi.web.api.ApplicationResource.CLIENT_ID;
 import org.apache.nifi.web.api.dto.RevisionDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventPageDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
@@ -75,6 +76,7 @@ import org.apache.nifi.web.api.dto.provenance.lineage.LineageRequestDTO.LineageR
 import org.apache.nifi.web.api.entity.LineageEntity;
 import org.apache.nifi.web.api.entity.ProvenanceEntity;
 import org.apache.nifi.web.api.entity.ProvenanceEventEntity;
+import org.apache.nifi.web.api.entity.ProvenanceEventPageEntity;
 import org.apache.nifi.web.api.entity.ProvenanceOptionsEntity;
 import org.apache.nifi.web.api.request.ClientIdParameter;
 import org.apache.nifi.web.api.request.DateTimeParameter;
@@ -938,6 +940,107 @@ public class ProvenanceResource extends ApplicationResource {
         return clusterContext(generateOkResponse(entity)).build();
     }
 
+    /**
+     * Gets a single page of the provenance events that match the specified criteria, ordered by event id. Unlike a provenance
+     * request, nothing is retained between pages; the continuation token of each page is used to get the next.
+     *
+     * @param httpServletRequest request
+     * @param provenanceEventPageEntity A provenanceEventPageEntity
+     * @return A provenanceEventPageEntity
+     */
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Path("/event-pages")
+    @PreAuthorize("hasRole('ROLE_PROVENANCE')")
+    @ApiOperation(
+            value = "Gets a page of provenance events",
+            notes = "Gets the provenance events that match the specified criteria, one page at a time, ordered by event id. The response "
+                    + "includes a continuation token that is used to get the next page, which is null once there are no more events.",
+            response = ProvenanceEventPageEntity.class,
+            authorizations = {
+                @Authorization(value = "Provenance", type = "ROLE_PROVENANCE")
+            }
+    )
+    @ApiResponses(
+            value = {
+                @ApiResponse(code = 400, message = "NiFi was unable to complete the request because it was invalid. The request should not be retried without modification."),
+                @ApiResponse(code = 401, message = "Client could not be authenticated."),
+                @ApiResponse(code = 403, message = "Client is not authorized to make this request."),
+                @ApiResponse(code = 404, message = "The specified resource could not be found."),
+                @ApiResponse(code = 409, message = "The request was valid but NiFi was not in the appropriate state to process it. Retrying the same request later may be successful.")
+            }
+    )
+    public Response getProvenanceEventPage(
+            @Context HttpServletRequest httpServletRequest,
+            @ApiParam(
+                    value = "The criteria of the events and the page to get.",
+                    required = true
+            ) ProvenanceEventPageEntity provenanceEventPageEntity) {
+
+        // check the request
+        if (provenanceEventPageEntity == null) {
+            provenanceEventPageEntity = new ProvenanceEventPageEntity();
+        }
+
+        ProvenanceEventPageDTO pageDto = provenanceEventPageEntity.getProvenanceEventPage();
+        if (pageDto == null) {
+            pageDto = new ProvenanceEventPageDTO();
+            provenanceEventPageEntity.setProvenanceEventPage(pageDto);
+        }
+
+        // replicate if cluster manager
+        if (properties.isClusterManager()) {
+            // since the continuation token is specific to a node, we must specify the cluster node identifier
+            if (pageDto.getClusterNodeId() == null) {
+                throw new IllegalArgumentException("The cluster node identifier must be specified.");
+            }
+
+            // get the target node and ensure it exists
+            final Node targetNode = clusterManager.getNode(pageDto.getClusterNodeId());
+            if (targetNode == null) {
+                throw new UnknownNodeException("The specified cluster node does not exist.");
+            }
+
+            final Set<NodeIdentifier> targetNodes = new HashSet<>();
+            targetNodes.add(targetNode.getNodeId());
+
+            // change content type to JSON for serializing entity
+            final Map<String, String> headersToOverride = new HashMap<>();
+            headersToOverride.put("content-type", MediaType.APPLICATION_JSON);
+
+            // replicate the request to the specific node
+            return clusterManager.applyRequest(HttpMethod.POST, getAbsolutePath(), updateClientId(provenanceEventPageEntity), getHeaders(headersToOverride), targetNodes)
+                    .getResponse();
+        }
+
+        // handle expects request (usually from the cluster manager)
+        final String expects = httpServletRequest.getHeader(WebClusterManager.NCM_EXPECTS_HTTP_HEADER);
+        if (expects != null) {
+            return generateContinueResponse().build();
+        }
+
+        // get the page of events
+        final ProvenanceEventPageDTO dto = serviceFacade.getProvenanceEventPage(pageDto);
+        dto.setClusterNodeId(pageDto.getClusterNodeId());
+
+        // create the revision
+        final RevisionDTO revision = new RevisionDTO();
+        if (provenanceEventPageEntity.getRevision() == null) {
+            revision.setClientId(new ClientIdParameter().getClientId());
+        } else {
+            revision.setClientId(provenanceEventPageEntity.getRevision().getClientId());
+        }
+
+        // create the response entity
+        final ProvenanceEventPageEntity entity = new ProvenanceEventPageEntity();
+        entity.setProvenanceEventPage(dto);
+        entity.setRevision(revision);
+
+        // generate the response
+        return clusterContext(generateOkResponse(entity)).build();
+    }
+
     /**
      * Submits a lineage request based on an event or a flowfile uuid.
      *
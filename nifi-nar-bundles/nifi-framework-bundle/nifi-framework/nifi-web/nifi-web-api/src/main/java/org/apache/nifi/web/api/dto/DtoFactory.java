@@ -563,6 +563,10 @@ public final class DtoFactory {
         processGroupStatusDto.setSent(formatCount(processGroupStatus.getFlowFilesSent()) + " / " + formatDataSize(processGroupStatus.getBytesSent()));
         processGroupStatusDto.setReceived(formatCount(processGroupStatus.getFlowFilesReceived()) + " / " + formatDataSize(processGroupStatus.getBytesReceived()));
         processGroupStatusDto.setActiveThreadCount(processGroupStatus.getActiveThreadCount());
+        processGroupStatusDto.setDedicatedThreadCount(processGroupStatus.getDedicatedThreadCount());
+        processGroupStatusDto.setDedicatedPoolActiveThreadCount(processGroupStatus.getDedicatedPoolActiveThreadCount());
+        processGroupStatusDto.setDedicatedPoolQueuedTaskCount(processGroupStatus.getDedicatedPoolQueuedTaskCount());
+        processGroupStatusDto.setDedicatedPoolUtilization(processGroupStatus.getDedicatedPoolUtilization());
 
         final String queuedCount = FormatUtils.formatCount(processGroupStatus.getQueuedCount());
         final String queuedSize = FormatUtils.formatDataSize(processGroupStatus.getQueuedContentSize());
@@ -764,6 +768,7 @@ public final class DtoFactory {
 
         dto.setTasksDuration(FormatUtils.formatHoursMinutesSeconds(procStatus.getProcessingNanos(), TimeUnit.NANOSECONDS));
         dto.setTasks(FormatUtils.formatCount(procStatus.getInvocations()));
+        dto.setRunDurationMillis(procStatus.getRunDuration(TimeUnit.MILLISECONDS));
 
         // determine the run status
         dto.setRunStatus(procStatus.getRunStatus().toString());
@@ -1303,6 +1308,7 @@ public final class DtoFactory {
         dto.setPosition(createPositionDto(group.getPosition()));
         dto.setComments(group.getComments());
         dto.setName(group.getName());
+        dto.setDedicatedThreadCount(group.getDedicatedThreadCount());
 
         ProcessGroup parentGroup = group.getParent();
         if (parentGroup != null) {
@@ -2124,6 +2130,7 @@ public final class DtoFactory {
     public ProcessGroupDTO copy(final ProcessGroupDTO original, final boolean deep) {
         final ProcessGroupDTO copy = new ProcessGroupDTO();
         copy.setComments(original.getComments());
+        copy.setDedicatedThreadCount(original.getDedicatedThreadCount());
         copy.setContents(copy(original.getContents(), deep));
         copy.setPosition(original.getPosition());
         copy.setId(original.getId());
@@ -33,6 +33,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.WebApplicationException;
@@ -70,11 +71,15 @@ import org.apache.nifi.nar.NarCloseable;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.Processor;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.PageableProvenanceEventRepository;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventRepository;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.search.EventIdOrder;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryCursor;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerm;
@@ -101,6 +106,7 @@ import org.apache.nifi.web.api.dto.DtoFactory;
 import org.apache.nifi.web.api.dto.provenance.AttributeDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventPageDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceResultsDTO;
@@ -121,6 +127,8 @@ import org.springframework.security.access.AccessDeniedException;
 public class ControllerFacade {
 
     private static final Logger logger = LoggerFactory.getLogger(ControllerFacade.class);
+    private static final int DEFAULT_PROVENANCE_PAGE_SIZE = 100;
+    private static final int MAX_PROVENANCE_PAGE_SIZE = 10000;
 
     // nifi components
     private FlowController flowController;
@@ -589,10 +597,77 @@ public class ControllerFacade {
      * @return provenance info
      */
     public ProvenanceDTO submitProvenance(ProvenanceDTO provenanceDto) {
-        final ProvenanceRequestDTO requestDto = provenanceDto.getRequest();
-
         // create the query
-        final Query query = new Query(provenanceDto.getId());
+        final Query query = createQuery(provenanceDto.getId(), provenanceDto.getRequest());
+
+        // submit the query to the provenance repository
+        final ProvenanceEventRepository provenanceRepository = flowController.getProvenanceRepository();
+        final QuerySubmission querySubmission = provenanceRepository.submitQuery(query);
+
+        // return the query with the results populated at this point
+        return getProvenanceQuery(querySubmission.getQueryIdentifier());
+    }
+
+    /**
+     * Gets a single page of the provenance events that match the specified request.
+     *
+     * @param pageDto dto
+     * @return the page of events, with the token of the next page
+     */
+    public ProvenanceEventPageDTO getProvenanceEventPage(final ProvenanceEventPageDTO pageDto) {
+        // paging is optional for provenance repositories
+        final ProvenanceEventRepository provenanceRepository = flowController.getProvenanceRepository();
+        if (!(provenanceRepository instanceof PageableProvenanceEventRepository)) {
+            throw new IllegalStateException("The configured Provenance Repository does not support paging through provenance events.");
+        }
+
+        final Query query = createQuery(UUID.randomUUID().toString(), pageDto.getRequest());
+
+        // determine where the page begins
+        final QueryCursor cursor;
+        if (pageDto.getContinuationToken() != null) {
+            cursor = QueryCursor.fromToken(pageDto.getContinuationToken());
+        } else if (pageDto.getOrder() == null) {
+            cursor = QueryCursor.first(EventIdOrder.ASCENDING);
+        } else {
+            cursor = QueryCursor.first(EventIdOrder.valueOf(pageDto.getOrder().toUpperCase()));
+        }
+
+        final int pageSize = pageDto.getPageSize() == null ? DEFAULT_PROVENANCE_PAGE_SIZE : pageDto.getPageSize();
+        if (pageSize < 1 || pageSize > MAX_PROVENANCE_PAGE_SIZE) {
+            throw new IllegalArgumentException("The page size must be between 1 and " + MAX_PROVENANCE_PAGE_SIZE);
+        }
+
+        try {
+            final QueryPage page = ((PageableProvenanceEventRepository) provenanceRepository).getEventPage(query, cursor, pageSize);
+
+            // convert each event
+            final List<ProvenanceEventDTO> events = new ArrayList<>(page.getEvents().size());
+            for (final ProvenanceEventRecord record : page.getEvents()) {
+                events.add(createProvenanceEventDto(record));
+            }
+
+            final ProvenanceEventPageDTO dto = new ProvenanceEventPageDTO();
+            dto.setRequest(pageDto.getRequest());
+            dto.setOrder(cursor.getOrder().name());
+            dto.setPageSize(pageSize);
+            dto.setContinuationToken(page.hasMore() ? page.getNextCursor().toToken() : null);
+            dto.setProvenanceEvents(events);
+            return dto;
+        } catch (final IOException ioe) {
+            throw new NiFiCoreException("An error occured while searching the provenance events.", ioe);
+        }
+    }
+
+    /**
+     * Creates a provenance query from the specified request.
+     *
+     * @param queryId the id of the query
+     * @param requestDto the request, may be null
+     * @return the query
+     */
+    private Query createQuery(final String queryId, final ProvenanceRequestDTO requestDto) {
+        final Query query = new Query(queryId);
 
         // if the request was specified
         if (requestDto != null) {
@@ -625,15 +700,12 @@ public class ControllerFacade {
             query.setMaxFileSize(requestDto.getMaximumFileSize());
 
             // set the max results desired
-            query.setMaxResults(requestDto.getMaxResults());
+            if (requestDto.getMaxResults() != null) {
+                query.setMaxResults(requestDto.getMaxResults());
+            }
         }
 
-        // submit the query to the provenance repository
-        final ProvenanceEventRepository provenanceRepository = flowController.getProvenanceRepository();
-        final QuerySubmission querySubmission = provenanceRepository.submitQuery(query);
-
-        // return the query with the results populated at this point
-        return getProvenanceQuery(querySubmission.getQueryIdentifier());
+        return query;
     }
 
     /**
@@ -97,6 +97,9 @@ public class StandardProcessGroupDAO extends ComponentDAO implements ProcessGrou
         if (isNotNull(comments)) {
             group.setComments(comments);
         }
+        if (isNotNull(processGroupDTO.getDedicatedThreadCount())) {
+            group.setDedicatedThreadCount(processGroupDTO.getDedicatedThreadCount());
+        }
 
         // determine if any action is required
         if (isNotNull(processGroupDTO.isRunning())) {
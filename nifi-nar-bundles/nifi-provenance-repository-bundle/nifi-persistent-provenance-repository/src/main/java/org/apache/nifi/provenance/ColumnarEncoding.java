@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Constants and primitive encodings shared by the {@link ColumnarRecordWriter} and {@link ColumnarRecordReader}.
+ * </p>
+ *
+ * <p>
+ * A columnar Provenance Log starts with the name of the format and its version, followed by blocks of events. Each block
+ * starts with an uncompressed header:
+ * </p>
+ *
+ * <pre>
+ * byte   codec (0 -> none, 1 -> DEFLATE)
+ * int    number of events in the block
+ * long   ID of the first event in the block
+ * long   ID of the last event in the block
+ * int    length of the payload once decoded
+ * int    length of the payload as stored
+ * </pre>
+ *
+ * <p>
+ * The payload holds the block's dictionary, the length of each column and then the columns themselves. Integers are
+ * written as variable-length values, IDs and times as the difference from a preceding value, and strings as their UTF-8
+ * length plus one (0 denoting <code>null</code>) followed by their bytes. Values that repeat across events, such as
+ * Component IDs, Component Types and attribute keys, are written as references into the dictionary.
+ * </p>
+ */
+final class ColumnarEncoding {
+
+    static final String FORMAT_NAME = "org.apache.nifi.provenance.ColumnarRecordWriter";
+    static final int SERIALIZATION_VERSION = 1;
+
+    static final byte CODEC_NONE = 0;
+    static final byte CODEC_DEFLATE = 1;
+    static final int BLOCK_HEADER_LENGTH = 1 + 4 + 8 + 8 + 4 + 4;
+
+    // Columns that hold a number or a dictionary reference for each event
+    static final int EVENT_ID = 0;
+    static final int EVENT_TYPE = 1;
+    static final int EVENT_TIME = 2;
+    static final int ENTRY_DATE = 3;
+    static final int EVENT_DURATION = 4;
+    static final int LINEAGE_START_DATE = 5;
+    static final int FILE_SIZE = 6;
+    static final int COMPONENT_ID = 7;
+    static final int COMPONENT_TYPE = 8;
+    static final int SOURCE_QUEUE_ID = 9;
+    static final int RELATIONSHIP = 10;
+
+    // Columns that hold values of varying length
+    static final int FLOWFILE_UUID = 11;
+    static final int DETAILS = 12;
+    static final int LINEAGE_IDENTIFIERS = 13;
+    static final int PREVIOUS_ATTRIBUTES = 14;
+    static final int UPDATED_ATTRIBUTES = 15;
+    static final int CONTENT_CLAIM = 16;
+    static final int PREVIOUS_CONTENT_CLAIM = 17;
+    static final int PARENT_UUIDS = 18;
+    static final int CHILD_UUIDS = 19;
+    static final int TRANSIT_URI = 20;
+    static final int SOURCE_SYSTEM_FLOWFILE_ID = 21;
+    static final int ALTERNATE_IDENTIFIER_URI = 22;
+
+    static final int COLUMN_COUNT = 23;
+
+    private ColumnarEncoding() {
+    }
+
+    static byte[] getFormatHeader() {
+        final byte[] nameBytes = FORMAT_NAME.getBytes(StandardCharsets.UTF_8);
+        final byte[] header = new byte[2 + nameBytes.length + 4];
+        header[0] = (byte) (nameBytes.length >>> 8);
+        header[1] = (byte) nameBytes.length;
+        System.arraycopy(nameBytes, 0, header, 2, nameBytes.length);
+
+        final int versionOffset = 2 + nameBytes.length;
+        header[versionOffset] = (byte) (SERIALIZATION_VERSION >>> 24);
+        header[versionOffset + 1] = (byte) (SERIALIZATION_VERSION >>> 16);
+        header[versionOffset + 2] = (byte) (SERIALIZATION_VERSION >>> 8);
+        header[versionOffset + 3] = (byte) SERIALIZATION_VERSION;
+        return header;
+    }
+
+    /**
+     * A column that is being written
+     */
+    static class ColumnBuffer extends ByteArrayOutputStream {
+
+        public ColumnBuffer() {
+            super(1024);
+        }
+
+        public void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0L) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        public void writeSignedVarLong(final long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        public void writeNullableLong(final Long value) {
+            writeVarLong(value == null ? 0L : value.longValue() + 1L);
+        }
+
+        public void writeString(final String value) {
+            if (value == null) {
+                writeVarLong(0L);
+                return;
+            }
+
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+
+        public byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * Reads the values of a column, in order
+     */
+    static class ColumnCursor {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        public ColumnCursor(final byte[] data, final int offset, final int length) {
+            this.data = data;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public long readVarLong() throws EOFException {
+            long value = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new EOFException("Unexpected end of column");
+                }
+
+                final byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new EOFException("Malformed variable-length value in column");
+        }
+
+        public int readVarInt() throws EOFException {
+            return (int) readVarLong();
+        }
+
+        public long readSignedVarLong() throws EOFException {
+            final long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1L);
+        }
+
+        public Long readNullableLong() throws EOFException {
+            final long value = readVarLong();
+            return value == 0L ? null : value - 1L;
+        }
+
+        public String readString(final int maxChars) throws EOFException {
+            final int length = readStringLength();
+            if (length < 0) {
+                return null;
+            }
+
+            final String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value.length() > maxChars ? value.substring(0, maxChars) : value;
+        }
+
+        public void skipString() throws EOFException {
+            final int length = readStringLength();
+            if (length > 0) {
+                position += length;
+            }
+        }
+
+        private int readStringLength() throws EOFException {
+            final int length = (int) readVarLong() - 1;
+            if (position + length > limit) {
+                throw new EOFException("Unexpected end of column");
+            }
+            return length;
+        }
+    }
+}
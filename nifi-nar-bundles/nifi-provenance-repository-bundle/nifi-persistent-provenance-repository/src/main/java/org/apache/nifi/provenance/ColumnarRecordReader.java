@@ -0,0 +1,643 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.apache.nifi.provenance.ColumnarEncoding.ALTERNATE_IDENTIFIER_URI;
+import static org.apache.nifi.provenance.ColumnarEncoding.CHILD_UUIDS;
+import static org.apache.nifi.provenance.ColumnarEncoding.COLUMN_COUNT;
+import static org.apache.nifi.provenance.ColumnarEncoding.COMPONENT_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.COMPONENT_TYPE;
+import static org.apache.nifi.provenance.ColumnarEncoding.CONTENT_CLAIM;
+import static org.apache.nifi.provenance.ColumnarEncoding.DETAILS;
+import static org.apache.nifi.provenance.ColumnarEncoding.ENTRY_DATE;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_DURATION;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_TIME;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_TYPE;
+import static org.apache.nifi.provenance.ColumnarEncoding.FILE_SIZE;
+import static org.apache.nifi.provenance.ColumnarEncoding.FLOWFILE_UUID;
+import static org.apache.nifi.provenance.ColumnarEncoding.LINEAGE_IDENTIFIERS;
+import static org.apache.nifi.provenance.ColumnarEncoding.LINEAGE_START_DATE;
+import static org.apache.nifi.provenance.ColumnarEncoding.PARENT_UUIDS;
+import static org.apache.nifi.provenance.ColumnarEncoding.PREVIOUS_ATTRIBUTES;
+import static org.apache.nifi.provenance.ColumnarEncoding.PREVIOUS_CONTENT_CLAIM;
+import static org.apache.nifi.provenance.ColumnarEncoding.RELATIONSHIP;
+import static org.apache.nifi.provenance.ColumnarEncoding.SOURCE_QUEUE_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.SOURCE_SYSTEM_FLOWFILE_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.TRANSIT_URI;
+import static org.apache.nifi.provenance.ColumnarEncoding.UPDATED_ATTRIBUTES;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.nifi.provenance.ColumnarEncoding.ColumnCursor;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.toc.TocReader;
+import org.apache.nifi.stream.io.BufferedInputStream;
+import org.apache.nifi.stream.io.ByteCountingInputStream;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Reads Provenance Events that were written by a {@link ColumnarRecordWriter}. A block is read in its entirety when the first
+ * of its events is needed. The columns of a block are decoded only as far as they are needed: {@link #skipToEvent(long)} looks
+ * only at the Event IDs and does not decode the other columns of the events that it skips, and blocks whose events all precede
+ * the desired event are not decompressed at all.
+ * </p>
+ *
+ * <p>
+ * The storage byte offset of each event that is read is the byte offset of the block that contains it, so {@link #skipTo(long)}
+ * positions the reader at the start of a block.
+ * </p>
+ */
+public class ColumnarRecordReader implements RecordReader {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarRecordReader.class);
+
+    private final ByteCountingInputStream rawInputStream;
+    private final DataInputStream dis;
+    private final String filename;
+    private final TocReader tocReader;
+    private final int maxAttributeChars;
+
+    private Inflater inflater;
+    private Block currentBlock;
+
+    public ColumnarRecordReader(final InputStream in, final String filename, final TocReader tocReader, final int maxAttributeChars) throws IOException {
+        logger.trace("Creating Columnar RecordReader for {}", filename);
+
+        this.rawInputStream = new ByteCountingInputStream(new BufferedInputStream(in));
+        this.dis = new DataInputStream(rawInputStream);
+        this.filename = filename;
+        this.tocReader = tocReader;
+        this.maxAttributeChars = maxAttributeChars;
+
+        final byte[] expectedHeader = ColumnarEncoding.getFormatHeader();
+        final byte[] header = new byte[expectedHeader.length];
+        StreamUtils.fillBuffer(dis, header);
+
+        final int versionOffset = expectedHeader.length - 4;
+        if (!Arrays.equals(Arrays.copyOf(header, versionOffset), Arrays.copyOf(expectedHeader, versionOffset))) {
+            throw new IOException("Provenance Log " + filename + " was not written by a Columnar Record Writer");
+        }
+
+        final int serializationVersion = ((header[versionOffset] & 0xFF) << 24) | ((header[versionOffset + 1] & 0xFF) << 16)
+            | ((header[versionOffset + 2] & 0xFF) << 8) | (header[versionOffset + 3] & 0xFF);
+        if (serializationVersion < 1 || serializationVersion > ColumnarEncoding.SERIALIZATION_VERSION) {
+            throw new IllegalArgumentException("Unable to deserialize record because the version is " + serializationVersion
+                + " and supported versions are 1-" + ColumnarEncoding.SERIALIZATION_VERSION);
+        }
+    }
+
+    /**
+     * Determines whether or not the given stream contains a columnar Provenance Log. The position of the stream is left unchanged.
+     *
+     * @param in the stream to check
+     * @return <code>true</code> if the stream begins with the header of a columnar Provenance Log
+     * @throws IOException if unable to read from the stream
+     */
+    public static boolean isColumnar(final FileInputStream in) throws IOException {
+        final FileChannel channel = in.getChannel();
+        final long position = channel.position();
+
+        final byte[] expectedHeader = ColumnarEncoding.getFormatHeader();
+        final byte[] header = new byte[expectedHeader.length - 4];
+        try {
+            final int bytesRead = StreamUtils.fillBuffer(in, header, false);
+            return bytesRead == header.length && Arrays.equals(header, Arrays.copyOf(expectedHeader, header.length));
+        } finally {
+            channel.position(position);
+        }
+    }
+
+    @Override
+    public StandardProvenanceEventRecord nextRecord() throws IOException {
+        if (!hasRemainingEvents(Long.MIN_VALUE)) {
+            return null;
+        }
+
+        return currentBlock.readEvent();
+    }
+
+    @Override
+    public boolean skipToEvent(final long eventId) throws IOException {
+        while (hasRemainingEvents(eventId)) {
+            final Block block = currentBlock;
+            while (block.row < block.eventCount && block.eventIds[block.row] < eventId) {
+                block.row++;
+            }
+
+            if (block.row < block.eventCount) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Ensures that the current block has an event that has not yet been read, reading the next block whose last event
+     * has an ID of at least <code>minEventId</code> if necessary
+     *
+     * @return <code>false</code> if there are no more events
+     */
+    private boolean hasRemainingEvents(final long minEventId) throws IOException {
+        while (currentBlock == null || currentBlock.row >= currentBlock.eventCount) {
+            final long blockOffset = rawInputStream.getBytesConsumed();
+            final int codec = dis.read();
+            if (codec < 0) {
+                return false;
+            }
+
+            final int eventCount = dis.readInt();
+            final long firstEventId = dis.readLong();
+            final long lastEventId = dis.readLong();
+            final int decodedLength = dis.readInt();
+            final int storedLength = dis.readInt();
+
+            if (lastEventId < minEventId) {
+                StreamUtils.skip(dis, storedLength);
+                continue;
+            }
+
+            final byte[] stored = new byte[storedLength];
+            StreamUtils.fillBuffer(dis, stored);
+
+            final byte[] payload;
+            if (codec == ColumnarEncoding.CODEC_NONE) {
+                payload = stored;
+            } else if (codec == ColumnarEncoding.CODEC_DEFLATE) {
+                payload = inflate(stored, decodedLength, blockOffset);
+            } else {
+                throw new IOException("Block at offset " + blockOffset + " of Provenance Log " + filename + " uses unknown codec " + codec);
+            }
+
+            currentBlock = new Block(blockOffset, eventCount, firstEventId, lastEventId, payload);
+        }
+
+        return true;
+    }
+
+    private byte[] inflate(final byte[] stored, final int decodedLength, final long blockOffset) throws IOException {
+        if (inflater == null) {
+            inflater = new Inflater();
+        } else {
+            inflater.reset();
+        }
+
+        inflater.setInput(stored);
+        final byte[] decoded = new byte[decodedLength];
+        int bytesDecoded = 0;
+        try {
+            while (bytesDecoded < decodedLength) {
+                final int len = inflater.inflate(decoded, bytesDecoded, decodedLength - bytesDecoded);
+                if (len == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                bytesDecoded += len;
+            }
+        } catch (final DataFormatException dfe) {
+            throw new IOException("Block at offset " + blockOffset + " of Provenance Log " + filename + " is corrupt", dfe);
+        }
+
+        if (bytesDecoded != decodedLength) {
+            throw new IOException("Block at offset " + blockOffset + " of Provenance Log " + filename + " is corrupt: expected "
+                + decodedLength + " bytes but found " + bytesDecoded);
+        }
+
+        return decoded;
+    }
+
+    @Override
+    public void skip(final long bytesToSkip) throws IOException {
+        StreamUtils.skip(rawInputStream, bytesToSkip);
+        currentBlock = null;
+    }
+
+    @Override
+    public void skipTo(final long position) throws IOException {
+        if (currentBlock != null && currentBlock.offset == position) {
+            return;
+        }
+
+        final long currentPosition = rawInputStream.getBytesConsumed();
+        if (currentPosition > position) {
+            throw new IOException("Cannot skip to byte offset " + position + " in stream because already at byte offset " + currentPosition);
+        }
+
+        skip(position - currentPosition);
+    }
+
+    @Override
+    public void skipToBlock(final int blockIndex) throws IOException {
+        if (tocReader == null) {
+            throw new IllegalStateException("Cannot skip to block " + blockIndex + " for Provenance Log " + filename + " because no Table-of-Contents file was found for this Log");
+        }
+
+        if (blockIndex < 0) {
+            throw new IllegalArgumentException("Cannot skip to block " + blockIndex + " because the value is negative");
+        }
+
+        if (blockIndex == getBlockIndex()) {
+            return;
+        }
+
+        final long offset = tocReader.getBlockOffset(blockIndex);
+        if (offset < 0) {
+            throw new IOException("Unable to find block " + blockIndex + " in Provenance Log " + filename);
+        }
+
+        final long curOffset = rawInputStream.getBytesConsumed();
+        final long bytesToSkip = offset - curOffset;
+        if (bytesToSkip >= 0) {
+            try {
+                skip(bytesToSkip);
+                logger.debug("Skipped stream from offset {} to {} ({} bytes skipped)", curOffset, offset, bytesToSkip);
+            } catch (final IOException e) {
+                throw new IOException("Failed to skip to offset " + offset + " for block " + blockIndex + " of Provenance Log " + filename, e);
+            }
+        }
+    }
+
+    @Override
+    public int getBlockIndex() {
+        if (tocReader == null) {
+            throw new IllegalStateException("Cannot determine Block Index because no Table-of-Contents could be found for Provenance Log " + filename);
+        }
+
+        return tocReader.getBlockIndex(currentBlock == null ? rawInputStream.getBytesConsumed() : currentBlock.offset);
+    }
+
+    @Override
+    public boolean isBlockIndexAvailable() {
+        return tocReader != null;
+    }
+
+    @Override
+    public TocReader getTocReader() {
+        return tocReader;
+    }
+
+    @Override
+    public long getBytesConsumed() {
+        return rawInputStream.getBytesConsumed();
+    }
+
+    @Override
+    public long getMaxEventId() throws IOException {
+        long maxEventId = -1L;
+        if (currentBlock != null && currentBlock.row < currentBlock.eventCount) {
+            maxEventId = currentBlock.lastEventId;
+        }
+
+        if (tocReader != null) {
+            final long lastBlockOffset = tocReader.getLastBlockOffset();
+            if (lastBlockOffset >= 0) {
+                skipToBlock(tocReader.getBlockIndex(lastBlockOffset));
+            }
+        }
+
+        // Only the headers of the remaining blocks need to be read
+        currentBlock = null;
+        try {
+            while (true) {
+                final int codec = dis.read();
+                if (codec < 0) {
+                    break;
+                }
+
+                dis.readInt();
+                dis.readLong();
+                final long lastEventId = dis.readLong();
+                dis.readInt();
+                StreamUtils.skip(dis, dis.readInt());
+                maxEventId = lastEventId;
+            }
+        } catch (final EOFException eof) {
+            // This can happen if we stop NiFi while the block is being written. The block is ignored, just as
+            // the StandardRecordReader ignores a partially written record.
+        }
+
+        return maxEventId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        logger.trace("Closing Columnar Record Reader for {}", filename);
+
+        try {
+            dis.close();
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+            if (tocReader != null) {
+                tocReader.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarRecordReader[" + filename + "]";
+    }
+
+    /**
+     * A block of events that has been read from the Provenance Log
+     */
+    private class Block {
+        private final long offset;
+        private final int eventCount;
+        private final long firstEventId;
+        private final long lastEventId;
+        private final String[] dictionary;
+        private final int[] columnOffsets = new int[COLUMN_COUNT];
+        private final int[] columnLengths = new int[COLUMN_COUNT];
+        private final byte[] payload;
+        private final long[] eventIds;
+
+        // the values of the fixed-length columns, which are decoded when the first event is read
+        private long[][] values;
+
+        // the cursors of the variable-length columns, which may lag behind the row that is to be read next
+        private ColumnCursor[] cursors;
+        private int cursorRow = 0;
+        private int row = 0;
+
+        public Block(final long offset, final int eventCount, final long firstEventId, final long lastEventId, final byte[] payload) throws IOException {
+            this.offset = offset;
+            this.eventCount = eventCount;
+            this.firstEventId = firstEventId;
+            this.lastEventId = lastEventId;
+            this.payload = payload;
+
+            final ColumnCursor header = new ColumnCursor(payload, 0, payload.length);
+            dictionary = new String[header.readVarInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = header.readString(Integer.MAX_VALUE);
+            }
+
+            // Columns that are added in later versions of the format are ignored
+            final int columnCount = header.readVarInt();
+            if (columnCount < COLUMN_COUNT) {
+                throw new IOException("Block at offset " + offset + " of Provenance Log " + filename + " has only " + columnCount + " columns");
+            }
+
+            final int[] allLengths = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                allLengths[i] = header.readVarInt();
+            }
+
+            int columnOffset = header.getPosition();
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columnOffsets[i] = columnOffset;
+                columnLengths[i] = allLengths[i];
+                columnOffset += allLengths[i];
+            }
+
+            eventIds = new long[eventCount];
+            final ColumnCursor idCursor = getCursor(EVENT_ID);
+            long eventId = 0L;
+            for (int i = 0; i < eventCount; i++) {
+                eventId += idCursor.readSignedVarLong();
+                eventIds[i] = eventId;
+            }
+
+            if (eventCount > 0 && (eventIds[0] != firstEventId || eventIds[eventCount - 1] != lastEventId)) {
+                throw new IOException("Block at offset " + offset + " of Provenance Log " + filename + " is corrupt: Event IDs do not match the block header");
+            }
+        }
+
+        private ColumnCursor getCursor(final int column) {
+            return new ColumnCursor(payload, columnOffsets[column], columnLengths[column]);
+        }
+
+        private void decodeValues() throws IOException {
+            values = new long[RELATIONSHIP + 1][];
+            for (int column = EVENT_TYPE; column <= RELATIONSHIP; column++) {
+                final long[] columnValues = new long[eventCount];
+                final ColumnCursor cursor = getCursor(column);
+                long previous = 0L;
+                for (int i = 0; i < eventCount; i++) {
+                    switch (column) {
+                        case EVENT_TIME:
+                            previous += cursor.readSignedVarLong();
+                            columnValues[i] = previous;
+                            break;
+                        case ENTRY_DATE:
+                        case LINEAGE_START_DATE:
+                            columnValues[i] = values[EVENT_TIME][i] + cursor.readSignedVarLong();
+                            break;
+                        case EVENT_DURATION:
+                            columnValues[i] = cursor.readSignedVarLong();
+                            break;
+                        default:
+                            columnValues[i] = cursor.readVarLong();
+                            break;
+                    }
+                }
+                values[column] = columnValues;
+            }
+
+            cursors = new ColumnCursor[COLUMN_COUNT];
+            for (int column = FLOWFILE_UUID; column < COLUMN_COUNT; column++) {
+                cursors[column] = getCursor(column);
+            }
+        }
+
+        private String lookup(final long reference) throws IOException {
+            if (reference == 0L) {
+                return null;
+            }
+            if (reference > dictionary.length) {
+                throw new IOException("Block at offset " + offset + " of Provenance Log " + filename + " is corrupt: invalid dictionary reference " + reference);
+            }
+            return dictionary[(int) reference - 1];
+        }
+
+        private String lookup(final int column, final int eventIndex) throws IOException {
+            return lookup(values[column][eventIndex]);
+        }
+
+        /**
+         * Reads the event at the current row and moves on to the next row
+         */
+        public StandardProvenanceEventRecord readEvent() throws IOException {
+            if (values == null) {
+                decodeValues();
+            }
+
+            // catch up with any rows that were skipped
+            while (cursorRow < row) {
+                skipVariableColumns();
+                cursorRow++;
+            }
+
+            final int i = row;
+            final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder();
+            final String eventTypeName = lookup(EVENT_TYPE, i);
+            if (eventTypeName == null) {
+                throw new IOException("Block at offset " + offset + " of Provenance Log " + filename + " is corrupt: no Event Type for event " + eventIds[i]);
+            }
+            builder.setEventType(ProvenanceEventType.valueOf(eventTypeName));
+            builder.setEventTime(values[EVENT_TIME][i]);
+            builder.setFlowFileEntryDate(values[ENTRY_DATE][i]);
+            builder.setEventDuration(values[EVENT_DURATION][i]);
+            builder.setLineageStartDate(values[LINEAGE_START_DATE][i]);
+            builder.setComponentId(lookup(COMPONENT_ID, i));
+            builder.setComponentType(lookup(COMPONENT_TYPE, i));
+            builder.setSourceQueueIdentifier(lookup(SOURCE_QUEUE_ID, i));
+
+            final String relationship = lookup(RELATIONSHIP, i);
+            if (relationship != null) {
+                builder.setRelationship(relationship);
+            }
+
+            builder.setFlowFileUUID(cursors[FLOWFILE_UUID].readString(Integer.MAX_VALUE));
+            builder.setDetails(cursors[DETAILS].readString(Integer.MAX_VALUE));
+
+            final ColumnCursor lineageCursor = cursors[LINEAGE_IDENTIFIERS];
+            final int numLineageIdentifiers = lineageCursor.readVarInt();
+            final Set<String> lineageIdentifiers = new HashSet<>(numLineageIdentifiers);
+            for (int j = 0; j < numLineageIdentifiers; j++) {
+                lineageIdentifiers.add(lineageCursor.readString(Integer.MAX_VALUE));
+            }
+            builder.setLineageIdentifiers(lineageIdentifiers);
+
+            final Map<String, String> previousAttributes = readAttributes(cursors[PREVIOUS_ATTRIBUTES]);
+            final Map<String, String> updatedAttributes = readAttributes(cursors[UPDATED_ATTRIBUTES]);
+            builder.setAttributes(previousAttributes, updatedAttributes);
+
+            final long fileSize = values[FILE_SIZE][i];
+            final ColumnCursor claimCursor = cursors[CONTENT_CLAIM];
+            if (claimCursor.readVarLong() == 1L) {
+                builder.setCurrentContentClaim(lookup(claimCursor.readVarLong()), lookup(claimCursor.readVarLong()), claimCursor.readString(Integer.MAX_VALUE),
+                    claimCursor.readNullableLong(), fileSize);
+            } else {
+                builder.setCurrentContentClaim(null, null, null, null, fileSize);
+            }
+
+            final ColumnCursor previousClaimCursor = cursors[PREVIOUS_CONTENT_CLAIM];
+            if (previousClaimCursor.readVarLong() == 1L) {
+                final String container = lookup(previousClaimCursor.readVarLong());
+                final String section = lookup(previousClaimCursor.readVarLong());
+                final String identifier = previousClaimCursor.readString(Integer.MAX_VALUE);
+                final Long claimOffset = previousClaimCursor.readNullableLong();
+                final Long previousSize = previousClaimCursor.readNullableLong();
+                builder.setPreviousContentClaim(container, section, identifier, claimOffset, previousSize == null ? 0L : previousSize);
+            }
+
+            final ColumnCursor parentCursor = cursors[PARENT_UUIDS];
+            final int numParents = parentCursor.readVarInt();
+            for (int j = 0; j < numParents; j++) {
+                builder.addParentUuid(parentCursor.readString(Integer.MAX_VALUE));
+            }
+
+            final ColumnCursor childCursor = cursors[CHILD_UUIDS];
+            final int numChildren = childCursor.readVarInt();
+            for (int j = 0; j < numChildren; j++) {
+                builder.addChildUuid(childCursor.readString(Integer.MAX_VALUE));
+            }
+
+            final String transitUri = cursors[TRANSIT_URI].readString(Integer.MAX_VALUE);
+            if (transitUri != null) {
+                builder.setTransitUri(transitUri);
+            }
+            final String sourceSystemFlowFileId = cursors[SOURCE_SYSTEM_FLOWFILE_ID].readString(Integer.MAX_VALUE);
+            if (sourceSystemFlowFileId != null) {
+                builder.setSourceSystemFlowFileIdentifier(sourceSystemFlowFileId);
+            }
+            final String alternateIdentifierUri = cursors[ALTERNATE_IDENTIFIER_URI].readString(Integer.MAX_VALUE);
+            if (alternateIdentifierUri != null) {
+                builder.setAlternateIdentifierUri(alternateIdentifierUri);
+            }
+
+            builder.setStorageLocation(filename, offset);
+
+            final StandardProvenanceEventRecord record = builder.build();
+            record.setEventId(eventIds[i]);
+
+            row++;
+            cursorRow++;
+            return record;
+        }
+
+        private Map<String, String> readAttributes(final ColumnCursor cursor) throws IOException {
+            final int numAttributes = cursor.readVarInt();
+            final Map<String, String> attributes = new HashMap<>(numAttributes);
+            for (int j = 0; j < numAttributes; j++) {
+                final String key = lookup(cursor.readVarLong());
+                attributes.put(key, cursor.readString(maxAttributeChars));
+            }
+            return attributes;
+        }
+
+        private void skipVariableColumns() throws IOException {
+            cursors[FLOWFILE_UUID].skipString();
+            cursors[DETAILS].skipString();
+            skipStrings(cursors[LINEAGE_IDENTIFIERS]);
+            skipAttributes(cursors[PREVIOUS_ATTRIBUTES]);
+            skipAttributes(cursors[UPDATED_ATTRIBUTES]);
+            skipClaim(cursors[CONTENT_CLAIM], false);
+            skipClaim(cursors[PREVIOUS_CONTENT_CLAIM], true);
+            skipStrings(cursors[PARENT_UUIDS]);
+            skipStrings(cursors[CHILD_UUIDS]);
+            cursors[TRANSIT_URI].skipString();
+            cursors[SOURCE_SYSTEM_FLOWFILE_ID].skipString();
+            cursors[ALTERNATE_IDENTIFIER_URI].skipString();
+        }
+
+        private void skipStrings(final ColumnCursor cursor) throws IOException {
+            final int count = cursor.readVarInt();
+            for (int j = 0; j < count; j++) {
+                cursor.skipString();
+            }
+        }
+
+        private void skipAttributes(final ColumnCursor cursor) throws IOException {
+            final int count = cursor.readVarInt();
+            for (int j = 0; j < count; j++) {
+                cursor.readVarLong();
+                cursor.skipString();
+            }
+        }
+
+        private void skipClaim(final ColumnCursor cursor, final boolean hasSize) throws IOException {
+            if (cursor.readVarLong() == 1L) {
+                cursor.readVarLong();
+                cursor.readVarLong();
+                cursor.skipString();
+                cursor.readVarLong();
+                if (hasSize) {
+                    cursor.readVarLong();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,537 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.apache.nifi.provenance.ColumnarEncoding.ALTERNATE_IDENTIFIER_URI;
+import static org.apache.nifi.provenance.ColumnarEncoding.CHILD_UUIDS;
+import static org.apache.nifi.provenance.ColumnarEncoding.COLUMN_COUNT;
+import static org.apache.nifi.provenance.ColumnarEncoding.COMPONENT_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.COMPONENT_TYPE;
+import static org.apache.nifi.provenance.ColumnarEncoding.CONTENT_CLAIM;
+import static org.apache.nifi.provenance.ColumnarEncoding.DETAILS;
+import static org.apache.nifi.provenance.ColumnarEncoding.ENTRY_DATE;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_DURATION;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_TIME;
+import static org.apache.nifi.provenance.ColumnarEncoding.EVENT_TYPE;
+import static org.apache.nifi.provenance.ColumnarEncoding.FILE_SIZE;
+import static org.apache.nifi.provenance.ColumnarEncoding.FLOWFILE_UUID;
+import static org.apache.nifi.provenance.ColumnarEncoding.LINEAGE_IDENTIFIERS;
+import static org.apache.nifi.provenance.ColumnarEncoding.LINEAGE_START_DATE;
+import static org.apache.nifi.provenance.ColumnarEncoding.PARENT_UUIDS;
+import static org.apache.nifi.provenance.ColumnarEncoding.PREVIOUS_ATTRIBUTES;
+import static org.apache.nifi.provenance.ColumnarEncoding.PREVIOUS_CONTENT_CLAIM;
+import static org.apache.nifi.provenance.ColumnarEncoding.RELATIONSHIP;
+import static org.apache.nifi.provenance.ColumnarEncoding.SOURCE_QUEUE_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.SOURCE_SYSTEM_FLOWFILE_ID;
+import static org.apache.nifi.provenance.ColumnarEncoding.TRANSIT_URI;
+import static org.apache.nifi.provenance.ColumnarEncoding.UPDATED_ATTRIBUTES;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+import org.apache.nifi.provenance.ColumnarEncoding.ColumnBuffer;
+import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.toc.TocWriter;
+import org.apache.nifi.stream.io.ByteCountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A {@link RecordWriter} that writes Provenance Events in the columnar layout that is described by {@link ColumnarEncoding}.
+ * Events are held in memory until enough of them have been written to fill a block, at which point the block is encoded and
+ * written out as a whole. Each block is given its own entry in the Table of Contents.
+ * </p>
+ *
+ * <p>
+ * Because events are not written to the file until their block is complete, {@link #flush()} and {@link #sync()} end the
+ * current block early.
+ * </p>
+ *
+ * <p>
+ * If given a thread pool, the writer compresses each block on the pool while it goes on to fill the next. In that case, each
+ * block is added to the Table of Contents when it is written rather than when it receives its first event.
+ * </p>
+ */
+public class ColumnarRecordWriter implements RecordWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarRecordWriter.class);
+
+    private final File file;
+    private final FileOutputStream fos;
+    private final ByteCountingOutputStream rawOutStream;
+    private final DataOutputStream out;
+    private final TocWriter tocWriter;
+    private final int uncompressedBlockSize;
+    private final AtomicBoolean dirtyFlag = new AtomicBoolean(false);
+    private final Deflater deflater;
+
+    // null unless blocks are compressed on a thread pool
+    private final ParallelBlockWriter blockWriter;
+
+    private final List<ProvenanceEventRecord> pendingRecords = new ArrayList<>();
+    private final List<Long> pendingIds = new ArrayList<>();
+    private long pendingBytes = 0L;
+    private int recordCount = 0;
+
+    private final Lock lock = new ReentrantLock();
+
+    public ColumnarRecordWriter(final File file, final TocWriter writer, final boolean compressed, final int uncompressedBlockSize) throws IOException {
+        this(file, writer, compressed, uncompressedBlockSize, null, 0);
+    }
+
+    /**
+     * @param file the file to write to
+     * @param writer the Table of Contents writer; may be null
+     * @param compressed whether or not to compress the blocks
+     * @param uncompressedBlockSize the approximate number of bytes of events after which to end a block
+     * @param compressionExecutor the thread pool on which to compress blocks, or null to compress them as they are written
+     * @param maxPendingBlocks the maximum number of complete blocks that may wait to be compressed and written
+     * @throws IOException if unable to create the file
+     */
+    public ColumnarRecordWriter(final File file, final TocWriter writer, final boolean compressed, final int uncompressedBlockSize,
+        final ExecutorService compressionExecutor, final int maxPendingBlocks) throws IOException {
+        logger.trace("Creating Columnar Record Writer for {}", file.getName());
+
+        this.file = file;
+        this.fos = new FileOutputStream(file);
+        this.rawOutStream = new ByteCountingOutputStream(fos);
+        this.out = new DataOutputStream(rawOutStream);
+        this.uncompressedBlockSize = uncompressedBlockSize;
+        this.tocWriter = writer;
+        this.blockWriter = compressed && compressionExecutor != null ? new ParallelBlockWriter(rawOutStream, writer, compressionExecutor, maxPendingBlocks) : null;
+        this.deflater = compressed && blockWriter == null ? new Deflater(Deflater.BEST_SPEED) : null;
+    }
+
+    @Override
+    public synchronized File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void writeHeader(final long firstEventId) throws IOException {
+        if (isDirty()) {
+            throw new IOException("Cannot update Provenance Repository because this Record Writer has already failed to write to the Repository");
+        }
+
+        try {
+            out.write(ColumnarEncoding.getFormatHeader());
+            out.flush();
+        } catch (final IOException ioe) {
+            markDirty();
+            throw ioe;
+        }
+    }
+
+    @Override
+    public synchronized long writeRecord(final ProvenanceEventRecord record, final long recordIdentifier) throws IOException {
+        if (isDirty()) {
+            throw new IOException("Cannot update Provenance Repository because this Record Writer has already failed to write to the Repository");
+        }
+
+        try {
+            if (!pendingRecords.isEmpty() && pendingBytes >= uncompressedBlockSize) {
+                writeBlock();
+            }
+
+            // The block begins where the previous block ended, so we can add it to the TOC as soon as it has its first event.
+            if (pendingRecords.isEmpty() && tocWriter != null && blockWriter == null) {
+                tocWriter.addBlockOffset(rawOutStream.getBytesWritten(), recordIdentifier);
+            }
+
+            final long recordBytes = estimateSize(record);
+            pendingRecords.add(record);
+            pendingIds.add(recordIdentifier);
+            pendingBytes += recordBytes;
+            recordCount++;
+            return recordBytes;
+        } catch (final IOException ioe) {
+            markDirty();
+            throw ioe;
+        }
+    }
+
+    /**
+     * @return the approximate number of bytes that the given record would take up if written as a row. Used to
+     *         determine when a block is full, because the size of the encoded block is not known until it is written.
+     */
+    private static long estimateSize(final ProvenanceEventRecord record) {
+        long size = 64L;
+        size += length(record.getComponentId()) + length(record.getComponentType()) + length(record.getFlowFileUuid()) + length(record.getDetails());
+        size += length(record.getTransitUri()) + length(record.getSourceSystemFlowFileIdentifier()) + length(record.getAlternateIdentifierUri());
+        size += length(record.getRelationship()) + length(record.getSourceQueueIdentifier());
+        size += length(record.getContentClaimContainer()) + length(record.getContentClaimSection()) + length(record.getContentClaimIdentifier());
+        size += length(record.getPreviousContentClaimContainer()) + length(record.getPreviousContentClaimSection()) + length(record.getPreviousContentClaimIdentifier());
+        size += 36L * (size(record.getLineageIdentifiers()) + size(record.getParentUuids()) + size(record.getChildUuids()));
+
+        for (final Map.Entry<String, String> entry : record.getPreviousAttributes().entrySet()) {
+            size += length(entry.getKey()) + length(entry.getValue());
+        }
+        for (final Map.Entry<String, String> entry : record.getUpdatedAttributes().entrySet()) {
+            size += length(entry.getKey()) + length(entry.getValue());
+        }
+
+        return size;
+    }
+
+    private static int length(final String value) {
+        return value == null ? 1 : value.length() + 1;
+    }
+
+    private static int size(final Collection<String> values) {
+        return values == null ? 0 : values.size();
+    }
+
+    /**
+     * Encodes the pending records as a block and writes the block to the file
+     */
+    private void writeBlock() throws IOException {
+        if (pendingRecords.isEmpty()) {
+            return;
+        }
+
+        final ColumnBuffer encoded = encodeBlock();
+        final byte[] payload = encoded.getBuffer();
+        final int payloadLength = encoded.size();
+        final int eventCount = pendingRecords.size();
+        final long firstEventId = pendingIds.get(0);
+        final long lastEventId = pendingIds.get(pendingIds.size() - 1);
+
+        pendingRecords.clear();
+        pendingIds.clear();
+        pendingBytes = 0L;
+
+        if (blockWriter == null) {
+            final ColumnBuffer block = frameBlock(payload, payloadLength, eventCount, firstEventId, lastEventId, deflater);
+            out.write(block.getBuffer(), 0, block.size());
+            out.flush();
+            return;
+        }
+
+        blockWriter.submit(firstEventId, new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                final Deflater blockDeflater = new Deflater(Deflater.BEST_SPEED);
+                try {
+                    final ColumnBuffer block = frameBlock(payload, payloadLength, eventCount, firstEventId, lastEventId, blockDeflater);
+                    return Arrays.copyOf(block.getBuffer(), block.size());
+                } finally {
+                    blockDeflater.end();
+                }
+            }
+        });
+    }
+
+    /**
+     * Compresses the encoded events of a block, if a deflater is given and doing so makes the block smaller, and prefixes them
+     * with the block header. The block is returned so that it can be written with a single call, so that a partially written
+     * block can only be the last one in the file.
+     */
+    private static ColumnBuffer frameBlock(final byte[] payload, final int payloadLength, final int eventCount, final long firstEventId,
+        final long lastEventId, final Deflater deflater) throws IOException {
+        byte codec = ColumnarEncoding.CODEC_NONE;
+        byte[] stored = payload;
+        int storedLength = payloadLength;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(payload, 0, payloadLength);
+            deflater.finish();
+
+            final byte[] compressedBytes = new byte[payloadLength];
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < compressedBytes.length) {
+                compressedLength += deflater.deflate(compressedBytes, compressedLength, compressedBytes.length - compressedLength);
+            }
+
+            // if the block does not shrink, it is cheaper to store and read it as it is
+            if (deflater.finished() && compressedLength < payloadLength) {
+                codec = ColumnarEncoding.CODEC_DEFLATE;
+                stored = compressedBytes;
+                storedLength = compressedLength;
+            }
+        }
+
+        final ColumnBuffer block = new ColumnBuffer();
+        final DataOutputStream blockOut = new DataOutputStream(block);
+        blockOut.writeByte(codec);
+        blockOut.writeInt(eventCount);
+        blockOut.writeLong(firstEventId);
+        blockOut.writeLong(lastEventId);
+        blockOut.writeInt(payloadLength);
+        blockOut.writeInt(storedLength);
+        blockOut.write(stored, 0, storedLength);
+        blockOut.flush();
+        return block;
+    }
+
+    private ColumnBuffer encodeBlock() {
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final List<String> dictionaryValues = new ArrayList<>();
+
+        final ColumnBuffer[] columns = new ColumnBuffer[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columns[i] = new ColumnBuffer();
+        }
+
+        long previousId = 0L;
+        long previousTime = 0L;
+        for (int i = 0; i < pendingRecords.size(); i++) {
+            final ProvenanceEventRecord record = pendingRecords.get(i);
+            final long eventId = pendingIds.get(i);
+            final long eventTime = record.getEventTime();
+
+            columns[EVENT_ID].writeSignedVarLong(eventId - previousId);
+            columns[EVENT_TYPE].writeVarLong(reference(record.getEventType().name(), dictionary, dictionaryValues));
+            columns[EVENT_TIME].writeSignedVarLong(eventTime - previousTime);
+            columns[ENTRY_DATE].writeSignedVarLong(record.getFlowFileEntryDate() - eventTime);
+            columns[EVENT_DURATION].writeSignedVarLong(record.getEventDuration());
+            columns[LINEAGE_START_DATE].writeSignedVarLong(record.getLineageStartDate() - eventTime);
+            columns[FILE_SIZE].writeVarLong(record.getFileSize());
+            columns[COMPONENT_ID].writeVarLong(reference(record.getComponentId(), dictionary, dictionaryValues));
+            columns[COMPONENT_TYPE].writeVarLong(reference(record.getComponentType(), dictionary, dictionaryValues));
+            columns[SOURCE_QUEUE_ID].writeVarLong(reference(record.getSourceQueueIdentifier(), dictionary, dictionaryValues));
+            columns[RELATIONSHIP].writeVarLong(reference(record.getRelationship(), dictionary, dictionaryValues));
+            previousId = eventId;
+            previousTime = eventTime;
+
+            columns[FLOWFILE_UUID].writeString(record.getFlowFileUuid());
+            columns[DETAILS].writeString(record.getDetails());
+            writeStrings(columns[LINEAGE_IDENTIFIERS], record.getLineageIdentifiers());
+            writeAttributes(columns[PREVIOUS_ATTRIBUTES], record.getPreviousAttributes(), dictionary, dictionaryValues);
+            writeAttributes(columns[UPDATED_ATTRIBUTES], record.getUpdatedAttributes(), dictionary, dictionaryValues);
+
+            final ColumnBuffer claimColumn = columns[CONTENT_CLAIM];
+            if (record.getContentClaimSection() != null && record.getContentClaimContainer() != null && record.getContentClaimIdentifier() != null) {
+                claimColumn.writeVarLong(1L);
+                claimColumn.writeVarLong(reference(record.getContentClaimContainer(), dictionary, dictionaryValues));
+                claimColumn.writeVarLong(reference(record.getContentClaimSection(), dictionary, dictionaryValues));
+                claimColumn.writeString(record.getContentClaimIdentifier());
+                claimColumn.writeNullableLong(record.getContentClaimOffset());
+            } else {
+                claimColumn.writeVarLong(0L);
+            }
+
+            final ColumnBuffer previousClaimColumn = columns[PREVIOUS_CONTENT_CLAIM];
+            if (record.getPreviousContentClaimSection() != null && record.getPreviousContentClaimContainer() != null && record.getPreviousContentClaimIdentifier() != null) {
+                previousClaimColumn.writeVarLong(1L);
+                previousClaimColumn.writeVarLong(reference(record.getPreviousContentClaimContainer(), dictionary, dictionaryValues));
+                previousClaimColumn.writeVarLong(reference(record.getPreviousContentClaimSection(), dictionary, dictionaryValues));
+                previousClaimColumn.writeString(record.getPreviousContentClaimIdentifier());
+                previousClaimColumn.writeNullableLong(record.getPreviousContentClaimOffset());
+                previousClaimColumn.writeNullableLong(record.getPreviousFileSize());
+            } else {
+                previousClaimColumn.writeVarLong(0L);
+            }
+
+            writeStrings(columns[PARENT_UUIDS], record.getParentUuids());
+            writeStrings(columns[CHILD_UUIDS], record.getChildUuids());
+            columns[TRANSIT_URI].writeString(record.getTransitUri());
+            columns[SOURCE_SYSTEM_FLOWFILE_ID].writeString(record.getSourceSystemFlowFileIdentifier());
+            columns[ALTERNATE_IDENTIFIER_URI].writeString(record.getAlternateIdentifierUri());
+        }
+
+        final ColumnBuffer payload = new ColumnBuffer();
+        payload.writeVarLong(dictionaryValues.size());
+        for (final String value : dictionaryValues) {
+            payload.writeString(value);
+        }
+
+        payload.writeVarLong(COLUMN_COUNT);
+        for (final ColumnBuffer column : columns) {
+            payload.writeVarLong(column.size());
+        }
+        for (final ColumnBuffer column : columns) {
+            payload.write(column.getBuffer(), 0, column.size());
+        }
+
+        return payload;
+    }
+
+    /**
+     * @return 0 if the value is <code>null</code>, otherwise one more than the index of the value in the dictionary
+     */
+    private static int reference(final String value, final Map<String, Integer> dictionary, final List<String> dictionaryValues) {
+        if (value == null) {
+            return 0;
+        }
+
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionaryValues.size();
+            dictionary.put(value, index);
+            dictionaryValues.add(value);
+        }
+
+        return index + 1;
+    }
+
+    private static void writeStrings(final ColumnBuffer column, final Collection<String> values) {
+        if (values == null) {
+            column.writeVarLong(0L);
+            return;
+        }
+
+        column.writeVarLong(values.size());
+        for (final String value : values) {
+            column.writeString(value);
+        }
+    }
+
+    private static void writeAttributes(final ColumnBuffer column, final Map<String, String> attributes, final Map<String, Integer> dictionary,
+        final List<String> dictionaryValues) {
+        column.writeVarLong(attributes.size());
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            column.writeVarLong(reference(entry.getKey(), dictionary, dictionaryValues));
+            column.writeString(entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        logger.trace("Closing Columnar Record Writer for {}", file.getName());
+
+        lock();
+        try {
+            try {
+                // As with the StandardRecordWriter, we do not write out any more data if the writer is dirty, because
+                // the file may already end with a partial block.
+                if (!isDirty()) {
+                    writeBlock();
+                    if (blockWriter != null) {
+                        blockWriter.writeAll();
+                    }
+                } else if (blockWriter != null) {
+                    blockWriter.cancel();
+                }
+            } finally {
+                try {
+                    rawOutStream.close();
+                } finally {
+                    if (deflater != null) {
+                        deflater.end();
+                    }
+                    if (tocWriter != null) {
+                        tocWriter.close();
+                    }
+                }
+            }
+        } catch (final IOException ioe) {
+            markDirty();
+            throw ioe;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public synchronized int getRecordsWritten() {
+        return recordCount;
+    }
+
+    @Override
+    public void lock() {
+        lock.lock();
+    }
+
+    @Override
+    public void unlock() {
+        lock.unlock();
+    }
+
+    @Override
+    public boolean tryLock() {
+        final boolean obtainedLock = lock.tryLock();
+        if (obtainedLock && dirtyFlag.get()) {
+            lock.unlock();
+            return false;
+        }
+        return obtainedLock;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarRecordWriter[file=" + file + "]";
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        try {
+            writeBlock();
+            if (blockWriter != null) {
+                blockWriter.writeAll();
+            }
+        } catch (final IOException ioe) {
+            markDirty();
+            throw ioe;
+        }
+    }
+
+    @Override
+    public synchronized void sync() throws IOException {
+        try {
+            writeBlock();
+            if (blockWriter != null) {
+                blockWriter.writeAll();
+            }
+            if (tocWriter != null) {
+                tocWriter.sync();
+            }
+            fos.getFD().sync();
+        } catch (final IOException ioe) {
+            markDirty();
+            throw ioe;
+        }
+    }
+
+    @Override
+    public TocWriter getTocWriter() {
+        return tocWriter;
+    }
+
+    @Override
+    public synchronized int getCurrentBlockIndex() {
+        if (blockWriter != null) {
+            // the block that is being filled has not yet been submitted
+            return blockWriter.getBlockCount();
+        }
+
+        return tocWriter == null ? -1 : tocWriter.getCurrentBlockIndex();
+    }
+
+    @Override
+    public void markDirty() {
+        dirtyFlag.set(true);
+    }
+
+    public boolean isDirty() {
+        return dirtyFlag.get();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Keeps track of the range of Event IDs held by each Provenance Event Log File in a single storage directory, so that the
+ * file that holds a given event can be found without opening the files, and so that the greatest Event ID in the repository
+ * is known on restart without reading the most recent file. The ranges are persisted to a small file alongside the Tables
+ * of Contents of the storage directory whenever a file is added to or removed from the index. The offsets of the blocks
+ * within each file remain in the file's Table of Contents.
+ * </p>
+ *
+ * <p>
+ * Format of the index file:
+ * </p>
+ * <ul>
+ * <li>int: version</li>
+ * <li>int: number of ranges</li>
+ * <li>for each range: long: first Event ID, long: last Event ID, UTF: filename</li>
+ * </ul>
+ */
+public class EventFileIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EventFileIndex.class);
+
+    public static final String FILENAME = "event-file.index";
+    private static final int VERSION = 1;
+
+    private final File indexFile;
+
+    // guarded by 'this'
+    private final TreeMap<Long, Range> ranges = new TreeMap<>();
+
+    private EventFileIndex(final File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Loads the index of the given storage directory. If there is no index, or if it cannot be read, an empty index is
+     * returned, which is populated as Provenance Event Log Files are added to it.
+     *
+     * @param storageDirectory the storage directory whose Provenance Event Log Files are indexed
+     * @return the index of the storage directory
+     */
+    public static EventFileIndex load(final File storageDirectory) {
+        final EventFileIndex index = new EventFileIndex(getIndexFile(storageDirectory));
+        if (!index.indexFile.exists()) {
+            return index;
+        }
+
+        try (final FileInputStream fis = new FileInputStream(index.indexFile);
+            final DataInputStream dis = new DataInputStream(new BufferedInputStream(fis))) {
+
+            final int version = dis.readInt();
+            if (version > VERSION) {
+                throw new IOException("Cannot read Event File Index with version " + version + "; the maximum supported version is " + VERSION);
+            }
+
+            final int rangeCount = dis.readInt();
+            for (int i = 0; i < rangeCount; i++) {
+                final long firstEventId = dis.readLong();
+                final long lastEventId = dis.readLong();
+                final String filename = dis.readUTF();
+                index.ranges.put(firstEventId, new Range(firstEventId, lastEventId, filename));
+            }
+        } catch (final IOException ioe) {
+            logger.warn("Failed to read Event File Index {} due to {}; the index will be rebuilt as Provenance Event Log Files are read", index.indexFile, ioe.toString());
+            index.ranges.clear();
+        }
+
+        return index;
+    }
+
+    /**
+     * @param storageDirectory a storage directory of the repository
+     * @return the file that holds the index of the given storage directory
+     */
+    public static File getIndexFile(final File storageDirectory) {
+        return new File(new File(storageDirectory, "toc"), FILENAME);
+    }
+
+    /**
+     * @param firstEventId the ID of the first event in a Provenance Event Log File
+     * @return the range of Event IDs held by the file whose first event has the given ID, or <code>null</code> if the range is not known
+     */
+    public synchronized Range getRange(final long firstEventId) {
+        return ranges.get(firstEventId);
+    }
+
+    /**
+     * @return the greatest Event ID held by any of the indexed files, or -1 if no files are indexed
+     */
+    public synchronized long getMaxEventId() {
+        return ranges.isEmpty() ? -1L : ranges.lastEntry().getValue().getLastEventId();
+    }
+
+    /**
+     * Adds the given range to the index, replacing any range for a file with the same first Event ID, and persists the index.
+     *
+     * @param range the range of Event IDs held by a Provenance Event Log File
+     * @throws IOException if unable to persist the index
+     */
+    public synchronized void add(final Range range) throws IOException {
+        ranges.put(range.getFirstEventId(), range);
+        persist();
+    }
+
+    /**
+     * Removes the ranges of the files with the given first Event IDs, and persists the index if any range was removed.
+     *
+     * @param firstEventIds the first Event IDs of the files that no longer exist
+     * @throws IOException if unable to persist the index
+     */
+    public synchronized void remove(final Collection<Long> firstEventIds) throws IOException {
+        if (ranges.keySet().removeAll(firstEventIds)) {
+            persist();
+        }
+    }
+
+    /**
+     * Removes the ranges of all files other than those with the given first Event IDs, and persists the index if any range was removed.
+     *
+     * @param firstEventIds the first Event IDs of the files that exist
+     * @throws IOException if unable to persist the index
+     */
+    public synchronized void retain(final Collection<Long> firstEventIds) throws IOException {
+        boolean modified = false;
+        final Iterator<Map.Entry<Long, Range>> itr = ranges.entrySet().iterator();
+        while (itr.hasNext()) {
+            if (!firstEventIds.contains(itr.next().getKey())) {
+                itr.remove();
+                modified = true;
+            }
+        }
+
+        if (modified) {
+            persist();
+        }
+    }
+
+    private void persist() throws IOException {
+        // write to a temporary file and then rename it so that a failure part of the way through never leaves a partial index
+        final File indexDir = indexFile.getParentFile();
+        if (!indexDir.exists()) {
+            Files.createDirectories(indexDir.toPath());
+        }
+
+        final File tempFile = new File(indexDir, indexFile.getName() + ".tmp");
+        try (final FileOutputStream fos = new FileOutputStream(tempFile);
+            final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos))) {
+
+            dos.writeInt(VERSION);
+            dos.writeInt(ranges.size());
+            for (final Range range : ranges.values()) {
+                dos.writeLong(range.getFirstEventId());
+                dos.writeLong(range.getLastEventId());
+                dos.writeUTF(range.getFilename());
+            }
+
+            dos.flush();
+            fos.getFD().sync();
+        }
+
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EventFileIndex[file=" + indexFile + ", ranges=" + ranges.values() + "]";
+    }
+
+    /**
+     * The range of Event IDs held by a single Provenance Event Log File
+     */
+    public static class Range {
+        private final long firstEventId;
+        private final long lastEventId;
+        private final String filename;
+
+        public Range(final long firstEventId, final long lastEventId, final String filename) {
+            this.firstEventId = firstEventId;
+            this.lastEventId = lastEventId;
+            this.filename = filename;
+        }
+
+        public long getFirstEventId() {
+            return firstEventId;
+        }
+
+        public long getLastEventId() {
+            return lastEventId;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String toString() {
+            return filename + "[" + firstEventId + "-" + lastEventId + "]";
+        }
+    }
+}
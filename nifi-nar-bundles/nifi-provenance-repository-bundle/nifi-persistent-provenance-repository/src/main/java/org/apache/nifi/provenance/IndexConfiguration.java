@@ -29,6 +29,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
@@ -47,7 +48,11 @@ public class IndexConfiguration {
 
     private final RepositoryConfiguration repoConfig;
     private final Map<File, List<File>> indexDirectoryMap = new HashMap<>();
-    private final Pattern indexNamePattern = Pattern.compile("index-(\\d+)");
+    private final Pattern indexNamePattern = PersistentProvenanceRepository.INDEX_PATTERN;
+
+    // The shard catalog: for each index directory, the component partition that it holds and the range of event times that
+    // it covers, so that searches need to open only the shards that can contain matching events.
+    private final Map<File, IndexShard> shards = new HashMap<>();
 
     private final Lock lock = new ReentrantLock();
     private static final Logger logger = LoggerFactory.getLogger(IndexConfiguration.class);
@@ -75,9 +80,17 @@ public class IndexConfiguration {
             if (matching != null) {
                 for (final File matchingFile : matching) {
                     indexDirectories.add(matchingFile);
+
+                    // We don't know which events a recovered index holds, but none can have occurred after the index
+                    // was last modified.
+                    final IndexShard shard = createShard(matchingFile);
+                    shard.recordEventTime(matchingFile.lastModified());
+                    shards.put(matchingFile, shard);
                 }
             }
 
+            // The last index of each partition is the one that we continue to write to.
+            sortByStartTime(indexDirectories);
             indexDirectoryMap.put(storageDirectory, indexDirectories);
         }
 
@@ -116,45 +129,84 @@ public class IndexConfiguration {
             for (final File keyToRemove : keysToRemove) {
                 indexDirectoryMap.remove(keyToRemove);
             }
+
+            shards.remove(indexDirectory);
         } finally {
             lock.unlock();
         }
     }
 
-    public File getWritableIndexDirectory(final File provenanceLogFile, final long newIndexTimestamp) {
+    /**
+     * @param componentId the ID of a component
+     * @return the partition of the index that holds the events of the given component
+     */
+    public int getComponentPartition(final String componentId) {
+        return getComponentPartition(componentId, repoConfig.getIndexComponentPartitions());
+    }
+
+    private static int getComponentPartition(final String componentId, final int partitionCount) {
+        if (partitionCount <= 1 || componentId == null) {
+            return 0;
+        }
+
+        // Component IDs are indexed and searched in lower case
+        return (componentId.toLowerCase().hashCode() & Integer.MAX_VALUE) % partitionCount;
+    }
+
+    /**
+     * Returns the index directory that events of the given component partition should be written to, starting a new index
+     * if the current one has reached the desired size or the events belong to a later time bucket than the current one.
+     *
+     * @param provenanceLogFile the Provenance Log that the events belong to
+     * @param newIndexTimestamp the time of the earliest event to be written, used to name a new index if the Provenance Log has no events yet
+     * @param partition the component partition of the events, as returned by {@link #getComponentPartition(String)}
+     * @return the index directory to write the events to
+     */
+    public File getWritableIndexDirectory(final File provenanceLogFile, final long newIndexTimestamp, final int partition) {
         lock.lock();
         try {
             final File storageDirectory = provenanceLogFile.getParentFile();
             List<File> indexDirectories = this.indexDirectoryMap.get(storageDirectory);
             if (indexDirectories == null) {
-                final File newDir = addNewIndex(storageDirectory, provenanceLogFile, newIndexTimestamp);
                 indexDirectories = new ArrayList<>();
-                indexDirectories.add(newDir);
                 indexDirectoryMap.put(storageDirectory, indexDirectories);
-                return newDir;
             }
 
-            if (indexDirectories.isEmpty()) {
-                final File newDir = addNewIndex(storageDirectory, provenanceLogFile, newIndexTimestamp);
-                indexDirectories.add(newDir);
-                return newDir;
+            final int partitionCount = repoConfig.getIndexComponentPartitions();
+            File lastDir = null;
+            for (int i = indexDirectories.size() - 1; i >= 0; i--) {
+                final File indexDirectory = indexDirectories.get(i);
+                final IndexShard shard = shards.get(indexDirectory);
+                if (shard != null && shard.partition == partition && shard.partitionCount == partitionCount) {
+                    lastDir = indexDirectory;
+                    break;
+                }
             }
 
-            final File lastDir = indexDirectories.get(indexDirectories.size() - 1);
-            final long size = getSize(lastDir);
-            if (size > repoConfig.getDesiredIndexSize()) {
-                final File newDir = addNewIndex(storageDirectory, provenanceLogFile, newIndexTimestamp);
-                indexDirectories.add(newDir);
-                return newDir;
-            } else {
+            if (lastDir != null && getSize(lastDir) <= repoConfig.getDesiredIndexSize() && isSameTimeBucket(shards.get(lastDir).startTime, newIndexTimestamp)) {
                 return lastDir;
             }
+
+            final File newDir = addNewIndex(storageDirectory, provenanceLogFile, newIndexTimestamp, partition, partitionCount);
+            if (!indexDirectories.contains(newDir)) {
+                indexDirectories.add(newDir);
+            }
+            return newDir;
         } finally {
             lock.unlock();
         }
     }
 
-    private File addNewIndex(final File storageDirectory, final File provenanceLogFile, final long newIndexTimestamp) {
+    private boolean isSameTimeBucket(final long indexStartTime, final long eventTime) {
+        final long bucketMillis = repoConfig.getIndexShardDuration(TimeUnit.MILLISECONDS);
+        if (bucketMillis <= 0L) {
+            return true;
+        }
+
+        return indexStartTime / bucketMillis == eventTime / bucketMillis;
+    }
+
+    private File addNewIndex(final File storageDirectory, final File provenanceLogFile, final long newIndexTimestamp, final int partition, final int partitionCount) {
         // Build the event time of the first record into the index's filename so that we can determine
         // which index files to look at when we perform a search. We use the timestamp of the first record
         // in the Provenance Log file, rather than the current time, because we may perform the Indexing
@@ -163,7 +215,59 @@ public class IndexConfiguration {
         if (firstEntryTime == null) {
             firstEntryTime = newIndexTimestamp;
         }
-        return new File(storageDirectory, "index-" + firstEntryTime);
+
+        final String suffix = partitionCount > 1 ? "-" + partition + "of" + partitionCount : "";
+        final File indexDirectory = new File(storageDirectory, "index-" + firstEntryTime + suffix);
+        if (!shards.containsKey(indexDirectory)) {
+            shards.put(indexDirectory, new IndexShard(partition, partitionCount, firstEntryTime));
+        }
+        return indexDirectory;
+    }
+
+    /**
+     * Records that an event with the given time is about to be written to the given index, so that searches covering
+     * that time will include the index. This must be called before the event is added to the index.
+     *
+     * @param indexDirectory the index that the event will be written to
+     * @param eventTime the time of the event
+     */
+    public void recordEventTime(final File indexDirectory, final long eventTime) {
+        lock.lock();
+        try {
+            final IndexShard shard = shards.get(indexDirectory);
+            if (shard != null) {
+                shard.recordEventTime(eventTime);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param indexDirectory an index directory
+     * @return the latest time of any event that may be in the given index, or <code>null</code> if the index is not known
+     */
+    public Long getLatestEventTime(final File indexDirectory) {
+        lock.lock();
+        try {
+            final IndexShard shard = shards.get(indexDirectory);
+            return shard == null ? null : shard.maxEventTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private IndexShard createShard(final File indexDirectory) {
+        final Matcher matcher = indexNamePattern.matcher(indexDirectory.getName());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(indexDirectory + " is not an index directory");
+        }
+
+        final long startTime = Long.parseLong(matcher.group(1));
+        if (matcher.group(2) == null) {
+            return new IndexShard(0, 1, startTime);
+        }
+        return new IndexShard(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)), startTime);
     }
 
     public List<File> getIndexDirectories() {
@@ -205,7 +309,24 @@ public class IndexConfiguration {
      * span (times inclusive).
      */
     public List<File> getIndexDirectories(final Long startTime, final Long endTime) {
-        if (startTime == null && endTime == null) {
+        return getIndexDirectories(startTime, endTime, null);
+    }
+
+    /**
+     * Returns the index directories that can contain events for the given time
+     * span (times inclusive) and component, as determined by the shard catalog.
+     *
+     * @param startTime the start time of the query for which the indices are
+     * desired, or <code>null</code> if there is no start time
+     * @param endTime the end time of the query for which the indices are
+     * desired, or <code>null</code> if there is no end time
+     * @param componentId the ID of the component whose events are desired, or
+     * <code>null</code> if events of any component are desired
+     * @return the index directories that can contain the events, sorted by
+     * the time of their earliest events
+     */
+    public List<File> getIndexDirectories(final Long startTime, final Long endTime, final String componentId) {
+        if (startTime == null && endTime == null && componentId == null) {
             return getIndexDirectories();
         }
 
@@ -213,29 +334,29 @@ public class IndexConfiguration {
         lock.lock();
         try {
             final List<File> sortedIndexDirectories = getIndexDirectories();
-            Collections.sort(sortedIndexDirectories, new Comparator<File>() {
-                @Override
-                public int compare(final File o1, final File o2) {
-                    final long epochTimestamp1 = getIndexStartTime(o1);
-                    final long epochTimestamp2 = getIndexStartTime(o2);
-                    return Long.compare(epochTimestamp1, epochTimestamp2);
-                }
-            });
+            sortByStartTime(sortedIndexDirectories);
 
             for (final File indexDir : sortedIndexDirectories) {
-                // If the index was last modified before the start time, we know that it doesn't
+                final IndexShard shard = shards.get(indexDir);
+                if (shard == null) {
+                    dirs.add(indexDir);
+                    continue;
+                }
+
+                // If the latest event in the index occurred before the start time, we know that it doesn't
                 // contain any data for us to query.
-                if (startTime != null && indexDir.lastModified() < startTime) {
+                if (startTime != null && shard.maxEventTime < startTime) {
                     continue;
                 }
 
-                // If the index was created after the given end time, we know it doesn't contain any
-                // data for us to query.
-                if (endTime != null) {
-                    final long indexStartTime = getIndexStartTime(indexDir);
-                    if (indexStartTime > endTime) {
-                        continue;
-                    }
+                // If the earliest event in the index occurred after the given end time, we know it doesn't
+                // contain any data for us to query.
+                if (endTime != null && shard.minEventTime > endTime) {
+                    continue;
+                }
+
+                if (componentId != null && getComponentPartition(componentId, shard.partitionCount) != shard.partition) {
+                    continue;
                 }
 
                 dirs.add(indexDir);
@@ -247,6 +368,17 @@ public class IndexConfiguration {
         }
     }
 
+    private void sortByStartTime(final List<File> indexDirectories) {
+        Collections.sort(indexDirectories, new Comparator<File>() {
+            @Override
+            public int compare(final File o1, final File o2) {
+                final long epochTimestamp1 = getIndexStartTime(o1);
+                final long epochTimestamp2 = getIndexStartTime(o2);
+                return Long.compare(epochTimestamp1, epochTimestamp2);
+            }
+        });
+    }
+
     /**
      * Returns the index directories that are applicable only for the given
      * event log
@@ -266,14 +398,7 @@ public class IndexConfiguration {
             }
 
             final List<File> sortedIndexDirectories = new ArrayList<>(indices);
-            Collections.sort(sortedIndexDirectories, new Comparator<File>() {
-                @Override
-                public int compare(final File o1, final File o2) {
-                    final long epochTimestamp1 = getIndexStartTime(o1);
-                    final long epochTimestamp2 = getIndexStartTime(o2);
-                    return Long.compare(epochTimestamp1, epochTimestamp2);
-                }
-            });
+            sortByStartTime(sortedIndexDirectories);
 
             final Long firstEntryTime = getFirstEntryTime(provenanceLogFile);
             if (firstEntryTime == null) {
@@ -395,4 +520,25 @@ public class IndexConfiguration {
             lock.unlock();
         }
     }
+
+    private static class IndexShard {
+        private final int partition;
+        private final int partitionCount;
+        private final long startTime;
+        private long minEventTime;
+        private long maxEventTime;
+
+        public IndexShard(final int partition, final int partitionCount, final long startTime) {
+            this.partition = partition;
+            this.partitionCount = partitionCount;
+            this.startTime = startTime;
+            this.minEventTime = startTime;
+            this.maxEventTime = startTime;
+        }
+
+        public void recordEventTime(final long eventTime) {
+            minEventTime = Math.min(minEventTime, eventTime);
+            maxEventTime = Math.max(maxEventTime, eventTime);
+        }
+    }
 }
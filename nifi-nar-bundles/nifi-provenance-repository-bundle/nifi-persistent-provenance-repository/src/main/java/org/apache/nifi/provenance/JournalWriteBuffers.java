@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Buffers Provenance Events on their way to the journals of the {@link PersistentProvenanceRepository}, so that
+ * the threads that register events do not have to contend for the repository's locks. Each journal is given a
+ * bounded buffer that is drained by a dedicated writer thread. While the repository is rolling over, only the
+ * writer threads wait; a thread that registers events waits only if its buffer is full.
+ * </p>
+ *
+ * <p>
+ * The events that a writer thread finds in its buffer are written to the repository together, so that the cost
+ * of obtaining the repository's locks is shared by many sessions. The events of a single call to
+ * {@link #enqueue(Iterable)} are always written together, to the same journal.
+ * </p>
+ *
+ * <p>
+ * Event ids are assigned when events are written rather than when they are registered. A thread always hands its
+ * events to the same buffer, so the events registered by one thread are given ids in the order in which they were
+ * registered. Events registered by different threads are given ids in the order in which their buffers are
+ * written, which may differ from the order in which they were registered.
+ * </p>
+ *
+ * <p>
+ * If the events in a buffer cannot be written, they are kept in the buffer and written again after a delay, so
+ * that the buffer fills up and applies back-pressure to the threads that register events. Until a write from that
+ * buffer succeeds, threads that hand events to it are given the failure, just as they would be if they were writing
+ * the events themselves. Events are dropped only if they still cannot be written when the buffers are shut down.
+ * </p>
+ *
+ * <p>
+ * Keeps track of how long threads wait to enqueue events and how long events wait in the buffers before they are
+ * written (the drain lag).
+ * </p>
+ */
+class JournalWriteBuffers {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalWriteBuffers.class);
+    private static final long RETRY_DELAY_MILLIS = 1000L;
+
+    private final Buffer[] buffers;
+    private final int eventsPerBuffer;
+    private final EventWriter eventWriter;
+    private final ExecutorService executor;
+    private volatile boolean shutdown = false;
+
+    private final AtomicLong enqueuedEventCount = new AtomicLong(0L);
+    private final AtomicLong writtenEventCount = new AtomicLong(0L);
+    private final AtomicLong failedEventCount = new AtomicLong(0L);
+
+    private final AtomicLong enqueueCount = new AtomicLong(0L);
+    private final AtomicLong totalEnqueueNanos = new AtomicLong(0L);
+    private final AtomicLong maxEnqueueNanos = new AtomicLong(0L);
+
+    private final AtomicLong drainedCount = new AtomicLong(0L);
+    private final AtomicLong totalDrainLagNanos = new AtomicLong(0L);
+    private final AtomicLong maxDrainLagNanos = new AtomicLong(0L);
+
+    /**
+     * @param bufferCount the number of buffers, and writer threads, to use
+     * @param eventsPerBuffer the number of events that each buffer may hold before threads registering events must wait
+     * @param eventWriter the writer that persists the buffered events to the repository
+     * @param threadFactory the factory to use for creating the writer threads
+     */
+    public JournalWriteBuffers(final int bufferCount, final int eventsPerBuffer, final EventWriter eventWriter, final ThreadFactory threadFactory) {
+        if (bufferCount < 1 || eventsPerBuffer < 1) {
+            throw new IllegalArgumentException("Must have at least one buffer capable of holding at least one event");
+        }
+
+        this.eventsPerBuffer = eventsPerBuffer;
+        this.eventWriter = eventWriter;
+        this.buffers = new Buffer[bufferCount];
+        this.executor = Executors.newFixedThreadPool(bufferCount, threadFactory);
+
+        for (int i = 0; i < bufferCount; i++) {
+            buffers[i] = new Buffer(eventsPerBuffer);
+            executor.submit(new DrainTask(buffers[i]));
+        }
+    }
+
+    /**
+     * Hands the given events to the calling thread's buffer, waiting if that buffer is full.
+     *
+     * @param events the events to write
+     * @throws IllegalStateException if the buffers have been shut down, or if the events that are already in the
+     *             calling thread's buffer could not be written
+     */
+    public void enqueue(final Iterable<ProvenanceEventRecord> events) {
+        final long start = System.nanoTime();
+        if (shutdown) {
+            throw new IllegalStateException("Cannot update Provenance Repository because it has been closed");
+        }
+
+        final List<ProvenanceEventRecord> eventList = new ArrayList<>();
+        for (final ProvenanceEventRecord event : events) {
+            eventList.add(event);
+        }
+        if (eventList.isEmpty()) {
+            return;
+        }
+
+        // Always use the same buffer for a given thread, so that its events are written in the order it registered them
+        final Buffer buffer = buffers[(int) (Thread.currentThread().getId() % buffers.length)];
+        final Throwable writeFailure = buffer.writeFailure;
+        if (writeFailure != null) {
+            throw new IllegalStateException("Cannot update Provenance Repository because previously registered events could not be written "
+                + "due to " + writeFailure.toString() + "; they will be written again shortly", writeFailure);
+        }
+
+        // A batch that is larger than a buffer takes up the entire buffer rather than waiting forever. If the buffer
+        // is full, the writer thread cannot keep up, so we wait for room in order to slow the flow down to the rate
+        // of the repository.
+        final int permits = Math.min(eventList.size(), eventsPerBuffer);
+        buffer.permits.acquireUninterruptibly(permits);
+
+        enqueuedEventCount.addAndGet(eventList.size());
+        buffer.queue.add(new PendingEvents(eventList, permits, buffer, System.nanoTime()));
+
+        final long enqueueNanos = System.nanoTime() - start;
+        enqueueCount.incrementAndGet();
+        totalEnqueueNanos.addAndGet(enqueueNanos);
+        updateMax(maxEnqueueNanos, enqueueNanos);
+    }
+
+    /**
+     * Stops accepting events and waits for the writer threads to write all of the events that have already been
+     * buffered.
+     */
+    public void shutdown() {
+        shutdown = true;
+        executor.shutdown();
+
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                logger.debug("Waiting for {} buffered Provenance Events to be written", getPendingEventCount());
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for buffered Provenance Events to be written; {} events will not be written", getPendingEventCount());
+            return;
+        }
+
+        // A thread may have enqueued events after the writer threads finished.
+        final List<PendingEvents> remaining = new ArrayList<>();
+        for (final Buffer buffer : buffers) {
+            buffer.queue.drainTo(remaining);
+        }
+        if (!remaining.isEmpty() && !write(remaining)) {
+            drop(remaining);
+        }
+    }
+
+    /**
+     * Writes the given batches to the repository and releases the room that they took up in their buffers
+     *
+     * @param batches the batches to write
+     * @return <code>true</code> if the events were written, <code>false</code> if the write failed, in which case the
+     *         batches still take up room in their buffers
+     */
+    private boolean write(final List<PendingEvents> batches) {
+        final List<ProvenanceEventRecord> events;
+        if (batches.size() == 1) {
+            events = batches.get(0).events;
+        } else {
+            events = new ArrayList<>();
+            for (final PendingEvents batch : batches) {
+                events.addAll(batch.events);
+            }
+        }
+
+        try {
+            eventWriter.write(events);
+        } catch (final Throwable t) {
+            for (final PendingEvents batch : batches) {
+                if (batch.buffer.writeFailure == null) {
+                    logger.error("Failed to write {} buffered Provenance Events to the repository due to {}; will keep them buffered and try again",
+                        events.size(), t.toString());
+                    logger.error("", t);
+                }
+                batch.buffer.writeFailure = t;
+            }
+            return false;
+        }
+
+        writtenEventCount.addAndGet(events.size());
+        final long now = System.nanoTime();
+        for (final PendingEvents batch : batches) {
+            final long lagNanos = now - batch.enqueueNanos;
+            drainedCount.incrementAndGet();
+            totalDrainLagNanos.addAndGet(lagNanos);
+            updateMax(maxDrainLagNanos, lagNanos);
+
+            batch.buffer.writeFailure = null;
+            batch.buffer.permits.release(batch.permits);
+        }
+        return true;
+    }
+
+    private void drop(final List<PendingEvents> batches) {
+        int eventCount = 0;
+        for (final PendingEvents batch : batches) {
+            eventCount += batch.events.size();
+            batch.buffer.permits.release(batch.permits);
+        }
+
+        failedEventCount.addAndGet(eventCount);
+        logger.error("Failed to write {} buffered Provenance Events to the repository before shutting down; these events will not be available", eventCount);
+    }
+
+    private static void updateMax(final AtomicLong max, final long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of events that have been enqueued but not yet written
+     */
+    public long getPendingEventCount() {
+        return enqueuedEventCount.get() - writtenEventCount.get() - failedEventCount.get();
+    }
+
+    /**
+     * @return the number of buffered events that could not be written to the repository before it was shut down
+     */
+    public long getFailedEventCount() {
+        return failedEventCount.get();
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the average amount of time that threads have spent handing events to the buffers
+     */
+    public long getAverageEnqueueLatency(final TimeUnit timeUnit) {
+        final long count = enqueueCount.get();
+        return count == 0 ? 0L : timeUnit.convert(totalEnqueueNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the longest amount of time that any thread has spent handing events to the buffers
+     */
+    public long getMaxEnqueueLatency(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxEnqueueNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the average amount of time between events being enqueued and being written to a journal
+     */
+    public long getAverageDrainLag(final TimeUnit timeUnit) {
+        final long count = drainedCount.get();
+        return count == 0 ? 0L : timeUnit.convert(totalDrainLagNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the longest amount of time that any events have waited between being enqueued and being written to a journal
+     */
+    public long getMaxDrainLag(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxDrainLagNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Persists events that have been drained from a buffer
+     */
+    interface EventWriter {
+        void write(List<ProvenanceEventRecord> events);
+    }
+
+    private static class Buffer {
+        private final BlockingQueue<PendingEvents> queue = new LinkedBlockingQueue<>();
+        private final Semaphore permits;
+        private volatile Throwable writeFailure; // the reason that the last write from this buffer failed, or null if it succeeded
+
+        public Buffer(final int capacity) {
+            this.permits = new Semaphore(capacity);
+        }
+    }
+
+    private static class PendingEvents {
+        private final List<ProvenanceEventRecord> events;
+        private final int permits;
+        private final Buffer buffer;
+        private final long enqueueNanos;
+
+        public PendingEvents(final List<ProvenanceEventRecord> events, final int permits, final Buffer buffer, final long enqueueNanos) {
+            this.events = events;
+            this.permits = permits;
+            this.buffer = buffer;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+
+    private class DrainTask implements Runnable {
+        private final Buffer buffer;
+
+        public DrainTask(final Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            final List<PendingEvents> batches = new ArrayList<>();
+            while (true) {
+                final PendingEvents first;
+                try {
+                    first = buffer.queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                if (first == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batches.add(first);
+                buffer.queue.drainTo(batches);
+
+                // Keep the events that could not be written at the front of the buffer, so that they are written
+                // before any events that are registered later
+                while (!write(batches)) {
+                    if (shutdown) {
+                        drop(batches);
+                        break;
+                    }
+
+                    try {
+                        Thread.sleep(RETRY_DELAY_MILLIS);
+                    } catch (final InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        drop(batches);
+                        return;
+                    }
+                }
+                batches.clear();
+            }
+        }
+    }
+}
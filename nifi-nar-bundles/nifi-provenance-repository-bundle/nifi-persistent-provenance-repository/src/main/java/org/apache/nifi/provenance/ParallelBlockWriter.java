@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.nifi.provenance.toc.TocWriter;
+import org.apache.nifi.stream.io.ByteCountingOutputStream;
+
+/**
+ * <p>
+ * Writes the blocks of a Provenance Event Log File in order, while the blocks are compressed on a shared thread pool. This
+ * allows a {@link org.apache.nifi.provenance.serialization.RecordWriter RecordWriter} to go on filling the next block while the
+ * previous blocks are being compressed.
+ * </p>
+ *
+ * <p>
+ * Because the offset of a block is not known until all of the blocks before it have been compressed, each block is added to
+ * the Table of Contents when it is written rather than when it is started. The index of a block is known as soon as it is
+ * submitted, however, and is returned by {@link #submit(long, Callable)}.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; it is intended to be used by the single thread that is writing the file.
+ * </p>
+ */
+class ParallelBlockWriter {
+
+    private final ByteCountingOutputStream out;
+    private final TocWriter tocWriter;
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+
+    private final Deque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+    private int blockCount = 0;
+
+    /**
+     * @param out the stream to write the compressed blocks to
+     * @param tocWriter the Table of Contents to add each block to when it is written; may be null
+     * @param executor the thread pool on which to compress the blocks
+     * @param maxPendingBlocks the maximum number of blocks that may be waiting to be written, which bounds the memory used
+     *            to hold them; once reached, {@link #submit(long, Callable)} waits for the oldest block to be written
+     */
+    public ParallelBlockWriter(final ByteCountingOutputStream out, final TocWriter tocWriter, final ExecutorService executor, final int maxPendingBlocks) {
+        this.out = out;
+        this.tocWriter = tocWriter;
+        this.executor = executor;
+        this.maxPendingBlocks = Math.max(1, maxPendingBlocks);
+    }
+
+    /**
+     * Submits a block to be compressed and then written after all of the blocks that were submitted before it
+     *
+     * @param firstEventId the ID of the first event in the block
+     * @param compressor produces the bytes of the block, as they are to be written to the file
+     * @return the index of the block
+     * @throws IOException if unable to write the blocks that have been compressed
+     */
+    public int submit(final long firstEventId, final Callable<byte[]> compressor) throws IOException {
+        while (pendingBlocks.size() >= maxPendingBlocks) {
+            writeNextBlock();
+        }
+
+        pendingBlocks.add(new PendingBlock(firstEventId, executor.submit(compressor)));
+
+        // write any blocks that are ready, without waiting for the others
+        while (!pendingBlocks.isEmpty() && pendingBlocks.peek().getFuture().isDone()) {
+            writeNextBlock();
+        }
+
+        return blockCount++;
+    }
+
+    /**
+     * @return the number of blocks that have been submitted
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Waits for all of the submitted blocks to be compressed and writes them
+     *
+     * @throws IOException if unable to compress or write a block
+     */
+    public void writeAll() throws IOException {
+        while (!pendingBlocks.isEmpty()) {
+            writeNextBlock();
+        }
+    }
+
+    /**
+     * Abandons the blocks that have not yet been written
+     */
+    public void cancel() {
+        for (final PendingBlock block : pendingBlocks) {
+            block.getFuture().cancel(true);
+        }
+        pendingBlocks.clear();
+    }
+
+    private void writeNextBlock() throws IOException {
+        final PendingBlock block = pendingBlocks.poll();
+
+        final byte[] bytes;
+        try {
+            bytes = block.getFuture().get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for block to be compressed");
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to compress block", cause);
+        }
+
+        if (tocWriter != null) {
+            tocWriter.addBlockOffset(out.getBytesWritten(), block.getFirstEventId());
+        }
+        out.write(bytes);
+    }
+
+    private static class PendingBlock {
+        private final long firstEventId;
+        private final Future<byte[]> future;
+
+        public PendingBlock(final long firstEventId, final Future<byte[]> future) {
+            this.firstEventId = firstEventId;
+            this.future = future;
+        }
+
+        public long getFirstEventId() {
+            return firstEventId;
+        }
+
+        public Future<byte[]> getFuture() {
+            return future;
+        }
+    }
+}
@@ -58,12 +58,14 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexNotFoundException;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
@@ -75,17 +77,24 @@ import org.apache.nifi.provenance.expiration.FileRemovalAction;
 import org.apache.nifi.provenance.lineage.FlowFileLineage;
 import org.apache.nifi.provenance.lineage.Lineage;
 import org.apache.nifi.provenance.lineage.LineageComputationType;
+import org.apache.nifi.provenance.lucene.ContinuousIndexer;
 import org.apache.nifi.provenance.lucene.DeleteIndexAction;
+import org.apache.nifi.provenance.lucene.DocsReader;
 import org.apache.nifi.provenance.lucene.FieldNames;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.IndexSearch;
 import org.apache.nifi.provenance.lucene.IndexingAction;
 import org.apache.nifi.provenance.lucene.LineageQuery;
 import org.apache.nifi.provenance.lucene.LuceneUtil;
+import org.apache.nifi.provenance.search.EventIdOrder;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryCursor;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.search.SearchTerm;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.EventFileFormat;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.RecordWriter;
@@ -102,16 +111,17 @@ import org.apache.nifi.util.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class PersistentProvenanceRepository implements ProvenanceEventRepository {
+public class PersistentProvenanceRepository implements PageableProvenanceEventRepository {
 
     public static final String DEPRECATED_CLASS_NAME = "nifi.controller.repository.provenance.PersistentProvenanceRepository";
     public static final String EVENT_CATEGORY = "Provenance Repository";
     private static final String FILE_EXTENSION = ".prov";
     private static final String TEMP_FILE_SUFFIX = ".prov.part";
     private static final long PURGE_EVENT_MILLISECONDS = 2500L; //Determines the frequency over which the task to delete old events will occur
+    private static final int CONTINUOUS_INDEX_QUEUE_CAPACITY = 1000; // number of batches of events that may be waiting to be indexed
     public static final int SERIALIZATION_VERSION = 8;
     public static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
-    public static final Pattern INDEX_PATTERN = Pattern.compile("index-\\d+");
+    public static final Pattern INDEX_PATTERN = Pattern.compile("index-(\\d+)(?:-(\\d+)of(\\d+))?"); // index-<first event time>[-<partition>of<partitions>]
     public static final Pattern LOG_FILENAME_PATTERN = Pattern.compile("(\\d+).*\\.prov");
     public static final int MAX_UNDELETED_QUERY_RESULTS = 10;
 
@@ -122,6 +132,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
     private final AtomicLong idGenerator = new AtomicLong(0L);
     private final AtomicReference<SortedMap<Long, Path>> idToPathMap = new AtomicReference<>();
+    private final Map<File, EventFileIndex> eventFileIndices; // the range of Event IDs in each Provenance Event Log File, by storage directory
     private final AtomicBoolean recoveryFinished = new AtomicBoolean(false);
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -133,6 +144,9 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
     private final Lock readLock = rwLock.readLock();
 
     private RecordWriter[] writers; // guarded by readLock/writeLock
+    private volatile JournalWriteBuffers writeBuffers; // null if events are written by the threads that register them
+    private volatile ContinuousIndexer continuousIndexer; // null if events are indexed when the journals are merged
+    private volatile File journalMergeDirectory; // the storage directory that the current journals will be merged into; guarded by readLock/writeLock
 
     private final AtomicLong streamStartTime = new AtomicLong(System.currentTimeMillis());
     private final RepositoryConfiguration configuration;
@@ -145,6 +159,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
     private final ScheduledExecutorService scheduledExecService;
     private final ScheduledExecutorService rolloverExecutor;
     private final ExecutorService queryExecService;
+    private final ExecutorService compressionExecutor; // null if blocks are compressed by the thread that merges the journals
 
     private final List<ExpirationAction> expirationActions = new ArrayList<>();
 
@@ -156,6 +171,10 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
     private final AtomicLong bytesWrittenSinceRollover = new AtomicLong(0L);
     private final AtomicInteger recordsWrittenSinceRollover = new AtomicInteger(0);
     private final AtomicInteger rolloverCompletions = new AtomicInteger(0);
+    private final AtomicInteger pendingRollovers = new AtomicInteger(0);
+    private final AtomicLong totalRolloverNanos = new AtomicLong(0L);
+    private final AtomicLong maxRolloverNanos = new AtomicLong(0L);
+    private final AtomicLong lastRolloverNanos = new AtomicLong(0L);
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
     private final AtomicInteger dirtyWriterCount = new AtomicInteger(0);
@@ -163,6 +182,9 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
     // we keep the last 1000 records on hand so that when the UI is opened and it asks for the last 1000 records we don't need to
     // read them. Since this is a very cheap operation to keep them, it's worth the tiny expense for the improved user experience.
     private final RingBuffer<ProvenanceEventRecord> latestRecords = new RingBuffer<>(1000);
+
+    // recently written and retrieved events, and recently computed lineages; null if disabled
+    private final ProvenanceEventCache eventCache;
     private EventReporter eventReporter;
 
     public PersistentProvenanceRepository() throws IOException {
@@ -177,6 +199,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         this.configuration = configuration;
         this.maxAttributeChars = configuration.getMaxAttributeChars();
 
+        final Map<File, EventFileIndex> fileIndices = new HashMap<>();
         for (final File file : configuration.getStorageDirectories()) {
             final Path storageDirectory = file.toPath();
             final Path journalDirectory = storageDirectory.resolve("journals");
@@ -186,7 +209,10 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             } else if (!Files.isDirectory(journalDirectory)) {
                 throw new IllegalArgumentException("Storage Location " + journalDirectory + " is not a directory");
             }
+
+            fileIndices.put(file, EventFileIndex.load(file));
         }
+        this.eventFileIndices = Collections.unmodifiableMap(fileIndices);
 
         this.maxPartitionMillis = configuration.getMaxEventFileLife(TimeUnit.MILLISECONDS);
         this.maxPartitionBytes = configuration.getMaxEventFileCapacity();
@@ -194,6 +220,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         this.indexManager = new IndexManager();
         this.alwaysSync = configuration.isAlwaysSync();
         this.rolloverCheckMillis = rolloverCheckMillis;
+        this.eventCache = configuration.getEventCacheBytes() > 0L ? new ProvenanceEventCache(configuration.getEventCacheBytes()) : null;
 
         scheduledExecService = Executors.newScheduledThreadPool(3, new NamedThreadFactory("Provenance Maintenance Thread"));
         queryExecService = Executors.newFixedThreadPool(configuration.getQueryThreadPoolSize(), new NamedThreadFactory("Provenance Query Thread"));
@@ -204,6 +231,14 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         // to account for that.
         final int numRolloverThreads = configuration.getStorageDirectories().size() * 2;
         rolloverExecutor = Executors.newScheduledThreadPool(numRolloverThreads, new NamedThreadFactory("Provenance Repository Rollover Thread"));
+
+        // Compressing the merged events is the most expensive part of a rollover, so it may be spread over a pool of threads
+        // that is shared by all of the rollovers, while each rollover thread goes on merging events in order.
+        if (configuration.isCompressOnRollover() && configuration.getCompressionThreadPoolSize() > 0) {
+            compressionExecutor = Executors.newFixedThreadPool(configuration.getCompressionThreadPoolSize(), new NamedThreadFactory("Provenance Compression Thread"));
+        } else {
+            compressionExecutor = null;
+        }
     }
 
     @Override
@@ -220,6 +255,21 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
             if (configuration.isAllowRollover()) {
                 writers = createWriters(configuration, idGenerator.get());
+                journalMergeDirectory = nextMergeDirectory();
+
+                if (configuration.isContinuousIndexing()) {
+                    continuousIndexer = new ContinuousIndexer(this, indexConfig, indexManager, eventCache, configuration.getIndexThreadPoolSize(),
+                        CONTINUOUS_INDEX_QUEUE_CAPACITY, new NamedThreadFactory("Provenance Indexing Thread"));
+                }
+
+                if (configuration.getJournalBufferSize() > 0) {
+                    writeBuffers = new JournalWriteBuffers(configuration.getJournalCount(), configuration.getJournalBufferSize(), new JournalWriteBuffers.EventWriter() {
+                        @Override
+                        public void write(final List<ProvenanceEventRecord> events) {
+                            writeRecords(events);
+                        }
+                    }, new NamedThreadFactory("Provenance Journal Writer Thread"));
+                }
             }
 
             if (configuration.isAllowRollover()) {
@@ -286,9 +336,16 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         final String rolloverTime = properties.getProperty(NiFiProperties.PROVENANCE_ROLLOVER_TIME, "5 mins");
         final String rolloverSize = properties.getProperty(NiFiProperties.PROVENANCE_ROLLOVER_SIZE, "100 MB");
         final String shardSize = properties.getProperty(NiFiProperties.PROVENANCE_INDEX_SHARD_SIZE, "500 MB");
+        final String shardDuration = properties.getProperty(NiFiProperties.PROVENANCE_INDEX_SHARD_DURATION);
+        final int shardPartitions = properties.getIntegerProperty(NiFiProperties.PROVENANCE_INDEX_SHARD_PARTITIONS, 1);
         final int queryThreads = properties.getIntegerProperty(NiFiProperties.PROVENANCE_QUERY_THREAD_POOL_SIZE, 2);
         final int indexThreads = properties.getIntegerProperty(NiFiProperties.PROVENANCE_INDEX_THREAD_POOL_SIZE, 1);
+        final int compressionThreads = properties.getIntegerProperty(NiFiProperties.PROVENANCE_COMPRESSION_THREAD_POOL_SIZE, 0);
         final int journalCount = properties.getIntegerProperty(NiFiProperties.PROVENANCE_JOURNAL_COUNT, 16);
+        final int journalBufferSize = properties.getIntegerProperty(NiFiProperties.PROVENANCE_JOURNAL_BUFFER_SIZE, 0);
+        final boolean continuousIndexing = Boolean.parseBoolean(properties.getProperty(NiFiProperties.PROVENANCE_INDEX_CONTINUOUSLY, "false"));
+        final String eventFileFormat = properties.getProperty(NiFiProperties.PROVENANCE_EVENT_FILE_FORMAT, EventFileFormat.STANDARD.name());
+        final String cacheSize = properties.getProperty(NiFiProperties.PROVENANCE_CACHE_SIZE, "0 MB");
 
         final long storageMillis = FormatUtils.getTimeDuration(storageTime, TimeUnit.MILLISECONDS);
         final long maxStorageBytes = DataUnit.parseDataSize(storageSize, DataUnit.B).longValue();
@@ -337,12 +394,21 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         config.setMaxStorageCapacity(maxStorageBytes);
         config.setQueryThreadPoolSize(queryThreads);
         config.setIndexThreadPoolSize(indexThreads);
+        config.setCompressionThreadPoolSize(Math.max(0, compressionThreads));
         config.setJournalCount(journalCount);
+        config.setJournalBufferSize(journalBufferSize);
+        config.setContinuousIndexing(continuousIndexing);
         config.setMaxAttributeChars(maxAttrChars);
+        config.setEventFileFormat(EventFileFormat.valueOf(eventFileFormat.trim().toUpperCase()));
+        config.setEventCacheBytes(DataUnit.parseDataSize(cacheSize, DataUnit.B).longValue());
 
         if (shardSize != null) {
             config.setDesiredIndexSize(DataUnit.parseDataSize(shardSize, DataUnit.B).longValue());
         }
+        if (shardDuration != null && !shardDuration.trim().isEmpty()) {
+            config.setIndexShardDuration(FormatUtils.getTimeDuration(shardDuration.trim(), TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        }
+        config.setIndexComponentPartitions(Math.max(1, shardPartitions));
 
         config.setAlwaysSync(alwaysSync);
 
@@ -444,47 +510,55 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
     private List<Path> getPathsForId(final long id) {
         final SortedMap<Long, Path> map = idToPathMap.get();
 
+        // The event can only be in the last file whose first Event ID is not greater than the id. If the Event File Index
+        // knows that the event lies beyond the end of that file, then the search starts with the file that follows it instead.
         final List<Path> paths = new ArrayList<>();
-
-        final Iterator<Map.Entry<Long, Path>> itr = map.entrySet().iterator();
-        if (!itr.hasNext()) {
-            return paths;
+        final SortedMap<Long, Path> headMap = map.headMap(id);
+        if (!map.containsKey(id) && !headMap.isEmpty()) {
+            final Path path = headMap.get(headMap.lastKey());
+            final EventFileIndex.Range range = getEventFileRange(path.toFile());
+            if (range == null || range.getLastEventId() >= id) {
+                paths.add(path);
+            }
         }
+        paths.addAll(map.tailMap(id).values());
 
-        Map.Entry<Long, Path> lastEntry = itr.next();
-        while (itr.hasNext()) {
-            final Map.Entry<Long, Path> entry = itr.next();
-            final Long startIndex = entry.getKey();
-
-            if (startIndex >= id) {
-                paths.add(lastEntry.getValue());
-                paths.add(entry.getValue());
-
-                while (itr.hasNext()) {
-                    paths.add(itr.next().getValue());
-                }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Looking for Event ID {}, searching in paths: {}", id, paths);
+        }
 
-                return paths;
-            }
+        return paths;
+    }
 
-            lastEntry = entry;
+    /**
+     * @param logFile a Provenance Event Log File
+     * @return the range of Event IDs in the given file, or <code>null</code> if the range is not known
+     */
+    private EventFileIndex.Range getEventFileRange(final File logFile) {
+        final EventFileIndex fileIndex = eventFileIndices.get(logFile.getParentFile());
+        if (fileIndex == null) {
+            return null;
         }
 
-        // we didn't find any entry whose first ID is greater than the id
-        // requested. However,
-        // since we don't know the max ID of the last entry in the map, it's
-        // possible that the
-        // ID that we want lives within that file, so we add it to the paths to
-        // return
-        if (lastEntry != null) {
-            paths.add(lastEntry.getValue());
+        final EventFileIndex.Range range = fileIndex.getRange(getFirstEventId(logFile));
+        if (range == null || !range.getFilename().equals(logFile.getName())) {
+            return null;
         }
+        return range;
+    }
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("Looking for Event ID {}, searching in paths: {}", id, paths);
+    private void addEventFileRange(final File logFile, final long lastEventId) {
+        final EventFileIndex fileIndex = eventFileIndices.get(logFile.getParentFile());
+        if (fileIndex == null) {
+            return;
         }
 
-        return paths;
+        try {
+            fileIndex.add(new EventFileIndex.Range(getFirstEventId(logFile), lastEventId, logFile.getName()));
+        } catch (final IOException ioe) {
+            logger.warn("Failed to update Event File Index with the Event IDs in {} due to {}; the range of Event IDs will be determined again on restart",
+                logFile, ioe.toString());
+        }
     }
 
     public RepositoryConfiguration getConfiguration() {
@@ -543,10 +617,37 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             }
         }
 
-        if (maxIdFile != null) {
+        // Forget about any files that no longer exist, such as files that were aged off after the index was last persisted
+        for (final Map.Entry<File, EventFileIndex> entry : eventFileIndices.entrySet()) {
+            final Set<Long> firstEventIds = new HashSet<>();
+            for (final Map.Entry<Long, Path> pathEntry : sortedPathMap.entrySet()) {
+                if (entry.getKey().equals(pathEntry.getValue().toFile().getParentFile())) {
+                    firstEventIds.add(pathEntry.getKey());
+                }
+            }
+
+            try {
+                entry.getValue().retain(firstEventIds);
+            } catch (final IOException ioe) {
+                logger.warn("Failed to update Event File Index for {} due to {}", entry.getKey(), ioe.toString());
+            }
+        }
+
+        final EventFileIndex.Range maxIdRange = maxIdFile == null ? null : getEventFileRange(maxIdFile);
+        if (maxIdRange != null) {
+            // The Event File Index tells us the max ID in the last file, so we needn't read it.
+            final long eventId = maxIdRange.getLastEventId();
+            if (eventId > maxId) {
+                maxId = eventId;
+            }
+            if (eventId > maxIndexedId) {
+                maxIndexedId = eventId;
+            }
+        } else if (maxIdFile != null) {
             // Determine the max ID in the last file.
             try (final RecordReader reader = RecordReaders.newRecordReader(maxIdFile, getAllLogFiles(), maxAttributeChars)) {
                 final long eventId = reader.getMaxEventId();
+                addEventFileRange(maxIdFile, eventId);
                 if (eventId > maxId) {
                     maxId = eventId;
                 }
@@ -600,8 +701,11 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                 }
             }
 
-            // Read the records in the last file to find its max id
-            if (greatestMinIdFile != null) {
+            // Read the records in the last file to find its max id, unless it was recorded when the journals were merged
+            final EventFileIndex.Range greatestRange = greatestMinIdFile == null ? null : getEventFileRange(greatestMinIdFile);
+            if (greatestRange != null) {
+                maxId = greatestRange.getLastEventId();
+            } else if (greatestMinIdFile != null) {
                 try (final RecordReader recordReader = RecordReaders.newRecordReader(greatestMinIdFile, Collections.<Path> emptyList(), maxAttributeChars)) {
                     maxId = recordReader.getMaxEventId();
                 }
@@ -630,6 +734,17 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
     @Override
     public synchronized void close() throws IOException {
+        // the writer threads need the read lock in order to write the events that are still buffered
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        if (buffers != null) {
+            buffers.shutdown();
+        }
+
+        final ContinuousIndexer indexer = this.continuousIndexer;
+        if (indexer != null) {
+            indexer.close();
+        }
+
         this.closed.set(true);
         writeLock.lock();
         try {
@@ -638,6 +753,9 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             scheduledExecService.shutdownNow();
             rolloverExecutor.shutdownNow();
             queryExecService.shutdownNow();
+            if (compressionExecutor != null) {
+                compressionExecutor.shutdownNow();
+            }
 
             indexManager.close();
 
@@ -656,7 +774,19 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
     }
 
     private void persistRecord(final Iterable<ProvenanceEventRecord> records) {
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        if (buffers == null) {
+            writeRecords(records);
+        } else {
+            buffers.enqueue(records);
+        }
+    }
+
+    private void writeRecords(final Iterable<ProvenanceEventRecord> records) {
         final long totalJournalSize;
+        final ContinuousIndexer indexer = this.continuousIndexer;
+        final List<StandardProvenanceEventRecord> recordsToIndex = indexer == null ? null : new ArrayList<StandardProvenanceEventRecord>();
+
         readLock.lock();
         try {
             long bytesWritten = 0L;
@@ -685,12 +815,21 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                         final long eventId = idGenerator.getAndIncrement();
                         bytesWritten += writer.writeRecord(nextRecord, eventId);
                         logger.trace("Wrote record with ID {} to {}", eventId, writer);
+
+                        if (recordsToIndex != null) {
+                            recordsToIndex.add(createIndexableRecord(nextRecord, eventId, writer.getFile()));
+                        }
                     }
 
                     if (alwaysSync) {
                         writer.sync();
                     }
 
+                    // The events must be readable from the journal before they can be found by a search
+                    if (recordsToIndex != null) {
+                        writer.flush();
+                    }
+
                     totalJournalSize = bytesWrittenSinceRollover.addAndGet(bytesWritten);
                     recordsWrittenSinceRollover.getAndIncrement();
                 } catch (final Throwable t) {
@@ -738,6 +877,12 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
                 return;
             }
+
+            // Hand the events to the indexer while we still hold the read lock, so that a rollover cannot merge
+            // the journal before the indexer knows about them.
+            if (recordsToIndex != null) {
+                indexer.index(recordsToIndex, journalMergeDirectory);
+            }
         } finally {
             readLock.unlock();
         }
@@ -765,6 +910,23 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         }
     }
 
+    private StandardProvenanceEventRecord createIndexableRecord(final ProvenanceEventRecord record, final long eventId, final File journalFile) {
+        final StandardProvenanceEventRecord indexable = new StandardProvenanceEventRecord.Builder().fromEvent(record)
+            .setStorageLocation(journalFile.getName(), 0L)
+            .build();
+        indexable.setEventId(eventId);
+        return indexable;
+    }
+
+    /**
+     * @return the storage directory that the next set of journals should be merged into
+     */
+    private File nextMergeDirectory() {
+        final long storageDirIdx = storageDirectoryIndex.getAndIncrement();
+        final List<File> storageDirs = configuration.getStorageDirectories();
+        return storageDirs.get((int) (storageDirIdx % storageDirs.size()));
+    }
+
     /**
      * @return all of the Provenance Event Log Files (not the journals, the merged files) available across all storage directories.
      */
@@ -949,6 +1111,25 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             logger.debug("After expiration, path map: {}", newPathMap);
         }
 
+        if (!removed.isEmpty()) {
+            final List<Long> removedIds = new ArrayList<>(removed.size());
+            for (final String baseName : removed) {
+                removedIds.add(Long.parseLong(baseName));
+            }
+
+            for (final Map.Entry<File, EventFileIndex> entry : eventFileIndices.entrySet()) {
+                try {
+                    entry.getValue().remove(removedIds);
+                } catch (final IOException ioe) {
+                    logger.warn("Failed to update Event File Index for {} due to {}; the index will be corrected on restart", entry.getKey(), ioe.toString());
+                }
+            }
+        }
+
+        if (eventCache != null && !removed.isEmpty()) {
+            eventCache.clear();
+        }
+
         purgeExpiredIndexes();
     }
 
@@ -967,20 +1148,20 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             return;
         }
 
-        // Indexes are named "index-XXX" where the XXX is the timestamp of the earliest event that
-        // could be in the index. Once we have finished with one index, we move on to another index,
-        // but we don't move on until we are finished with the previous index.
-        // Therefore, an efficient way to determine the latest timestamp of one index is to look at the
-        // timestamp of the next index (these could potentially overlap for one millisecond). This is
-        // efficient because we can determine the earliest timestamp of an index simply by looking at
-        // the name of the Index's directory.
-        final long latestTimestampOfFirstIndex = getIndexTimestamp(indexDirs.get(1));
+        // The shard catalog keeps track of the latest event time of each index. Indexes that it does not know
+        // about are named "index-XXX" where the XXX is the timestamp of the earliest event that could be in
+        // the index. Once we have finished with one such index, we move on to another index, but we don't move
+        // on until we are finished with the previous index. Therefore, the latest timestamp of one of these
+        // indexes is the timestamp of the next index (these could potentially overlap for one millisecond).
+        final Long latestEventTimeOfFirstIndex = indexConfig.getLatestEventTime(indexDirs.get(0));
 
         // Get the timestamp of the first event in the first Provenance Event Log File and the ID of the last event
         // in the event file.
         final List<File> logFiles = getSortedLogFiles();
         if (logFiles.isEmpty()) {
-            this.firstEventTimestamp = System.currentTimeMillis();
+            // there may be several indexes before the first Provenance Log File has been merged, as each component
+            // partition and storage directory has its own index, so searches must not exclude the events being merged.
+            this.firstEventTimestamp = 0L;
             return;
         }
 
@@ -999,8 +1180,11 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             }
         }
 
-        // check if we can delete the index safely.
-        if (latestTimestampOfFirstIndex <= earliestEventTime) {
+        // check if we can delete the index safely. The latest event time from the shard catalog is exact, so an index
+        // whose latest event occurred at the same time as the earliest remaining event must be kept.
+        final boolean firstIndexExpired = latestEventTimeOfFirstIndex == null
+            ? getIndexTimestamp(indexDirs.get(1)) <= earliestEventTime : latestEventTimeOfFirstIndex < earliestEventTime;
+        if (firstIndexExpired) {
             // we can safely delete the first index because the latest event in the index is an event
             // that has already been expired from the repository.
             final File indexingDirectory = indexDirs.get(0);
@@ -1106,9 +1290,141 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
      * @return the timestamp associated with the given index
      */
     private long getIndexTimestamp(final File indexDirectory) {
-        final String name = indexDirectory.getName();
-        final int dashIndex = name.indexOf("-");
-        return Long.parseLong(name.substring(dashIndex + 1));
+        final Matcher matcher = INDEX_PATTERN.matcher(indexDirectory.getName());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(indexDirectory + " is not an index directory");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * @return the number of events that have been registered but are still waiting in the journal write buffers
+     *         to be written to a journal; always 0 if the write buffers are disabled
+     */
+    public long getBufferedEventCount() {
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        return buffers == null ? 0L : buffers.getPendingEventCount();
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the average amount of time that threads registering events have spent handing them to the journal
+     *         write buffers; always 0 if the write buffers are disabled
+     */
+    public long getAverageEnqueueLatency(final TimeUnit timeUnit) {
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        return buffers == null ? 0L : buffers.getAverageEnqueueLatency(timeUnit);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the longest amount of time that a thread registering events has spent handing them to the journal
+     *         write buffers; always 0 if the write buffers are disabled
+     */
+    public long getMaxEnqueueLatency(final TimeUnit timeUnit) {
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        return buffers == null ? 0L : buffers.getMaxEnqueueLatency(timeUnit);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the average amount of time that events wait in the journal write buffers before being written to a
+     *         journal; always 0 if the write buffers are disabled
+     */
+    public long getAverageDrainLag(final TimeUnit timeUnit) {
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        return buffers == null ? 0L : buffers.getAverageDrainLag(timeUnit);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the longest amount of time that events have waited in the journal write buffers before being written
+     *         to a journal; always 0 if the write buffers are disabled
+     */
+    public long getMaxDrainLag(final TimeUnit timeUnit) {
+        final JournalWriteBuffers buffers = this.writeBuffers;
+        return buffers == null ? 0L : buffers.getMaxDrainLag(timeUnit);
+    }
+
+    /**
+     * @return the percentage of requests for a single event that were answered from the event cache; always 0 if the
+     *         cache is disabled
+     */
+    public double getEventCacheHitRate() {
+        return eventCache == null ? 0D : eventCache.getEventHitRate();
+    }
+
+    /**
+     * @return the percentage of lineage computations that were answered from the event cache; always 0 if the cache
+     *         is disabled
+     */
+    public double getLineageCacheHitRate() {
+        return eventCache == null ? 0D : eventCache.getLineageHitRate();
+    }
+
+    /**
+     * @return the estimated number of bytes of heap occupied by the event cache; always 0 if the cache is disabled
+     */
+    public long getEventCacheSize() {
+        return eventCache == null ? 0L : eventCache.getSize();
+    }
+
+    /**
+     * @return the number of entries that have been evicted from the event cache to keep it within its maximum size;
+     *         always 0 if the cache is disabled
+     */
+    public long getEventCacheEvictionCount() {
+        return eventCache == null ? 0L : eventCache.getEvictionCount();
+    }
+
+    /**
+     * @return the number of rollovers whose journals have been closed but not yet merged into a Provenance Event Log File.
+     *         If this keeps growing, the repository will eventually apply back-pressure to the flow.
+     */
+    public int getRolloverBacklog() {
+        return pendingRollovers.get();
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the amount of time between the most recent completed rollover closing its journals and the journals being
+     *         merged, compressed, and indexed; 0 if no rollover has completed
+     */
+    public long getLastRolloverDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(lastRolloverNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the average amount of time between a rollover closing its journals and the journals being merged, compressed,
+     *         and indexed; 0 if no rollover has completed
+     */
+    public long getAverageRolloverDuration(final TimeUnit timeUnit) {
+        final int count = rolloverCompletions.get();
+        return count == 0 ? 0L : timeUnit.convert(totalRolloverNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the value to return
+     * @return the longest amount of time between a rollover closing its journals and the journals being merged, compressed,
+     *         and indexed
+     */
+    public long getMaxRolloverDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxRolloverNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    private void rolloverCompleted(final long startNanos) {
+        final long nanos = System.nanoTime() - startNanos;
+        lastRolloverNanos.set(nanos);
+        totalRolloverNanos.addAndGet(nanos);
+
+        long max = maxRolloverNanos.get();
+        while (nanos > max && !maxRolloverNanos.compareAndSet(max, nanos)) {
+            max = maxRolloverNanos.get();
+        }
+
+        pendingRollovers.decrementAndGet();
+        rolloverCompletions.getAndIncrement();
     }
 
     /**
@@ -1178,20 +1494,33 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                 logger.debug("Going to merge {} files for journals starting with ID {}", journalsToMerge.size(), LuceneUtil.substringBefore(journalsToMerge.get(0).getName(), "."));
             }
 
-            // Choose a storage directory to store the merged file in.
-            final long storageDirIdx = storageDirectoryIndex.getAndIncrement();
-            final List<File> storageDirs = configuration.getStorageDirectories();
-            final File storageDir = storageDirs.get((int) (storageDirIdx % storageDirs.size()));
+            // The storage directory to store the merged file in was chosen when the journals were created, so that
+            // events that are indexed as they are written can be indexed alongside the file that they will be merged into.
+            final File storageDir = journalMergeDirectory;
+            final ContinuousIndexer indexer = continuousIndexer;
 
             // Run the rollover logic in a background thread.
             final AtomicReference<Future<?>> futureReference = new AtomicReference<>();
             final int recordsWritten = recordsWrittenSinceRollover.getAndSet(0);
+            final long rolloverStartNanos = System.nanoTime();
+            pendingRollovers.incrementAndGet();
             final Runnable rolloverRunnable = new Runnable() {
                 @Override
                 public void run() {
                     try {
                         final File fileRolledOver;
 
+                        if (indexer != null) {
+                            try {
+                                indexer.flush();
+                            } catch (final IOException ioe) {
+                                logger.error("Failed to commit the index of Journal Files {} due to {}; will not merge them until the index is committed",
+                                    journalsToMerge, ioe.toString());
+                                logger.error("", ioe);
+                                return;
+                            }
+                        }
+
                         try {
                             fileRolledOver = mergeJournals(journalsToMerge, getMergeFile(journalsToMerge, storageDir), eventReporter);
                         } catch (final IOException ioe) {
@@ -1219,8 +1548,9 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                             updated = idToPathMap.compareAndSet(existingPathMap, newIdToPathMap);
                         }
 
-                        logger.info("Successfully Rolled over Provenance Event file containing {} records", recordsWritten);
-                        rolloverCompletions.getAndIncrement();
+                        rolloverCompleted(rolloverStartNanos);
+                        logger.info("Successfully Rolled over Provenance Event file containing {} records in {} millis; {} rollovers are still pending",
+                            recordsWritten, getLastRolloverDuration(TimeUnit.MILLISECONDS), pendingRollovers.get());
 
                         // We have finished successfully. Cancel the future so that we don't run anymore
                         Future<?> future;
@@ -1247,6 +1577,16 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             streamStartTime.set(System.currentTimeMillis());
             bytesWrittenSinceRollover.set(0);
 
+            final JournalWriteBuffers buffers = this.writeBuffers;
+            if (buffers != null) {
+                logger.debug("Journal write buffers hold {} events; enqueue latency average {} micros, max {} micros; drain lag average {} millis, max {} millis",
+                    buffers.getPendingEventCount(), buffers.getAverageEnqueueLatency(TimeUnit.MICROSECONDS), buffers.getMaxEnqueueLatency(TimeUnit.MICROSECONDS),
+                    buffers.getAverageDrainLag(TimeUnit.MILLISECONDS), buffers.getMaxDrainLag(TimeUnit.MILLISECONDS));
+            }
+            if (indexer != null) {
+                logger.debug("{} events are waiting to be indexed; {} events could not be indexed", indexer.getPendingEventCount(), indexer.getFailedEventCount());
+            }
+
             // We don't want to create new 'writers' until the number of unmerged journals falls below our threshold. So we wait
             // here before we repopulate the 'writers' member variable and release the lock.
             int journalFileCount = getJournalCount();
@@ -1306,6 +1646,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
             // we've finished rolling over successfully. Create new writers and reset state.
             writers = createWriters(configuration, idGenerator.get());
+            journalMergeDirectory = nextMergeDirectory();
             dirtyWriterCount.set(0);
             streamStartTime.set(System.currentTimeMillis());
             recordsWrittenSinceRollover.getAndSet(0);
@@ -1351,9 +1692,16 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         }
 
         final Set<File> mergedFiles = new HashSet<>();
-        for (final List<File> journalFileSet : journalMap.values()) {
-            final long storageDirIdx = storageDirectoryIndex.getAndIncrement();
-            final File storageDir = storageDirs.get((int) (storageDirIdx % storageDirs.size()));
+        for (final Map.Entry<String, List<File>> entry : journalMap.entrySet()) {
+            final List<File> journalFileSet = entry.getValue();
+
+            // Some of the events in the journals may have been indexed as they were written. We cannot tell which, so
+            // we remove them all from the indices and index the journals as we merge them, as if they had never been indexed.
+            if (configuration.isContinuousIndexing()) {
+                removeFromIndices(entry.getKey());
+            }
+
+            final File storageDir = nextMergeDirectory();
             final File mergedFile = mergeJournals(journalFileSet, getMergeFile(journalFileSet, storageDir), eventReporter);
             if (mergedFile != null) {
                 mergedFiles.add(mergedFile);
@@ -1363,6 +1711,27 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         return mergedFiles;
     }
 
+    private void removeFromIndices(final String journalBasename) {
+        final Term term = new Term(FieldNames.STORAGE_FILENAME, journalBasename);
+        for (final File indexDirectory : indexConfig.getIndexDirectories()) {
+            try {
+                final IndexWriter writer = indexManager.borrowIndexWriter(indexDirectory);
+                try {
+                    writer.deleteDocuments(term);
+                    writer.commit();
+                } finally {
+                    indexManager.returnIndexWriter(indexDirectory, writer);
+                }
+            } catch (final IOException ioe) {
+                logger.warn("Failed to remove events from Journal Files {} from index {}; this could potentially result in duplicates. Failure was due to {}",
+                    journalBasename, indexDirectory, ioe.toString());
+                if (logger.isDebugEnabled()) {
+                    logger.warn("", ioe);
+                }
+            }
+        }
+    }
+
     static File getMergeFile(final List<File> journalFiles, final File storageDir) {
         // verify that all Journal files have the same basename
         String canonicalBaseName = null;
@@ -1433,6 +1802,10 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         final String firstFileSuffix = LuceneUtil.substringAfterLast(firstJournalFile, ".");
         final boolean allPartialFiles = firstFileSuffix.equals("0");
 
+        // If the events were indexed as they were written to the journals, we must neither index them again nor remove
+        // them from the index when repeating a merge.
+        final boolean indexOnMerge = continuousIndexer == null;
+
         // check if we have all of the "partial" files for the journal.
         if (allPartialFiles) {
             if (suggestedMergeFile.exists()) {
@@ -1441,13 +1814,16 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                 logger.warn("Merged Journal File {} already exists; however, all partial journal files also exist "
                         + "so assuming that the merge did not finish. Repeating procedure in order to ensure consistency.");
 
-                final DeleteIndexAction deleteAction = new DeleteIndexAction(this, indexConfig, indexManager);
-                try {
-                    deleteAction.execute(suggestedMergeFile);
-                } catch (final Exception e) {
-                    logger.warn("Failed to delete records from Journal File {} from the index; this could potentially result in duplicates. Failure was due to {}", suggestedMergeFile, e.toString());
-                    if ( logger.isDebugEnabled() ) {
-                        logger.warn("", e);
+                if (indexOnMerge) {
+                    final DeleteIndexAction deleteAction = new DeleteIndexAction(this, indexConfig, indexManager);
+                    try {
+                        deleteAction.execute(suggestedMergeFile);
+                    } catch (final Exception e) {
+                        logger.warn("Failed to delete records from Journal File {} from the index; this could potentially result in duplicates. Failure was due to {}",
+                            suggestedMergeFile, e.toString());
+                        if ( logger.isDebugEnabled() ) {
+                            logger.warn("", e);
+                        }
                     }
                 }
 
@@ -1484,6 +1860,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         // Map each journal to a RecordReader
         final List<RecordReader> readers = new ArrayList<>();
         int records = 0;
+        long lastEventId = -1L;
 
         final boolean isCompress = configuration.isCompressOnRollover();
         final File writerFile = isCompress ? new File(suggestedMergeFile.getParentFile(), suggestedMergeFile.getName() + ".gz") : suggestedMergeFile;
@@ -1565,19 +1942,20 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
             // loop over each entry in the map, persisting the records to the merged file in order, and populating the map
             // with the next entry from the journal file from which the previous record was written.
-            try (final RecordWriter writer = RecordWriters.newRecordWriter(writerFile, configuration.isCompressOnRollover(), true)) {
+            try (final RecordWriter writer = RecordWriters.newRecordWriter(writerFile, configuration.isCompressOnRollover(), true,
+                    configuration.getEventFileFormat(), compressionExecutor)) {
                 writer.writeHeader(minEventId);
 
                 final IndexingAction indexingAction = new IndexingAction(this);
 
-                final File indexingDirectory = indexConfig.getWritableIndexDirectory(writerFile, earliestTimestamp);
                 long maxId = 0L;
 
                 final BlockingQueue<Tuple<StandardProvenanceEventRecord, Integer>> eventQueue = new LinkedBlockingQueue<>(100);
                 final AtomicBoolean finishedAdding = new AtomicBoolean(false);
                 final List<Future<?>> futures = new ArrayList<>();
 
-                final IndexWriter indexWriter = indexManager.borrowIndexWriter(indexingDirectory);
+                // The index directory and writer for each component partition, obtained when the first event of the partition is merged
+                final ConcurrentMap<Integer, Tuple<File, IndexWriter>> partitionWriters = new ConcurrentHashMap<>();
                 try {
                     final ExecutorService exec = Executors.newFixedThreadPool(configuration.getIndexThreadPoolSize(), new ThreadFactory() {
                         @Override
@@ -1589,7 +1967,8 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                     });
 
                     try {
-                        for (int i = 0; i < configuration.getIndexThreadPoolSize(); i++) {
+                        final int indexThreadCount = indexOnMerge ? configuration.getIndexThreadPoolSize() : 0;
+                        for (int i = 0; i < indexThreadCount; i++) {
                             final Callable<Object> callable = new Callable<Object>() {
                                 @Override
                                 public Object call() throws IOException {
@@ -1605,7 +1984,8 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                                             continue;
                                         }
 
-                                        indexingAction.index(tuple.getKey(), indexWriter, tuple.getValue());
+                                        final int partition = indexConfig.getComponentPartition(tuple.getKey().getComponentId());
+                                        indexingAction.index(tuple.getKey(), partitionWriters.get(partition).getValue(), tuple.getValue());
                                     }
 
                                     return null;
@@ -1622,9 +2002,21 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                             final RecordReader reader = entry.getValue();
 
                             writer.writeRecord(record, record.getEventId());
-                            final int blockIndex = writer.getTocWriter().getCurrentBlockIndex();
+                            final int blockIndex = writer.getCurrentBlockIndex();
+
+                            if (indexOnMerge) {
+                                final int partition = indexConfig.getComponentPartition(record.getComponentId());
+                                Tuple<File, IndexWriter> partitionWriter = partitionWriters.get(partition);
+                                if (partitionWriter == null) {
+                                    final File indexingDirectory = indexConfig.getWritableIndexDirectory(writerFile, earliestTimestamp, partition);
+                                    partitionWriter = new Tuple<>(indexingDirectory, indexManager.borrowIndexWriter(indexingDirectory));
+                                    partitionWriters.put(partition, partitionWriter);
+                                }
+
+                                indexConfig.recordEventTime(partitionWriter.getKey(), record.getEventTime());
+                            }
 
-                            boolean accepted = false;
+                            boolean accepted = !indexOnMerge;
                             while (!accepted) {
                                 try {
                                     accepted = eventQueue.offer(new Tuple<>(record, blockIndex), 10, TimeUnit.MILLISECONDS);
@@ -1632,8 +2024,13 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                                 }
                             }
                             maxId = record.getEventId();
+                            lastEventId = maxId;
 
-                            latestRecords.add(truncateAttributes(record));
+                            final StandardProvenanceEventRecord truncated = truncateAttributes(record);
+                            latestRecords.add(truncated);
+                            if (eventCache != null) {
+                                eventCache.cacheEvent(truncated);
+                            }
                             records++;
 
                             // Remove this entry from the map
@@ -1671,10 +2068,17 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                         }
                     }
                 } finally {
-                    indexManager.returnIndexWriter(indexingDirectory, indexWriter);
+                    for (final Tuple<File, IndexWriter> partitionWriter : partitionWriters.values()) {
+                        indexManager.returnIndexWriter(partitionWriter.getKey(), partitionWriter.getValue());
+                    }
                 }
 
                 indexConfig.setMaxIdIndexed(maxId);
+
+                // the merged events are now searchable, so any cached lineage may be missing some of them
+                if (eventCache != null) {
+                    eventCache.allEventsSearchable();
+                }
             }
 
             // record should now be available in the repository. We can copy the values from latestRecords to ringBuffer.
@@ -1725,6 +2129,7 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             final long nanos = System.nanoTime() - startNanos;
             final long millis = TimeUnit.MILLISECONDS.convert(nanos, TimeUnit.NANOSECONDS);
             logger.info("Successfully merged {} journal files ({} records) into single Provenance Log File {} in {} milliseconds", journalFiles.size(), records, suggestedMergeFile, millis);
+            addEventFileRange(writerFile, lastEventId);
         }
 
         return writerFile;
@@ -1839,10 +2244,11 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
             return result;
         }
 
+        // Only the shards that can contain matching events are searched, each on its own query thread
         final AtomicInteger retrievalCount = new AtomicInteger(0);
         final List<File> indexDirectories = indexConfig.getIndexDirectories(
                 query.getStartDate() == null ? null : query.getStartDate().getTime(),
-                        query.getEndDate() == null ? null : query.getEndDate().getTime());
+                        query.getEndDate() == null ? null : query.getEndDate().getTime(), getComponentId(query));
         final AsyncQuerySubmission result = new AsyncQuerySubmission(query, indexDirectories.size());
         querySubmissionMap.put(query.getIdentifier(), result);
 
@@ -1857,6 +2263,79 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         return result;
     }
 
+    @Override
+    public QueryPage getEventPage(final Query query, final QueryCursor cursor, final int pageSize) throws IOException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        if (query.getEndDate() != null && query.getStartDate() != null && query.getStartDate().getTime() > query.getEndDate().getTime()) {
+            throw new IllegalArgumentException("Query End Time cannot be before Query Start Time");
+        }
+
+        final boolean ascending = cursor.getOrder() == EventIdOrder.ASCENDING;
+        final Comparator<Long> idComparator = ascending ? null : Collections.<Long> reverseOrder();
+
+        // Each shard gives us the first matching documents beyond the cursor. We keep one more than a page of them, across
+        // all shards, so that we know where the next page begins, without ever holding more than a page in memory.
+        final TreeMap<Long, Document> docsById = new TreeMap<>(idComparator);
+        final List<File> indexDirectories = indexConfig.getIndexDirectories(
+            query.getStartDate() == null ? null : query.getStartDate().getTime(),
+            query.getEndDate() == null ? null : query.getEndDate().getTime(), getComponentId(query));
+        for (final File indexDirectory : indexDirectories) {
+            final IndexSearch search = new IndexSearch(this, indexDirectory, indexManager, maxAttributeChars);
+            for (final Document document : search.searchPage(query, cursor, pageSize + 1)) {
+                final long eventId = document.getField(SearchableFields.Identifier.getSearchableFieldName()).numericValue().longValue();
+                docsById.put(eventId, document);
+                if (docsById.size() > pageSize + 1) {
+                    docsById.remove(docsById.lastKey());
+                }
+            }
+        }
+
+        final List<Document> pageDocs = new ArrayList<>(Math.min(pageSize, docsById.size()));
+        QueryCursor nextCursor = null;
+        for (final Map.Entry<Long, Document> entry : docsById.entrySet()) {
+            if (pageDocs.size() == pageSize) {
+                nextCursor = new QueryCursor(cursor.getOrder(), entry.getKey());
+                break;
+            }
+            pageDocs.add(entry.getValue());
+        }
+
+        if (pageDocs.isEmpty()) {
+            return new QueryPage(Collections.<ProvenanceEventRecord> emptyList(), null);
+        }
+
+        // The events are read in the order in which they are stored, so we must put them back into the order of the cursor.
+        // Events whose Provenance Log has aged off are skipped, so the page may hold fewer events than were found.
+        final DocsReader docsReader = new DocsReader(configuration.getStorageDirectories());
+        final List<ProvenanceEventRecord> events = new ArrayList<>(docsReader.read(pageDocs, getAllLogFiles(), new AtomicInteger(0), pageSize, maxAttributeChars));
+        Collections.sort(events, new Comparator<ProvenanceEventRecord>() {
+            @Override
+            public int compare(final ProvenanceEventRecord o1, final ProvenanceEventRecord o2) {
+                final int comparison = Long.compare(o1.getEventId(), o2.getEventId());
+                return ascending ? comparison : -comparison;
+            }
+        });
+
+        return new QueryPage(events, nextCursor);
+    }
+
+    /**
+     * @return the Component ID that all events matching the given query must have, or <code>null</code> if the query
+     *         does not search for a specific Component ID
+     */
+    private static String getComponentId(final Query query) {
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            final String value = searchTerm.getValue();
+            if (SearchableFields.ComponentID.equals(searchTerm.getSearchableField()) && value != null && !value.contains("*") && !value.contains("?")) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * This is for testing only and not actually used other than in debugging
      *
@@ -2052,12 +2531,24 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
     private AsyncLineageSubmission submitLineageComputation(final Collection<String> flowFileUuids, final LineageComputationType computationType,
             final Long eventId, final long startTimestamp, final long endTimestamp) {
+        if (eventCache != null) {
+            final Collection<ProvenanceEventRecord> cachedLineage = eventCache.getLineage(flowFileUuids, startTimestamp, endTimestamp);
+            if (cachedLineage != null) {
+                final AsyncLineageSubmission result = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, 1);
+                lineageSubmissionMap.put(result.getLineageIdentifier(), result);
+                result.getResult().update(cachedLineage);
+                return result;
+            }
+        }
+
         final List<File> indexDirs = indexConfig.getIndexDirectories(startTimestamp, endTimestamp);
         final AsyncLineageSubmission result = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, indexDirs.size());
         lineageSubmissionMap.put(result.getLineageIdentifier(), result);
 
+        final ProvenanceEventCache.PendingLineage pendingLineage = eventCache == null ? null
+            : eventCache.startLineage(flowFileUuids, startTimestamp, endTimestamp, indexDirs.size());
         for (final File indexDir : indexDirs) {
-            queryExecService.submit(new ComputeLineageRunnable(flowFileUuids, result, indexDir));
+            queryExecService.submit(new ComputeLineageRunnable(flowFileUuids, result, indexDir, pendingLineage));
         }
 
         return result;
@@ -2150,6 +2641,13 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
     @Override
     public ProvenanceEventRecord getEvent(final long id) throws IOException {
+        if (eventCache != null) {
+            final ProvenanceEventRecord cached = eventCache.getEvent(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         final List<ProvenanceEventRecord> records = getEvents(id, 1);
         if (records.isEmpty()) {
             return null;
@@ -2158,6 +2656,10 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         if (record.getEventId() != id) {
             return null;
         }
+
+        if (eventCache != null) {
+            eventCache.cacheEvent(record);
+        }
         return record;
     }
 
@@ -2323,16 +2825,22 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
         private final Collection<String> flowFileUuids;
         private final File indexDir;
         private final AsyncLineageSubmission submission;
+        private final ProvenanceEventCache.PendingLineage pendingLineage;
 
-        public ComputeLineageRunnable(final Collection<String> flowFileUuids, final AsyncLineageSubmission submission, final File indexDir) {
+        public ComputeLineageRunnable(final Collection<String> flowFileUuids, final AsyncLineageSubmission submission, final File indexDir,
+            final ProvenanceEventCache.PendingLineage pendingLineage) {
             this.flowFileUuids = flowFileUuids;
             this.submission = submission;
             this.indexDir = indexDir;
+            this.pendingLineage = pendingLineage;
         }
 
         @Override
         public void run() {
             if (submission.isCanceled()) {
+                if (pendingLineage != null) {
+                    pendingLineage.stepFailed();
+                }
                 return;
             }
 
@@ -2342,6 +2850,9 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
 
                 final StandardLineageResult result = submission.getResult();
                 result.update(matchingRecords);
+                if (pendingLineage != null) {
+                    pendingLineage.stepCompleted(matchingRecords);
+                }
 
                 logger.info("Successfully created Lineage for FlowFiles with UUIDs {} in {} milliseconds; Lineage contains {} nodes and {} edges",
                         flowFileUuids, result.getComputationTime(TimeUnit.MILLISECONDS), result.getNodes().size(), result.getEdges().size());
@@ -2351,6 +2862,10 @@ public class PersistentProvenanceRepository implements ProvenanceEventRepository
                     logger.error("", t);
                 }
 
+                if (pendingLineage != null) {
+                    pendingLineage.stepFailed();
+                }
+
                 if (t.getMessage() == null) {
                     submission.getResult().setError(t.toString());
                 } else {
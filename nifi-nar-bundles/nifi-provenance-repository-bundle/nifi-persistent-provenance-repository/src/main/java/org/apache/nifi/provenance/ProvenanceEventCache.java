@@ -0,0 +1,445 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A bounded, in-memory cache of Provenance Events and of the events that make up computed lineages, so that viewing
+ * the details of a recent event, or viewing the same lineage again, does not require that the event files be
+ * re-opened and their blocks decompressed. Entries are evicted in least-recently-used order once the estimated size
+ * of the cached events exceeds the configured number of bytes.
+ * </p>
+ *
+ * <p>
+ * A lineage is cached along with the versions of the FlowFiles that it was computed for. The version of a FlowFile
+ * changes whenever an event that refers to it becomes searchable, which causes any lineage that includes the FlowFile
+ * to be computed again the next time that it is requested. Versions are tracked for a fixed number of buckets of
+ * FlowFile UUIDs rather than for each UUID, so a lineage may occasionally be recomputed unnecessarily but is never stale.
+ * </p>
+ */
+public class ProvenanceEventCache {
+
+    private static final int VERSION_BUCKETS = 4096;
+
+    // rough per-object overheads used to estimate how much heap a cached event occupies
+    private static final int EVENT_OVERHEAD_BYTES = 256;
+    private static final int STRING_OVERHEAD_BYTES = 48;
+    private static final int MAP_ENTRY_OVERHEAD_BYTES = 48;
+
+    private final long maxBytes;
+
+    // guarded by 'this'
+    private final LinkedHashMap<Object, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes = 0L;
+
+    private final AtomicLongArray flowFileVersions = new AtomicLongArray(VERSION_BUCKETS);
+
+    private final AtomicLong eventHits = new AtomicLong(0L);
+    private final AtomicLong eventMisses = new AtomicLong(0L);
+    private final AtomicLong lineageHits = new AtomicLong(0L);
+    private final AtomicLong lineageMisses = new AtomicLong(0L);
+    private final AtomicLong evictions = new AtomicLong(0L);
+
+    /**
+     * @param maxBytes the approximate number of bytes of heap that the cached events may occupy
+     */
+    public ProvenanceEventCache(final long maxBytes) {
+        if (maxBytes < 1L) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param eventId the ID of the event
+     * @return the cached event with the given ID, or <code>null</code> if the event is not cached
+     */
+    public ProvenanceEventRecord getEvent(final long eventId) {
+        final CacheEntry entry;
+        synchronized (this) {
+            entry = entries.get(eventId);
+        }
+
+        if (entry == null) {
+            eventMisses.incrementAndGet();
+            return null;
+        }
+
+        eventHits.incrementAndGet();
+        return entry.event;
+    }
+
+    /**
+     * Adds the given event to the cache. The event's ID must have been assigned.
+     *
+     * @param event the event to cache
+     */
+    public void cacheEvent(final ProvenanceEventRecord event) {
+        put(event.getEventId(), new CacheEntry(event, estimateSize(event)));
+    }
+
+    /**
+     * @param flowFileUuids the UUIDs of the FlowFiles whose lineage is wanted
+     * @param startTimestamp the earliest time of the events in the lineage
+     * @param endTimestamp the latest time of the events in the lineage
+     * @return the events of the cached lineage, or <code>null</code> if the lineage is not cached or may have changed
+     *         since it was cached
+     */
+    public Collection<ProvenanceEventRecord> getLineage(final Collection<String> flowFileUuids, final long startTimestamp, final long endTimestamp) {
+        final LineageKey key = new LineageKey(flowFileUuids, startTimestamp, endTimestamp);
+
+        synchronized (this) {
+            final CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                if (Arrays.equals(entry.flowFileVersions, getVersions(key.buckets))) {
+                    lineageHits.incrementAndGet();
+                    return entry.lineage;
+                }
+
+                remove(key);
+            }
+        }
+
+        lineageMisses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Notes that a lineage is about to be computed, so that its events can be cached once it completes.
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles whose lineage is being computed
+     * @param startTimestamp the earliest time of the events in the lineage
+     * @param endTimestamp the latest time of the events in the lineage
+     * @param steps the number of parts that the lineage is computed in, each of which must call
+     *            {@link PendingLineage#stepCompleted(Collection)} or {@link PendingLineage#stepFailed()}
+     * @return the pending lineage
+     */
+    public PendingLineage startLineage(final Collection<String> flowFileUuids, final long startTimestamp, final long endTimestamp, final int steps) {
+        final LineageKey key = new LineageKey(flowFileUuids, startTimestamp, endTimestamp);
+        return new PendingLineage(key, getVersions(key.buckets), steps);
+    }
+
+    /**
+     * Indicates that the given event has become searchable, so that any lineage that it belongs to must be recomputed
+     *
+     * @param event the event
+     */
+    public void eventSearchable(final ProvenanceEventRecord event) {
+        incrementVersion(event.getFlowFileUuid());
+        for (final String uuid : event.getParentUuids()) {
+            incrementVersion(uuid);
+        }
+        for (final String uuid : event.getChildUuids()) {
+            incrementVersion(uuid);
+        }
+
+        final String sourceIdentifier = event.getSourceSystemFlowFileIdentifier();
+        if (sourceIdentifier != null) {
+            incrementVersion(sourceIdentifier.substring(sourceIdentifier.lastIndexOf(":") + 1));
+        }
+    }
+
+    /**
+     * Indicates that an unknown set of events has become searchable, so that all cached lineages must be recomputed
+     */
+    public void allEventsSearchable() {
+        for (int i = 0; i < VERSION_BUCKETS; i++) {
+            flowFileVersions.incrementAndGet(i);
+        }
+    }
+
+    /**
+     * Removes everything from the cache. This is used when events are removed from the repository.
+     */
+    public synchronized void clear() {
+        allEventsSearchable();
+        entries.clear();
+        currentBytes = 0L;
+    }
+
+    private void incrementVersion(final String flowFileUuid) {
+        if (flowFileUuid != null) {
+            flowFileVersions.incrementAndGet(getBucket(flowFileUuid));
+        }
+    }
+
+    private static int getBucket(final String flowFileUuid) {
+        return (flowFileUuid.hashCode() & Integer.MAX_VALUE) % VERSION_BUCKETS;
+    }
+
+    private long[] getVersions(final int[] buckets) {
+        final long[] versions = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            versions[i] = flowFileVersions.get(buckets[i]);
+        }
+        return versions;
+    }
+
+    private synchronized void put(final Object key, final CacheEntry entry) {
+        if (entry.size > maxBytes) {
+            return;
+        }
+
+        remove(key);
+        entries.put(key, entry);
+        currentBytes += entry.size;
+
+        final Iterator<CacheEntry> itr = entries.values().iterator();
+        while (currentBytes > maxBytes && itr.hasNext()) {
+            currentBytes -= itr.next().size;
+            itr.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // guarded by 'this'
+    private void remove(final Object key) {
+        final CacheEntry existing = entries.remove(key);
+        if (existing != null) {
+            currentBytes -= existing.size;
+        }
+    }
+
+    static long estimateSize(final ProvenanceEventRecord event) {
+        long size = EVENT_OVERHEAD_BYTES;
+        size += estimateSize(event.getFlowFileUuid());
+        size += estimateSize(event.getComponentId());
+        size += estimateSize(event.getComponentType());
+        size += estimateSize(event.getTransitUri());
+        size += estimateSize(event.getDetails());
+        size += estimateSize(event.getRelationship());
+        size += estimateSize(event.getSourceQueueIdentifier());
+        size += estimateSize(event.getAlternateIdentifierUri());
+        size += estimateSize(event.getSourceSystemFlowFileIdentifier());
+        size += estimateSize(event.getContentClaimIdentifier());
+        size += estimateSize(event.getPreviousContentClaimIdentifier());
+        size += estimateSize(event.getParentUuids());
+        size += estimateSize(event.getChildUuids());
+        size += estimateSize(event.getLineageIdentifiers());
+        size += estimateSize(event.getPreviousAttributes());
+        size += estimateSize(event.getUpdatedAttributes());
+        return size;
+    }
+
+    private static long estimateSize(final String value) {
+        return value == null ? 0L : STRING_OVERHEAD_BYTES + 2L * value.length();
+    }
+
+    private static long estimateSize(final Collection<String> values) {
+        long size = 0L;
+        for (final String value : values) {
+            size += estimateSize(value);
+        }
+        return size;
+    }
+
+    private static long estimateSize(final Map<String, String> values) {
+        long size = 0L;
+        for (final Map.Entry<String, String> entry : values.entrySet()) {
+            size += MAP_ENTRY_OVERHEAD_BYTES + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of events that were found in the cache
+     */
+    public long getEventHitCount() {
+        return eventHits.get();
+    }
+
+    /**
+     * @return the number of events that were looked for in the cache but not found
+     */
+    public long getEventMissCount() {
+        return eventMisses.get();
+    }
+
+    /**
+     * @return the percentage of event lookups that were found in the cache
+     */
+    public double getEventHitRate() {
+        return getHitRate(eventHits.get(), eventMisses.get());
+    }
+
+    /**
+     * @return the number of lineages that were found in the cache
+     */
+    public long getLineageHitCount() {
+        return lineageHits.get();
+    }
+
+    /**
+     * @return the number of lineages that were looked for in the cache but not found
+     */
+    public long getLineageMissCount() {
+        return lineageMisses.get();
+    }
+
+    /**
+     * @return the percentage of lineage lookups that were found in the cache
+     */
+    public double getLineageHitRate() {
+        return getHitRate(lineageHits.get(), lineageMisses.get());
+    }
+
+    /**
+     * @return the number of entries that have been evicted to keep the cache within its maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the estimated number of bytes occupied by the cached events
+     */
+    public synchronized long getSize() {
+        return currentBytes;
+    }
+
+    /**
+     * @return the number of events and lineages in the cache
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    private static double getHitRate(final long hits, final long misses) {
+        final long total = hits + misses;
+        return total == 0L ? 0D : hits * 100D / total;
+    }
+
+    /**
+     * A lineage that is being computed. Once all of its steps have completed successfully, its events are cached, unless
+     * any of its FlowFiles changed while it was being computed.
+     */
+    public class PendingLineage {
+        private final LineageKey key;
+        private final long[] flowFileVersions;
+        private final AtomicInteger remainingSteps;
+        private final List<ProvenanceEventRecord> events = new ArrayList<>();
+        private volatile boolean failed = false;
+
+        private PendingLineage(final LineageKey key, final long[] flowFileVersions, final int steps) {
+            this.key = key;
+            this.flowFileVersions = flowFileVersions;
+            this.remainingSteps = new AtomicInteger(steps);
+        }
+
+        /**
+         * @param stepEvents the events that were found by one step of the computation
+         */
+        public void stepCompleted(final Collection<ProvenanceEventRecord> stepEvents) {
+            synchronized (events) {
+                events.addAll(stepEvents);
+            }
+
+            if (remainingSteps.decrementAndGet() == 0 && !failed) {
+                final List<ProvenanceEventRecord> lineage;
+                long size = 0L;
+                synchronized (events) {
+                    lineage = Collections.unmodifiableList(new ArrayList<>(events));
+                }
+                for (final ProvenanceEventRecord event : lineage) {
+                    size += estimateSize(event);
+                }
+
+                put(key, new CacheEntry(lineage, flowFileVersions, size));
+            }
+        }
+
+        /**
+         * Indicates that a step of the computation failed, so that the lineage must not be cached
+         */
+        public void stepFailed() {
+            failed = true;
+            remainingSteps.decrementAndGet();
+        }
+    }
+
+    private static class CacheEntry {
+        private final ProvenanceEventRecord event;
+        private final List<ProvenanceEventRecord> lineage;
+        private final long[] flowFileVersions;
+        private final long size;
+
+        public CacheEntry(final ProvenanceEventRecord event, final long size) {
+            this.event = event;
+            this.lineage = null;
+            this.flowFileVersions = null;
+            this.size = size;
+        }
+
+        public CacheEntry(final List<ProvenanceEventRecord> lineage, final long[] flowFileVersions, final long size) {
+            this.event = null;
+            this.lineage = lineage;
+            this.flowFileVersions = flowFileVersions;
+            this.size = size;
+        }
+    }
+
+    private static class LineageKey {
+        private final Set<String> flowFileUuids;
+        private final long startTimestamp;
+        private final long endTimestamp;
+        private final int[] buckets;
+
+        public LineageKey(final Collection<String> flowFileUuids, final long startTimestamp, final long endTimestamp) {
+            this.flowFileUuids = new TreeSet<>(flowFileUuids);
+            this.startTimestamp = startTimestamp;
+            this.endTimestamp = endTimestamp;
+
+            this.buckets = new int[this.flowFileUuids.size()];
+            int i = 0;
+            for (final String uuid : this.flowFileUuids) {
+                buckets[i++] = getBucket(uuid);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * flowFileUuids.hashCode() + (int) (startTimestamp ^ (startTimestamp >>> 32)) + 17 * (int) (endTimestamp ^ (endTimestamp >>> 32));
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LineageKey)) {
+                return false;
+            }
+
+            final LineageKey other = (LineageKey) obj;
+            return startTimestamp == other.startTimestamp && endTimestamp == other.endTimestamp && flowFileUuids.equals(other.flowFileUuids);
+        }
+    }
+}
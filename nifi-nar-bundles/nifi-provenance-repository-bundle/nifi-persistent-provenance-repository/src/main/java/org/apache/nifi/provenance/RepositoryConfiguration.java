@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.EventFileFormat;
 
 public class RepositoryConfiguration {
 
@@ -32,9 +33,15 @@ public class RepositoryConfiguration {
     private long eventFileMillis = TimeUnit.MILLISECONDS.convert(5, TimeUnit.MINUTES);
     private long eventFileBytes = 1024L * 1024L * 5L;   // 5 MB
     private long desiredIndexBytes = 1024L * 1024L * 500L; // 500 MB
+    private long indexShardMillis = 0L; // 0 means that shards are not split by time
+    private int indexComponentPartitions = 1;
     private int journalCount = 16;
+    private int journalBufferSize = 0;
+    private boolean continuousIndexing = false;
     private int compressionBlockBytes = 1024 * 1024;
     private int maxAttributeChars = 65536;
+    private EventFileFormat eventFileFormat = EventFileFormat.STANDARD;
+    private long eventCacheBytes = 0L;
 
     private List<SearchableField> searchableFields = new ArrayList<>();
     private List<SearchableField> searchableAttributes = new ArrayList<>();
@@ -42,6 +49,7 @@ public class RepositoryConfiguration {
     private boolean alwaysSync = false;
     private int queryThreadPoolSize = 2;
     private int indexThreadPoolSize = 1;
+    private int compressionThreadPoolSize = 0;
     private boolean allowRollover = true;
 
     public void setAllowRollover(final boolean allow) {
@@ -190,6 +198,36 @@ public class RepositoryConfiguration {
         this.compress = compress;
     }
 
+    /**
+     * @return the format in which events are written when the journals are merged into a Provenance Log
+     */
+    public EventFileFormat getEventFileFormat() {
+        return eventFileFormat;
+    }
+
+    /**
+     * @param eventFileFormat the format in which events are written when the journals are merged into a Provenance Log
+     */
+    public void setEventFileFormat(final EventFileFormat eventFileFormat) {
+        this.eventFileFormat = eventFileFormat;
+    }
+
+    /**
+     * @return the approximate number of bytes of heap that may be used to cache recently written and retrieved events and
+     *         recently computed lineages; 0 if events are not cached
+     */
+    public long getEventCacheBytes() {
+        return eventCacheBytes;
+    }
+
+    /**
+     * @param eventCacheBytes the approximate number of bytes of heap that may be used to cache recently written and retrieved
+     *            events and recently computed lineages, or 0 to disable the cache
+     */
+    public void setEventCacheBytes(final long eventCacheBytes) {
+        this.eventCacheBytes = eventCacheBytes;
+    }
+
     /**
      * @return the number of threads to use to query the repo
      */
@@ -218,6 +256,26 @@ public class RepositoryConfiguration {
         this.indexThreadPoolSize = indexThreadPoolSize;
     }
 
+    /**
+     * @return the number of threads that compress the blocks of Provenance Event Log Files as journals are merged during
+     *         rollover; 0 if each block is compressed by the thread that merges the journals
+     */
+    public int getCompressionThreadPoolSize() {
+        return compressionThreadPoolSize;
+    }
+
+    /**
+     * @param compressionThreadPoolSize the number of threads that compress the blocks of Provenance Event Log Files as journals
+     *            are merged during rollover, or 0 to compress each block on the thread that merges the journals. Ignored if the
+     *            repository does not compress on rollover.
+     */
+    public void setCompressionThreadPoolSize(final int compressionThreadPoolSize) {
+        if (compressionThreadPoolSize < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.compressionThreadPoolSize = compressionThreadPoolSize;
+    }
+
     /**
      * <p>
      * Specifies the desired size of each Provenance Event index shard, in
@@ -257,6 +315,48 @@ public class RepositoryConfiguration {
         return desiredIndexBytes;
     }
 
+    /**
+     * Sets the span of event times covered by each index shard. When the events to be indexed belong to a later time
+     * bucket than the current shard, a new shard is started, even if the current shard has not reached the desired size.
+     * This bounds the time range of each shard, so that a search over a time range needs to open fewer shards.
+     *
+     * @param duration the span of event times for each shard, or 0 to start new shards based only on size
+     * @param timeUnit the unit of the duration
+     */
+    public void setIndexShardDuration(final long duration, final TimeUnit timeUnit) {
+        this.indexShardMillis = TimeUnit.MILLISECONDS.convert(duration, timeUnit);
+    }
+
+    /**
+     * @param timeUnit the desired time unit for the returned value
+     * @return the span of event times covered by each index shard, or 0 if shards are started based only on size
+     */
+    public long getIndexShardDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(indexShardMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the number of partitions that the index is split into by component. The events of each component are written to
+     * the shards of a single partition, chosen by hashing the component's ID, so that a search for the events of one component
+     * needs to open only the shards of that partition.
+     *
+     * @param partitions the number of component partitions; 1 to keep the events of all components in the same shards
+     */
+    public void setIndexComponentPartitions(final int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.indexComponentPartitions = partitions;
+    }
+
+    /**
+     * @return the number of partitions that the index is split into by component
+     */
+    public int getIndexComponentPartitions() {
+        return indexComponentPartitions;
+    }
+
     /**
      * @param numJournals the number of Journal files to use when persisting records.
      */
@@ -275,6 +375,44 @@ public class RepositoryConfiguration {
         return journalCount;
     }
 
+    /**
+     * @param journalBufferSize the number of events that may be buffered for each Journal before the threads
+     *            registering events must wait for them to be written. If 0, events are written to the Journals by
+     *            the threads that register them, rather than by dedicated writer threads.
+     */
+    public void setJournalBufferSize(final int journalBufferSize) {
+        if (journalBufferSize < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.journalBufferSize = journalBufferSize;
+    }
+
+    /**
+     * @return the number of events that may be buffered for each Journal, or 0 if events are written to the
+     *         Journals by the threads that register them
+     */
+    public int getJournalBufferSize() {
+        return journalBufferSize;
+    }
+
+    /**
+     * @param continuousIndexing if <code>true</code>, events are indexed as they are written to the Journals, which makes
+     *            them searchable almost immediately. If <code>false</code>, events are indexed when the Journals are merged
+     *            into a Provenance Log.
+     */
+    public void setContinuousIndexing(final boolean continuousIndexing) {
+        this.continuousIndexing = continuousIndexing;
+    }
+
+    /**
+     * @return <code>true</code> if events are indexed as they are written to the Journals, <code>false</code> if
+     *         they are indexed when the Journals are merged into a Provenance Log
+     */
+    public boolean isContinuousIndexing() {
+        return continuousIndexing;
+    }
+
     /**
      * @return <code>true</code> if the repository will perform an 'fsync' for all updates to disk
      */
@@ -54,6 +54,9 @@ public class StandardRecordReader implements RecordReader {
     private DataInputStream dis;
     private ByteCountingInputStream byteCountingIn;
 
+    // a record that was read by skipToEvent(long) and is to be returned by the next call to nextRecord()
+    private StandardProvenanceEventRecord pushbackRecord;
+
     public StandardRecordReader(final InputStream in, final String filename, final int maxAttributeChars) throws IOException {
         this(in, filename, null, maxAttributeChars);
     }
@@ -131,6 +134,7 @@ public class StandardRecordReader implements RecordReader {
                 throw new IOException("Failed to skip to offset " + offset + " for block " + blockIndex + " of Provenance Log " + filename, e);
             }
 
+            pushbackRecord = null;
             resetStreamForNextBlock();
         }
     }
@@ -266,6 +270,12 @@ public class StandardRecordReader implements RecordReader {
 
     @Override
     public StandardProvenanceEventRecord nextRecord() throws IOException {
+        if (pushbackRecord != null) {
+            final StandardProvenanceEventRecord record = pushbackRecord;
+            pushbackRecord = null;
+            return record;
+        }
+
         // Schema changed drastically in version 6 so we created a new method to handle old records
         if (serializationVersion < 6) {
             return readPreVersion6Record();
@@ -483,8 +493,22 @@ public class StandardRecordReader implements RecordReader {
         }
     }
 
+    @Override
+    public boolean skipToEvent(final long eventId) throws IOException {
+        StandardProvenanceEventRecord record;
+        while ((record = nextRecord()) != null) {
+            if (record.getEventId() >= eventId) {
+                pushbackRecord = record;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public void skip(final long bytesToSkip) throws IOException {
+        pushbackRecord = null;
         StreamUtils.skip(dis, bytesToSkip);
     }
 
@@ -493,6 +517,7 @@ public class StandardRecordReader implements RecordReader {
         // we are subtracting headerLength from the number of bytes consumed because we used to
         // consider the offset of the first record "0" - now we consider it whatever position it
         // it really is in the stream.
+        pushbackRecord = null;
         final long currentPosition = byteCountingIn.getBytesConsumed() - headerLength;
         if (currentPosition == position) {
             return;
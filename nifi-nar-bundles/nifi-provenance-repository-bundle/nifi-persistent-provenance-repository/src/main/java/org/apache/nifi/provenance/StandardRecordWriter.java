@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -29,6 +31,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.stream.io.BufferedOutputStream;
+import org.apache.nifi.stream.io.ByteArrayOutputStream;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
 import org.apache.nifi.stream.io.DataOutputStream;
 import org.apache.nifi.stream.io.GZIPOutputStream;
@@ -47,6 +50,11 @@ public class StandardRecordWriter implements RecordWriter {
     private final int uncompressedBlockSize;
     private final AtomicBoolean dirtyFlag = new AtomicBoolean(false);
 
+    // null unless blocks are compressed on a thread pool, in which case each block is buffered until it is complete
+    private final ParallelBlockWriter blockWriter;
+    private ByteArrayOutputStream blockBuffer;
+    private long blockFirstEventId;
+
     private DataOutputStream out;
     private ByteCountingOutputStream byteCountingOut;
     private long lastBlockOffset = 0L;
@@ -56,6 +64,24 @@ public class StandardRecordWriter implements RecordWriter {
 
 
     public StandardRecordWriter(final File file, final TocWriter writer, final boolean compressed, final int uncompressedBlockSize) throws IOException {
+        this(file, writer, compressed, uncompressedBlockSize, null, 0);
+    }
+
+    /**
+     * Creates a writer that, if <code>compressed</code>, compresses each block on the given thread pool while it goes on to fill the
+     * next block. The records of the block that is being filled are not written to the file, even by {@link #flush()}, until the
+     * block is complete or the writer is closed.
+     *
+     * @param file the file to write to
+     * @param writer the Table of Contents writer; may be null
+     * @param compressed whether or not to compress the blocks
+     * @param uncompressedBlockSize the number of uncompressed bytes after which to begin a new block
+     * @param compressionExecutor the thread pool on which to compress blocks, or null to compress them as they are written
+     * @param maxPendingBlocks the maximum number of complete blocks that may wait to be compressed and written
+     * @throws IOException if unable to create the file
+     */
+    public StandardRecordWriter(final File file, final TocWriter writer, final boolean compressed, final int uncompressedBlockSize,
+        final ExecutorService compressionExecutor, final int maxPendingBlocks) throws IOException {
         logger.trace("Creating Record Writer for {}", file.getName());
 
         this.file = file;
@@ -65,6 +91,7 @@ public class StandardRecordWriter implements RecordWriter {
         this.uncompressedBlockSize = uncompressedBlockSize;
 
         this.tocWriter = writer;
+        this.blockWriter = compressed && compressionExecutor != null ? new ParallelBlockWriter(rawOutStream, writer, compressionExecutor, maxPendingBlocks) : null;
     }
 
     @Override
@@ -106,7 +133,14 @@ public class StandardRecordWriter implements RecordWriter {
             final long byteOffset = (byteCountingOut == null) ? rawOutStream.getBytesWritten() : byteCountingOut.getBytesWritten();
 
             final OutputStream writableStream;
-            if ( compressed ) {
+            if ( blockWriter != null ) {
+                // the block is compressed in the background once it is complete, and it is added to the TOC when it is written
+                submitBlock();
+
+                blockBuffer = new ByteArrayOutputStream(uncompressedBlockSize + 65536);
+                blockFirstEventId = eventId;
+                writableStream = blockBuffer;
+            } else if ( compressed ) {
                 // because of the way that GZIPOutputStream works, we need to call close() on it in order for it
                 // to write its trailing bytes. But we don't want to close the underlying OutputStream, so we wrap
                 // the underlying OutputStream in a NonCloseableOutputStream
@@ -137,6 +171,30 @@ public class StandardRecordWriter implements RecordWriter {
         }
     }
 
+    /**
+     * Submits the block that is being filled, if it holds anything, to be compressed and written
+     */
+    private void submitBlock() throws IOException {
+        if (blockBuffer == null || blockBuffer.size() == 0) {
+            return;
+        }
+
+        // a new buffer is created for the next block, so the compressing thread has sole use of this one
+        final byte[] uncompressed = blockBuffer.getUnderlyingBuffer();
+        final int uncompressedLength = blockBuffer.size();
+        blockBuffer = null;
+        blockWriter.submit(blockFirstEventId, new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                final ByteArrayOutputStream compressedBlock = new ByteArrayOutputStream(uncompressedLength / 4 + 1024);
+                try (final OutputStream gzipOut = new GZIPOutputStream(compressedBlock, 1)) {
+                    gzipOut.write(uncompressed, 0, uncompressedLength);
+                }
+                return compressedBlock.toByteArray();
+            }
+        });
+    }
+
     @Override
     public synchronized long writeRecord(final ProvenanceEventRecord record, final long recordIdentifier) throws IOException {
         if (isDirty()) {
@@ -312,6 +370,13 @@ public class StandardRecordWriter implements RecordWriter {
                 // we are still OK in terms of closing all resources held by the writer.
                 if (out != null && !isDirty()) {
                     out.close();
+
+                    if (blockWriter != null) {
+                        submitBlock();
+                        blockWriter.writeAll();
+                    }
+                } else if (blockWriter != null) {
+                    blockWriter.cancel();
                 }
             } finally {
                 try {
@@ -365,6 +430,21 @@ public class StandardRecordWriter implements RecordWriter {
         return "StandardRecordWriter[file=" + file + "]";
     }
 
+    @Override
+    public synchronized void flush() throws IOException {
+        try {
+            if (out != null) {
+                out.flush();
+            }
+            if (blockWriter != null) {
+                blockWriter.writeAll();
+            }
+        } catch (final IOException ioe) {
+            markDirty();
+            throw ioe;
+        }
+    }
+
     @Override
     public void sync() throws IOException {
         try {
@@ -383,6 +463,16 @@ public class StandardRecordWriter implements RecordWriter {
         return tocWriter;
     }
 
+    @Override
+    public synchronized int getCurrentBlockIndex() {
+        if (blockWriter != null) {
+            // the block that is being filled has not yet been submitted
+            return blockWriter.getBlockCount();
+        }
+
+        return tocWriter == null ? -1 : tocWriter.getCurrentBlockIndex();
+    }
+
     @Override
     public void markDirty() {
         dirtyFlag.set(true);
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.lucene;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.nifi.provenance.IndexConfiguration;
+import org.apache.nifi.provenance.PersistentProvenanceRepository;
+import org.apache.nifi.provenance.ProvenanceEventCache;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.util.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Indexes Provenance Events as they are written to the journals, rather than when the journals are merged into a
+ * Provenance Log. This makes events searchable within moments of being registered and spreads the cost of indexing
+ * over the life of the journals instead of concentrating it in the rollover.
+ * </p>
+ *
+ * <p>
+ * Because the location of an event within the merged Provenance Log is not known until the journals are merged, events
+ * are indexed by the basename of their journal and their Event ID. The index writers are shared with searches through
+ * the {@link IndexManager}, so that searches see the events as soon as they have been indexed, without waiting for a commit.
+ * </p>
+ */
+public class ContinuousIndexer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ContinuousIndexer.class);
+
+    private final IndexingAction indexingAction;
+    private final IndexConfiguration indexConfig;
+    private final IndexManager indexManager;
+    private final ProvenanceEventCache eventCache;
+    private final BlockingQueue<IndexTask> queue;
+    private final ExecutorService executor;
+    private volatile boolean shutdown = false;
+
+    // guarded by 'this'
+    private long enqueuedCount = 0L;
+    private long completedCount = 0L;
+    private long failedCount = 0L;
+
+    // The index directory that the events of each storage directory's current journals are indexed into, for each component
+    // partition, and the writers that we keep open for those directories so that they are not closed and re-opened between
+    // tasks. Guarded by 'this'.
+    private final Map<Tuple<File, Integer>, CurrentIndex> currentIndices = new HashMap<>();
+
+    /**
+     * @param repo the repository whose events are indexed
+     * @param indexConfig the index configuration of the repository
+     * @param indexManager the index manager of the repository
+     * @param eventCache the cache to notify when events become searchable, or <code>null</code> if the repository does not cache events
+     * @param threadCount the number of threads to index with
+     * @param queueCapacity the number of batches of events that may be waiting to be indexed before threads that
+     *            register events must wait
+     * @param threadFactory the factory to use for creating the indexing threads
+     */
+    public ContinuousIndexer(final PersistentProvenanceRepository repo, final IndexConfiguration indexConfig, final IndexManager indexManager,
+        final ProvenanceEventCache eventCache, final int threadCount, final int queueCapacity, final ThreadFactory threadFactory) {
+        this.indexingAction = new IndexingAction(repo);
+        this.indexConfig = indexConfig;
+        this.indexManager = indexManager;
+        this.eventCache = eventCache;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.executor = Executors.newFixedThreadPool(threadCount, threadFactory);
+
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(new IndexRunnable());
+        }
+    }
+
+    /**
+     * Queues the given events to be indexed, waiting if too many events are already waiting to be indexed. If the
+     * calling thread is interrupted while waiting, the events are counted as failed and the thread's interrupt status
+     * is restored.
+     *
+     * @param events the events to index. The storage filename of each event must be the name of the journal that it was written to
+     *            and the Event ID must be set
+     * @param mergeStorageDirectory the storage directory that the events' journals will be merged into
+     */
+    public void index(final List<StandardProvenanceEventRecord> events, final File mergeStorageDirectory) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Cannot index Provenance Events because the indexer has been closed");
+        }
+
+        synchronized (this) {
+            enqueuedCount += events.size();
+        }
+
+        final IndexTask task = new IndexTask(events, mergeStorageDirectory);
+        try {
+            queue.put(task);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting to queue {} Provenance Events to be indexed; these events will not be searchable", events.size());
+
+            synchronized (this) {
+                failedCount += events.size();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for all events that have been queued to be indexed and then commits the indices that they were written to,
+     * so that the events remain searchable if NiFi is restarted. This must be called before the journals are merged and removed.
+     *
+     * @throws IOException if unable to commit the indices
+     */
+    public void flush() throws IOException {
+        final List<IndexWriter> writers = new ArrayList<>();
+        synchronized (this) {
+            final long target = enqueuedCount;
+            while (completedCount + failedCount < target) {
+                try {
+                    wait(100L);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for Provenance Events to be indexed");
+                }
+            }
+
+            for (final CurrentIndex currentIndex : currentIndices.values()) {
+                writers.add(currentIndex.writer);
+            }
+        }
+
+        // A writer may have been closed since we obtained it, if the journals moved on to a new index. This is fine,
+        // because closing a writer commits it.
+        for (final IndexWriter writer : writers) {
+            try {
+                writer.commit();
+            } catch (final AlreadyClosedException ace) {
+                logger.debug("Index Writer {} was closed before it could be committed", writer);
+            }
+        }
+    }
+
+    /**
+     * @return the number of events that have been queued but not yet indexed
+     */
+    public synchronized long getPendingEventCount() {
+        return enqueuedCount - completedCount - failedCount;
+    }
+
+    /**
+     * @return the number of events that could not be indexed
+     */
+    public synchronized long getFailedEventCount() {
+        return failedCount;
+    }
+
+    /**
+     * Indexes all of the events that have already been queued and then releases the index writers.
+     */
+    @Override
+    public void close() throws IOException {
+        shutdown = true;
+        executor.shutdown();
+
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                logger.debug("Waiting for {} Provenance Events to be indexed", getPendingEventCount());
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for Provenance Events to be indexed; {} events will not be searchable until the repository is restarted",
+                getPendingEventCount());
+        }
+
+        synchronized (this) {
+            for (final CurrentIndex currentIndex : currentIndices.values()) {
+                indexManager.returnIndexWriter(currentIndex.indexDirectory, currentIndex.writer);
+            }
+            currentIndices.clear();
+        }
+    }
+
+    /**
+     * Determines which index the events of the given journal and component partition should be written to. Like the merge of
+     * the journals, all of the events of a set of journals that belong to the same partition are written to the same index,
+     * which is chosen when the first of the events is indexed.
+     */
+    private synchronized File getIndexDirectory(final File mergeStorageDirectory, final String journalBasename, final int partition,
+        final long earliestTimestamp) throws IOException {
+        final Tuple<File, Integer> key = new Tuple<>(mergeStorageDirectory, partition);
+        final CurrentIndex currentIndex = currentIndices.get(key);
+        if (currentIndex != null && currentIndex.journalBasename.equals(journalBasename)) {
+            return currentIndex.indexDirectory;
+        }
+
+        final File expectedMergeFile = new File(mergeStorageDirectory, journalBasename + ".prov");
+        final File indexDirectory = indexConfig.getWritableIndexDirectory(expectedMergeFile, earliestTimestamp, partition);
+        if (currentIndex != null && currentIndex.indexDirectory.equals(indexDirectory)) {
+            currentIndices.put(key, new CurrentIndex(journalBasename, indexDirectory, currentIndex.writer));
+            return indexDirectory;
+        }
+
+        final IndexWriter writer = indexManager.borrowIndexWriter(indexDirectory);
+        currentIndices.put(key, new CurrentIndex(journalBasename, indexDirectory, writer));
+        if (currentIndex != null) {
+            // The tasks that are still writing to the previous index have borrowed its writer, so it will not be closed until they finish.
+            indexManager.returnIndexWriter(currentIndex.indexDirectory, currentIndex.writer);
+        }
+
+        return indexDirectory;
+    }
+
+    private void index(final IndexTask task) {
+        final List<StandardProvenanceEventRecord> events = task.events;
+
+        try {
+            final Map<Integer, List<StandardProvenanceEventRecord>> eventsByPartition = new HashMap<>();
+            long earliestTimestamp = Long.MAX_VALUE;
+            for (final StandardProvenanceEventRecord event : events) {
+                earliestTimestamp = Math.min(earliestTimestamp, event.getEventTime());
+
+                final int partition = indexConfig.getComponentPartition(event.getComponentId());
+                List<StandardProvenanceEventRecord> partitionEvents = eventsByPartition.get(partition);
+                if (partitionEvents == null) {
+                    partitionEvents = new ArrayList<>();
+                    eventsByPartition.put(partition, partitionEvents);
+                }
+                partitionEvents.add(event);
+            }
+
+            final String journalBasename = LuceneUtil.substringBefore(events.get(0).getStorageFilename(), ".");
+            for (final Map.Entry<Integer, List<StandardProvenanceEventRecord>> entry : eventsByPartition.entrySet()) {
+                final File indexDirectory = getIndexDirectory(task.mergeStorageDirectory, journalBasename, entry.getKey(), earliestTimestamp);
+
+                // the shard catalog must cover the events before they become searchable
+                for (final StandardProvenanceEventRecord event : entry.getValue()) {
+                    indexConfig.recordEventTime(indexDirectory, event.getEventTime());
+                }
+
+                final IndexWriter writer = indexManager.borrowIndexWriter(indexDirectory);
+                try {
+                    for (final StandardProvenanceEventRecord event : entry.getValue()) {
+                        indexingAction.indexById(event, writer);
+                    }
+                } finally {
+                    indexManager.returnIndexWriter(indexDirectory, writer);
+                }
+            }
+
+            if (eventCache != null) {
+                for (final StandardProvenanceEventRecord event : events) {
+                    eventCache.eventSearchable(event);
+                }
+            }
+
+            synchronized (this) {
+                completedCount += events.size();
+                notifyAll();
+            }
+        } catch (final Throwable t) {
+            logger.error("Failed to index {} Provenance Events due to {}; these events will not be searchable", events.size(), t.toString());
+            logger.error("", t);
+
+            synchronized (this) {
+                failedCount += events.size();
+                notifyAll();
+            }
+        }
+    }
+
+    private static class IndexTask {
+        private final List<StandardProvenanceEventRecord> events;
+        private final File mergeStorageDirectory;
+
+        public IndexTask(final List<StandardProvenanceEventRecord> events, final File mergeStorageDirectory) {
+            this.events = events;
+            this.mergeStorageDirectory = mergeStorageDirectory;
+        }
+    }
+
+    private static class CurrentIndex {
+        private final String journalBasename;
+        private final File indexDirectory;
+        private final IndexWriter writer;
+
+        public CurrentIndex(final String journalBasename, final File indexDirectory, final IndexWriter writer) {
+            this.journalBasename = journalBasename;
+            this.indexDirectory = indexDirectory;
+            this.writer = writer;
+        }
+    }
+
+    private class IndexRunnable implements Runnable {
+        @Override
+        public void run() {
+            while (true) {
+                final IndexTask task;
+                try {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                if (task == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+
+                index(task);
+            }
+        }
+    }
+}
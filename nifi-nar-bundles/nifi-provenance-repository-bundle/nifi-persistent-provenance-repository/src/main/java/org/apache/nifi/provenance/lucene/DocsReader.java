@@ -16,16 +16,21 @@
  */
 package org.apache.nifi.provenance.lucene;
 
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,7 +52,10 @@ import org.slf4j.LoggerFactory;
 public class DocsReader {
     private final Logger logger = LoggerFactory.getLogger(DocsReader.class);
 
+    private final List<File> storageDirectories;
+
     public DocsReader(final List<File> storageDirectories) {
+        this.storageDirectories = storageDirectories;
     }
 
     public Set<ProvenanceEventRecord> read(final TopDocs topDocs, final IndexReader indexReader, final Collection<Path> allProvenanceLogFiles,
@@ -72,29 +80,34 @@ public class DocsReader {
     }
 
 
-    private long getByteOffset(final Document d, final RecordReader reader) {
+    private ProvenanceEventRecord getRecord(final Document d, final RecordReader reader) throws IOException {
         final IndexableField blockField = d.getField(FieldNames.BLOCK_INDEX);
+        final IndexableField offsetField = d.getField(FieldNames.STORAGE_FILE_OFFSET);
         if ( blockField != null ) {
-            final int blockIndex = blockField.numericValue().intValue();
+            reader.skipToBlock(blockField.numericValue().intValue());
+        } else if ( offsetField != null ) {
+            reader.skipTo(offsetField.numericValue().longValue());
+        } else {
+            // The event was indexed while it was still in a journal, so we know only its ID. Use the
+            // Table of Contents, if there is one, to skip to the block that contains the event.
             final TocReader tocReader = reader.getTocReader();
-            return tocReader.getBlockOffset(blockIndex);
+            if ( tocReader != null ) {
+                final long eventId = d.getField(SearchableFields.Identifier.getSearchableFieldName()).numericValue().longValue();
+                final Integer blockIndex = tocReader.getBlockIndexForEventId(eventId);
+                if ( blockIndex != null ) {
+                    reader.skipToBlock(blockIndex);
+                }
+            }
         }
 
-        return d.getField(FieldNames.STORAGE_FILE_OFFSET).numericValue().longValue();
-    }
-
-
-    private ProvenanceEventRecord getRecord(final Document d, final RecordReader reader) throws IOException {
-        final IndexableField blockField = d.getField(FieldNames.BLOCK_INDEX);
-        if ( blockField == null ) {
-            reader.skipTo(getByteOffset(d, reader));
-        } else {
-            reader.skipToBlock(blockField.numericValue().intValue());
+        // Let the reader pass over the events that precede the one we want without fully deserializing them
+        final IndexableField idField = d.getField(SearchableFields.Identifier.getSearchableFieldName());
+        if ( idField != null ) {
+            reader.skipToEvent(idField.numericValue().longValue());
         }
 
         StandardProvenanceEventRecord record;
         while ( (record = reader.nextRecord()) != null) {
-            final IndexableField idField = d.getField(SearchableFields.Identifier.getSearchableFieldName());
             if ( idField == null || idField.numericValue().longValue() == record.getEventId() ) {
                 break;
             }
@@ -114,11 +127,43 @@ public class DocsReader {
             return Collections.emptySet();
         }
 
-        LuceneUtil.sortDocsForRetrieval(docs);
+        final Set<ProvenanceEventRecord> matchingRecords = new LinkedHashSet<>();
+
+        // Events that are indexed as they are written to the journals may be found before the journals have
+        // been merged into a Provenance Log. These are read directly from the journals. If the journals are
+        // merged while we are reading them, we read the remaining events from the merged Provenance Log.
+        final List<Document> logFileDocs = new ArrayList<>(docs.size());
+        final Map<String, List<Document>> journalDocs = new LinkedHashMap<>();
+        for (final Document d : docs) {
+            final String storageFilename = d.getField(FieldNames.STORAGE_FILENAME).stringValue();
+            if ( isIndexedById(d) && LuceneUtil.getProvenanceLogFiles(storageFilename, allProvenanceLogFiles).isEmpty() ) {
+                List<Document> docsForJournal = journalDocs.get(storageFilename);
+                if ( docsForJournal == null ) {
+                    docsForJournal = new ArrayList<>();
+                    journalDocs.put(storageFilename, docsForJournal);
+                }
+                docsForJournal.add(d);
+            } else {
+                logFileDocs.add(d);
+            }
+        }
+
+        for (final Map.Entry<String, List<Document>> entry : journalDocs.entrySet()) {
+            if ( retrievalCount.get() >= maxResults ) {
+                return matchingRecords;
+            }
+
+            logFileDocs.addAll(readFromJournals(entry.getKey(), entry.getValue(), matchingRecords, retrievalCount, maxResults, maxAttributeChars));
+        }
+
+        if ( retrievalCount.get() >= maxResults ) {
+            return matchingRecords;
+        }
+
+        LuceneUtil.sortDocsForRetrieval(logFileDocs);
 
         RecordReader reader = null;
         String lastStorageFilename = null;
-        final Set<ProvenanceEventRecord> matchingRecords = new LinkedHashSet<>();
 
         final long start = System.nanoTime();
         int logFileCount = 0;
@@ -127,7 +172,7 @@ public class DocsReader {
         int eventsReadThisFile = 0;
 
         try {
-            for (final Document d : docs) {
+            for (final Document d : logFileDocs) {
                 final String storageFilename = d.getField(FieldNames.STORAGE_FILENAME).stringValue();
                 if ( storageFilesToSkip.contains(storageFilename) ) {
                     continue;
@@ -197,4 +242,62 @@ public class DocsReader {
         return matchingRecords;
     }
 
+    private boolean isIndexedById(final Document d) {
+        return d.getField(FieldNames.BLOCK_INDEX) == null && d.getField(FieldNames.STORAGE_FILE_OFFSET) == null;
+    }
+
+    /**
+     * Reads the events for the given documents from the journals with the given basename, reading each journal once.
+     *
+     * @return the documents whose events could not be found in the journals, because the journals were merged
+     *         into a Provenance Log while they were being read
+     */
+    private List<Document> readFromJournals(final String basename, final List<Document> docs, final Set<ProvenanceEventRecord> matchingRecords,
+        final AtomicInteger retrievalCount, final int maxResults, final int maxAttributeChars) throws IOException {
+
+        final Map<Long, Document> docsById = new HashMap<>(docs.size());
+        for (final Document d : docs) {
+            docsById.put(d.getField(SearchableFields.Identifier.getSearchableFieldName()).numericValue().longValue(), d);
+        }
+
+        final String journalPrefix = basename + ".journal.";
+        for (final File storageDirectory : storageDirectories) {
+            final File[] journals = new File(storageDirectory, "journals").listFiles(new FileFilter() {
+                @Override
+                public boolean accept(final File pathname) {
+                    return pathname.getName().startsWith(journalPrefix);
+                }
+            });
+
+            if ( journals == null ) {
+                continue;
+            }
+
+            for (final File journal : journals) {
+                if ( docsById.isEmpty() ) {
+                    return Collections.emptyList();
+                }
+
+                logger.debug("Reading {} Provenance Events from journal {}", docsById.size(), journal);
+                try (final RecordReader reader = RecordReaders.newRecordReader(journal, null, maxAttributeChars)) {
+                    StandardProvenanceEventRecord record;
+                    while ( !docsById.isEmpty() && (record = reader.nextRecord()) != null ) {
+                        if ( docsById.remove(record.getEventId()) != null ) {
+                            matchingRecords.add(record);
+                            if ( retrievalCount.incrementAndGet() >= maxResults ) {
+                                return Collections.emptyList();
+                            }
+                        }
+                    }
+                } catch (final FileNotFoundException fnfe) {
+                    logger.debug("Journal {} no longer exists; it has been merged into a Provenance Log", journal);
+                } catch (final EOFException eof) {
+                    // The journal is still being written; every event that has been indexed precedes the partial record.
+                    logger.debug("Reached the end of the data that has been written to journal {}", journal);
+                }
+            }
+        }
+
+        return new ArrayList<>(docsById.values());
+    }
 }
@@ -35,6 +35,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
@@ -129,8 +130,7 @@ public class IndexManager implements Closeable {
                 }
             } else {
                 logger.debug("Providing existing index writer for {} and incrementing count to {}", indexingDirectory, writerCount.getCount() + 1);
-                writerCounts.put(absoluteFile, new IndexWriterCount(writerCount.getWriter(),
-                        writerCount.getAnalyzer(), writerCount.getDirectory(), writerCount.getCount() + 1));
+                writerCounts.put(absoluteFile, writerCount.withCount(writerCount.getCount() + 1));
             }
 
             return writerCount.getWriter();
@@ -159,7 +159,7 @@ public class IndexManager implements Closeable {
                 } else {
                     // decrement the count.
                     logger.debug("Decrementing count for Index Writer for {} to {}", indexingDirectory, count.getCount() - 1);
-                    writerCounts.put(absoluteFile, new IndexWriterCount(count.getWriter(), count.getAnalyzer(), count.getDirectory(), count.getCount() - 1));
+                    writerCounts.put(absoluteFile, count.withCount(count.getCount() - 1));
                 }
             } catch (final IOException ioe) {
                 logger.warn("Failed to close Index Writer {} due to {}", writer, ioe);
@@ -253,23 +253,36 @@ public class IndexManager implements Closeable {
                     throw e;
                 }
             } else {
-                logger.debug("Index Writer currently exists for {}; creating a non-cachable reader and incrementing "
+                logger.debug("Index Writer currently exists for {}; providing a near-real-time reader and incrementing "
                         + "counter to {}", indexDir, writerCount.getCount() + 1);
 
-                // increment the writer count to ensure that it's kept open.
-                writerCounts.put(absoluteFile, new IndexWriterCount(writerCount.getWriter(),
-                        writerCount.getAnalyzer(), writerCount.getDirectory(), writerCount.getCount() + 1));
-
-                // create a new Index Searcher from the writer so that we don't have an issue with trying
+                // Obtain the Index Searcher from the writer so that we don't have an issue with trying
                 // to read from a directory that's locked. If we get the "no segments* file found" with
-                // Lucene, this indicates that an IndexWriter already has the directory open.
-                final IndexWriter writer = writerCount.getWriter();
-                final DirectoryReader directoryReader = DirectoryReader.open(writer, false);
-                final IndexSearcher searcher = new IndexSearcher(directoryReader);
+                // Lucene, this indicates that an IndexWriter already has the directory open. The readers
+                // are shared through a SearcherManager, which is refreshed only if the writer has been
+                // updated since the last search, so that frequent searches against an index that is being
+                // continually updated do not each have to open a new reader.
+                SearcherManager searcherManager = writerCount.getSearcherManager();
+                try {
+                    if ( searcherManager == null ) {
+                        searcherManager = new SearcherManager(writerCount.getWriter(), false, null);
+                    } else {
+                        searcherManager.maybeRefresh();
+                    }
+                } catch (final IOException ioe) {
+                    writerCounts.put(absoluteFile, writerCount);
+                    throw ioe;
+                }
+
+                final IndexSearcher searcher = searcherManager.acquire();
+
+                // increment the writer count to ensure that it's kept open.
+                writerCounts.put(absoluteFile, new IndexWriterCount(writerCount.getWriter(), writerCount.getAnalyzer(),
+                        writerCount.getDirectory(), searcherManager, writerCount.getCount() + 1));
 
                 // we don't want to cache this searcher because it's based on a writer, so we want to get
                 // new values the next time that we search.
-                final ActiveIndexSearcher activeSearcher = new ActiveIndexSearcher(searcher, directoryReader, null, false);
+                final ActiveIndexSearcher activeSearcher = new ActiveIndexSearcher(searcher, searcherManager);
 
                 currentlyCached.add(activeSearcher);
                 return activeSearcher.getSearcher();
@@ -346,9 +359,7 @@ public class IndexManager implements Closeable {
                                 logger.debug("Index searcher for {} is not cached. Writer count is decremented "
                                         + "to {}; leaving writer open", indexDirectory, writerCount.getCount() - 1);
 
-                                writerCounts.put(absoluteFile, new IndexWriterCount(writerCount.getWriter(),
-                                        writerCount.getAnalyzer(), writerCount.getDirectory(),
-                                        writerCount.getCount() - 1));
+                                writerCounts.put(absoluteFile, writerCount.withCount(writerCount.getCount() - 1));
                             }
                         }
 
@@ -361,6 +372,8 @@ public class IndexManager implements Closeable {
                                 logger.warn("", ioe);
                             }
                         }
+
+                        return;
                     }
                 }
             }
@@ -440,6 +453,7 @@ public class IndexManager implements Closeable {
         private final IndexSearcher searcher;
         private final DirectoryReader directoryReader;
         private final Directory directory;
+        private final SearcherManager searcherManager;
         private final boolean cache;
         private boolean poisoned = false;
 
@@ -448,9 +462,18 @@ public class IndexManager implements Closeable {
             this.searcher = searcher;
             this.directoryReader = directoryReader;
             this.directory = directory;
+            this.searcherManager = null;
             this.cache = cache;
         }
 
+        public ActiveIndexSearcher(final IndexSearcher searcher, final SearcherManager searcherManager) {
+            this.searcher = searcher;
+            this.directoryReader = null;
+            this.directory = null;
+            this.searcherManager = searcherManager;
+            this.cache = false;
+        }
+
         public boolean isCache() {
             return cache;
         }
@@ -469,7 +492,11 @@ public class IndexManager implements Closeable {
 
         @Override
         public void close() throws IOException {
-            IndexManager.close(directoryReader, directory);
+            if ( searcherManager == null ) {
+                IndexManager.close(directoryReader, directory);
+            } else {
+                searcherManager.release(searcher);
+            }
         }
     }
 
@@ -478,15 +505,26 @@ public class IndexManager implements Closeable {
         private final IndexWriter writer;
         private final Analyzer analyzer;
         private final Directory directory;
+        private final SearcherManager searcherManager;
         private final int count;
 
         public IndexWriterCount(final IndexWriter writer, final Analyzer analyzer, final Directory directory, final int count) {
+            this(writer, analyzer, directory, null, count);
+        }
+
+        public IndexWriterCount(final IndexWriter writer, final Analyzer analyzer, final Directory directory,
+                final SearcherManager searcherManager, final int count) {
             this.writer = writer;
             this.analyzer = analyzer;
             this.directory = directory;
+            this.searcherManager = searcherManager;
             this.count = count;
         }
 
+        public IndexWriterCount withCount(final int count) {
+            return new IndexWriterCount(writer, analyzer, directory, searcherManager, count);
+        }
+
         public Analyzer getAnalyzer() {
             return analyzer;
         }
@@ -499,13 +537,17 @@ public class IndexManager implements Closeable {
             return writer;
         }
 
+        public SearcherManager getSearcherManager() {
+            return searcherManager;
+        }
+
         public int getCount() {
             return count;
         }
 
         @Override
         public void close() throws IOException {
-            IndexManager.close(writer, analyzer, directory);
+            IndexManager.close(searcherManager, writer, analyzer, directory);
         }
     }
 
@@ -19,18 +19,31 @@ package org.apache.nifi.provenance.lucene;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldCache;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.nifi.provenance.PersistentProvenanceRepository;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.StandardQueryResult;
+import org.apache.nifi.provenance.search.EventIdOrder;
+import org.apache.nifi.provenance.search.QueryCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -114,6 +127,50 @@ public class IndexSearch {
         }
     }
 
+    /**
+     * Finds the Lucene Documents of the events that match the given query and that have not yet been passed by the
+     * given cursor, in the order of the cursor. Only documents that hold the Event ID are found, which is the case
+     * for all events that are indexed with a Table of Contents.
+     *
+     * @param provenanceQuery the query that events must match
+     * @param cursor the position within the results
+     * @param maxDocs the maximum number of documents to return
+     * @return the matching documents, ordered by Event ID
+     * @throws IOException if unable to search the index
+     */
+    public List<Document> searchPage(final org.apache.nifi.provenance.search.Query provenanceQuery, final QueryCursor cursor, final int maxDocs) throws IOException {
+        if (!indexDirectory.isDirectory()) {
+            return Collections.emptyList();
+        }
+
+        final String idFieldName = SearchableFields.Identifier.getSearchableFieldName();
+        final boolean ascending = cursor.getOrder() == EventIdOrder.ASCENDING;
+        final BooleanQuery luceneQuery = new BooleanQuery();
+        luceneQuery.add(LuceneUtil.convertQuery(provenanceQuery), Occur.MUST);
+        luceneQuery.add(NumericRangeQuery.newLongRange(idFieldName, ascending ? cursor.getNextEventId() : null,
+            ascending ? null : cursor.getNextEventId(), true, true), Occur.MUST);
+        final Sort sort = new Sort(new SortField(idFieldName, FieldCache.NUMERIC_UTILS_LONG_PARSER, !ascending));
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = indexManager.borrowIndexSearcher(indexDirectory);
+            final TopDocs topDocs = searcher.search(luceneQuery, maxDocs, sort);
+
+            final List<Document> docs = new ArrayList<>(topDocs.scoreDocs.length);
+            for (final ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                docs.add(searcher.doc(scoreDoc.doc));
+            }
+            return docs;
+        } catch (final FileNotFoundException e) {
+            // nothing has been indexed yet, or the data has already aged off
+            logger.debug("Attempted to search Provenance Index {} but could not find the file due to {}", indexDirectory, e.toString());
+            return Collections.emptyList();
+        } finally {
+            if ( searcher != null ) {
+                indexManager.returnIndexSearcher(indexDirectory, searcher);
+            }
+        }
+    }
 
     @Override
     public String toString() {
@@ -54,6 +54,41 @@ public class IndexingAction {
 
 
     public void index(final StandardProvenanceEventRecord record, final IndexWriter indexWriter, final Integer blockIndex) throws IOException {
+        final Document doc = createDocument(record);
+        if (doc == null) {
+            return;
+        }
+
+        if ( blockIndex == null ) {
+            doc.add(new LongField(FieldNames.STORAGE_FILE_OFFSET, record.getStorageByteOffset(), Store.YES));
+        } else {
+            doc.add(new IntField(FieldNames.BLOCK_INDEX, blockIndex, Store.YES));
+            doc.add(new LongField(SearchableFields.Identifier.getSearchableFieldName(), record.getEventId(), Store.YES));
+        }
+
+        indexWriter.addDocument(doc);
+    }
+
+    /**
+     * Indexes the given record by its Event ID only, without a block index or byte offset. This is used for events
+     * that are indexed while they are still in a journal, whose location in the merged Provenance Log is not yet known.
+     * The record's storage filename must be the name of the journal (or merged Provenance Log) that holds the event.
+     *
+     * @param record the record to index
+     * @param indexWriter the writer to add the document to
+     * @throws IOException if unable to add the document
+     */
+    public void indexById(final StandardProvenanceEventRecord record, final IndexWriter indexWriter) throws IOException {
+        final Document doc = createDocument(record);
+        if (doc == null) {
+            return;
+        }
+
+        doc.add(new LongField(SearchableFields.Identifier.getSearchableFieldName(), record.getEventId(), Store.YES));
+        indexWriter.addDocument(doc);
+    }
+
+    private Document createDocument(final StandardProvenanceEventRecord record) {
         final Map<String, String> attributes = record.getAttributes();
 
         final Document doc = new Document();
@@ -80,54 +115,49 @@ public class IndexingAction {
         final String storageFilename = LuceneUtil.substringBefore(record.getStorageFilename(), ".");
 
         // Index the fields that we always index (unless there's nothing else to index at all)
-        if (!doc.getFields().isEmpty()) {
-            doc.add(new LongField(SearchableFields.LineageStartDate.getSearchableFieldName(), record.getLineageStartDate(), Store.NO));
-            doc.add(new LongField(SearchableFields.EventTime.getSearchableFieldName(), record.getEventTime(), Store.NO));
-            doc.add(new LongField(SearchableFields.FileSize.getSearchableFieldName(), record.getFileSize(), Store.NO));
-            doc.add(new StringField(FieldNames.STORAGE_FILENAME, storageFilename, Store.YES));
-
-            if ( blockIndex == null ) {
-                doc.add(new LongField(FieldNames.STORAGE_FILE_OFFSET, record.getStorageByteOffset(), Store.YES));
-            } else {
-                doc.add(new IntField(FieldNames.BLOCK_INDEX, blockIndex, Store.YES));
-                doc.add(new LongField(SearchableFields.Identifier.getSearchableFieldName(), record.getEventId(), Store.YES));
-            }
+        if (doc.getFields().isEmpty()) {
+            return null;
+        }
 
-            for (final String lineageIdentifier : record.getLineageIdentifiers()) {
-                addField(doc, SearchableFields.LineageIdentifier, lineageIdentifier, Store.NO);
-            }
+        doc.add(new LongField(SearchableFields.LineageStartDate.getSearchableFieldName(), record.getLineageStartDate(), Store.NO));
+        doc.add(new LongField(SearchableFields.EventTime.getSearchableFieldName(), record.getEventTime(), Store.NO));
+        doc.add(new LongField(SearchableFields.FileSize.getSearchableFieldName(), record.getFileSize(), Store.NO));
+        doc.add(new StringField(FieldNames.STORAGE_FILENAME, storageFilename, Store.YES));
 
-            // If it's event is a FORK, or JOIN, add the FlowFileUUID for all child/parent UUIDs.
-            if (record.getEventType() == ProvenanceEventType.FORK || record.getEventType() == ProvenanceEventType.CLONE || record.getEventType() == ProvenanceEventType.REPLAY) {
-                for (final String uuid : record.getChildUuids()) {
-                    if (!uuid.equals(record.getFlowFileUuid())) {
-                        addField(doc, SearchableFields.FlowFileUUID, uuid, Store.NO);
-                    }
-                }
-            } else if (record.getEventType() == ProvenanceEventType.JOIN) {
-                for (final String uuid : record.getParentUuids()) {
-                    if (!uuid.equals(record.getFlowFileUuid())) {
-                        addField(doc, SearchableFields.FlowFileUUID, uuid, Store.NO);
-                    }
-                }
-            } else if (record.getEventType() == ProvenanceEventType.RECEIVE && record.getSourceSystemFlowFileIdentifier() != null) {
-                // If we get a receive with a Source System FlowFile Identifier, we add another Document that shows the UUID
-                // that the Source System uses to refer to the data.
-                final String sourceIdentifier = record.getSourceSystemFlowFileIdentifier();
-                final String sourceFlowFileUUID;
-                final int lastColon = sourceIdentifier.lastIndexOf(":");
-                if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
-                    sourceFlowFileUUID = sourceIdentifier.substring(lastColon + 1);
-                } else {
-                    sourceFlowFileUUID = null;
-                }
+        for (final String lineageIdentifier : record.getLineageIdentifiers()) {
+            addField(doc, SearchableFields.LineageIdentifier, lineageIdentifier, Store.NO);
+        }
 
-                if (sourceFlowFileUUID != null) {
-                    addField(doc, SearchableFields.FlowFileUUID, sourceFlowFileUUID, Store.NO);
+        // If it's event is a FORK, or JOIN, add the FlowFileUUID for all child/parent UUIDs.
+        if (record.getEventType() == ProvenanceEventType.FORK || record.getEventType() == ProvenanceEventType.CLONE || record.getEventType() == ProvenanceEventType.REPLAY) {
+            for (final String uuid : record.getChildUuids()) {
+                if (!uuid.equals(record.getFlowFileUuid())) {
+                    addField(doc, SearchableFields.FlowFileUUID, uuid, Store.NO);
                 }
             }
+        } else if (record.getEventType() == ProvenanceEventType.JOIN) {
+            for (final String uuid : record.getParentUuids()) {
+                if (!uuid.equals(record.getFlowFileUuid())) {
+                    addField(doc, SearchableFields.FlowFileUUID, uuid, Store.NO);
+                }
+            }
+        } else if (record.getEventType() == ProvenanceEventType.RECEIVE && record.getSourceSystemFlowFileIdentifier() != null) {
+            // If we get a receive with a Source System FlowFile Identifier, we add another Document that shows the UUID
+            // that the Source System uses to refer to the data.
+            final String sourceIdentifier = record.getSourceSystemFlowFileIdentifier();
+            final String sourceFlowFileUUID;
+            final int lastColon = sourceIdentifier.lastIndexOf(":");
+            if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
+                sourceFlowFileUUID = sourceIdentifier.substring(lastColon + 1);
+            } else {
+                sourceFlowFileUUID = null;
+            }
 
-            indexWriter.addDocument(doc);
+            if (sourceFlowFileUUID != null) {
+                addField(doc, SearchableFields.FlowFileUUID, sourceFlowFileUUID, Store.NO);
+            }
         }
+
+        return doc;
     }
 }
@@ -141,22 +141,29 @@ public class LuceneUtil {
                     return filenameComp;
                 }
 
-                final IndexableField fileOffset1 = o1.getField(FieldNames.BLOCK_INDEX);
-                final IndexableField fileOffset2 = o1.getField(FieldNames.BLOCK_INDEX);
-                if ( fileOffset1 != null && fileOffset2 != null ) {
-                    final int blockIndexResult = Long.compare(fileOffset1.numericValue().longValue(), fileOffset2.numericValue().longValue());
+                final IndexableField blockIndex1 = o1.getField(FieldNames.BLOCK_INDEX);
+                final IndexableField blockIndex2 = o2.getField(FieldNames.BLOCK_INDEX);
+                if ( blockIndex1 != null && blockIndex2 != null ) {
+                    final int blockIndexResult = Long.compare(blockIndex1.numericValue().longValue(), blockIndex2.numericValue().longValue());
                     if ( blockIndexResult != 0 ) {
                         return blockIndexResult;
                     }
+                }
+
+                final IndexableField fileOffset1 = o1.getField(FieldNames.STORAGE_FILE_OFFSET);
+                final IndexableField fileOffset2 = o2.getField(FieldNames.STORAGE_FILE_OFFSET);
+                if ( fileOffset1 != null && fileOffset2 != null ) {
+                    return Long.compare(fileOffset1.numericValue().longValue(), fileOffset2.numericValue().longValue());
+                }
 
-                    final long eventId1 = o1.getField(SearchableFields.Identifier.getSearchableFieldName()).numericValue().longValue();
-                    final long eventId2 = o2.getField(SearchableFields.Identifier.getSearchableFieldName()).numericValue().longValue();
-                    return Long.compare(eventId1, eventId2);
+                // Documents for events that were indexed while still in a journal have only an Event ID.
+                final IndexableField eventId1 = o1.getField(SearchableFields.Identifier.getSearchableFieldName());
+                final IndexableField eventId2 = o2.getField(SearchableFields.Identifier.getSearchableFieldName());
+                if ( eventId1 != null && eventId2 != null ) {
+                    return Long.compare(eventId1.numericValue().longValue(), eventId2.numericValue().longValue());
                 }
 
-                final long offset1 = o1.getField(FieldNames.STORAGE_FILE_OFFSET).numericValue().longValue();
-                final long offset2 = o2.getField(FieldNames.STORAGE_FILE_OFFSET).numericValue().longValue();
-                return Long.compare(offset1, offset2);
+                return 0;
             }
         });
     }
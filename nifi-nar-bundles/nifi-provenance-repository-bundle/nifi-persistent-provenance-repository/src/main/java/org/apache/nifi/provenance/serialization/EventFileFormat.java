@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.serialization;
+
+/**
+ * The layouts in which Provenance Events can be written to a Provenance Log. Readers
+ * obtained from {@link RecordReaders} detect the layout of a file, so a repository may
+ * contain files of both layouts.
+ */
+public enum EventFileFormat {
+
+    /**
+     * Each event is written as a row that contains all of its fields. If compressed, the
+     * rows are GZIP-compressed in blocks.
+     */
+    STANDARD,
+
+    /**
+     * Events are buffered into blocks, and each block stores every field of its events
+     * together, with repeated values such as Component IDs and attribute keys replaced by
+     * references to a dictionary that is kept for the block. If compressed, each block is
+     * compressed with DEFLATE at its fastest level.
+     */
+    COLUMNAR;
+}
@@ -47,6 +47,17 @@ public interface RecordReader extends Closeable {
      */
     void skipTo(long position) throws IOException;
 
+    /**
+     * Skips ahead to the first remaining event whose ID is greater than or equal to the given ID, so that
+     * it is the event returned by the next call to {@link #nextRecord()}. Readers that are able to do so avoid
+     * fully deserializing the events that are skipped.
+     *
+     * @param eventId the ID of the event to skip to
+     * @return <code>true</code> if such an event exists, <code>false</code> if the end of the stream was reached
+     * @throws IOException if unable to read from the underlying stream
+     */
+    boolean skipToEvent(long eventId) throws IOException;
+
     /**
      * Skips to the specified compression block
      *
@@ -20,10 +20,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Collection;
 
+import org.apache.nifi.provenance.ColumnarRecordReader;
 import org.apache.nifi.provenance.StandardRecordReader;
 import org.apache.nifi.provenance.lucene.LuceneUtil;
 import org.apache.nifi.provenance.toc.StandardTocReader;
@@ -45,7 +45,7 @@ public class RecordReaders {
      */
     public static RecordReader newRecordReader(File file, final Collection<Path> provenanceLogFiles, final int maxAttributeChars) throws IOException {
         final File originalFile = file;
-        InputStream fis = null;
+        FileInputStream fis = null;
 
         try {
             if (!file.exists()) {
@@ -101,8 +101,15 @@ public class RecordReaders {
             }
 
             final File tocFile = TocUtil.getTocFile(file);
-            if ( tocFile.exists() ) {
-                final TocReader tocReader = new StandardTocReader(tocFile);
+            final TocReader tocReader = tocFile.exists() ? new StandardTocReader(tocFile) : null;
+
+            // Columnar logs are identified by their header rather than their filename, so that a repository may
+            // contain logs of both formats after the configured format is changed.
+            if ( ColumnarRecordReader.isColumnar(fis) ) {
+                return new ColumnarRecordReader(fis, filename, tocReader, maxAttributeChars);
+            }
+
+            if ( tocReader != null ) {
                 return new StandardRecordReader(fis, filename, tocReader, maxAttributeChars);
             } else {
                 return new StandardRecordReader(fis, filename, maxAttributeChars);
@@ -81,6 +81,15 @@ public interface RecordWriter extends Closeable {
      */
     void markDirty();
 
+    /**
+     * Flushes any records that have been buffered by this writer to the underlying file, so that
+     * they can be read by other readers of the file. Unlike {@link #sync()}, this does not force the
+     * data to be written to disk.
+     *
+     * @throws IOException if unable to flush the buffered records
+     */
+    void flush() throws IOException;
+
     /**
      * Syncs the content written to this writer to disk.
      *
@@ -92,4 +101,10 @@ public interface RecordWriter extends Closeable {
      * @return the TOC Writer that is being used to write the Table of Contents for this journal
      */
     TocWriter getTocWriter();
+
+    /**
+     * @return the index of the block that the most recently written record belongs to, or -1 if the writer has no Table of
+     *         Contents. If blocks are compressed in the background, the block may not yet have been added to the Table of Contents.
+     */
+    int getCurrentBlockIndex();
 }
@@ -18,7 +18,9 @@ package org.apache.nifi.provenance.serialization;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
+import org.apache.nifi.provenance.ColumnarRecordWriter;
 import org.apache.nifi.provenance.StandardRecordWriter;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
@@ -26,6 +28,7 @@ import org.apache.nifi.provenance.toc.TocWriter;
 
 public class RecordWriters {
     private static final int DEFAULT_COMPRESSION_BLOCK_SIZE = 1024 * 1024; // 1 MB
+    private static final int MAX_PENDING_COMPRESSION_BLOCKS = 8;
 
     public static RecordWriter newRecordWriter(final File file, final boolean compressed, final boolean createToc) throws IOException {
         return newRecordWriter(file, compressed, createToc, DEFAULT_COMPRESSION_BLOCK_SIZE);
@@ -36,4 +39,39 @@ public class RecordWriters {
         return new StandardRecordWriter(file, tocWriter, compressed, compressionBlockBytes);
     }
 
+    public static RecordWriter newRecordWriter(final File file, final boolean compressed, final boolean createToc, final EventFileFormat format) throws IOException {
+        return newRecordWriter(file, compressed, createToc, DEFAULT_COMPRESSION_BLOCK_SIZE, format);
+    }
+
+    public static RecordWriter newRecordWriter(final File file, final boolean compressed, final boolean createToc, final int compressionBlockBytes,
+        final EventFileFormat format) throws IOException {
+        return newRecordWriter(file, compressed, createToc, compressionBlockBytes, format, null);
+    }
+
+    /**
+     * Creates a writer that, if <code>compressed</code>, compresses its blocks on the given thread pool
+     *
+     * @param file the file to write to
+     * @param compressed whether or not to compress the file
+     * @param createToc whether or not to create a Table of Contents for the file
+     * @param format the format in which to write the events
+     * @param compressionExecutor the thread pool on which to compress blocks, or null to compress them on the writing thread
+     * @return the writer
+     * @throws IOException if unable to create the file or its Table of Contents
+     */
+    public static RecordWriter newRecordWriter(final File file, final boolean compressed, final boolean createToc, final EventFileFormat format,
+        final ExecutorService compressionExecutor) throws IOException {
+        return newRecordWriter(file, compressed, createToc, DEFAULT_COMPRESSION_BLOCK_SIZE, format, compressionExecutor);
+    }
+
+    public static RecordWriter newRecordWriter(final File file, final boolean compressed, final boolean createToc, final int compressionBlockBytes,
+        final EventFileFormat format, final ExecutorService compressionExecutor) throws IOException {
+        final TocWriter tocWriter = createToc ? new StandardTocWriter(TocUtil.getTocFile(file), false, false) : null;
+        if (format == EventFileFormat.STANDARD) {
+            return new StandardRecordWriter(file, tocWriter, compressed, compressionBlockBytes, compressionExecutor, MAX_PENDING_COMPRESSION_BLOCKS);
+        }
+
+        return new ColumnarRecordWriter(file, tocWriter, compressed, compressionBlockBytes, compressionExecutor, MAX_PENDING_COMPRESSION_BLOCKS);
+    }
+
 }
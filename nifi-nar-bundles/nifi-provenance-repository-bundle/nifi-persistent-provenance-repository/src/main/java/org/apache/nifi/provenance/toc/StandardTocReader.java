@@ -21,6 +21,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Standard implementation of TocReader.
@@ -118,19 +119,16 @@ public class StandardTocReader implements TocReader {
 
     @Override
     public int getBlockIndex(final long blockOffset) {
-        for (int i=0; i < offsets.length; i++) {
-            if ( offsets[i] > blockOffset ) {
-                // if the offset is less than the offset of our first block,
-                // just return 0 to indicate the first block. Otherwise,
-                // return i-1 because i represents the first block whose offset is
-                // greater than 'blockOffset'.
-                return (i == 0) ? 0 : i-1;
-            }
+        final int index = Arrays.binarySearch(offsets, blockOffset);
+        if ( index >= 0 ) {
+            return index;
         }
 
-        // None of the blocks have an offset greater than the provided offset.
-        // Therefore, if the event is present, it must be in the last block.
-        return offsets.length - 1;
+        // insertionPoint is the first block whose offset is greater than 'blockOffset' (or offsets.length
+        // if there is none), so the offset falls within the block before it. If the offset is less than the
+        // offset of our first block, just return 0 to indicate the first block.
+        final int insertionPoint = -index - 1;
+        return (insertionPoint == 0) ? 0 : insertionPoint - 1;
     }
 
     @Override
@@ -142,14 +140,9 @@ public class StandardTocReader implements TocReader {
             return null;
         }
 
-        for (int i=1; i < firstEventIds.length; i++) {
-            if ( firstEventIds[i] > eventId ) {
-                return i-1;
-            }
-        }
-
-        // None of the blocks start with an Event ID greater than the provided ID.
-        // Therefore, if the event is present, it must be in the last block.
-        return firstEventIds.length - 1;
+        // Otherwise, the event must be in the last block that starts with an Event ID that is not greater
+        // than the provided ID.
+        final int index = Arrays.binarySearch(firstEventIds, eventId);
+        return (index >= 0) ? index : -index - 2;
     }
 }
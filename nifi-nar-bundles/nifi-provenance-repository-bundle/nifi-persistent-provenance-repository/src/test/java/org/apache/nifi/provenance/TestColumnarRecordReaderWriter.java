@@ -0,0 +1,443 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.apache.nifi.provenance.TestUtil.createFlowFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.nifi.provenance.serialization.EventFileFormat;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.RecordReaders;
+import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.serialization.RecordWriters;
+import org.apache.nifi.provenance.toc.StandardTocReader;
+import org.apache.nifi.provenance.toc.StandardTocWriter;
+import org.apache.nifi.provenance.toc.TocReader;
+import org.apache.nifi.provenance.toc.TocUtil;
+import org.apache.nifi.provenance.toc.TocWriter;
+import org.apache.nifi.util.file.FileUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestColumnarRecordReaderWriter {
+    @BeforeClass
+    public static void setLogLevel() {
+        System.setProperty("org.slf4j.simpleLogger.log.org.apache.nifi.provenance", "DEBUG");
+    }
+
+    private ProvenanceEventRecord createEvent() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "1.txt");
+        attributes.put("uuid", UUID.randomUUID().toString());
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.fromFlowFile(createFlowFile(3L, 3000L, attributes));
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+        final ProvenanceEventRecord record = builder.build();
+
+        return record;
+    }
+
+    @Test
+    public void testSimpleWriteWithToc() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testSimpleWrite");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, false, 1024 * 1024);
+
+        writer.writeHeader(1L);
+        writer.writeRecord(createEvent(), 1L);
+        writer.close();
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            assertEquals(0, reader.getBlockIndex());
+            reader.skipToBlock(0);
+            final StandardProvenanceEventRecord recovered = reader.nextRecord();
+            assertNotNull(recovered);
+
+            assertEquals(1L, recovered.getEventId());
+            assertEquals("nifi://unit-test", recovered.getTransitUri());
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testSingleRecordCompressed() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testSimpleWrite.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, true, 100);
+
+        writer.writeHeader(1L);
+        writer.writeRecord(createEvent(), 1L);
+        writer.close();
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            assertEquals(0, reader.getBlockIndex());
+            reader.skipToBlock(0);
+            final StandardProvenanceEventRecord recovered = reader.nextRecord();
+            assertNotNull(recovered);
+
+            assertEquals("nifi://unit-test", recovered.getTransitUri());
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testMultipleRecordsSameBlockCompressed() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testSimpleWrite.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, true, 1024 * 1024);
+
+        writer.writeHeader(1L);
+        for (int i = 0; i < 10; i++) {
+            writer.writeRecord(createEvent(), i);
+        }
+        writer.close();
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(0, reader.getBlockIndex());
+
+                // call skipToBlock half the time to ensure that we can; avoid calling it
+                // the other half of the time to ensure that it's okay.
+                if (i <= 5) {
+                    reader.skipToBlock(0);
+                }
+
+                final StandardProvenanceEventRecord recovered = reader.nextRecord();
+                assertNotNull(recovered);
+                assertEquals(i, recovered.getEventId());
+                assertEquals("nifi://unit-test", recovered.getTransitUri());
+            }
+
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testMultipleRecordsMultipleBlocksCompressed() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testSimpleWrite.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        // new block each 100 bytes
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, true, 100);
+
+        writer.writeHeader(1L);
+        for (int i = 0; i < 10; i++) {
+            writer.writeRecord(createEvent(), i);
+        }
+        writer.close();
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+        assertTrue(tocReader.getBlockIndex(tocReader.getLastBlockOffset()) > 0);
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            for (int i = 0; i < 10; i++) {
+                final StandardProvenanceEventRecord recovered = reader.nextRecord();
+                assertNotNull(recovered);
+                assertEquals(i, recovered.getEventId());
+                assertEquals("nifi://unit-test", recovered.getTransitUri());
+            }
+
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testMultipleBlocksCompressedInParallel() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testParallelWrite.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final int[] blockIndices = new int[100];
+
+        try {
+            // new block each 100 bytes, with no more than 2 blocks waiting to be written
+            final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, true, 100, executor, 2);
+
+            writer.writeHeader(0L);
+            for (int i = 0; i < 100; i++) {
+                writer.writeRecord(createEvent(), i);
+                blockIndices[i] = writer.getCurrentBlockIndex();
+            }
+            writer.close();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+        assertEquals(blockIndices[99], tocReader.getBlockIndex(tocReader.getLastBlockOffset()));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(blockIndices[i]), tocReader.getBlockIndexForEventId(i));
+        }
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            for (int i = 0; i < 100; i++) {
+                final StandardProvenanceEventRecord recovered = reader.nextRecord();
+                assertNotNull(recovered);
+                assertEquals(i, recovered.getEventId());
+                assertEquals("nifi://unit-test", recovered.getTransitUri());
+            }
+
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testAllFieldsRecovered() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testAllFields");
+        journalFile.getParentFile().mkdirs();
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, null, true, 1024 * 1024);
+
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("filename", "1.txt");
+        previousAttributes.put("uuid", UUID.randomUUID().toString());
+        previousAttributes.put("large", "abcdefghijklmnopqrstuvwxyz");
+
+        final Map<String, String> updatedAttributes = new HashMap<>();
+        updatedAttributes.put("filename", "2.txt");
+        updatedAttributes.put("removed", null);
+
+        final long now = System.currentTimeMillis();
+        final String childUuid = UUID.randomUUID().toString();
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(now);
+        builder.setEventType(ProvenanceEventType.FORK);
+        builder.setFlowFileUUID(previousAttributes.get("uuid"));
+        builder.setFlowFileEntryDate(now - 5000L);
+        builder.setLineageStartDate(now - 10000L);
+        builder.setEventDuration(42L);
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+        builder.setSourceQueueIdentifier("queue-1");
+        builder.setRelationship("success");
+        builder.setDetails("forked");
+        builder.setAttributes(previousAttributes, updatedAttributes);
+        builder.setCurrentContentClaim("container", "section", "claim-1", 12L, 3000L);
+        builder.setPreviousContentClaim("container", "section", "claim-0", 4L, 2000L);
+        builder.addChildUuid(childUuid);
+        final ProvenanceEventRecord event = builder.build();
+
+        writer.writeHeader(7L);
+        writer.writeRecord(event, 7L);
+        writer.writeRecord(createEvent(), 8L);
+        writer.close();
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), null, 10)) {
+            final StandardProvenanceEventRecord recovered = reader.nextRecord();
+            assertNotNull(recovered);
+
+            assertEquals(7L, recovered.getEventId());
+            assertEquals(ProvenanceEventType.FORK, recovered.getEventType());
+            assertEquals(now, recovered.getEventTime());
+            assertEquals(now - 5000L, recovered.getFlowFileEntryDate());
+            assertEquals(now - 10000L, recovered.getLineageStartDate());
+            assertEquals(42L, recovered.getEventDuration());
+            assertEquals("1234", recovered.getComponentId());
+            assertEquals("dummy processor", recovered.getComponentType());
+            assertEquals("queue-1", recovered.getSourceQueueIdentifier());
+            assertEquals("success", recovered.getRelationship());
+            assertEquals("forked", recovered.getDetails());
+            assertEquals(previousAttributes.get("uuid"), recovered.getFlowFileUuid());
+
+            assertEquals("1.txt", recovered.getPreviousAttributes().get("filename"));
+            assertEquals("abcdefghij", recovered.getPreviousAttributes().get("large"));
+            assertEquals("2.txt", recovered.getUpdatedAttributes().get("filename"));
+            assertTrue(recovered.getUpdatedAttributes().containsKey("removed"));
+            assertNull(recovered.getUpdatedAttributes().get("removed"));
+
+            assertEquals("container", recovered.getContentClaimContainer());
+            assertEquals("section", recovered.getContentClaimSection());
+            assertEquals("claim-1", recovered.getContentClaimIdentifier());
+            assertEquals(Long.valueOf(12L), recovered.getContentClaimOffset());
+            assertEquals(3000L, recovered.getFileSize());
+            assertEquals("claim-0", recovered.getPreviousContentClaimIdentifier());
+            assertEquals(Long.valueOf(4L), recovered.getPreviousContentClaimOffset());
+            assertEquals(Long.valueOf(2000L), recovered.getPreviousFileSize());
+            assertEquals(1, recovered.getChildUuids().size());
+            assertEquals(childUuid, recovered.getChildUuids().get(0));
+
+            final StandardProvenanceEventRecord second = reader.nextRecord();
+            assertNotNull(second);
+            assertEquals(8L, second.getEventId());
+            assertEquals(ProvenanceEventType.RECEIVE, second.getEventType());
+            assertEquals("nifi://unit-test", second.getTransitUri());
+            assertNull(second.getContentClaimIdentifier());
+
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testSkipToEvent() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testSkipToEvent.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, true, 500);
+
+        writer.writeHeader(0L);
+        for (int i = 0; i < 100; i++) {
+            writer.writeRecord(createEvent(), i);
+        }
+        writer.close();
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            assertEquals(0L, reader.nextRecord().getEventId());
+
+            assertTrue(reader.skipToEvent(5L));
+            assertEquals(5L, reader.nextRecord().getEventId());
+            assertEquals(6L, reader.nextRecord().getEventId());
+
+            assertTrue(reader.skipToEvent(77L));
+            final StandardProvenanceEventRecord recovered = reader.nextRecord();
+            assertEquals(77L, recovered.getEventId());
+            assertEquals("nifi://unit-test", recovered.getTransitUri());
+
+            assertFalse(reader.skipToEvent(100L));
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testStandardReaderSkipToEvent() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testSkipToEvent.gz");
+        journalFile.getParentFile().mkdirs();
+        final StandardRecordWriter writer = new StandardRecordWriter(journalFile, null, true, 500);
+
+        writer.writeHeader(0L);
+        for (int i = 0; i < 20; i++) {
+            writer.writeRecord(createEvent(), i);
+        }
+        writer.close();
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final StandardRecordReader reader = new StandardRecordReader(fis, journalFile.getName(), 2048)) {
+            assertTrue(reader.skipToEvent(5L));
+            assertEquals(5L, reader.nextRecord().getEventId());
+            assertTrue(reader.skipToEvent(5L));
+            assertEquals(6L, reader.nextRecord().getEventId());
+            assertFalse(reader.skipToEvent(20L));
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testGetMaxEventId() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testMaxEventId.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ColumnarRecordWriter writer = new ColumnarRecordWriter(journalFile, tocWriter, true, 500);
+
+        writer.writeHeader(10L);
+        for (int i = 10; i < 60; i++) {
+            writer.writeRecord(createEvent(), i);
+        }
+        writer.close();
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), new StandardTocReader(tocFile), 2048)) {
+            assertEquals(59L, reader.getMaxEventId());
+        }
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final ColumnarRecordReader reader = new ColumnarRecordReader(fis, journalFile.getName(), null, 2048)) {
+            assertEquals(59L, reader.getMaxEventId());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
+
+    @Test
+    public void testFormatDetectedByRecordReaders() throws IOException {
+        final File storageDir = new File("target/storage/" + UUID.randomUUID().toString());
+        final File columnarFile = new File(storageDir, "1.prov.gz");
+        final File standardFile = new File(storageDir, "2.prov.gz");
+
+        for (final File file : new File[] {columnarFile, standardFile}) {
+            final EventFileFormat format = file == columnarFile ? EventFileFormat.COLUMNAR : EventFileFormat.STANDARD;
+            try (final RecordWriter writer = RecordWriters.newRecordWriter(file, true, true, format)) {
+                writer.writeHeader(1L);
+                for (int i = 1; i <= 3; i++) {
+                    writer.writeRecord(createEvent(), i);
+                }
+            }
+        }
+
+        try (final RecordReader reader = RecordReaders.newRecordReader(columnarFile, null, 2048)) {
+            assertTrue(reader instanceof ColumnarRecordReader);
+            assertTrue(reader.isBlockIndexAvailable());
+            assertEquals(1L, reader.nextRecord().getEventId());
+        }
+
+        try (final RecordReader reader = RecordReaders.newRecordReader(standardFile, null, 2048)) {
+            assertTrue(reader instanceof StandardRecordReader);
+            assertEquals(1L, reader.nextRecord().getEventId());
+        }
+
+        FileUtils.deleteFile(storageDir, true);
+    }
+}
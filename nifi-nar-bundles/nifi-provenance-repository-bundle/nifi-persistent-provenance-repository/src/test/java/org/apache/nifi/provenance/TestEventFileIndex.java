@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.apache.nifi.util.file.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestEventFileIndex {
+
+    private File storageDir;
+
+    @Before
+    public void setup() {
+        storageDir = new File("target/storage/" + UUID.randomUUID().toString());
+        storageDir.mkdirs();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtils.deleteFile(storageDir, true);
+    }
+
+    @Test
+    public void testRangesPersisted() throws IOException {
+        final EventFileIndex index = EventFileIndex.load(storageDir);
+        assertEquals(-1L, index.getMaxEventId());
+
+        index.add(new EventFileIndex.Range(0L, 99L, "0.prov.gz"));
+        index.add(new EventFileIndex.Range(100L, 149L, "100.prov.gz"));
+        index.add(new EventFileIndex.Range(150L, 400L, "150.prov"));
+        assertTrue(EventFileIndex.getIndexFile(storageDir).exists());
+
+        final EventFileIndex reloaded = EventFileIndex.load(storageDir);
+        assertEquals(400L, reloaded.getMaxEventId());
+        assertEquals(149L, reloaded.getRange(100L).getLastEventId());
+        assertEquals("100.prov.gz", reloaded.getRange(100L).getFilename());
+        assertNull(reloaded.getRange(101L));
+
+        reloaded.remove(Arrays.asList(0L, 150L));
+        assertNull(reloaded.getRange(0L));
+        assertEquals(149L, reloaded.getMaxEventId());
+        assertEquals(149L, EventFileIndex.load(storageDir).getMaxEventId());
+    }
+
+    @Test
+    public void testRetainForgetsMissingFiles() throws IOException {
+        final EventFileIndex index = EventFileIndex.load(storageDir);
+        index.add(new EventFileIndex.Range(0L, 99L, "0.prov.gz"));
+        index.add(new EventFileIndex.Range(100L, 149L, "100.prov.gz"));
+
+        index.retain(Collections.singleton(0L));
+        assertEquals(99L, index.getMaxEventId());
+
+        final EventFileIndex reloaded = EventFileIndex.load(storageDir);
+        assertEquals(99L, reloaded.getRange(0L).getLastEventId());
+        assertNull(reloaded.getRange(100L));
+    }
+
+    @Test
+    public void testCorruptIndexIsEmpty() throws IOException {
+        final File indexFile = EventFileIndex.getIndexFile(storageDir);
+        indexFile.getParentFile().mkdirs();
+        try (final FileOutputStream fos = new FileOutputStream(indexFile)) {
+            fos.write(new byte[] {0, 0, 0, 1, 0, 0, 0, 5, 1, 2});
+        }
+
+        final EventFileIndex index = EventFileIndex.load(storageDir);
+        assertEquals(-1L, index.getMaxEventId());
+        assertNull(index.getRange(0L));
+
+        index.add(new EventFileIndex.Range(0L, 9L, "0.prov"));
+        assertEquals(9L, EventFileIndex.load(storageDir).getMaxEventId());
+    }
+}
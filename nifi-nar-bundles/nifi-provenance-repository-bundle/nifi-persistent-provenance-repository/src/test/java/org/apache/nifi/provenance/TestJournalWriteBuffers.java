@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class TestJournalWriteBuffers {
+
+    private ProvenanceEventRecord createEvent(final String componentId) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setEventType(ProvenanceEventType.CREATE)
+            .setComponentId(componentId)
+            .setComponentType("dummy processor")
+            .setFlowFileUUID("1234")
+            .setCurrentContentClaim(null, null, null, null, 0L)
+            .build();
+    }
+
+    private List<String> getComponentIds(final List<ProvenanceEventRecord> events) {
+        final List<String> componentIds = new ArrayList<>();
+        synchronized (events) {
+            for (final ProvenanceEventRecord event : events) {
+                componentIds.add(event.getComponentId());
+            }
+        }
+        return componentIds;
+    }
+
+    @Test
+    public void testEventsFromOneThreadAreWrittenInOrder() {
+        final List<ProvenanceEventRecord> written = Collections.synchronizedList(new ArrayList<ProvenanceEventRecord>());
+        final JournalWriteBuffers buffers = new JournalWriteBuffers(4, 3, new JournalWriteBuffers.EventWriter() {
+            @Override
+            public void write(final List<ProvenanceEventRecord> events) {
+                written.addAll(events);
+            }
+        }, Executors.defaultThreadFactory());
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(String.valueOf(i));
+            buffers.enqueue(Collections.singleton(createEvent(String.valueOf(i))));
+        }
+        buffers.shutdown();
+
+        assertEquals(expected, getComponentIds(written));
+        assertEquals(0L, buffers.getPendingEventCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedWriteIsRetriedAndReportedToCaller() throws InterruptedException {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        // wait for the write to be retried, so that the first failure has been recorded
+        final CountDownLatch failureLatch = new CountDownLatch(2);
+        final List<ProvenanceEventRecord> written = Collections.synchronizedList(new ArrayList<ProvenanceEventRecord>());
+        final JournalWriteBuffers buffers = new JournalWriteBuffers(1, 10, new JournalWriteBuffers.EventWriter() {
+            @Override
+            public void write(final List<ProvenanceEventRecord> events) {
+                if (failing.get()) {
+                    failureLatch.countDown();
+                    throw new IllegalStateException("Intentional unit test failure");
+                }
+                written.addAll(events);
+            }
+        }, Executors.defaultThreadFactory());
+
+        buffers.enqueue(Collections.singleton(createEvent("1")));
+        assertTrue(failureLatch.await(5, TimeUnit.SECONDS));
+
+        // the failure is handed to the next thread that registers events, and the buffered event is kept
+        try {
+            buffers.enqueue(Collections.singleton(createEvent("2")));
+            fail("Registered events while the buffered events could not be written");
+        } catch (final IllegalStateException e) {
+            assertEquals("Intentional unit test failure", e.getCause().getMessage());
+        }
+        assertEquals(1L, buffers.getPendingEventCount());
+
+        failing.set(false);
+        while (buffers.getPendingEventCount() > 0L) {
+            Thread.sleep(10L);
+        }
+
+        buffers.enqueue(Collections.singleton(createEvent("3")));
+        buffers.shutdown();
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("1");
+        expected.add("3");
+        assertEquals(expected, getComponentIds(written));
+        assertEquals(0L, buffers.getFailedEventCount());
+    }
+}
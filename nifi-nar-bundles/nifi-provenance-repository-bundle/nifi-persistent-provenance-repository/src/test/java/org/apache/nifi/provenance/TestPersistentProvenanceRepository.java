@@ -18,14 +18,18 @@ package org.apache.nifi.provenance;
 
 import static org.apache.nifi.provenance.TestUtil.createFlowFile;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,11 +57,15 @@ import org.apache.nifi.provenance.lineage.Lineage;
 import org.apache.nifi.provenance.lineage.LineageEdge;
 import org.apache.nifi.provenance.lineage.LineageNode;
 import org.apache.nifi.provenance.lineage.LineageNodeType;
+import org.apache.nifi.provenance.search.EventIdOrder;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryCursor;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerms;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.EventFileFormat;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.RecordWriter;
@@ -269,6 +277,52 @@ public class TestPersistentProvenanceRepository {
         }
     }
 
+    @Test
+    public void testAddWithJournalWriteBuffersAndRecover() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileCapacity(1L);
+        config.setMaxEventFileLife(1, TimeUnit.SECONDS);
+        config.setJournalCount(2);
+        config.setJournalBufferSize(5);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("abc", "xyz");
+        attributes.put("uuid", UUID.randomUUID().toString());
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.fromFlowFile(createFlowFile(3L, 3000L, attributes));
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+        final ProvenanceEventRecord record = builder.build();
+
+        // more events than the buffers can hold, so that some of the registrations must wait for the writer threads
+        for (int i = 0; i < 100; i++) {
+            repo.registerEvent(record);
+        }
+
+        // closing the repository writes all of the events that are still buffered
+        repo.close();
+        assertEquals(0L, repo.getBufferedEventCount());
+        assertTrue(repo.getMaxEnqueueLatency(TimeUnit.NANOSECONDS) > 0L);
+        assertTrue(repo.getMaxDrainLag(TimeUnit.NANOSECONDS) > 0L);
+        Thread.sleep(500L);
+
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+        final List<ProvenanceEventRecord> recoveredRecords = repo.getEvents(0L, 200);
+
+        assertEquals(100, recoveredRecords.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, recoveredRecords.get(i).getEventId());
+            assertEquals("nifi://unit-test", recoveredRecords.get(i).getTransitUri());
+        }
+    }
+
     @Test
     public void testAddToMultipleLogsAndRecover() throws IOException, InterruptedException {
         final List<SearchableField> searchableFields = new ArrayList<>();
@@ -327,6 +381,59 @@ public class TestPersistentProvenanceRepository {
         }
     }
 
+    @Test
+    public void testEventFileIndexUsedForLookupAndRecovery() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", UUID.randomUUID().toString());
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.fromFlowFile(createFlowFile(3L, 3000L, attributes));
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 10; i++) {
+            repo.registerEvent(builder.build());
+        }
+        repo.waitForRollover();
+
+        for (int i = 0; i < 10; i++) {
+            repo.registerEvent(builder.build());
+        }
+        repo.waitForRollover();
+
+        final File storageDir = config.getStorageDirectories().get(0);
+        final EventFileIndex fileIndex = EventFileIndex.load(storageDir);
+        assertEquals(9L, fileIndex.getRange(0L).getLastEventId());
+        assertEquals(19L, fileIndex.getRange(10L).getLastEventId());
+
+        assertEquals(5L, repo.getEvent(5L).getEventId());
+        assertEquals(15L, repo.getEvent(15L).getEventId());
+        assertNull(repo.getEvent(25L));
+
+        repo.close();
+        Thread.sleep(500L); // Give the repo time to shutdown (i.e., close all file handles, etc.)
+
+        // recover using the index, and then again after the index has been lost
+        for (int i = 0; i < 2; i++) {
+            repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+            repo.initialize(getEventReporter());
+            assertEquals(Long.valueOf(19L), repo.getMaxEventId());
+            assertEquals(12L, repo.getEvent(12L).getEventId());
+
+            repo.close();
+            Thread.sleep(500L);
+            assertTrue(EventFileIndex.getIndexFile(storageDir).delete());
+        }
+    }
+
     @Test
     public void testIndexOnRolloverAndSubsequentSearch() throws IOException, InterruptedException, ParseException {
         final RepositoryConfiguration config = createConfiguration();
@@ -371,6 +478,208 @@ public class TestPersistentProvenanceRepository {
         }
     }
 
+    @Test
+    public void testContinuousIndexSearchBeforeRolloverAndAfterRecovery() throws IOException, InterruptedException, ParseException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(1, TimeUnit.HOURS);
+        config.setSearchableFields(new ArrayList<>(SearchableFields.getStandardFields()));
+        config.setContinuousIndexing(true);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        registerTenEvents();
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, "000000*"));
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "12?4"));
+        query.setMaxResults(100);
+
+        // the events have not been rolled over, so they can only be found in the journals
+        final long stopTime = System.currentTimeMillis() + 5000L;
+        QueryResult result = repo.queryEvents(query);
+        while (result.getMatchingEvents().size() < 10 && System.currentTimeMillis() < stopTime) {
+            Thread.sleep(50L);
+            result = repo.queryEvents(query);
+        }
+        assertEquals(10, result.getMatchingEvents().size());
+        for (final ProvenanceEventRecord match : result.getMatchingEvents()) {
+            assertEquals("nifi://unit-test", match.getTransitUri());
+        }
+
+        // on restart, the journals are merged and the events must be found exactly once
+        repo.close();
+        Thread.sleep(500L);
+
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+        assertEquals(10, repo.queryEvents(query).getMatchingEvents().size());
+    }
+
+    @Test
+    public void testContinuousIndexSearchAfterRollover() throws IOException, InterruptedException, ParseException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        config.setSearchableFields(new ArrayList<>(SearchableFields.getStandardFields()));
+        config.setContinuousIndexing(true);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        registerTenEvents();
+        repo.waitForRollover();
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, "000000*"));
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.Filename, "file-*"));
+        query.setMaxResults(100);
+
+        final QueryResult result = repo.queryEvents(query);
+        assertEquals(10, result.getMatchingEvents().size());
+        for (final ProvenanceEventRecord match : result.getMatchingEvents()) {
+            assertEquals("nifi://unit-test", match.getTransitUri());
+        }
+    }
+
+    @Test
+    public void testSearchComponentPartitionedIndex() throws IOException, InterruptedException, ParseException {
+        assertComponentPartitionedSearch(false);
+    }
+
+    @Test
+    public void testSearchComponentPartitionedContinuousIndex() throws IOException, InterruptedException, ParseException {
+        assertComponentPartitionedSearch(true);
+    }
+
+    private void assertComponentPartitionedSearch(final boolean continuousIndexing) throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        config.setSearchableFields(new ArrayList<>(SearchableFields.getStandardFields()));
+        config.setIndexComponentPartitions(4);
+        config.setContinuousIndexing(continuousIndexing);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("abc", "xyz");
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 20; i++) {
+            attributes.put("uuid", "00000000-0000-0000-0000-0000000000" + String.format("%02d", i));
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            builder.setComponentId("proc-" + (i % 5));
+            repo.registerEvent(builder.build());
+        }
+        repo.waitForRollover();
+
+        final Set<String> indexNames = new HashSet<>();
+        for (final File storageDir : config.getStorageDirectories()) {
+            for (final File file : storageDir.listFiles()) {
+                if (file.getName().startsWith("index-")) {
+                    assertTrue(file.getName(), file.getName().endsWith("of4"));
+                    indexNames.add(file.getName());
+                }
+            }
+        }
+        assertTrue(indexNames.size() > 1);
+
+        for (int i = 0; i < 5; i++) {
+            final Query query = new Query(UUID.randomUUID().toString());
+            query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "proc-" + i));
+            query.setMaxResults(100);
+
+            final QueryResult result = repo.queryEvents(query);
+            assertEquals(4, result.getMatchingEvents().size());
+            for (final ProvenanceEventRecord match : result.getMatchingEvents()) {
+                assertEquals("proc-" + i, match.getComponentId());
+            }
+        }
+
+        final Query laterQuery = new Query(UUID.randomUUID().toString());
+        laterQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "proc-1"));
+        laterQuery.setStartDate(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1L)));
+        laterQuery.setMaxResults(100);
+        assertEquals(0, repo.queryEvents(laterQuery).getMatchingEvents().size());
+    }
+
+    @Test
+    public void testEventPagesAcrossPartitions() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        config.setSearchableFields(new ArrayList<>(SearchableFields.getStandardFields()));
+        config.setIndexComponentPartitions(4);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final Map<String, String> attributes = new HashMap<>();
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 20; i++) {
+            attributes.put("uuid", "00000000-0000-0000-0000-0000000000" + String.format("%02d", i));
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            builder.setComponentId("proc-" + (i % 5));
+            repo.registerEvent(builder.build());
+        }
+        repo.waitForRollover();
+
+        // walk all events, oldest first, passing the cursor as a token as a remote client would
+        final Query allQuery = new Query(UUID.randomUUID().toString());
+        long expectedId = 0L;
+        int pageCount = 0;
+        QueryCursor cursor = QueryCursor.first(EventIdOrder.ASCENDING);
+        while (cursor != null) {
+            final QueryPage page = repo.getEventPage(allQuery, QueryCursor.fromToken(cursor.toToken()), 6);
+            assertTrue(page.getEvents().size() <= 6);
+            for (final ProvenanceEventRecord event : page.getEvents()) {
+                assertEquals(expectedId++, event.getEventId());
+            }
+            cursor = page.getNextCursor();
+            pageCount++;
+        }
+        assertEquals(20L, expectedId);
+        assertEquals(4, pageCount);
+
+        // walk the events of a single component, newest first
+        final Query componentQuery = new Query(UUID.randomUUID().toString());
+        componentQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "proc-1"));
+        final QueryPage firstPage = repo.getEventPage(componentQuery, QueryCursor.first(EventIdOrder.DESCENDING), 3);
+        assertEquals(3, firstPage.getEvents().size());
+        assertEquals(16L, firstPage.getEvents().get(0).getEventId());
+        assertEquals(11L, firstPage.getEvents().get(1).getEventId());
+        assertEquals(6L, firstPage.getEvents().get(2).getEventId());
+
+        final QueryPage lastPage = repo.getEventPage(componentQuery, firstPage.getNextCursor(), 3);
+        assertEquals(1, lastPage.getEvents().size());
+        assertEquals(1L, lastPage.getEvents().get(0).getEventId());
+        assertFalse(lastPage.hasMore());
+    }
+
+    private void registerTenEvents() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("abc", "xyz");
+        attributes.put("filename", "file-00000000-0000-0000-0000-000000000000");
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 10; i++) {
+            attributes.put("uuid", "00000000-0000-0000-0000-00000000000" + i);
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            repo.registerEvent(builder.build());
+        }
+    }
+
     @Test
     public void testCompressOnRollover() throws IOException, InterruptedException, ParseException {
         final RepositoryConfiguration config = createConfiguration();
@@ -405,6 +714,45 @@ public class TestPersistentProvenanceRepository {
         assertTrue(compressedLogFile.exists());
     }
 
+    @Test
+    public void testCompressOnRolloverWithCompressionThreads() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        config.setCompressOnRollover(true);
+        config.setCompressionThreadPoolSize(2);
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "file-1");
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 10; i++) {
+            attributes.put("uuid", "00000000-0000-0000-0000-00000000000" + i);
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            repo.registerEvent(builder.build());
+        }
+
+        repo.waitForRollover();
+        assertTrue(new File(config.getStorageDirectories().get(0), "0.prov.gz").exists());
+        assertEquals(0, repo.getRolloverBacklog());
+        assertTrue(repo.getLastRolloverDuration(TimeUnit.NANOSECONDS) > 0L);
+        assertTrue(repo.getMaxRolloverDuration(TimeUnit.NANOSECONDS) >= repo.getAverageRolloverDuration(TimeUnit.NANOSECONDS));
+
+        final List<ProvenanceEventRecord> events = repo.getEvents(0L, 12);
+        assertEquals(10, events.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, events.get(i).getEventId());
+            assertEquals("00000000-0000-0000-0000-00000000000" + i, events.get(i).getFlowFileUuid());
+        }
+    }
+
     @Test
     public void testIndexAndCompressOnRolloverAndSubsequentSearch() throws IOException, InterruptedException, ParseException {
         final RepositoryConfiguration config = createConfiguration();
@@ -464,6 +812,64 @@ public class TestPersistentProvenanceRepository {
         assertTrue(newRecordSet.getMatchingEvents().isEmpty());
     }
 
+    @Test
+    public void testColumnarEventFileFormatSearchAndRecover() throws IOException, InterruptedException, ParseException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxRecordLife(30, TimeUnit.SECONDS);
+        config.setMaxStorageCapacity(1024L * 1024L * 10);
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        config.setMaxEventFileCapacity(1024L * 1024L * 10);
+        config.setSearchableFields(new ArrayList<>(SearchableFields.getStandardFields()));
+        config.setEventFileFormat(EventFileFormat.COLUMNAR);
+
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("abc", "xyz");
+        attributes.put("filename", "file-1");
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 10; i++) {
+            attributes.put("uuid", "00000000-0000-0000-0000-00000000000" + i);
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            repo.registerEvent(builder.build());
+        }
+
+        repo.waitForRollover();
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.Filename, "file-*"));
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "1234"));
+        query.setMaxResults(100);
+
+        final QueryResult result = repo.queryEvents(query);
+        assertEquals(10, result.getMatchingEvents().size());
+
+        repo.close();
+        Thread.sleep(500L); // Give the repo time to shutdown (i.e., close all file handles, etc.)
+
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+        final List<ProvenanceEventRecord> recoveredRecords = repo.getEvents(0L, 12);
+
+        assertEquals(10, recoveredRecords.size());
+        for (int i = 0; i < 10; i++) {
+            final ProvenanceEventRecord recovered = recoveredRecords.get(i);
+            assertEquals(i, recovered.getEventId());
+            assertEquals("nifi://unit-test", recovered.getTransitUri());
+            assertEquals("00000000-0000-0000-0000-00000000000" + i, recovered.getFlowFileUuid());
+            assertEquals("file-1", recovered.getAttributes().get("filename"));
+        }
+        assertEquals(Long.valueOf(9L), repo.getMaxEventId());
+    }
+
     @Test
     public void testIndexAndCompressOnRolloverAndSubsequentSearchMultipleStorageDirs() throws IOException, InterruptedException, ParseException {
         final RepositoryConfiguration config = createConfiguration();
@@ -663,6 +1069,56 @@ public class TestPersistentProvenanceRepository {
         }
     }
 
+    @Test
+    public void testLineageAndEventCache() throws IOException, InterruptedException, ParseException {
+        final RepositoryConfiguration config = createConfiguration();
+        config.setMaxEventFileLife(500, TimeUnit.MILLISECONDS);
+        config.setSearchableFields(new ArrayList<>(SearchableFields.getStandardFields()));
+        config.setEventCacheBytes(1024L * 1024L);
+
+        repo = new PersistentProvenanceRepository(config, DEFAULT_ROLLOVER_MILLIS);
+        repo.initialize(getEventReporter());
+
+        final String uuid = "00000000-0000-0000-0000-000000000001";
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", uuid);
+        attributes.put("filename", "file-" + uuid);
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.fromFlowFile(createFlowFile(3L, 3000L, attributes));
+        builder.setComponentId("1234");
+        builder.setComponentType("dummy processor");
+
+        repo.registerEvent(builder.build());
+        repo.waitForRollover();
+
+        // events are cached as they are merged
+        final ProvenanceEventRecord event = repo.getEvent(0L);
+        assertNotNull(event);
+        assertEquals(ProvenanceEventType.RECEIVE, event.getEventType());
+        assertEquals(100D, repo.getEventCacheHitRate(), 0.01D);
+        assertTrue(repo.getEventCacheSize() > 0L);
+
+        assertEquals(2, repo.computeLineage(uuid).getNodes().size());
+        assertEquals(0D, repo.getLineageCacheHitRate(), 0.01D);
+        assertEquals(2, repo.computeLineage(uuid).getNodes().size());
+        assertEquals(50D, repo.getLineageCacheHitRate(), 0.01D);
+
+        // once the DROP event is searchable, the cached lineage must not be used
+        builder.setEventTime(System.currentTimeMillis() + 1);
+        builder.setEventType(ProvenanceEventType.DROP);
+        builder.setTransitUri(null);
+        repo.registerEvent(builder.build());
+        repo.waitForRollover();
+
+        assertEquals(3, repo.computeLineage(uuid).getNodes().size());
+        assertEquals(3, repo.computeLineage(uuid).getNodes().size());
+        assertEquals(50D, repo.getLineageCacheHitRate(), 0.01D);
+    }
+
     @Test
     public void testLineageReceiveDropAsync() throws IOException, InterruptedException, ParseException {
         final RepositoryConfiguration config = createConfiguration();
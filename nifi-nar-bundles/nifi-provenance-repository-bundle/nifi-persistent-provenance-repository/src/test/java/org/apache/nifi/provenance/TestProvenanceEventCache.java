@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class TestProvenanceEventCache {
+
+    private ProvenanceEventRecord createEvent(final long eventId, final String flowFileUuid) {
+        final StandardProvenanceEventRecord event = new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setEventType(ProvenanceEventType.CREATE)
+            .setComponentId("1234")
+            .setComponentType("dummy processor")
+            .setFlowFileUUID(flowFileUuid)
+            .setCurrentContentClaim(null, null, null, null, 0L)
+            .build();
+        event.setEventId(eventId);
+        return event;
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEvents() {
+        final long eventSize = ProvenanceEventCache.estimateSize(createEvent(0L, UUID.randomUUID().toString()));
+        final ProvenanceEventCache cache = new ProvenanceEventCache(eventSize * 3);
+
+        for (long i = 0; i < 3; i++) {
+            cache.cacheEvent(createEvent(i, UUID.randomUUID().toString()));
+        }
+        assertEquals(3, cache.getEntryCount());
+
+        // touch event 0 so that event 1 is the least recently used
+        assertNotNull(cache.getEvent(0L));
+        cache.cacheEvent(createEvent(3L, UUID.randomUUID().toString()));
+
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(1L, cache.getEvictionCount());
+        assertTrue(cache.getSize() <= eventSize * 3);
+        assertNotNull(cache.getEvent(0L));
+        assertNull(cache.getEvent(1L));
+        assertNotNull(cache.getEvent(3L));
+
+        assertEquals(3L, cache.getEventHitCount());
+        assertEquals(1L, cache.getEventMissCount());
+        assertEquals(75D, cache.getEventHitRate(), 0.01D);
+    }
+
+    @Test
+    public void testLineageInvalidatedWhenFlowFileChanges() {
+        final ProvenanceEventCache cache = new ProvenanceEventCache(1024L * 1024L);
+        final String uuid = UUID.randomUUID().toString();
+        final List<String> uuids = Collections.singletonList(uuid);
+        assertNull(cache.getLineage(uuids, 0L, Long.MAX_VALUE));
+
+        final ProvenanceEventCache.PendingLineage pending = cache.startLineage(uuids, 0L, Long.MAX_VALUE, 2);
+        pending.stepCompleted(Arrays.asList(createEvent(0L, uuid)));
+        assertNull(cache.getLineage(uuids, 0L, Long.MAX_VALUE));
+        pending.stepCompleted(Arrays.asList(createEvent(1L, uuid)));
+
+        final Collection<ProvenanceEventRecord> cached = cache.getLineage(uuids, 0L, Long.MAX_VALUE);
+        assertNotNull(cached);
+        assertEquals(2, cached.size());
+        assertNull(cache.getLineage(uuids, 0L, 100L));
+
+        cache.eventSearchable(createEvent(2L, uuid));
+        assertNull(cache.getLineage(uuids, 0L, Long.MAX_VALUE));
+        assertEquals(1L, cache.getLineageHitCount());
+        assertEquals(4L, cache.getLineageMissCount());
+    }
+
+    @Test
+    public void testLineageNotCachedIfChangedWhileComputing() {
+        final ProvenanceEventCache cache = new ProvenanceEventCache(1024L * 1024L);
+        final String uuid = UUID.randomUUID().toString();
+        final List<String> uuids = Collections.singletonList(uuid);
+
+        final ProvenanceEventCache.PendingLineage pending = cache.startLineage(uuids, 0L, Long.MAX_VALUE, 1);
+        cache.eventSearchable(createEvent(1L, uuid));
+        pending.stepCompleted(Arrays.asList(createEvent(0L, uuid)));
+        assertNull(cache.getLineage(uuids, 0L, Long.MAX_VALUE));
+
+        final ProvenanceEventCache.PendingLineage failed = cache.startLineage(uuids, 0L, Long.MAX_VALUE, 2);
+        failed.stepFailed();
+        failed.stepCompleted(Arrays.asList(createEvent(0L, uuid)));
+        assertNull(cache.getLineage(uuids, 0L, Long.MAX_VALUE));
+    }
+}
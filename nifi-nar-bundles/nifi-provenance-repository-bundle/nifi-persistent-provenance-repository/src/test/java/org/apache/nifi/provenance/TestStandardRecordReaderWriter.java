@@ -27,6 +27,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.nifi.provenance.toc.StandardTocReader;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
@@ -186,4 +188,47 @@ public class TestStandardRecordReaderWriter {
 
         FileUtils.deleteFile(journalFile.getParentFile(), true);
     }
+
+    @Test
+    public void testMultipleBlocksCompressedInParallel() throws IOException {
+        final File journalFile = new File("target/storage/" + UUID.randomUUID().toString() + "/testParallelWrite.gz");
+        final File tocFile = TocUtil.getTocFile(journalFile);
+        final TocWriter tocWriter = new StandardTocWriter(tocFile, false, false);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final int[] blockIndices = new int[100];
+
+        try {
+            // new block each 100 bytes, with no more than 2 blocks waiting to be written
+            final StandardRecordWriter writer = new StandardRecordWriter(journalFile, tocWriter, true, 100, executor, 2);
+
+            writer.writeHeader(0L);
+            for (int i = 0; i < 100; i++) {
+                writer.writeRecord(createEvent(), i);
+                blockIndices[i] = writer.getCurrentBlockIndex();
+            }
+            writer.close();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final TocReader tocReader = new StandardTocReader(tocFile);
+        assertEquals(blockIndices[99], tocReader.getBlockIndex(tocReader.getLastBlockOffset()));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(blockIndices[i]), tocReader.getBlockIndexForEventId(i));
+        }
+
+        try (final FileInputStream fis = new FileInputStream(journalFile);
+            final StandardRecordReader reader = new StandardRecordReader(fis, journalFile.getName(), tocReader, 2048)) {
+            for (int i = 0; i < 100; i++) {
+                final StandardProvenanceEventRecord recovered = reader.nextRecord();
+                assertNotNull(recovered);
+                assertEquals(i, recovered.getEventId());
+                assertEquals("nifi://unit-test", recovered.getTransitUri());
+            }
+
+            assertNull(reader.nextRecord());
+        }
+
+        FileUtils.deleteFile(journalFile.getParentFile(), true);
+    }
 }
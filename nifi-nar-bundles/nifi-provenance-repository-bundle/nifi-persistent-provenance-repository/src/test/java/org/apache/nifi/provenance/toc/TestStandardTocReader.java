@@ -18,6 +18,7 @@ package org.apache.nifi.provenance.toc;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.DataOutputStream;
@@ -115,4 +116,37 @@ public class TestStandardTocReader {
             file.delete();
         }
     }
+
+    @Test
+    public void testGetBlockIndexForEventId() throws IOException {
+        final File file = new File("target/" + UUID.randomUUID().toString());
+        try (final OutputStream out = new FileOutputStream(file);
+                final DataOutputStream dos = new DataOutputStream(out)) {
+            out.write(2);
+            out.write(0);
+
+            for (int i=0; i < 1024; i++) {
+                dos.writeLong(i * 1024L);
+                dos.writeLong(100L + i * 10L);
+            }
+        }
+
+        try {
+            try(final StandardTocReader reader = new StandardTocReader(file)) {
+                assertNull(reader.getBlockIndexForEventId(99L));
+                assertEquals(Integer.valueOf(0), reader.getBlockIndexForEventId(100L));
+                assertEquals(Integer.valueOf(0), reader.getBlockIndexForEventId(109L));
+                assertEquals(Integer.valueOf(1), reader.getBlockIndexForEventId(110L));
+                assertEquals(Integer.valueOf(511), reader.getBlockIndexForEventId(5219L));
+                assertEquals(Integer.valueOf(1023), reader.getBlockIndexForEventId(Long.MAX_VALUE));
+
+                assertEquals(0, reader.getBlockIndex(0L));
+                assertEquals(0, reader.getBlockIndex(1023L));
+                assertEquals(1, reader.getBlockIndex(1024L));
+                assertEquals(1023, reader.getBlockIndex(Long.MAX_VALUE));
+            }
+        } finally {
+            file.delete();
+        }
+    }
 }
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.util.RingBuffer;
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+
+/**
+ * A {@link ProvenanceEventBuffer} that holds the events themselves in a {@link RingBuffer} on the heap
+ */
+class HeapProvenanceEventBuffer implements ProvenanceEventBuffer {
+
+    private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    public HeapProvenanceEventBuffer(final int bufferSize) {
+        ringBuffer = new RingBuffer<>(bufferSize);
+    }
+
+    @Override
+    public void add(final ProvenanceEventRecord event) {
+        final long id = idGenerator.getAndIncrement();
+        ringBuffer.add(new IdEnrichedProvEvent(event, id));
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long eventId) {
+        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+            @Override
+            public boolean select(final ProvenanceEventRecord event) {
+                return event.getEventId() == eventId;
+            }
+        }, 1);
+
+        return records.isEmpty() ? null : records.get(0);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstEventId, final int maxEvents) {
+        return ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+            @Override
+            public boolean select(final ProvenanceEventRecord value) {
+                return value.getEventId() >= firstEventId;
+            }
+        }, maxEvents);
+    }
+
+    @Override
+    public ProvenanceEventRecord getNewestEvent() {
+        return ringBuffer.getNewestElement();
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getSelectedEvents(final Filter<ProvenanceEventRecord> filter) {
+        return ringBuffer.getSelectedElements(filter);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getSelectedEvents(final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+        return ringBuffer.getSelectedElements(filter, maxEvents);
+    }
+
+    @Override
+    public void forEach(final ForEachEvaluator<ProvenanceEventRecord> evaluator, final IterationDirection iterationDirection) {
+        ringBuffer.forEach(evaluator, iterationDirection);
+    }
+
+    private static class IdEnrichedProvEvent implements ProvenanceEventRecord {
+
+        private final ProvenanceEventRecord record;
+        private final long id;
+
+        public IdEnrichedProvEvent(final ProvenanceEventRecord record, final long id) {
+            this.record = record;
+            this.id = id;
+        }
+
+        @Override
+        public long getEventId() {
+            return id;
+        }
+
+        @Override
+        public long getEventTime() {
+            return record.getEventTime();
+        }
+
+        @Override
+        public long getFlowFileEntryDate() {
+            return record.getFlowFileEntryDate();
+        }
+
+        @Override
+        public long getLineageStartDate() {
+            return record.getLineageStartDate();
+        }
+
+        @Override
+        public Set<String> getLineageIdentifiers() {
+            return record.getLineageIdentifiers();
+        }
+
+        @Override
+        public long getFileSize() {
+            return record.getFileSize();
+        }
+
+        @Override
+        public Long getPreviousFileSize() {
+            return record.getPreviousFileSize();
+        }
+
+        @Override
+        public long getEventDuration() {
+            return record.getEventDuration();
+        }
+
+        @Override
+        public ProvenanceEventType getEventType() {
+            return record.getEventType();
+        }
+
+        @Override
+        public Map<String, String> getAttributes() {
+            return record.getAttributes();
+        }
+
+        @Override
+        public Map<String, String> getPreviousAttributes() {
+            return record.getPreviousAttributes();
+        }
+
+        @Override
+        public Map<String, String> getUpdatedAttributes() {
+            return record.getUpdatedAttributes();
+        }
+
+        @Override
+        public String getComponentId() {
+            return record.getComponentId();
+        }
+
+        @Override
+        public String getComponentType() {
+            return record.getComponentType();
+        }
+
+        @Override
+        public String getTransitUri() {
+            return record.getTransitUri();
+        }
+
+        @Override
+        public String getSourceSystemFlowFileIdentifier() {
+            return record.getSourceSystemFlowFileIdentifier();
+        }
+
+        @Override
+        public String getFlowFileUuid() {
+            return record.getFlowFileUuid();
+        }
+
+        @Override
+        public List<String> getParentUuids() {
+            return record.getParentUuids();
+        }
+
+        @Override
+        public List<String> getChildUuids() {
+            return record.getChildUuids();
+        }
+
+        @Override
+        public String getAlternateIdentifierUri() {
+            return record.getAlternateIdentifierUri();
+        }
+
+        @Override
+        public String getDetails() {
+            return record.getDetails();
+        }
+
+        @Override
+        public String getRelationship() {
+            return record.getRelationship();
+        }
+
+        @Override
+        public String getSourceQueueIdentifier() {
+            return record.getSourceQueueIdentifier();
+        }
+
+        @Override
+        public String getContentClaimSection() {
+            return record.getContentClaimSection();
+        }
+
+        @Override
+        public String getPreviousContentClaimSection() {
+            return record.getPreviousContentClaimSection();
+        }
+
+        @Override
+        public String getContentClaimContainer() {
+            return record.getContentClaimContainer();
+        }
+
+        @Override
+        public String getPreviousContentClaimContainer() {
+            return record.getPreviousContentClaimContainer();
+        }
+
+        @Override
+        public String getContentClaimIdentifier() {
+            return record.getContentClaimIdentifier();
+        }
+
+        @Override
+        public String getPreviousContentClaimIdentifier() {
+            return record.getPreviousContentClaimIdentifier();
+        }
+
+        @Override
+        public Long getContentClaimOffset() {
+            return record.getContentClaimOffset();
+        }
+
+        @Override
+        public Long getPreviousContentClaimOffset() {
+            return record.getPreviousContentClaimOffset();
+        }
+    }
+}
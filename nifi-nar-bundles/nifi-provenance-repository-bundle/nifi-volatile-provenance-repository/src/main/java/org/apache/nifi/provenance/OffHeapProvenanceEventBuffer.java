@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+
+/**
+ * <p>
+ * A {@link ProvenanceEventBuffer} that holds serialized events in a fixed-size ring of direct (off-heap) memory, so that a buffer of
+ * millions of events adds neither to the size of the heap nor to the work of the garbage collector. Events are deserialized only when
+ * they are read.
+ * </p>
+ *
+ * <p>
+ * Because this buffer assigns Event IDs itself, the IDs of the events in the buffer are contiguous, and the index from an Event ID to
+ * the position of its event in the ring is a single array with one slot per event. The oldest events are evicted when either the ring
+ * runs out of bytes or the index runs out of slots.
+ * </p>
+ */
+class OffHeapProvenanceEventBuffer implements ProvenanceEventBuffer {
+
+    // each entry begins with its length (including this header) and the Event ID
+    private static final int ENTRY_HEADER_LENGTH = 12;
+    private static final long NOT_STORED = -1L;
+
+    private final ByteBuffer data;
+    private final long[] positions;
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Lock readLock = rwLock.readLock();
+    private final Lock writeLock = rwLock.writeLock();
+
+    // guarded by rwLock
+    private long nextEventId = 0L;
+    private long oldestEventId = 0L;
+    private long writePosition = 0L;
+
+    /**
+     * @param maxEvents the maximum number of events to hold
+     * @param capacityBytes the number of bytes of direct memory in which to hold the serialized events
+     */
+    public OffHeapProvenanceEventBuffer(final int maxEvents, final int capacityBytes) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("Buffer must hold at least 1 event");
+        }
+        if (capacityBytes <= ENTRY_HEADER_LENGTH) {
+            throw new IllegalArgumentException("Buffer must be larger than " + ENTRY_HEADER_LENGTH + " bytes");
+        }
+
+        data = ByteBuffer.allocateDirect(capacityBytes);
+        positions = new long[maxEvents];
+    }
+
+    @Override
+    public void add(final ProvenanceEventRecord event) {
+        final byte[] entry = serialize(event);
+        final ByteBuffer header = ByteBuffer.wrap(entry);
+
+        writeLock.lock();
+        try {
+            final long eventId = nextEventId++;
+            if (eventId - oldestEventId >= positions.length) {
+                oldestEventId = eventId - positions.length + 1;
+            }
+
+            final int slot = slot(eventId);
+            if (entry.length > data.capacity()) {
+                positions[slot] = NOT_STORED;
+                return;
+            }
+
+            header.putInt(0, entry.length);
+            header.putLong(4, eventId);
+            write(writePosition, entry);
+            positions[slot] = writePosition;
+            writePosition += entry.length;
+
+            // evict the events whose bytes have now been overwritten
+            final long overwrittenBefore = writePosition - data.capacity();
+            while (oldestEventId < eventId && positions[slot(oldestEventId)] < overwrittenBefore) {
+                oldestEventId++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long eventId) {
+        readLock.lock();
+        try {
+            return read(data.duplicate(), eventId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstEventId, final int maxEvents) {
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+
+        readLock.lock();
+        try {
+            final ByteBuffer view = data.duplicate();
+            for (long eventId = Math.max(firstEventId, oldestEventId); eventId < nextEventId && events.size() < maxEvents; eventId++) {
+                final ProvenanceEventRecord event = read(view, eventId);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        return events;
+    }
+
+    @Override
+    public ProvenanceEventRecord getNewestEvent() {
+        readLock.lock();
+        try {
+            final ByteBuffer view = data.duplicate();
+            for (long eventId = nextEventId - 1; eventId >= oldestEventId; eventId--) {
+                final ProvenanceEventRecord event = read(view, eventId);
+                if (event != null) {
+                    return event;
+                }
+            }
+
+            return null;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getSelectedEvents(final Filter<ProvenanceEventRecord> filter) {
+        return getSelectedEvents(filter, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getSelectedEvents(final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+        final List<ProvenanceEventRecord> selected = new ArrayList<>();
+        forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
+            @Override
+            public boolean evaluate(final ProvenanceEventRecord event) {
+                if (filter.select(event)) {
+                    selected.add(event);
+                }
+
+                return selected.size() < maxEvents;
+            }
+        }, IterationDirection.FORWARD);
+
+        return selected;
+    }
+
+    @Override
+    public void forEach(final ForEachEvaluator<ProvenanceEventRecord> evaluator, final IterationDirection iterationDirection) {
+        readLock.lock();
+        try {
+            final ByteBuffer view = data.duplicate();
+            final boolean forward = iterationDirection == IterationDirection.FORWARD;
+            final long increment = forward ? 1L : -1L;
+            for (long eventId = forward ? oldestEventId : nextEventId - 1; eventId >= oldestEventId && eventId < nextEventId; eventId += increment) {
+                final ProvenanceEventRecord event = read(view, eventId);
+                if (event != null && !evaluator.evaluate(event)) {
+                    return;
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int slot(final long eventId) {
+        return (int) (eventId % positions.length);
+    }
+
+    private void write(final long position, final byte[] bytes) {
+        final int offset = (int) (position % data.capacity());
+        final int firstLength = Math.min(bytes.length, data.capacity() - offset);
+        data.position(offset);
+        data.put(bytes, 0, firstLength);
+
+        if (firstLength < bytes.length) {
+            data.position(0);
+            data.put(bytes, firstLength, bytes.length - firstLength);
+        }
+    }
+
+    private void read(final ByteBuffer view, final long position, final byte[] destination) {
+        final int offset = (int) (position % data.capacity());
+        final int firstLength = Math.min(destination.length, data.capacity() - offset);
+        view.position(offset);
+        view.get(destination, 0, firstLength);
+
+        if (firstLength < destination.length) {
+            view.position(0);
+            view.get(destination, firstLength, destination.length - firstLength);
+        }
+    }
+
+    /**
+     * Must be called while holding the read lock
+     */
+    private ProvenanceEventRecord read(final ByteBuffer view, final long eventId) {
+        if (eventId < oldestEventId || eventId >= nextEventId) {
+            return null;
+        }
+
+        final long position = positions[slot(eventId)];
+        if (position == NOT_STORED) {
+            return null;
+        }
+
+        final byte[] header = new byte[ENTRY_HEADER_LENGTH];
+        read(view, position, header);
+        final byte[] entry = new byte[ByteBuffer.wrap(header).getInt(0)];
+        read(view, position, entry);
+
+        return deserialize(eventId, entry);
+    }
+
+    private static byte[] serialize(final ProvenanceEventRecord event) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+        try (final DataOutputStream out = new DataOutputStream(baos)) {
+            out.write(new byte[ENTRY_HEADER_LENGTH]);
+            out.writeUTF(event.getEventType().name());
+            out.writeLong(event.getEventTime());
+            out.writeLong(event.getFlowFileEntryDate());
+            out.writeLong(event.getLineageStartDate());
+            out.writeLong(event.getEventDuration());
+            writeStrings(out, event.getLineageIdentifiers());
+            writeString(out, event.getComponentId());
+            writeString(out, event.getComponentType());
+            writeString(out, event.getFlowFileUuid());
+            writeStrings(out, event.getParentUuids());
+            writeStrings(out, event.getChildUuids());
+            writeString(out, event.getTransitUri());
+            writeString(out, event.getSourceSystemFlowFileIdentifier());
+            writeString(out, event.getAlternateIdentifierUri());
+            writeString(out, event.getDetails());
+            writeString(out, event.getRelationship());
+            writeString(out, event.getSourceQueueIdentifier());
+            writeAttributes(out, event.getPreviousAttributes());
+            writeAttributes(out, event.getUpdatedAttributes());
+
+            writeString(out, event.getContentClaimContainer());
+            writeString(out, event.getContentClaimSection());
+            writeString(out, event.getContentClaimIdentifier());
+            writeLong(out, event.getContentClaimOffset());
+            out.writeLong(event.getFileSize());
+
+            writeString(out, event.getPreviousContentClaimContainer());
+            writeString(out, event.getPreviousContentClaimSection());
+            writeString(out, event.getPreviousContentClaimIdentifier());
+            writeLong(out, event.getPreviousContentClaimOffset());
+            writeLong(out, event.getPreviousFileSize());
+        } catch (final IOException ioe) {
+            // cannot happen when writing to a byte array
+            throw new IllegalStateException("Failed to serialize Provenance Event", ioe);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private static ProvenanceEventRecord deserialize(final long eventId, final byte[] entry) {
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder();
+
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry, ENTRY_HEADER_LENGTH, entry.length - ENTRY_HEADER_LENGTH))) {
+            builder.setEventType(ProvenanceEventType.valueOf(in.readUTF()));
+            builder.setEventTime(in.readLong());
+            builder.setFlowFileEntryDate(in.readLong());
+            builder.setLineageStartDate(in.readLong());
+            builder.setEventDuration(in.readLong());
+
+            final List<String> lineageIdentifiers = readStrings(in);
+            builder.setLineageIdentifiers(lineageIdentifiers == null ? null : new HashSet<>(lineageIdentifiers));
+            builder.setComponentId(readString(in));
+            builder.setComponentType(readString(in));
+            builder.setFlowFileUUID(readString(in));
+
+            final List<String> parentUuids = readStrings(in);
+            if (parentUuids != null) {
+                for (final String parentUuid : parentUuids) {
+                    builder.addParentUuid(parentUuid);
+                }
+            }
+            final List<String> childUuids = readStrings(in);
+            if (childUuids != null) {
+                for (final String childUuid : childUuids) {
+                    builder.addChildUuid(childUuid);
+                }
+            }
+
+            builder.setTransitUri(readString(in));
+            builder.setSourceSystemFlowFileIdentifier(readString(in));
+            builder.setAlternateIdentifierUri(readString(in));
+            builder.setDetails(readString(in));
+            builder.setRelationship(readString(in));
+            builder.setSourceQueueIdentifier(readString(in));
+
+            final Map<String, String> previousAttributes = readAttributes(in);
+            final Map<String, String> updatedAttributes = readAttributes(in);
+            builder.setAttributes(previousAttributes, updatedAttributes);
+
+            builder.setCurrentContentClaim(readString(in), readString(in), readString(in), readLong(in), in.readLong());
+
+            final String previousContainer = readString(in);
+            final String previousSection = readString(in);
+            final String previousIdentifier = readString(in);
+            final Long previousOffset = readLong(in);
+            final Long previousSize = readLong(in);
+            if (previousSize != null) {
+                builder.setPreviousContentClaim(previousContainer, previousSection, previousIdentifier, previousOffset, previousSize);
+            }
+        } catch (final IOException ioe) {
+            // cannot happen when reading from a byte array that holds a complete entry
+            throw new IllegalStateException("Failed to deserialize Provenance Event with ID " + eventId, ioe);
+        }
+
+        final StandardProvenanceEventRecord event = builder.build();
+        event.setEventId(eventId);
+        return event;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(final DataOutputStream out, final Collection<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(values.size());
+        for (final String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+
+        final List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeAttributes(final DataOutputStream out, final Map<String, String> attributes) throws IOException {
+        if (attributes == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(attributes.size());
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readAttributes(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+
+        final Map<String, String> attributes = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            attributes.put(readString(in), readString(in));
+        }
+        return attributes;
+    }
+
+    private static void writeLong(final DataOutputStream out, final Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
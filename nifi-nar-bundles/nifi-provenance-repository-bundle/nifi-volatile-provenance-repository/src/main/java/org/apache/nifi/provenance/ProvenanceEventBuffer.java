@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.List;
+
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+
+/**
+ * A fixed-capacity buffer of the most recent Provenance Events. When the buffer is full, adding an event evicts the oldest.
+ */
+interface ProvenanceEventBuffer {
+
+    /**
+     * Adds the given event to the buffer, assigning it the next Event ID
+     *
+     * @param event the event to add
+     */
+    void add(ProvenanceEventRecord event);
+
+    /**
+     * @param eventId the ID of the event
+     * @return the event with the given ID, or <code>null</code> if it is not in the buffer
+     */
+    ProvenanceEventRecord getEvent(long eventId);
+
+    /**
+     * @param firstEventId the smallest ID of the events to return
+     * @param maxEvents the maximum number of events to return
+     * @return the events whose IDs are greater than or equal to the given ID, in ascending order of ID
+     */
+    List<ProvenanceEventRecord> getEvents(long firstEventId, int maxEvents);
+
+    /**
+     * @return the most recently added event, or <code>null</code> if the buffer is empty
+     */
+    ProvenanceEventRecord getNewestEvent();
+
+    List<ProvenanceEventRecord> getSelectedEvents(Filter<ProvenanceEventRecord> filter);
+
+    List<ProvenanceEventRecord> getSelectedEvents(Filter<ProvenanceEventRecord> filter, int maxEvents);
+
+    /**
+     * Calls the given evaluator with each event in the buffer, in the given order, until the evaluator returns <code>false</code>
+     *
+     * @param evaluator the evaluator
+     * @param iterationDirection {@link IterationDirection#FORWARD} to begin with the oldest event, {@link IterationDirection#BACKWARD} to
+     *            begin with the newest
+     */
+    void forEach(ForEachEvaluator<ProvenanceEventRecord> evaluator, IterationDirection iterationDirection);
+}
@@ -24,7 +24,6 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -34,7 +33,6 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.apache.nifi.events.EventReporter;
@@ -44,27 +42,31 @@ import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lineage.FlowFileLineage;
 import org.apache.nifi.provenance.lineage.Lineage;
 import org.apache.nifi.provenance.lineage.LineageComputationType;
+import org.apache.nifi.provenance.search.EventIdOrder;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryCursor;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerm;
 import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.util.IntegerHolder;
 import org.apache.nifi.util.NiFiProperties;
-import org.apache.nifi.util.RingBuffer;
 import org.apache.nifi.util.RingBuffer.Filter;
 import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
 import org.apache.nifi.util.RingBuffer.IterationDirection;
+import org.apache.nifi.util.StringUtils;
 
-public class VolatileProvenanceRepository implements ProvenanceEventRepository {
+public class VolatileProvenanceRepository implements PageableProvenanceEventRepository {
 
     // properties
     public static final String BUFFER_SIZE = "nifi.provenance.repository.buffer.size";
+    public static final String OFF_HEAP_BUFFER_SIZE = "nifi.provenance.repository.buffer.off.heap.size";
 
     // default property values
     public static final int DEFAULT_BUFFER_SIZE = 10000;
 
-    private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+    private final ProvenanceEventBuffer eventBuffer;
     private final List<SearchableField> searchableFields;
     private final List<SearchableField> searchableAttributes;
     private final ExecutorService queryExecService;
@@ -72,14 +74,23 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
     private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(0L);
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
     public VolatileProvenanceRepository() {
         final NiFiProperties properties = NiFiProperties.getInstance();
 
         final int bufferSize = properties.getIntegerProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
-        ringBuffer = new RingBuffer<>(bufferSize);
+        final String offHeapBufferSize = properties.getProperty(OFF_HEAP_BUFFER_SIZE);
+        if (StringUtils.isBlank(offHeapBufferSize)) {
+            eventBuffer = new HeapProvenanceEventBuffer(bufferSize);
+        } else {
+            final long offHeapBytes = DataUnit.parseDataSize(offHeapBufferSize.trim(), DataUnit.B).longValue();
+            if (offHeapBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Cannot create Provenance Repository because " + OFF_HEAP_BUFFER_SIZE + " is set to " + offHeapBufferSize
+                    + ", but the off-heap buffer can be no larger than 2 GB");
+            }
+            eventBuffer = new OffHeapProvenanceEventBuffer(bufferSize, (int) offHeapBytes);
+        }
 
         final String indexedFieldString = properties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = properties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
@@ -118,8 +129,7 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
     @Override
     public void registerEvent(final ProvenanceEventRecord event) {
-        final long id = idGenerator.getAndIncrement();
-        ringBuffer.add(new IdEnrichedProvEvent(event, id));
+        eventBuffer.add(event);
     }
 
     @Override
@@ -131,22 +141,17 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
     @Override
     public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords) throws IOException {
-        return ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
-            @Override
-            public boolean select(final ProvenanceEventRecord value) {
-                return value.getEventId() >= firstRecordId;
-            }
-        }, maxRecords);
+        return eventBuffer.getEvents(firstRecordId, maxRecords);
     }
 
     @Override
     public Long getMaxEventId() {
-        final ProvenanceEventRecord newest = ringBuffer.getNewestElement();
+        final ProvenanceEventRecord newest = eventBuffer.getNewestEvent();
         return (newest == null) ? null : newest.getEventId();
     }
 
     public ProvenanceEventRecord getEvent(final String identifier) throws IOException {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+        final List<ProvenanceEventRecord> records = eventBuffer.getSelectedEvents(new Filter<ProvenanceEventRecord>() {
             @Override
             public boolean select(final ProvenanceEventRecord event) {
                 return identifier.equals(event.getFlowFileUuid());
@@ -157,14 +162,7 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
     @Override
     public ProvenanceEventRecord getEvent(final long id) {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
-            @Override
-            public boolean select(final ProvenanceEventRecord event) {
-                return event.getEventId() == id;
-            }
-        }, 1);
-
-        return records.isEmpty() ? null : records.get(0);
+        return eventBuffer.getEvent(id);
     }
 
     @Override
@@ -200,6 +198,36 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
         return result;
     }
 
+    @Override
+    public QueryPage getEventPage(final Query query, final QueryCursor cursor, final int pageSize) throws IOException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        final Filter<ProvenanceEventRecord> filter = createFilter(query);
+        final List<ProvenanceEventRecord> matchingRecords = new ArrayList<>(pageSize);
+        final List<QueryCursor> nextCursor = new ArrayList<>(1);
+        eventBuffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
+            @Override
+            public boolean evaluate(final ProvenanceEventRecord record) {
+                if (!cursor.isAtOrBefore(record.getEventId()) || !filter.select(record)) {
+                    return true;
+                }
+
+                if (matchingRecords.size() < pageSize) {
+                    matchingRecords.add(record);
+                    return true;
+                }
+
+                // there is at least one more matching record, so the next page begins with it
+                nextCursor.add(new QueryCursor(cursor.getOrder(), record.getEventId()));
+                return false;
+            }
+        }, cursor.getOrder() == EventIdOrder.ASCENDING ? IterationDirection.FORWARD : IterationDirection.BACKWARD);
+
+        return new QueryPage(matchingRecords, nextCursor.isEmpty() ? null : nextCursor.get(0));
+    }
+
     private Filter<ProvenanceEventRecord> createFilter(final Query query) {
         return new Filter<ProvenanceEventRecord>() {
             @Override
@@ -355,14 +383,14 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
         if (query.getSearchTerms().isEmpty() && query.getStartDate() == null && query.getEndDate() == null) {
             final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1);
-            queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query), query.getMaxResults(), result));
+            queryExecService.submit(new QueryRunnable(eventBuffer, createFilter(query), query.getMaxResults(), result));
             querySubmissionMap.put(query.getIdentifier(), result);
             return result;
         }
 
         final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1);
         querySubmissionMap.put(query.getIdentifier(), result);
-        queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query), query.getMaxResults(), result));
+        queryExecService.submit(new QueryRunnable(eventBuffer, createFilter(query), query.getMaxResults(), result));
 
         return result;
     }
@@ -488,20 +516,20 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
             }
         };
 
-        queryExecService.submit(new ComputeLineageRunnable(ringBuffer, filter, result));
+        queryExecService.submit(new ComputeLineageRunnable(eventBuffer, filter, result));
 
         return result;
     }
 
     private static class QueryRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final ProvenanceEventBuffer eventBuffer;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncQuerySubmission submission;
         private final int maxRecords;
 
-        public QueryRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public QueryRunnable(final ProvenanceEventBuffer eventBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
+            this.eventBuffer = eventBuffer;
             this.filter = filter;
             this.submission = submission;
             this.maxRecords = maxRecords;
@@ -512,7 +540,7 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
             // Retrieve the most recent results and count the total number of matches
             final IntegerHolder matchingCount = new IntegerHolder(0);
             final List<ProvenanceEventRecord> matchingRecords = new ArrayList<>(maxRecords);
-            ringBuffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
+            eventBuffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
                 @Override
                 public boolean evaluate(final ProvenanceEventRecord record) {
                     if (filter.select(record)) {
@@ -532,19 +560,19 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
     private static class ComputeLineageRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final ProvenanceEventBuffer eventBuffer;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncLineageSubmission submission;
 
-        public ComputeLineageRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public ComputeLineageRunnable(final ProvenanceEventBuffer eventBuffer, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
+            this.eventBuffer = eventBuffer;
             this.filter = filter;
             this.submission = submission;
         }
 
         @Override
         public void run() {
-            final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(filter);
+            final List<ProvenanceEventRecord> records = eventBuffer.getSelectedEvents(filter);
             submission.getResult().update(records);
         }
     }
@@ -576,170 +604,4 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
             }
         }
     }
-
-    private static class IdEnrichedProvEvent implements ProvenanceEventRecord {
-
-        private final ProvenanceEventRecord record;
-        private final long id;
-
-        public IdEnrichedProvEvent(final ProvenanceEventRecord record, final long id) {
-            this.record = record;
-            this.id = id;
-        }
-
-        @Override
-        public long getEventId() {
-            return id;
-        }
-
-        @Override
-        public long getEventTime() {
-            return record.getEventTime();
-        }
-
-        @Override
-        public long getFlowFileEntryDate() {
-            return record.getFlowFileEntryDate();
-        }
-
-        @Override
-        public long getLineageStartDate() {
-            return record.getLineageStartDate();
-        }
-
-        @Override
-        public Set<String> getLineageIdentifiers() {
-            return record.getLineageIdentifiers();
-        }
-
-        @Override
-        public long getFileSize() {
-            return record.getFileSize();
-        }
-
-        @Override
-        public Long getPreviousFileSize() {
-            return record.getPreviousFileSize();
-        }
-
-        @Override
-        public long getEventDuration() {
-            return record.getEventDuration();
-        }
-
-        @Override
-        public ProvenanceEventType getEventType() {
-            return record.getEventType();
-        }
-
-        @Override
-        public Map<String, String> getAttributes() {
-            return record.getAttributes();
-        }
-
-        @Override
-        public Map<String, String> getPreviousAttributes() {
-            return record.getPreviousAttributes();
-        }
-
-        @Override
-        public Map<String, String> getUpdatedAttributes() {
-            return record.getUpdatedAttributes();
-        }
-
-        @Override
-        public String getComponentId() {
-            return record.getComponentId();
-        }
-
-        @Override
-        public String getComponentType() {
-            return record.getComponentType();
-        }
-
-        @Override
-        public String getTransitUri() {
-            return record.getTransitUri();
-        }
-
-        @Override
-        public String getSourceSystemFlowFileIdentifier() {
-            return record.getSourceSystemFlowFileIdentifier();
-        }
-
-        @Override
-        public String getFlowFileUuid() {
-            return record.getFlowFileUuid();
-        }
-
-        @Override
-        public List<String> getParentUuids() {
-            return record.getParentUuids();
-        }
-
-        @Override
-        public List<String> getChildUuids() {
-            return record.getChildUuids();
-        }
-
-        @Override
-        public String getAlternateIdentifierUri() {
-            return record.getAlternateIdentifierUri();
-        }
-
-        @Override
-        public String getDetails() {
-            return record.getDetails();
-        }
-
-        @Override
-        public String getRelationship() {
-            return record.getRelationship();
-        }
-
-        @Override
-        public String getSourceQueueIdentifier() {
-            return record.getSourceQueueIdentifier();
-        }
-
-        @Override
-        public String getContentClaimSection() {
-            return record.getContentClaimSection();
-        }
-
-        @Override
-        public String getPreviousContentClaimSection() {
-            return record.getPreviousContentClaimSection();
-        }
-
-        @Override
-        public String getContentClaimContainer() {
-            return record.getContentClaimContainer();
-        }
-
-        @Override
-        public String getPreviousContentClaimContainer() {
-            return record.getPreviousContentClaimContainer();
-        }
-
-        @Override
-        public String getContentClaimIdentifier() {
-            return record.getContentClaimIdentifier();
-        }
-
-        @Override
-        public String getPreviousContentClaimIdentifier() {
-            return record.getPreviousContentClaimIdentifier();
-        }
-
-        @Override
-        public Long getContentClaimOffset() {
-            return record.getContentClaimOffset();
-        }
-
-        @Override
-        public Long getPreviousContentClaimOffset() {
-            return record.getPreviousContentClaimOffset();
-        }
-    }
 }
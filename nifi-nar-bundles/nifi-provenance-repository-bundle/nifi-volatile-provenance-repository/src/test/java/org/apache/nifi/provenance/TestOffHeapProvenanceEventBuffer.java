@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+import org.junit.Test;
+
+public class TestOffHeapProvenanceEventBuffer {
+
+    private ProvenanceEventRecord createEvent(final String componentId, final int attributeLength) {
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("filename", "file-1");
+        previousAttributes.put("removed", "value");
+
+        final Map<String, String> updatedAttributes = new HashMap<>();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < attributeLength; i++) {
+            sb.append('x');
+        }
+        updatedAttributes.put("large", sb.toString());
+        updatedAttributes.put("removed", null);
+
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(1000L);
+        builder.setFlowFileEntryDate(900L);
+        builder.setLineageStartDate(800L);
+        builder.addLineageIdentifier("lineage-1");
+        builder.setEventDuration(12L);
+        builder.setEventType(ProvenanceEventType.FORK);
+        builder.setComponentId(componentId);
+        builder.setComponentType("dummy processor");
+        builder.setFlowFileUUID(UUID.randomUUID().toString());
+        builder.addParentUuid("parent-1");
+        builder.addChildUuid("child-1");
+        builder.addChildUuid("child-2");
+        builder.setDetails("details");
+        builder.setSourceQueueIdentifier("queue-1");
+        builder.setAttributes(previousAttributes, updatedAttributes);
+        builder.setCurrentContentClaim("container", "section", "identifier", 10L, 100L);
+        builder.setPreviousContentClaim("container", "section", "previous", 0L, 50L);
+        return builder.build();
+    }
+
+    @Test
+    public void testEventIsRestoredFromBuffer() {
+        final OffHeapProvenanceEventBuffer buffer = new OffHeapProvenanceEventBuffer(10, 64 * 1024);
+        final ProvenanceEventRecord original = createEvent("1234", 10);
+        buffer.add(original);
+
+        final ProvenanceEventRecord restored = buffer.getEvent(0L);
+        assertEquals(0L, restored.getEventId());
+        assertEquals(ProvenanceEventType.FORK, restored.getEventType());
+        assertEquals(original.getEventTime(), restored.getEventTime());
+        assertEquals(original.getFlowFileEntryDate(), restored.getFlowFileEntryDate());
+        assertEquals(original.getLineageStartDate(), restored.getLineageStartDate());
+        assertEquals(original.getLineageIdentifiers(), restored.getLineageIdentifiers());
+        assertEquals(original.getEventDuration(), restored.getEventDuration());
+        assertEquals(original.getComponentId(), restored.getComponentId());
+        assertEquals(original.getFlowFileUuid(), restored.getFlowFileUuid());
+        assertEquals(original.getParentUuids(), restored.getParentUuids());
+        assertEquals(original.getChildUuids(), restored.getChildUuids());
+        assertEquals(original.getDetails(), restored.getDetails());
+        assertEquals(original.getSourceQueueIdentifier(), restored.getSourceQueueIdentifier());
+        assertEquals(original.getPreviousAttributes(), restored.getPreviousAttributes());
+        assertEquals(original.getUpdatedAttributes(), restored.getUpdatedAttributes());
+        assertEquals(original.getAttributes(), restored.getAttributes());
+        assertEquals(original.getContentClaimIdentifier(), restored.getContentClaimIdentifier());
+        assertEquals(original.getContentClaimOffset(), restored.getContentClaimOffset());
+        assertEquals(original.getFileSize(), restored.getFileSize());
+        assertEquals(original.getPreviousContentClaimIdentifier(), restored.getPreviousContentClaimIdentifier());
+        assertEquals(original.getPreviousFileSize(), restored.getPreviousFileSize());
+
+        assertNull(buffer.getEvent(1L));
+    }
+
+    @Test
+    public void testOldestEventsEvictedWhenOutOfBytes() {
+        final OffHeapProvenanceEventBuffer buffer = new OffHeapProvenanceEventBuffer(1000, 8 * 1024);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(createEvent(String.valueOf(i), 100));
+        }
+
+        final List<ProvenanceEventRecord> events = buffer.getEvents(0L, 1000);
+        assertTrue(events.size() > 1);
+        assertTrue(events.size() < 100);
+        assertNull(buffer.getEvent(0L));
+
+        // the retained events are the newest, and they are intact even where they wrap around the end of the ring
+        final long oldestId = 100 - events.size();
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(oldestId + i, events.get(i).getEventId());
+            assertEquals(String.valueOf(oldestId + i), events.get(i).getComponentId());
+        }
+        assertEquals(99L, buffer.getNewestEvent().getEventId());
+    }
+
+    @Test
+    public void testOldestEventsEvictedWhenOutOfSlots() {
+        final OffHeapProvenanceEventBuffer buffer = new OffHeapProvenanceEventBuffer(10, 1024 * 1024);
+        for (int i = 0; i < 25; i++) {
+            buffer.add(createEvent(String.valueOf(i), 10));
+        }
+
+        final List<Long> eventIds = new ArrayList<>();
+        buffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
+            @Override
+            public boolean evaluate(final ProvenanceEventRecord event) {
+                eventIds.add(event.getEventId());
+                return true;
+            }
+        }, IterationDirection.BACKWARD);
+
+        assertEquals(10, eventIds.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(24L - i, eventIds.get(i).longValue());
+        }
+        assertEquals(5, buffer.getEvents(20L, 100).size());
+    }
+
+    @Test
+    public void testEventLargerThanBufferIsNotStored() {
+        final OffHeapProvenanceEventBuffer buffer = new OffHeapProvenanceEventBuffer(10, 1024);
+        buffer.add(createEvent("small", 10));
+        buffer.add(createEvent("large", 2048));
+        buffer.add(createEvent("small", 10));
+
+        assertEquals(0L, buffer.getEvent(0L).getEventId());
+        assertNull(buffer.getEvent(1L));
+        assertEquals(2L, buffer.getNewestEvent().getEventId());
+        assertEquals(2, buffer.getEvents(0L, 10).size());
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.nifi.provenance;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -27,7 +28,10 @@ import java.util.Set;
 import java.util.UUID;
 
 import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.provenance.search.EventIdOrder;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryCursor;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerms;
 import org.apache.nifi.util.NiFiProperties;
@@ -77,6 +81,47 @@ public class TestVolatileProvenanceRepository {
         }
     }
 
+    @Test
+    public void testEventPages() throws IOException {
+        repo = new VolatileProvenanceRepository();
+
+        final Map<String, String> attributes = new HashMap<>();
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 25; i++) {
+            attributes.put("uuid", UUID.randomUUID().toString());
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            builder.setComponentId(i % 2 == 0 ? "even" : "odd");
+            repo.registerEvent(builder.build());
+        }
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "even"));
+
+        // 13 matching events: 0, 2, ..., 24
+        long expectedId = 0L;
+        QueryCursor cursor = QueryCursor.first(EventIdOrder.ASCENDING);
+        for (int pageIndex = 0; pageIndex < 3; pageIndex++) {
+            final QueryPage page = repo.getEventPage(query, QueryCursor.fromToken(cursor.toToken()), 5);
+            assertEquals(pageIndex == 2 ? 3 : 5, page.getEvents().size());
+            for (final ProvenanceEventRecord event : page.getEvents()) {
+                assertEquals(expectedId, event.getEventId());
+                expectedId += 2;
+            }
+            cursor = page.getNextCursor();
+        }
+        assertNull(cursor);
+
+        final QueryPage newest = repo.getEventPage(query, QueryCursor.first(EventIdOrder.DESCENDING), 2);
+        assertEquals(24L, newest.getEvents().get(0).getEventId());
+        assertEquals(22L, newest.getEvents().get(1).getEventId());
+        assertEquals(20L, repo.getEventPage(query, newest.getNextCursor(), 2).getEvents().get(0).getEventId());
+    }
+
     @Test
     public void testIndexAndCompressOnRolloverAndSubsequentSearchAsync() throws InterruptedException {
         repo = new VolatileProvenanceRepository();
@@ -16,9 +16,11 @@
  */
 package org.apache.nifi.prioritizer;
 
+import org.apache.nifi.annotation.behavior.PrioritizesByQueueDate;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
 
+@PrioritizesByQueueDate
 public class FirstInFirstOutPrioritizer implements FlowFilePrioritizer {
 
     @Override